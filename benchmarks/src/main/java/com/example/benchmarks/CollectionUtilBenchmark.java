@@ -0,0 +1,70 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto.OrderItem;
+import com.example.common.util.CollectionUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order total calculation through {@link CollectionUtil#sum} (boxed doubles) and {@link CollectionUtil#sumExact}
+ * (integer minor units), against a plain loop as baseline
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CollectionUtilBenchmark {
+
+    @Param({"10", "1000"})
+    public int itemCount;
+
+    private List<OrderItem> items;
+
+    @Setup
+    public void createItems() {
+        items = new ArrayList<>(itemCount);
+        for (int i = 1; i <= itemCount; i++) {
+            items.add(OrderItem.newBuilder()
+                    .setProductId(i)
+                    .setProductName("Product " + i)
+                    .setQuantity(i % 5 + 1)
+                    .setPrice(i * 0.25)
+                    .setPriceMinor(i * 25L)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public double sum() {
+        return CollectionUtil.sum(items, item -> item.getPrice() * item.getQuantity());
+    }
+
+    @Benchmark
+    public long sumExact() {
+        return CollectionUtil.sumExact(items, item -> item.getPriceMinor() * item.getQuantity());
+    }
+
+    @Benchmark
+    public double loopBaseline() {
+        double total = 0.0;
+        for (OrderItem item : items) {
+            total += item.getPrice() * item.getQuantity();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto;
+import com.example.common.ResponseBuilder;
+import com.example.common.concurrent.DbConcurrencyLimiter;
+import com.example.common.config.ExecutionMode;
+import com.example.user.UserProto.GetUserRequest;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform vs virtual-thread execution mode under high concurrency.
+ * Each operation fires a burst of concurrent unary calls at an in-process server whose handler
+ * blocks like the real services do: a remote call (blocking stub) followed by JDBC work that
+ * is bounded by {@link DbConcurrencyLimiter}. Lower time per burst means higher throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ExecutionMode mode;
+
+    @Param({"200", "2000"})
+    public int concurrentCalls;
+
+    @Param({"5"})
+    public int remoteLatencyMillis;
+
+    @Param({"1"})
+    public int dbLatencyMillis;
+
+    @Param({"10"})
+    public int dbConcurrency;
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceStub stub;
+    private Executor serverExecutor;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        String serverName = "execution-mode-" + mode;
+        DbConcurrencyLimiter limiter = new DbConcurrencyLimiter(dbConcurrency, Duration.ofSeconds(30));
+
+        InProcessServerBuilder serverBuilder = InProcessServerBuilder.forName(serverName)
+                .addService(new BlockingUserService(limiter, remoteLatencyMillis, dbLatencyMillis));
+        serverExecutor = mode.newServerExecutor("bench-vt-");
+        if (serverExecutor != null) {
+            serverBuilder.executor(serverExecutor);
+        }
+        server = serverBuilder.build().start();
+
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+        stub = UserServiceGrpc.newStub(channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        if (serverExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public int burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(concurrentCalls);
+        AtomicInteger failures = new AtomicInteger();
+        GetUserRequest request = GetUserRequest.newBuilder().setUserId(1).build();
+
+        for (int i = 0; i < concurrentCalls; i++) {
+            stub.getUser(request, new StreamObserver<>() {
+                @Override
+                public void onNext(GetUserResponse response) {
+                    // Only completion matters
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    failures.incrementAndGet();
+                    done.countDown();
+                }
+
+                @Override
+                public void onCompleted() {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " calls failed");
+        }
+        return concurrentCalls;
+    }
+
+    /**
+     * Stand-in for a service handler: blocking stub call, then bounded JDBC work
+     */
+    private static final class BlockingUserService extends UserServiceGrpc.UserServiceImplBase {
+
+        private static final CommonProto.User USER = CommonProto.User.newBuilder()
+                .setId(1)
+                .setName("Benchmark User")
+                .setEmail("benchmark@example.com")
+                .build();
+
+        private final DbConcurrencyLimiter limiter;
+        private final int remoteLatencyMillis;
+        private final int dbLatencyMillis;
+
+        private BlockingUserService(DbConcurrencyLimiter limiter, int remoteLatencyMillis, int dbLatencyMillis) {
+            this.limiter = limiter;
+            this.remoteLatencyMillis = remoteLatencyMillis;
+            this.dbLatencyMillis = dbLatencyMillis;
+        }
+
+        @Override
+        public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> responseObserver) {
+            block(remoteLatencyMillis);
+            limiter.run(() -> block(dbLatencyMillis));
+
+            responseObserver.onNext(GetUserResponse.newBuilder()
+                    .setResponse(ResponseBuilder.success("User found"))
+                    .setUser(USER)
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        private static void block(int millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto;
+import com.example.common.ResponseBuilder;
+import com.example.common.exception.ResourceNotFoundException;
+import com.example.common.interceptors.GlobalExceptionInterceptor;
+import com.example.common.interceptors.GrpcServerMetricsInterceptor;
+import com.example.common.metrics.GrpcMetrics;
+import com.example.user.UserProto.GetUserRequest;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserServiceGrpc;
+import com.example.user.constants.UserErrorCode;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link GlobalExceptionInterceptor} on an in-process unary call.
+ * Compares the success path with and without the interceptor, and the error path where a
+ * domain exception is logged and mapped to a status. Log output goes to a no-op appender
+ * (see logback.xml), so the error path includes building the log event but not writing it.
+ * The production stack adds {@link GrpcServerMetricsInterceptor} with a Prometheus registry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GlobalExceptionInterceptorBenchmark {
+
+    private static final String PLAIN_SERVER = "exception-interceptor-plain";
+    private static final String INTERCEPTED_SERVER = "exception-interceptor-intercepted";
+    private static final String PRODUCTION_SERVER = "exception-interceptor-production";
+    private static final long MISSING_USER_ID = 0L;
+
+    private Server plainServer;
+    private Server interceptedServer;
+    private Server productionServer;
+    private ManagedChannel plainChannel;
+    private ManagedChannel interceptedChannel;
+    private ManagedChannel productionChannel;
+    private UserServiceGrpc.UserServiceBlockingStub plainStub;
+    private UserServiceGrpc.UserServiceBlockingStub interceptedStub;
+    private UserServiceGrpc.UserServiceBlockingStub productionStub;
+
+    private final GetUserRequest existingUserRequest = GetUserRequest.newBuilder().setUserId(1L).build();
+    private final GetUserRequest missingUserRequest = GetUserRequest.newBuilder().setUserId(MISSING_USER_ID).build();
+
+    @Setup(Level.Trial)
+    public void startServers() throws Exception {
+        FixedUserService userService = new FixedUserService();
+        plainServer = startServer(PLAIN_SERVER, userService.bindService());
+        interceptedServer = startServer(INTERCEPTED_SERVER,
+                ServerInterceptors.intercept(userService, new GlobalExceptionInterceptor()));
+        // Same order as the services' GrpcServerConfigurer: the metrics interceptor runs first
+        GrpcMetrics grpcMetrics = new GrpcMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), true);
+        productionServer = startServer(PRODUCTION_SERVER, ServerInterceptors.intercept(userService,
+                new GlobalExceptionInterceptor(), new GrpcServerMetricsInterceptor(grpcMetrics)));
+
+        plainChannel = InProcessChannelBuilder.forName(PLAIN_SERVER).directExecutor().build();
+        interceptedChannel = InProcessChannelBuilder.forName(INTERCEPTED_SERVER).directExecutor().build();
+        productionChannel = InProcessChannelBuilder.forName(PRODUCTION_SERVER).directExecutor().build();
+        plainStub = UserServiceGrpc.newBlockingStub(plainChannel);
+        interceptedStub = UserServiceGrpc.newBlockingStub(interceptedChannel);
+        productionStub = UserServiceGrpc.newBlockingStub(productionChannel);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServers() throws InterruptedException {
+        plainChannel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        interceptedChannel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        productionChannel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        plainServer.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        interceptedServer.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        productionServer.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public GetUserResponse successWithoutInterceptor() {
+        return plainStub.getUser(existingUserRequest);
+    }
+
+    @Benchmark
+    public GetUserResponse successWithInterceptor() {
+        return interceptedStub.getUser(existingUserRequest);
+    }
+
+    @Benchmark
+    public GetUserResponse successWithMetricsInterceptor() {
+        return productionStub.getUser(existingUserRequest);
+    }
+
+    @Benchmark
+    public StatusRuntimeException notFoundWithInterceptor() {
+        try {
+            interceptedStub.getUser(missingUserRequest);
+            throw new IllegalStateException("Expected NOT_FOUND");
+        } catch (StatusRuntimeException e) {
+            return e;
+        }
+    }
+
+    private static Server startServer(String serverName, ServerServiceDefinition service) throws Exception {
+        return InProcessServerBuilder.forName(serverName)
+                .directExecutor()
+                .addService(service)
+                .build()
+                .start();
+    }
+
+    /**
+     * Answers every lookup from memory; the missing ID throws like the real handler does
+     */
+    private static final class FixedUserService extends UserServiceGrpc.UserServiceImplBase {
+
+        private static final CommonProto.User USER = CommonProto.User.newBuilder()
+                .setId(1)
+                .setName("Benchmark User")
+                .setEmail("benchmark@example.com")
+                .build();
+
+        @Override
+        public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> responseObserver) {
+            if (request.getUserId() == MISSING_USER_ID) {
+                throw new ResourceNotFoundException(
+                    UserErrorCode.USER_NOT_FOUND,
+                    String.format("User with ID '%s' not found", request.getUserId())
+                );
+            }
+
+            responseObserver.onNext(GetUserResponse.newBuilder()
+                    .setResponse(ResponseBuilder.success("User found"))
+                    .setUser(USER)
+                    .build());
+            responseObserver.onCompleted();
+        }
+    }
+}
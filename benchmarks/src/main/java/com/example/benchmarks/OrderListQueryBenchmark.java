@@ -0,0 +1,136 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto;
+import com.example.order.OrderProto.ListOrdersRequest;
+import com.example.order.OrderProto.ListOrdersResponse;
+import com.example.order.OrderServiceApplication;
+import com.example.order.OrderServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ListOrders pages through the real Order Service over an orders table seeded with {@code tableRows} orders,
+ * one per second, 100 consecutive orders per customer and statuses in rotation. Each query starts in the middle
+ * of the table: with the composite indexes a page reads only the rows it returns, so the time per page stays
+ * flat from 100k to millions of rows instead of growing with the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class OrderListQueryBenchmark {
+
+    private static final String ORDER_SERVER = "benchmark-order-list-service";
+    private static final LocalDateTime FIRST_ORDER_AT = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int ORDERS_PER_CUSTOMER = 100;
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"100000", "1000000", "3000000"})
+    public int tableRows;
+
+    private ConfigurableApplicationContext orderService;
+    private ManagedChannel channel;
+    private OrderServiceGrpc.OrderServiceBlockingStub orderStub;
+
+    private ListOrdersRequest byStatusAndTimeRange;
+    private ListOrdersRequest byCustomerAndStatus;
+    private ListOrdersRequest byTimeRange;
+
+    @Setup(Level.Trial)
+    public void startOrderService() {
+        // No user lookups are made, so User Service is neither needed nor watched
+        orderService = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--grpc.server.port=-1",
+                        "--grpc.server.in-process-name=" + ORDER_SERVER,
+                        "--order.user-cache.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-order-list;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.file.name=",
+                        "--logging.level.com.example=INFO",
+                        "--logging.level.com.example.order=INFO",
+                        "--logging.level.com.example.common.interceptors=INFO",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+
+        channel = InProcessChannelBuilder.forName(ORDER_SERVER).build();
+        orderStub = OrderServiceGrpc.newBlockingStub(channel);
+        seedOrders(orderService.getBean(JdbcTemplate.class));
+
+        // Start in the middle of the table, one day of orders is far more than a page
+        int middle = tableRows / 2;
+        String from = FIRST_ORDER_AT.plusSeconds(middle).toString();
+        String before = FIRST_ORDER_AT.plusSeconds(middle).plusDays(1).toString();
+
+        byStatusAndTimeRange = ListOrdersRequest.newBuilder()
+                .setStatus(CommonProto.OrderStatus.SHIPPED)
+                .setCreatedFrom(from)
+                .setCreatedBefore(before)
+                .setPageSize(PAGE_SIZE)
+                .build();
+        byCustomerAndStatus = ListOrdersRequest.newBuilder()
+                .setUserId(middle / ORDERS_PER_CUSTOMER)
+                .setStatus(CommonProto.OrderStatus.PENDING)
+                .setPageSize(PAGE_SIZE)
+                .build();
+        byTimeRange = ListOrdersRequest.newBuilder()
+                .setCreatedFrom(from)
+                .setCreatedBefore(before)
+                .setPageSize(PAGE_SIZE)
+                .build();
+    }
+
+    private void seedOrders(JdbcTemplate jdbcTemplate) {
+        // One set-based INSERT, far faster than going through JPA for millions of rows
+        jdbcTemplate.update("insert into orders (order_id, customer_id, total_price_minor, order_status, created_at, updated_at, version) "
+                + "select x, x / " + ORDERS_PER_CUSTOMER + ", 999, "
+                + "case mod(x, 5) when 0 then 'PENDING' when 1 then 'CONFIRMED' when 2 then 'SHIPPED' when 3 then 'DELIVERED' else 'CANCELLED' end, "
+                + "dateadd(second, x, ?), dateadd(second, x, ?), 0 "
+                + "from system_range(1, ?)", FIRST_ORDER_AT, FIRST_ORDER_AT, tableRows);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopOrderService() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        orderService.close();
+    }
+
+    @Benchmark
+    public ListOrdersResponse byStatusAndTimeRange() {
+        return orderStub.listOrders(byStatusAndTimeRange);
+    }
+
+    @Benchmark
+    public ListOrdersResponse byCustomerAndStatus() {
+        return orderStub.listOrders(byCustomerAndStatus);
+    }
+
+    @Benchmark
+    public ListOrdersResponse byTimeRange() {
+        return orderStub.listOrders(byTimeRange);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto.Order;
+import com.example.common.CommonProto.OrderFormat;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderItemEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.mapper.OrderMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to proto mapping of orders, as done by every order read and write handler,
+ * with the legacy fields (createdAt text, double amounts) and in the COMPACT format without them.
+ * Run with {@code -prof gc} to see the allocation rate per mapped order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderMapperBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int itemsPerOrder;
+
+    @Param({"50"})
+    public int ordersPerList;
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    private OrderEntity order;
+    private List<OrderEntity> orders;
+
+    @Setup
+    public void createOrders() {
+        order = newOrder(1L);
+        orders = new ArrayList<>(ordersPerList);
+        for (long orderId = 1; orderId <= ordersPerList; orderId++) {
+            orders.add(newOrder(orderId));
+        }
+    }
+
+    @Benchmark
+    public Order toProto() {
+        return orderMapper.toProto(order);
+    }
+
+    @Benchmark
+    public List<Order> mapToProtoList() {
+        return orderMapper.mapToProtoList(orders);
+    }
+
+    @Benchmark
+    public Order toProtoCompact() {
+        return orderMapper.toProto(order, OrderFormat.COMPACT);
+    }
+
+    @Benchmark
+    public List<Order> mapToProtoListCompact() {
+        return orderMapper.mapToProtoList(orders, OrderFormat.COMPACT);
+    }
+
+    private OrderEntity newOrder(long orderId) {
+        OrderEntity orderEntity = OrderEntity.builder()
+                .orderId(orderId)
+                .customerId(42L)
+                .totalPriceMinor(itemsPerOrder * 999L)
+                .currentStatus(OrderStatus.CONFIRMED)
+                .build();
+        orderEntity.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+
+        List<OrderItemEntity> orderItems = new ArrayList<>(itemsPerOrder);
+        for (long productId = 1; productId <= itemsPerOrder; productId++) {
+            orderItems.add(OrderItemEntity.builder()
+                    .orderItemId(orderId * 1000 + productId)
+                    .productId(productId)
+                    .productTitle("Product " + productId)
+                    .itemQuantity(1)
+                    .unitPriceMinor(999L)
+                    .order(orderEntity)
+                    .build());
+        }
+        orderEntity.setOrderItems(orderItems);
+        return orderEntity;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto;
+import com.example.common.CommonProto.OrderItem;
+import com.example.common.ResponseBuilder;
+import com.example.order.OrderProto.CreateOrderRequest;
+import com.example.order.OrderProto.CreateOrderResponse;
+import com.example.order.OrderProto.GetOrderRequest;
+import com.example.order.OrderProto.GetOrderResponse;
+import com.example.order.OrderServiceApplication;
+import com.example.order.OrderServiceGrpc;
+import com.example.user.UserProto.GetUserRequest;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserProto.GetUsersByIdsRequest;
+import com.example.user.UserProto.GetUsersByIdsResponse;
+import com.example.user.UserProto.UserChangeEvent;
+import com.example.user.UserProto.UserChangeType;
+import com.example.user.UserProto.ValidateUserRequest;
+import com.example.user.UserProto.ValidateUserResponse;
+import com.example.user.UserProto.WatchUserChangesRequest;
+import com.example.user.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full CreateOrder / GetOrder round trips through the real Order Service: Spring context,
+ * gRPC server and interceptors, JPA and H2, all over the in-process transport.
+ * User Service is replaced by an in-memory stand-in so that only Order Service is measured;
+ * {@code userCache=false} makes every call go through the user lookup path.
+ * Run with {@code -prof gc} to see the allocation rate per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderServiceRoundTripBenchmark {
+
+    private static final String ORDER_SERVER = "benchmark-order-service";
+    private static final String USER_SERVER = "benchmark-user-service";
+    private static final long CUSTOMER_ID = 1L;
+
+    @Param({"true", "false"})
+    public boolean userCache;
+
+    @Param({"3"})
+    public int itemsPerOrder;
+
+    @Param({"1000"})
+    public int seededOrders;
+
+    private Server userServer;
+    private ConfigurableApplicationContext orderService;
+    private ManagedChannel channel;
+    private OrderServiceGrpc.OrderServiceBlockingStub orderStub;
+
+    private CreateOrderRequest createOrderRequest;
+    private GetOrderRequest[] getOrderRequests;
+    private int nextOrder;
+
+    @Setup(Level.Trial)
+    public void startOrderService() throws Exception {
+        userServer = InProcessServerBuilder.forName(USER_SERVER)
+                .directExecutor()
+                .addService(new InMemoryUserService())
+                .build()
+                .start();
+
+        // Command-line arguments take precedence over order-service's application.properties
+        orderService = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--grpc.server.port=-1",
+                        "--grpc.server.in-process-name=" + ORDER_SERVER,
+                        "--grpc.client.user-service.address=in-process:" + USER_SERVER,
+                        "--order.user-cache.enabled=" + userCache,
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-orders;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.file.name=",
+                        "--logging.level.com.example=INFO",
+                        "--logging.level.com.example.order=INFO",
+                        "--logging.level.com.example.common.interceptors=INFO",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+
+        channel = InProcessChannelBuilder.forName(ORDER_SERVER).build();
+        orderStub = OrderServiceGrpc.newBlockingStub(channel);
+
+        CreateOrderRequest.Builder requestBuilder = CreateOrderRequest.newBuilder().setUserId(CUSTOMER_ID);
+        for (int i = 1; i <= itemsPerOrder; i++) {
+            requestBuilder.addItems(OrderItem.newBuilder()
+                    .setProductId(i)
+                    .setProductName("Product " + i)
+                    .setQuantity(1)
+                    .setPrice(9.99));
+        }
+        createOrderRequest = requestBuilder.build();
+
+        getOrderRequests = new GetOrderRequest[seededOrders];
+        for (int i = 0; i < seededOrders; i++) {
+            long orderId = orderStub.createOrder(createOrderRequest).getOrder().getId();
+            getOrderRequests[i] = GetOrderRequest.newBuilder().setOrderId(orderId).build();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopOrderService() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        orderService.close();
+        userServer.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public CreateOrderResponse createOrder() {
+        return orderStub.createOrder(createOrderRequest);
+    }
+
+    @Benchmark
+    public GetOrderResponse getOrder() {
+        GetOrderRequest request = getOrderRequests[nextOrder];
+        nextOrder = (nextOrder + 1) % getOrderRequests.length;
+        return orderStub.getOrder(request);
+    }
+
+    /**
+     * User Service stand-in: every requested ID exists, the change feed is confirmed and then stays silent
+     */
+    private static final class InMemoryUserService extends UserServiceGrpc.UserServiceImplBase {
+
+        @Override
+        public void validateUser(ValidateUserRequest request, StreamObserver<ValidateUserResponse> responseObserver) {
+            responseObserver.onNext(ValidateUserResponse.newBuilder()
+                    .setIsValid(true)
+                    .setUser(user(request.getUserId()))
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> responseObserver) {
+            responseObserver.onNext(GetUserResponse.newBuilder()
+                    .setResponse(ResponseBuilder.success("User found"))
+                    .setUser(user(request.getUserId()))
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void getUsersByIds(GetUsersByIdsRequest request, StreamObserver<GetUsersByIdsResponse> responseObserver) {
+            GetUsersByIdsResponse.Builder response = GetUsersByIdsResponse.newBuilder()
+                    .setResponse(ResponseBuilder.success("Users found"));
+            for (long userId : request.getUserIdsList()) {
+                response.addUsers(user(userId));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void watchUserChanges(WatchUserChangesRequest request, StreamObserver<UserChangeEvent> responseObserver) {
+            // Users never change; the stream is confirmed once and cancelled when the server shuts down
+            responseObserver.onNext(UserChangeEvent.newBuilder().setType(UserChangeType.WATCH_STARTED).build());
+        }
+
+        private static CommonProto.User user(long userId) {
+            return CommonProto.User.newBuilder()
+                    .setId(userId)
+                    .setName("Benchmark User")
+                    .setEmail("user" + userId + "@example.com")
+                    .build();
+        }
+    }
+}
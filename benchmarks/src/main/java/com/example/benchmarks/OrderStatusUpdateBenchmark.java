@@ -0,0 +1,154 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto;
+import com.example.order.OrderProto.OrderStatusFilter;
+import com.example.order.OrderProto.UpdateOrderStatusRequest;
+import com.example.order.OrderProto.UpdateOrderStatusesRequest;
+import com.example.order.OrderProto.UpdateOrderStatusesResponse;
+import com.example.order.OrderServiceApplication;
+import com.example.order.OrderServiceGrpc;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.repository.OrderRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving a wave of orders from PENDING to CONFIRMED through the real Order Service: one
+ * UpdateOrderStatus call per order against a single UpdateOrderStatuses call, by ID list or by filter.
+ * Scores are orders per second. The wave is put back to PENDING before every invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OrderStatusUpdateBenchmark {
+
+    private static final String ORDER_SERVER = "benchmark-order-status-service";
+    private static final int WAVE_SIZE = 1000;
+
+    @Param({"100", "500"})
+    public int statusChunkSize;
+
+    private ConfigurableApplicationContext orderService;
+    private ManagedChannel channel;
+    private OrderServiceGrpc.OrderServiceBlockingStub orderStub;
+    private JdbcTemplate jdbcTemplate;
+    private EntityManagerFactory entityManagerFactory;
+
+    private UpdateOrderStatusRequest[] perOrderRequests;
+    private UpdateOrderStatusesRequest byIdsRequest;
+    private UpdateOrderStatusesRequest byFilterRequest;
+
+    @Setup(Level.Trial)
+    public void startOrderService() {
+        // No user lookups are made, so User Service is neither needed nor watched
+        orderService = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--grpc.server.port=-1",
+                        "--grpc.server.in-process-name=" + ORDER_SERVER,
+                        "--order.user-cache.enabled=false",
+                        "--order.bulk.status-chunk-size=" + statusChunkSize,
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-order-status;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.file.name=",
+                        "--logging.level.com.example=INFO",
+                        "--logging.level.com.example.order=INFO",
+                        "--logging.level.com.example.common.interceptors=INFO",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+
+        channel = InProcessChannelBuilder.forName(ORDER_SERVER).build();
+        orderStub = OrderServiceGrpc.newBlockingStub(channel);
+        jdbcTemplate = orderService.getBean(JdbcTemplate.class);
+        entityManagerFactory = orderService.getBean(EntityManagerFactory.class);
+
+        List<OrderEntity> wave = new ArrayList<>(WAVE_SIZE);
+        for (int i = 0; i < WAVE_SIZE; i++) {
+            wave.add(OrderEntity.builder()
+                    .customerId((long) i)
+                    .totalPriceMinor(999L)
+                    .currentStatus(OrderStatus.PENDING)
+                    .orderItems(new ArrayList<>())
+                    .build());
+        }
+        List<OrderEntity> savedWave = orderService.getBean(OrderRepository.class).saveAll(wave);
+
+        perOrderRequests = new UpdateOrderStatusRequest[WAVE_SIZE];
+        UpdateOrderStatusesRequest.Builder byIds = UpdateOrderStatusesRequest.newBuilder()
+                .setStatus(CommonProto.OrderStatus.CONFIRMED);
+        for (int i = 0; i < WAVE_SIZE; i++) {
+            long orderId = savedWave.get(i).getOrderId();
+            perOrderRequests[i] = UpdateOrderStatusRequest.newBuilder()
+                    .setOrderId(orderId)
+                    .setStatus(CommonProto.OrderStatus.CONFIRMED)
+                    .build();
+            byIds.addOrderIds(orderId);
+        }
+        byIdsRequest = byIds.build();
+        byFilterRequest = UpdateOrderStatusesRequest.newBuilder()
+                .setFilter(OrderStatusFilter.newBuilder().setCurrentStatus(CommonProto.OrderStatus.PENDING))
+                .setStatus(CommonProto.OrderStatus.CONFIRMED)
+                .build();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetWave() {
+        jdbcTemplate.update("update orders set order_status = 'PENDING'");
+        // The reset bypasses Hibernate, cached orders would still be CONFIRMED
+        entityManagerFactory.getCache().evictAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopOrderService() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        orderService.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WAVE_SIZE)
+    public void perOrderCalls(Blackhole blackhole) {
+        for (UpdateOrderStatusRequest request : perOrderRequests) {
+            blackhole.consume(orderStub.updateOrderStatus(request));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WAVE_SIZE)
+    public UpdateOrderStatusesResponse bulkByIds() {
+        return orderStub.updateOrderStatuses(byIdsRequest);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WAVE_SIZE)
+    public UpdateOrderStatusesResponse bulkByFilter() {
+        return orderStub.updateOrderStatuses(byFilterRequest);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.benchmarks;
+
+import com.example.order.OrderServiceApplication;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderItemEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.store.OrderStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order writes and point reads against each {@code order.store.type}, called on the {@link OrderStore} bean so that
+ * only persistence is measured: {@code jpa} is a transaction with the order and item INSERTs plus the customer summary
+ * UPDATE on H2, {@code mapped} is one record appended to a memory-mapped segment. Reads pick random orders among
+ * {@code seededOrders}; the JPA reads come from the second-level cache once it holds them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderStoreBenchmark {
+
+    private static final int CUSTOMERS = 1000;
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"jpa", "mapped"})
+    public String storeType;
+
+    @Param({"3"})
+    public int itemsPerOrder;
+
+    @Param({"100000"})
+    public int seededOrders;
+
+    private Path segmentDirectory;
+    private ConfigurableApplicationContext orderService;
+    private OrderStore orderStore;
+    private long[] seededOrderIds;
+
+    @Setup(Level.Trial)
+    public void startOrderService() throws IOException {
+        segmentDirectory = Files.createTempDirectory("benchmark-order-segments");
+        // No RPCs are called, so User Service is neither needed nor watched
+        orderService = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--grpc.server.port=-1",
+                        "--grpc.server.in-process-name=benchmark-order-store",
+                        "--order.user-cache.enabled=false",
+                        "--order.store.type=" + storeType,
+                        "--order.store.mapped.directory=" + segmentDirectory,
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-order-store;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.file.name=",
+                        "--logging.level.com.example=INFO",
+                        "--logging.level.com.example.order=INFO",
+                        "--logging.level.com.example.common.interceptors=INFO",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        orderStore = orderService.getBean(OrderStore.class);
+
+        seededOrderIds = new long[seededOrders];
+        for (int seeded = 0; seeded < seededOrders; seeded += SEED_BATCH) {
+            List<OrderEntity> batch = new ArrayList<>(SEED_BATCH);
+            for (int i = seeded; i < Math.min(seeded + SEED_BATCH, seededOrders); i++) {
+                batch.add(newOrder(i % CUSTOMERS));
+            }
+            List<OrderEntity> saved = orderStore.saveAll(batch);
+            for (int i = 0; i < saved.size(); i++) {
+                seededOrderIds[seeded + i] = saved.get(i).getOrderId();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopOrderService() throws IOException {
+        orderService.close();
+        FileSystemUtils.deleteRecursively(segmentDirectory);
+    }
+
+    @Benchmark
+    public List<OrderEntity> saveOrder() {
+        return orderStore.saveAll(List.of(newOrder(ThreadLocalRandom.current().nextInt(CUSTOMERS))));
+    }
+
+    @Benchmark
+    public Optional<OrderEntity> findById() {
+        return orderStore.findById(seededOrderIds[ThreadLocalRandom.current().nextInt(seededOrderIds.length)]);
+    }
+
+    private OrderEntity newOrder(long customerId) {
+        OrderEntity order = OrderEntity.builder()
+                .customerId(customerId)
+                .currentStatus(OrderStatus.PENDING)
+                .totalPriceMinor(999L * itemsPerOrder)
+                .build();
+        List<OrderItemEntity> items = new ArrayList<>(itemsPerOrder);
+        for (int i = 1; i <= itemsPerOrder; i++) {
+            items.add(OrderItemEntity.builder()
+                    .productId((long) i)
+                    .productTitle("Product " + i)
+                    .itemQuantity(1)
+                    .unitPriceMinor(999L)
+                    .order(order)
+                    .build());
+        }
+        order.setOrderItems(items);
+        return order;
+    }
+}
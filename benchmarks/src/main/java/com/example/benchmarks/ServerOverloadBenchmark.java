@@ -0,0 +1,195 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto;
+import com.example.common.ResponseBuilder;
+import com.example.common.concurrent.DbConcurrencyLimiter;
+import com.example.common.interceptors.ConcurrencyLimitInterceptor;
+import com.example.common.interceptors.GlobalExceptionInterceptor;
+import com.example.user.UserProto.CreateUserRequest;
+import com.example.user.UserProto.CreateUserResponse;
+import com.example.user.UserProto.GetUserRequest;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@link ConcurrencyLimitInterceptor} under overload: 48 threads reading and 16 writing
+ * against a server whose handlers share {@code dbConcurrency} database slots, far fewer than the callers.
+ * Without the limit every call queues for a slot and latency grows with the number of callers; with it the
+ * excess is shed with RESOURCE_EXHAUSTED (writes first) and the accepted calls keep their latency.
+ * Sample mode reports p50/p99/p999 per group member; shed calls are included, including the
+ * client's {@code rejectBackoffMillis} pause before its next call.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServerOverloadBenchmark {
+
+    private static final String SERVER = "benchmark-overload";
+
+    @Param({"true", "false"})
+    public boolean concurrencyLimit;
+
+    @Param({"10"})
+    public int dbConcurrency;
+
+    @Param({"2"})
+    public int readLatencyMillis;
+
+    @Param({"5"})
+    public int writeLatencyMillis;
+
+    @Param({"5"})
+    public int rejectBackoffMillis;
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+
+    private final GetUserRequest readRequest = GetUserRequest.newBuilder().setUserId(1).build();
+    private final CreateUserRequest writeRequest = CreateUserRequest.newBuilder()
+            .setName("Benchmark User")
+            .setEmail("benchmark@example.com")
+            .build();
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        ConcurrencyLimitInterceptor limitInterceptor = new ConcurrencyLimitInterceptor(
+                concurrencyLimit, 20, 4, 200, 0.8,
+                List.of("Get"), Set.of(), new SimpleMeterRegistry());
+        DbConcurrencyLimiter dbLimiter = new DbConcurrencyLimiter(dbConcurrency, Duration.ofSeconds(30));
+
+        // Same order of registration as the services: exception handling innermost, then the limit
+        server = InProcessServerBuilder.forName(SERVER)
+                .addService(new SlowUserService(dbLimiter, readLatencyMillis, writeLatencyMillis))
+                .intercept(new GlobalExceptionInterceptor())
+                .intercept(limitInterceptor)
+                .build()
+                .start();
+
+        channel = InProcessChannelBuilder.forName(SERVER).build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(48)
+    public Status.Code read() {
+        try {
+            stub.getUser(readRequest);
+            return Status.Code.OK;
+        } catch (StatusRuntimeException e) {
+            return rejected(e);
+        }
+    }
+
+    @Benchmark
+    @Group("overload")
+    @GroupThreads(16)
+    public Status.Code write() {
+        try {
+            stub.createUser(writeRequest);
+            return Status.Code.OK;
+        } catch (StatusRuntimeException e) {
+            return rejected(e);
+        }
+    }
+
+    private Status.Code rejected(StatusRuntimeException e) {
+        // A well-behaved client backs off instead of calling again at once
+        try {
+            Thread.sleep(rejectBackoffMillis);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return e.getStatus().getCode();
+    }
+
+    /**
+     * Stand-in for a service handler whose cost is database work bounded by {@link DbConcurrencyLimiter}
+     */
+    private static final class SlowUserService extends UserServiceGrpc.UserServiceImplBase {
+
+        private static final CommonProto.User USER = CommonProto.User.newBuilder()
+                .setId(1)
+                .setName("Benchmark User")
+                .setEmail("benchmark@example.com")
+                .build();
+
+        private final DbConcurrencyLimiter limiter;
+        private final int readLatencyMillis;
+        private final int writeLatencyMillis;
+
+        private SlowUserService(DbConcurrencyLimiter limiter, int readLatencyMillis, int writeLatencyMillis) {
+            this.limiter = limiter;
+            this.readLatencyMillis = readLatencyMillis;
+            this.writeLatencyMillis = writeLatencyMillis;
+        }
+
+        @Override
+        public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> responseObserver) {
+            limiter.run(() -> block(readLatencyMillis));
+
+            responseObserver.onNext(GetUserResponse.newBuilder()
+                    .setResponse(ResponseBuilder.success("User found"))
+                    .setUser(USER)
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        @Override
+        public void createUser(CreateUserRequest request, StreamObserver<CreateUserResponse> responseObserver) {
+            limiter.run(() -> block(writeLatencyMillis));
+
+            responseObserver.onNext(CreateUserResponse.newBuilder()
+                    .setResponse(ResponseBuilder.success("User created successfully"))
+                    .setUser(USER)
+                    .build());
+            responseObserver.onCompleted();
+        }
+
+        private static void block(int millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
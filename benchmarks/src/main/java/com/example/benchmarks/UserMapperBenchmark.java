@@ -0,0 +1,67 @@
+package com.example.benchmarks;
+
+import com.example.common.CommonProto;
+import com.example.user.entity.ContactAddress;
+import com.example.user.entity.User;
+import com.example.user.mapper.UserMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to proto mapping of users, with and without a contact address
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private User userWithAddress;
+    private User userWithoutAddress;
+
+    @Setup
+    public void createUsers() {
+        userWithAddress = newUser(1L, ContactAddress.builder()
+                .streetAddress("1 Market Street")
+                .cityName("San Francisco")
+                .stateName("CA")
+                .postalCode("94105")
+                .countryName("US")
+                .build());
+        userWithoutAddress = newUser(2L, null);
+    }
+
+    @Benchmark
+    public CommonProto.User toProtoWithAddress() {
+        return userMapper.toProto(userWithAddress);
+    }
+
+    @Benchmark
+    public CommonProto.User toProtoWithoutAddress() {
+        return userMapper.toProto(userWithoutAddress);
+    }
+
+    private static User newUser(long userId, ContactAddress contactAddress) {
+        return User.builder()
+                .userId(userId)
+                .fullName("Benchmark User")
+                .emailAddress("user" + userId + "@example.com")
+                .phoneNumber("+1-555-0100")
+                .contactAddress(contactAddress)
+                .build();
+    }
+}
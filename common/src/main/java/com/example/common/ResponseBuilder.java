@@ -1,17 +1,47 @@
 package com.example.common;
 
+import com.example.common.exception.ErrorCode;
 import lombok.experimental.UtilityClass;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the ApiResponse header of gRPC responses.
+ * ApiResponse messages are immutable, so one instance per message or error code is built
+ * and shared by every response; protobuf also memoizes its serialized size.
+ */
 @UtilityClass
 public class ResponseBuilder {
-    
+
+    // Caps the cache in case a caller passes dynamic text; such messages are then built per call
+    private static final int MAX_CACHED_MESSAGES = 256;
+
+    private static final Map<String, CommonProto.ApiResponse> SUCCESS_RESPONSES = new ConcurrentHashMap<>();
+    private static final Map<ErrorCode, CommonProto.ApiResponse> ERROR_RESPONSES = new ConcurrentHashMap<>();
+
+    /**
+     * Get the success response for a message, shared across calls
+     * @param message Constant success message
+     * @return Immutable success response
+     */
     public static CommonProto.ApiResponse success(String message) {
-        return CommonProto.ApiResponse.newBuilder()
+        CommonProto.ApiResponse response = SUCCESS_RESPONSES.get(message);
+        if (response != null) {
+            return response;
+        }
+
+        response = CommonProto.ApiResponse.newBuilder()
                 .setSuccess(true)
                 .setMessage(message)
                 .build();
+        if (SUCCESS_RESPONSES.size() < MAX_CACHED_MESSAGES) {
+            CommonProto.ApiResponse existing = SUCCESS_RESPONSES.putIfAbsent(message, response);
+            return existing != null ? existing : response;
+        }
+        return response;
     }
-    
+
     public static CommonProto.ApiResponse error(String message, String errorCode) {
         return CommonProto.ApiResponse.newBuilder()
                 .setSuccess(false)
@@ -19,4 +49,18 @@ public class ResponseBuilder {
                 .setErrorCode(errorCode)
                 .build();
     }
+
+    /**
+     * Get the error response for an error code, shared across calls
+     * @param errorCode Error code enum constant
+     * @return Immutable error response with the code's message
+     */
+    public static CommonProto.ApiResponse error(ErrorCode errorCode) {
+        CommonProto.ApiResponse response = ERROR_RESPONSES.get(errorCode);
+        if (response != null) {
+            return response;
+        }
+        return ERROR_RESPONSES.computeIfAbsent(errorCode,
+                code -> error(code.getMessage(), code.getCode()));
+    }
 }
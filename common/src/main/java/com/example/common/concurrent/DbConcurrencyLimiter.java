@@ -0,0 +1,82 @@
+package com.example.common.concurrent;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of callers doing database work at the same time.
+ * With virtual threads there is no thread pool to limit concurrency, so without this bound
+ * every in-flight call would queue on the connection pool and time out together.
+ * Callers that cannot get a permit in time are rejected, which maps to RESOURCE_EXHAUSTED.
+ */
+@Component
+public class DbConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final int maxConcurrency;
+    private final long acquireTimeoutNanos;
+
+    public DbConcurrencyLimiter(@Value("${grpc.execution.db-concurrency:10}") int maxConcurrency,
+                                @Value("${grpc.execution.db-acquire-timeout:5s}") Duration acquireTimeout) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    /**
+     * Run database work once a permit is available
+     * @param work The database work
+     * @param <T> Result type
+     * @return Result of the work
+     */
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Run database work without a result once a permit is available
+     * @param work The database work
+     */
+    public void run(Runnable work) {
+        acquire();
+        try {
+            work.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("Timed out waiting for a database permit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a database permit", e);
+        }
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.common.config;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Threading model used to run gRPC service calls
+ */
+public enum ExecutionMode {
+
+    /**
+     * gRPC default executor, a cached pool of platform threads
+     */
+    PLATFORM,
+
+    /**
+     * One virtual thread per call, blocking JDBC and stub calls unmount instead of pinning a platform thread
+     */
+    VIRTUAL;
+
+    /**
+     * Create the executor gRPC service calls should run on
+     * @param threadNamePrefix Prefix for the names of created threads
+     * @return Executor for the server, or null to keep the gRPC default
+     */
+    public Executor newServerExecutor(String threadNamePrefix) {
+        return switch (this) {
+            case PLATFORM -> null;
+            case VIRTUAL -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+        };
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.common.config;
 
+import com.example.common.exception.GrpcErrorLogger;
 import com.example.common.interceptors.GlobalExceptionInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
@@ -19,8 +21,12 @@ public class GrpcExceptionHandlingConfig {
     @Autowired(required = false)
     private GlobalExceptionInterceptor globalExceptionInterceptor;
 
+    @Value("${grpc.logging.expected-error-sample-rate:100}")
+    private int expectedErrorSampleRate;
+
     @PostConstruct
     public void init() {
+        GrpcErrorLogger.setExpectedErrorSampleRate(expectedErrorSampleRate);
         if (globalExceptionInterceptor != null) {
             log.info("GlobalExceptionInterceptor is configured and ready to handle exceptions");
         } else {
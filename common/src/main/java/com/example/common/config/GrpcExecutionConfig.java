@@ -0,0 +1,51 @@
+package com.example.common.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Configuration class for the gRPC server execution mode
+ * Services apply {@link #getServerExecutor()} in their gRPC server configuration,
+ * the same way they register the global exception interceptor
+ */
+@Configuration
+@Slf4j
+public class GrpcExecutionConfig {
+
+    @Getter
+    private final ExecutionMode executionMode;
+
+    private final Executor serverExecutor;
+
+    public GrpcExecutionConfig(@Value("${grpc.execution.mode:platform}") ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+        this.serverExecutor = executionMode.newServerExecutor("grpc-vt-");
+        log.info("gRPC execution mode: {}", executionMode);
+    }
+
+    /**
+     * Get the executor gRPC service calls should run on
+     * @return Executor to set on the server builder, empty to keep the gRPC default
+     */
+    public Optional<Executor> getServerExecutor() {
+        return Optional.ofNullable(serverExecutor);
+    }
+
+    public boolean isVirtual() {
+        return executionMode == ExecutionMode.VIRTUAL;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (serverExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+}
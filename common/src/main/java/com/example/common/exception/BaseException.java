@@ -5,6 +5,8 @@ import lombok.Getter;
 /**
  * Base exception class for all custom exceptions
  * Provides common properties and behavior
+ * Domain exceptions are expected traffic (not found, invalid input), so they are created
+ * without a stack trace; the technical message and the cause identify where they came from.
  */
 @Getter
 public abstract class BaseException extends RuntimeException {
@@ -14,14 +16,14 @@ public abstract class BaseException extends RuntimeException {
     private final String technicalMessage;
 
     protected BaseException(String errorCode, String userMessage, String technicalMessage) {
-        super(technicalMessage);
+        super(technicalMessage, null, false, false);
         this.errorCode = errorCode;
         this.userMessage = userMessage;
         this.technicalMessage = technicalMessage;
     }
 
     protected BaseException(String errorCode, String userMessage, String technicalMessage, Throwable cause) {
-        super(technicalMessage, cause);
+        super(technicalMessage, cause, false, false);
         this.errorCode = errorCode;
         this.userMessage = userMessage;
         this.technicalMessage = technicalMessage;
@@ -32,11 +34,8 @@ public abstract class BaseException extends RuntimeException {
      * @param errorCodeEnum Enum containing error code and message
      * @param technicalMessage Technical details about the error
      */
-    protected BaseException(Enum<?> errorCodeEnum, String technicalMessage) {
-        super(technicalMessage);
-        this.errorCode = ((Enum<?>) errorCodeEnum).name();
-        this.userMessage = getEnumMessage(errorCodeEnum);
-        this.technicalMessage = technicalMessage;
+    protected BaseException(ErrorCode errorCodeEnum, String technicalMessage) {
+        this(errorCodeEnum.name(), errorCodeEnum.getMessage(), technicalMessage);
     }
 
     /**
@@ -45,28 +44,8 @@ public abstract class BaseException extends RuntimeException {
      * @param technicalMessage Technical details about the error
      * @param cause Original exception that caused this error
      */
-    protected BaseException(Enum<?> errorCodeEnum, String technicalMessage, Throwable cause) {
-        super(technicalMessage, cause);
-        this.errorCode = ((Enum<?>) errorCodeEnum).name();
-        this.userMessage = getEnumMessage(errorCodeEnum);
-        this.technicalMessage = technicalMessage;
-    }
-
-    /**
-     * Get message from enum using reflection
-     * @param errorCodeEnum The enum constant
-     * @return The message from enum or enum name if no message field exists
-     */
-    private String getEnumMessage(Enum<?> errorCodeEnum) {
-        try {
-            // Try to get 'message' field using reflection
-            java.lang.reflect.Field messageField = errorCodeEnum.getClass().getDeclaredField("message");
-            messageField.setAccessible(true);
-            return (String) messageField.get(errorCodeEnum);
-        } catch (Exception e) {
-            // Fallback to toString() if no message field
-            return errorCodeEnum.toString();
-        }
+    protected BaseException(ErrorCode errorCodeEnum, String technicalMessage, Throwable cause) {
+        this(errorCodeEnum.name(), errorCodeEnum.getMessage(), technicalMessage, cause);
     }
 
     /**
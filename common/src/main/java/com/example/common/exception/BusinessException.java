@@ -21,7 +21,7 @@ public class BusinessException extends BaseException {
      * @param errorCodeEnum Enum containing error code and message
      * @param technicalMessage Technical details about the error
      */
-    public BusinessException(Enum<?> errorCodeEnum, String technicalMessage) {
+    public BusinessException(ErrorCode errorCodeEnum, String technicalMessage) {
         super(errorCodeEnum, technicalMessage);
     }
 
@@ -31,7 +31,7 @@ public class BusinessException extends BaseException {
      * @param technicalMessage Technical details about the error
      * @param cause Original exception that caused this error
      */
-    public BusinessException(Enum<?> errorCodeEnum, String technicalMessage, Throwable cause) {
+    public BusinessException(ErrorCode errorCodeEnum, String technicalMessage, Throwable cause) {
         super(errorCodeEnum, technicalMessage, cause);
     }
 
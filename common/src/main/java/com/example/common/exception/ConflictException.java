@@ -0,0 +1,42 @@
+package com.example.common.exception;
+
+import io.grpc.Status;
+
+/**
+ * Exception for concurrent modification scenarios (e.g., stale expected version)
+ * Maps to gRPC ABORTED status, the caller may re-read and retry
+ */
+public class ConflictException extends BaseException {
+
+    public ConflictException(String errorCode, String userMessage, String technicalMessage) {
+        super(errorCode, userMessage, technicalMessage);
+    }
+
+    public ConflictException(String errorCode, String userMessage, String technicalMessage, Throwable cause) {
+        super(errorCode, userMessage, technicalMessage, cause);
+    }
+
+    /**
+     * Constructor that accepts an error code enum
+     * @param errorCodeEnum Enum containing error code and message
+     * @param technicalMessage Technical details about the error
+     */
+    public ConflictException(ErrorCode errorCodeEnum, String technicalMessage) {
+        super(errorCodeEnum, technicalMessage);
+    }
+
+    /**
+     * Constructor that accepts an error code enum with cause
+     * @param errorCodeEnum Enum containing error code and message
+     * @param technicalMessage Technical details about the error
+     * @param cause Original exception that caused this error
+     */
+    public ConflictException(ErrorCode errorCodeEnum, String technicalMessage, Throwable cause) {
+        super(errorCodeEnum, technicalMessage, cause);
+    }
+
+    @Override
+    public io.grpc.Status.Code getGrpcStatusCode() {
+        return Status.Code.ABORTED;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.common.exception;
+
+/**
+ * Error code with its client-facing message, implemented by the error code enums of each service
+ */
+public interface ErrorCode {
+
+    /**
+     * Get the unique name of the error, implemented by {@link Enum#name()}
+     * @return The error name
+     */
+    String name();
+
+    /**
+     * Get the code sent to clients, shared by related errors (e.g. ORDER_NOT_FOUND)
+     * @return The error code
+     */
+    String getCode();
+
+    /**
+     * Get the client-facing message
+     * @return The error message
+     */
+    String getMessage();
+}
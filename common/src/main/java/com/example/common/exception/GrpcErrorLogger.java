@@ -0,0 +1,51 @@
+package com.example.common.exception;
+
+import lombok.experimental.UtilityClass;
+import org.slf4j.Logger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs failed gRPC calls.
+ * Domain exceptions are normal traffic (not found, invalid input): they are logged at DEBUG,
+ * one in every N occurrences and without a stack trace. Unexpected failures are always
+ * logged at ERROR with their stack trace.
+ */
+@UtilityClass
+public class GrpcErrorLogger {
+
+    private static final AtomicLong expectedErrors = new AtomicLong();
+    private static volatile int expectedErrorSampleRate = 100;
+
+    /**
+     * Set how many expected errors are counted per logged one
+     * @param sampleRate Sample rate, 1 logs every expected error
+     */
+    public static void setExpectedErrorSampleRate(int sampleRate) {
+        expectedErrorSampleRate = Math.max(1, sampleRate);
+    }
+
+    /**
+     * Log a failed call
+     * @param log Logger of the component that completed the call
+     * @param message Description of the failure
+     * @param throwable The exception, possibly wrapped by a CompletableFuture stage
+     */
+    public static void logFailure(Logger log, String message, Throwable throwable) {
+        Throwable e = GrpcStatusMapper.unwrap(throwable);
+
+        if (!(e instanceof BaseException expected)) {
+            log.error(message, e);
+            return;
+        }
+
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        int sampleRate = expectedErrorSampleRate;
+        if (expectedErrors.getAndIncrement() % sampleRate == 0) {
+            log.debug("{}: {} - {} (1 in {} expected errors logged)",
+                    message, expected.getErrorCode(), expected.getTechnicalMessage(), sampleRate);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.common.exception;
+
+import io.grpc.Status;
+import lombok.experimental.UtilityClass;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Maps exceptions thrown by service code to gRPC status.
+ * Shared by the global exception interceptor and asynchronous response completion.
+ * Statuses of domain exceptions only depend on the status code and the client-facing message,
+ * so they are built once per error and shared; only unexpected failures carry their cause.
+ */
+@UtilityClass
+public class GrpcStatusMapper {
+
+    // Error messages come from the error code enums, the cap only guards against ad-hoc messages
+    private static final int MAX_CACHED_STATUSES_PER_CODE = 256;
+
+    private static final Map<Status.Code, Map<String, Status>> DOMAIN_STATUSES = createDomainStatusCache();
+
+    private static final Status OVERLOADED = Status.RESOURCE_EXHAUSTED.withDescription("Server is overloaded");
+    private static final Status INVALID_ARGUMENT = Status.INVALID_ARGUMENT.withDescription("Invalid argument provided");
+    private static final Status INVALID_STATE = Status.FAILED_PRECONDITION.withDescription("Invalid state for operation");
+    private static final Status NOT_IMPLEMENTED = Status.UNIMPLEMENTED.withDescription("Operation not implemented");
+    private static final Status INTERNAL_ERROR = Status.INTERNAL.withDescription("Internal server error");
+
+    /**
+     * Convert an exception to the gRPC status returned to the caller
+     * @param throwable The exception, possibly wrapped by a CompletableFuture stage
+     * @return gRPC status with a client-facing description
+     */
+    public static Status toStatus(Throwable throwable) {
+        Throwable e = unwrap(throwable);
+
+        if (e instanceof BaseException baseException) {
+            return domainStatus(baseException.getGrpcStatusCode(), baseException.getUserMessage());
+        }
+
+        if (e instanceof RejectedExecutionException) {
+            return OVERLOADED.withCause(e);
+        }
+
+        if (e instanceof IllegalArgumentException) {
+            return INVALID_ARGUMENT.withCause(e);
+        }
+
+        if (e instanceof IllegalStateException) {
+            return INVALID_STATE.withCause(e);
+        }
+
+        if (e instanceof UnsupportedOperationException) {
+            return NOT_IMPLEMENTED.withCause(e);
+        }
+
+        return INTERNAL_ERROR.withCause(e);
+    }
+
+    /**
+     * Strip the wrappers added by CompletableFuture stages
+     * @param throwable The exception as seen by a completion callback
+     * @return The exception originally thrown
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable e = throwable;
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static Status domainStatus(Status.Code code, String userMessage) {
+        if (userMessage == null) {
+            return Status.fromCode(code);
+        }
+        Map<String, Status> statuses = DOMAIN_STATUSES.get(code);
+        Status status = statuses.get(userMessage);
+        if (status != null) {
+            return status;
+        }
+        status = Status.fromCode(code).withDescription(userMessage);
+        if (statuses.size() < MAX_CACHED_STATUSES_PER_CODE) {
+            Status existing = statuses.putIfAbsent(userMessage, status);
+            return existing != null ? existing : status;
+        }
+        return status;
+    }
+
+    private static Map<Status.Code, Map<String, Status>> createDomainStatusCache() {
+        Map<Status.Code, Map<String, Status>> cache = new EnumMap<>(Status.Code.class);
+        for (Status.Code code : Status.Code.values()) {
+            cache.put(code, new ConcurrentHashMap<>());
+        }
+        return Collections.unmodifiableMap(cache);
+    }
+}
@@ -21,7 +21,7 @@ public class ResourceNotFoundException extends BaseException {
      * @param errorCodeEnum Enum containing error code and message
      * @param technicalMessage Technical details about the error
      */
-    public ResourceNotFoundException(Enum<?> errorCodeEnum, String technicalMessage) {
+    public ResourceNotFoundException(ErrorCode errorCodeEnum, String technicalMessage) {
         super(errorCodeEnum, technicalMessage);
     }
 
@@ -31,7 +31,7 @@ public class ResourceNotFoundException extends BaseException {
      * @param technicalMessage Technical details about the error
      * @param cause Original exception that caused this error
      */
-    public ResourceNotFoundException(Enum<?> errorCodeEnum, String technicalMessage, Throwable cause) {
+    public ResourceNotFoundException(ErrorCode errorCodeEnum, String technicalMessage, Throwable cause) {
         super(errorCodeEnum, technicalMessage, cause);
     }
 
@@ -0,0 +1,42 @@
+package com.example.common.exception;
+
+import io.grpc.Status;
+
+/**
+ * Exception for a downstream dependency that cannot be called right now (e.g., open circuit breaker)
+ * Maps to gRPC UNAVAILABLE status, the caller may retry later
+ */
+public class ServiceUnavailableException extends BaseException {
+
+    public ServiceUnavailableException(String errorCode, String userMessage, String technicalMessage) {
+        super(errorCode, userMessage, technicalMessage);
+    }
+
+    public ServiceUnavailableException(String errorCode, String userMessage, String technicalMessage, Throwable cause) {
+        super(errorCode, userMessage, technicalMessage, cause);
+    }
+
+    /**
+     * Constructor that accepts an error code enum
+     * @param errorCodeEnum Enum containing error code and message
+     * @param technicalMessage Technical details about the error
+     */
+    public ServiceUnavailableException(ErrorCode errorCodeEnum, String technicalMessage) {
+        super(errorCodeEnum, technicalMessage);
+    }
+
+    /**
+     * Constructor that accepts an error code enum with cause
+     * @param errorCodeEnum Enum containing error code and message
+     * @param technicalMessage Technical details about the error
+     * @param cause Original exception that caused this error
+     */
+    public ServiceUnavailableException(ErrorCode errorCodeEnum, String technicalMessage, Throwable cause) {
+        super(errorCodeEnum, technicalMessage, cause);
+    }
+
+    @Override
+    public io.grpc.Status.Code getGrpcStatusCode() {
+        return Status.Code.UNAVAILABLE;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.common.interceptors;
+
+import com.example.common.concurrent.GradientConcurrencyLimit;
+import io.grpc.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Server interceptor shedding load with adaptive concurrency limits, one per service and one per method
+ * ({@link GradientConcurrencyLimit}). A unary call must fit under both limits, otherwise it is closed at once
+ * with RESOURCE_EXHAUSTED instead of queueing behind calls the server cannot finish in time.
+ * Reads (methods starting with one of the read prefixes) may use the whole service limit; writes only
+ * a share of it, so they are shed first. Streaming calls and excluded services (health checks) are not limited.
+ * Must be registered after {@link GlobalExceptionInterceptor} so that its slot is also given back when that
+ * interceptor closes a failed call, and before the access log and metrics interceptors so that they see shed calls.
+ */
+@Component
+@Slf4j
+public class ConcurrencyLimitInterceptor implements ServerInterceptor {
+
+    private static final Status OVERLOADED = Status.RESOURCE_EXHAUSTED.withDescription("Server is overloaded, retry later");
+
+    // Marker for methods that are never limited
+    private static final MethodLimit UNLIMITED = new MethodLimit(null, null, 1.0, null);
+
+    private final boolean enabled;
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double writeShare;
+    private final List<String> readMethodPrefixes;
+    private final Set<String> excludedServices;
+    private final MeterRegistry registry;
+
+    private final Map<String, GradientConcurrencyLimit> serviceLimits = new ConcurrentHashMap<>();
+    private final Map<String, MethodLimit> methodLimits = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled Whether calls are limited at all
+     * @param initialLimit Concurrent calls allowed per service and per method before any latency is observed
+     * @param minLimit Lowest limit, even when latency keeps growing
+     * @param maxLimit Highest limit, even when latency stays flat
+     * @param writeShare Fraction of the service limit writes may use
+     * @param readMethodPrefixes Method name prefixes of reads, e.g. Get, Validate
+     * @param excludedServices Fully qualified services never limited, e.g. grpc.health.v1.Health
+     */
+    public ConcurrencyLimitInterceptor(@Value("${grpc.concurrency-limit.enabled:true}") boolean enabled,
+                                       @Value("${grpc.concurrency-limit.initial-limit:20}") int initialLimit,
+                                       @Value("${grpc.concurrency-limit.min-limit:4}") int minLimit,
+                                       @Value("${grpc.concurrency-limit.max-limit:200}") int maxLimit,
+                                       @Value("${grpc.concurrency-limit.write-share:0.8}") double writeShare,
+                                       @Value("${grpc.concurrency-limit.read-method-prefixes:Get,Validate,List,Find}") List<String> readMethodPrefixes,
+                                       @Value("${grpc.concurrency-limit.excluded-services:grpc.health.v1.Health}") Set<String> excludedServices,
+                                       MeterRegistry registry) {
+        this.enabled = enabled;
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.writeShare = writeShare;
+        this.readMethodPrefixes = readMethodPrefixes;
+        this.excludedServices = excludedServices;
+        this.registry = registry;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> serverCall,
+            Metadata metadata,
+            ServerCallHandler<ReqT, RespT> serverCallHandler) {
+
+        MethodLimit limit = enabled ? methodLimit(serverCall.getMethodDescriptor()) : UNLIMITED;
+        if (limit == UNLIMITED) {
+            return serverCallHandler.startCall(serverCall, metadata);
+        }
+
+        if (!limit.tryAcquire()) {
+            limit.shedCalls.increment();
+            serverCall.close(OVERLOADED, new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        LimitedServerCall<ReqT, RespT> limitedCall = new LimitedServerCall<>(serverCall, limit);
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = serverCallHandler.startCall(limitedCall, metadata);
+        } catch (RuntimeException e) {
+            limitedCall.releaseOnce(false);
+            throw e;
+        }
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                limitedCall.releaseOnce(false);
+                super.onCancel();
+            }
+        };
+    }
+
+    private MethodLimit methodLimit(MethodDescriptor<?, ?> method) {
+        // get() first: computeIfAbsent would allocate a capturing lambda on every call
+        MethodLimit limit = methodLimits.get(method.getFullMethodName());
+        if (limit != null) {
+            return limit;
+        }
+        return methodLimits.computeIfAbsent(method.getFullMethodName(), name -> newMethodLimit(method));
+    }
+
+    private MethodLimit newMethodLimit(MethodDescriptor<?, ?> method) {
+        String service = String.valueOf(method.getServiceName());
+        if (method.getType() != MethodDescriptor.MethodType.UNARY || excludedServices.contains(service)) {
+            return UNLIMITED;
+        }
+
+        String methodName = String.valueOf(method.getBareMethodName());
+        boolean read = readMethodPrefixes.stream().anyMatch(methodName::startsWith);
+
+        GradientConcurrencyLimit serviceLimit = serviceLimits.computeIfAbsent(service, this::newServiceLimit);
+        GradientConcurrencyLimit ownLimit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        Gauge.builder("grpc.server.concurrency.limit", ownLimit, GradientConcurrencyLimit::getLimit)
+                .description("Adaptive limit of concurrent calls per method")
+                .tags("service", service, "method", methodName)
+                .register(registry);
+        Counter shedCalls = Counter.builder("grpc.server.calls.shed")
+                .description("Calls rejected with RESOURCE_EXHAUSTED because a concurrency limit was reached")
+                .tags("service", service, "method", methodName, "priority", read ? "read" : "write")
+                .register(registry);
+
+        log.debug("Concurrency limit for {} ({})", method.getFullMethodName(), read ? "read" : "write");
+        return new MethodLimit(serviceLimit, ownLimit, read ? 1.0 : writeShare, shedCalls);
+    }
+
+    private GradientConcurrencyLimit newServiceLimit(String service) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        Gauge.builder("grpc.server.concurrency.service.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Adaptive limit of concurrent calls per service")
+                .tag("service", service)
+                .register(registry);
+        Gauge.builder("grpc.server.concurrency.in.flight", limit, GradientConcurrencyLimit::getInFlight)
+                .description("Limited calls currently in flight per service")
+                .tag("service", service)
+                .register(registry);
+        return limit;
+    }
+
+    /**
+     * Service and method limits a call of one method must fit under
+     */
+    private record MethodLimit(GradientConcurrencyLimit serviceLimit, GradientConcurrencyLimit methodLimit,
+                               double serviceShare, Counter shedCalls) {
+
+        boolean tryAcquire() {
+            if (!serviceLimit.tryAcquire(serviceShare)) {
+                return false;
+            }
+            if (!methodLimit.tryAcquire(1.0)) {
+                serviceLimit.release(0, false);
+                return false;
+            }
+            return true;
+        }
+
+        void release(long rttNanos, boolean sample) {
+            methodLimit.release(rttNanos, sample);
+            serviceLimit.release(rttNanos, sample);
+        }
+    }
+
+    /**
+     * Gives the slots back when the call is closed, with its latency as a sample
+     */
+    private static class LimitedServerCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        // Field updater instead of an AtomicBoolean per call
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<LimitedServerCall> RELEASED =
+                AtomicIntegerFieldUpdater.newUpdater(LimitedServerCall.class, "released");
+
+        private final MethodLimit limit;
+        private final long startNanos = System.nanoTime();
+        private volatile int released;
+
+        LimitedServerCall(ServerCall<ReqT, RespT> delegate, MethodLimit limit) {
+            super(delegate);
+            this.limit = limit;
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            releaseOnce(true);
+            super.close(status, trailers);
+        }
+
+        void releaseOnce(boolean sample) {
+            if (RELEASED.compareAndSet(this, 0, 1)) {
+                limit.release(System.nanoTime() - startNanos, sample);
+            }
+        }
+    }
+}
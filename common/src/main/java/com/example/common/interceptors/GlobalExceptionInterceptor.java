@@ -1,10 +1,7 @@
 package com.example.common.interceptors;
 
-import com.example.common.exception.BaseException;
-import com.example.common.exception.BusinessException;
-import com.example.common.exception.DuplicateResourceException;
-import com.example.common.exception.ResourceNotFoundException;
-import com.example.common.exception.ValidationException;
+import com.example.common.exception.GrpcErrorLogger;
+import com.example.common.exception.GrpcStatusMapper;
 import io.grpc.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -88,40 +85,10 @@ public class GlobalExceptionInterceptor implements ServerInterceptor {
         }
 
         private void handleException(Exception e) {
-            log.error("Exception in gRPC call", e);
+            GrpcErrorLogger.logFailure(log, "Exception in gRPC call", e);
 
-            Status status = mapExceptionToStatus(e);
+            Status status = GrpcStatusMapper.toStatus(e);
             serverCall.close(status, metadata);
         }
-
-        private Status mapExceptionToStatus(Exception e) {
-            if (e instanceof BaseException baseException) {
-                return Status.fromCode(baseException.getGrpcStatusCode())
-                        .withDescription(baseException.getUserMessage())
-                        .withCause(e);
-            }
-
-            if (e instanceof IllegalArgumentException) {
-                return Status.INVALID_ARGUMENT
-                        .withDescription("Invalid argument provided")
-                        .withCause(e);
-            }
-
-            if (e instanceof IllegalStateException) {
-                return Status.FAILED_PRECONDITION
-                        .withDescription("Invalid state for operation")
-                        .withCause(e);
-            }
-
-            if (e instanceof UnsupportedOperationException) {
-                return Status.UNIMPLEMENTED
-                        .withDescription("Operation not implemented")
-                        .withCause(e);
-            }
-
-            return Status.INTERNAL
-                    .withDescription("Internal server error")
-                    .withCause(e);
-        }
     }
 }
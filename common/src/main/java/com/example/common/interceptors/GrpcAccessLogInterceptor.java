@@ -0,0 +1,155 @@
+package com.example.common.interceptors;
+
+import io.grpc.*;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketAddress;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server interceptor writing one structured line per sampled call to the "grpc.access" logger:
+ * {@code method=... status=... duration_us=... peer=... sample_rate=...}
+ * Calls are sampled per method (1 in N, so a hot method does not crowd out the others);
+ * server failures (INTERNAL, UNKNOWN, DATA_LOSS) are always logged.
+ * Must be registered after {@link GlobalExceptionInterceptor} to see the status it closes failed calls with.
+ */
+@Component
+@Slf4j(topic = "grpc.access")
+public class GrpcAccessLogInterceptor implements ServerInterceptor {
+
+    private static final Set<Status.Code> ALWAYS_LOGGED = EnumSet.of(Status.Code.INTERNAL, Status.Code.UNKNOWN, Status.Code.DATA_LOSS);
+
+    private final boolean enabled;
+    private final int defaultSampleRate;
+    private final Map<String, Integer> methodSampleRates;
+    private final Map<String, MethodSampler> samplers = new ConcurrentHashMap<>();
+
+    /**
+     * @param enabled Whether access lines are written at all
+     * @param defaultSampleRate Log 1 in N calls of each method, 1 logs every call, 0 only server failures
+     * @param methodSampleRates Per-method overrides as {@code full/MethodName:rate} pairs, comma separated
+     */
+    public GrpcAccessLogInterceptor(@Value("${grpc.access-log.enabled:true}") boolean enabled,
+                                    @Value("${grpc.access-log.sample-rate:1}") int defaultSampleRate,
+                                    @Value("${grpc.access-log.method-sample-rates:}") String methodSampleRates) {
+        this.enabled = enabled;
+        this.defaultSampleRate = Math.max(0, defaultSampleRate);
+        this.methodSampleRates = parseSampleRates(methodSampleRates);
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> serverCall,
+            Metadata metadata,
+            ServerCallHandler<ReqT, RespT> serverCallHandler) {
+
+        if (!enabled || !log.isInfoEnabled()) {
+            return serverCallHandler.startCall(serverCall, metadata);
+        }
+
+        MethodSampler sampler = sampler(serverCall.getMethodDescriptor().getFullMethodName());
+        AccessLogServerCall<ReqT, RespT> loggedCall = new AccessLogServerCall<>(serverCall, sampler);
+
+        ServerCall.Listener<ReqT> listener = serverCallHandler.startCall(loggedCall, metadata);
+
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                loggedCall.logOnce(Status.Code.CANCELLED);
+                super.onCancel();
+            }
+        };
+    }
+
+    private MethodSampler sampler(String fullMethodName) {
+        MethodSampler sampler = samplers.get(fullMethodName);
+        if (sampler != null) {
+            return sampler;
+        }
+        return samplers.computeIfAbsent(fullMethodName, name ->
+                new MethodSampler(name, methodSampleRates.getOrDefault(name, defaultSampleRate)));
+    }
+
+    private static Map<String, Integer> parseSampleRates(String methodSampleRates) {
+        Map<String, Integer> rates = new HashMap<>();
+        for (String entry : methodSampleRates.split(",")) {
+            String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid grpc.access-log.method-sample-rates entry '%s', expected full/MethodName:rate", trimmed));
+            }
+            rates.put(trimmed.substring(0, separator).trim(), Math.max(0, Integer.parseInt(trimmed.substring(separator + 1).trim())));
+        }
+        return rates;
+    }
+
+    /**
+     * Sampling state of one method
+     */
+    private static final class MethodSampler {
+
+        private final String fullMethodName;
+        private final int sampleRate;
+        private final AtomicLong calls = new AtomicLong();
+
+        MethodSampler(String fullMethodName, int sampleRate) {
+            this.fullMethodName = fullMethodName;
+            this.sampleRate = sampleRate;
+        }
+
+        boolean shouldLog(Status.Code code) {
+            if (ALWAYS_LOGGED.contains(code)) {
+                return true;
+            }
+            return sampleRate > 0 && calls.getAndIncrement() % sampleRate == 0;
+        }
+    }
+
+    /**
+     * Writes the access line when the call is closed
+     */
+    private static class AccessLogServerCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<AccessLogServerCall> LOGGED =
+                AtomicIntegerFieldUpdater.newUpdater(AccessLogServerCall.class, "logged");
+
+        private final MethodSampler sampler;
+        private final long startNanos = System.nanoTime();
+        private volatile int logged;
+
+        AccessLogServerCall(ServerCall<ReqT, RespT> delegate, MethodSampler sampler) {
+            super(delegate);
+            this.sampler = sampler;
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            logOnce(status.getCode());
+            super.close(status, trailers);
+        }
+
+        void logOnce(Status.Code code) {
+            if (!LOGGED.compareAndSet(this, 0, 1) || !sampler.shouldLog(code)) {
+                return;
+            }
+            long durationMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+            SocketAddress peer = getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR);
+            log.info("method={} status={} duration_us={} peer={} sample_rate={}",
+                    sampler.fullMethodName, code, durationMicros, peer, sampler.sampleRate);
+        }
+    }
+}
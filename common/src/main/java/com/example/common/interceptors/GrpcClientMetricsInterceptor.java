@@ -0,0 +1,82 @@
+package com.example.common.interceptors;
+
+import com.example.common.metrics.GrpcMethodMetrics;
+import com.example.common.metrics.GrpcMetrics;
+import io.grpc.*;
+import org.springframework.stereotype.Component;
+
+/**
+ * Client interceptor recording call count, status, latency and message sizes per gRPC method,
+ * as seen by the caller (network and queueing included)
+ */
+@Component
+public class GrpcClientMetricsInterceptor implements ClientInterceptor {
+
+    private final GrpcMetrics grpcMetrics;
+
+    public GrpcClientMetricsInterceptor(GrpcMetrics grpcMetrics) {
+        this.grpcMetrics = grpcMetrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method,
+            CallOptions callOptions,
+            Channel channel) {
+
+        GrpcMethodMetrics metrics = grpcMetrics.client(method);
+
+        return new MetricsClientCall<>(channel.newCall(method, callOptions), metrics);
+    }
+
+    /**
+     * Records request sizes and starts the clock when the call starts
+     */
+    private static class MetricsClientCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final GrpcMethodMetrics metrics;
+
+        MetricsClientCall(ClientCall<ReqT, RespT> delegate, GrpcMethodMetrics metrics) {
+            super(delegate);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            super.start(new MetricsCallListener<>(responseListener, metrics, System.nanoTime()), headers);
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            metrics.recordRequest(message);
+            super.sendMessage(message);
+        }
+    }
+
+    /**
+     * Records response sizes and the final status of the call
+     */
+    private static class MetricsCallListener<RespT> extends ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT> {
+
+        private final GrpcMethodMetrics metrics;
+        private final long startNanos;
+
+        MetricsCallListener(ClientCall.Listener<RespT> delegate, GrpcMethodMetrics metrics, long startNanos) {
+            super(delegate);
+            this.metrics = metrics;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onMessage(RespT message) {
+            metrics.recordResponse(message);
+            super.onMessage(message);
+        }
+
+        @Override
+        public void onClose(Status status, Metadata trailers) {
+            metrics.recordCall(status.getCode(), System.nanoTime() - startNanos);
+            super.onClose(status, trailers);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.common.interceptors;
+
+import com.example.common.metrics.GrpcMethodMetrics;
+import com.example.common.metrics.GrpcMetrics;
+import io.grpc.*;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Server interceptor recording call count, status, latency and message sizes per gRPC method.
+ * Must be registered after {@link GlobalExceptionInterceptor} so that it wraps it and sees
+ * the status that interceptor closes failed calls with.
+ */
+@Component
+public class GrpcServerMetricsInterceptor implements ServerInterceptor {
+
+    private final GrpcMetrics grpcMetrics;
+
+    public GrpcServerMetricsInterceptor(GrpcMetrics grpcMetrics) {
+        this.grpcMetrics = grpcMetrics;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+            ServerCall<ReqT, RespT> serverCall,
+            Metadata metadata,
+            ServerCallHandler<ReqT, RespT> serverCallHandler) {
+
+        GrpcMethodMetrics metrics = grpcMetrics.server(serverCall.getMethodDescriptor());
+        MetricsServerCall<ReqT, RespT> monitoredCall = new MetricsServerCall<>(serverCall, metrics);
+
+        ServerCall.Listener<ReqT> listener = serverCallHandler.startCall(monitoredCall, metadata);
+
+        return new MetricsListener<>(listener, monitoredCall, metrics);
+    }
+
+    /**
+     * Records response sizes and the final status of the call
+     */
+    private static class MetricsServerCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        // Field updater instead of an AtomicBoolean per call
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<MetricsServerCall> RECORDED =
+                AtomicIntegerFieldUpdater.newUpdater(MetricsServerCall.class, "recorded");
+
+        private final GrpcMethodMetrics metrics;
+        private final long startNanos = System.nanoTime();
+        private volatile int recorded;
+
+        MetricsServerCall(ServerCall<ReqT, RespT> delegate, GrpcMethodMetrics metrics) {
+            super(delegate);
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            metrics.recordResponse(message);
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+            recordOnce(status.getCode());
+            super.close(status, trailers);
+        }
+
+        void recordOnce(Status.Code code) {
+            if (RECORDED.compareAndSet(this, 0, 1)) {
+                metrics.recordCall(code, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /**
+     * Records request sizes, and cancellation of calls that were never closed by the server
+     */
+    private static class MetricsListener<ReqT> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+        private final MetricsServerCall<ReqT, ?> serverCall;
+        private final GrpcMethodMetrics metrics;
+
+        MetricsListener(ServerCall.Listener<ReqT> delegate, MetricsServerCall<ReqT, ?> serverCall, GrpcMethodMetrics metrics) {
+            super(delegate);
+            this.serverCall = serverCall;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            metrics.recordRequest(message);
+            super.onMessage(message);
+        }
+
+        @Override
+        public void onCancel() {
+            serverCall.recordOnce(Status.Code.CANCELLED);
+            super.onCancel();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.common.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Exposes queue depth and dropped events of every {@link CountingAsyncAppender} attached to a logger.
+ * Nothing is registered when logging does not go through asynchronous appenders (e.g. outside the prod profile).
+ */
+@Component
+public class AsyncAppenderMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext loggerContext)) {
+            return;
+        }
+
+        Set<CountingAsyncAppender> appenders = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Logger logger : loggerContext.getLoggerList()) {
+            Iterator<Appender<ILoggingEvent>> iterator = logger.iteratorForAppenders();
+            while (iterator.hasNext()) {
+                if (iterator.next() instanceof CountingAsyncAppender appender) {
+                    appenders.add(appender);
+                }
+            }
+        }
+
+        for (CountingAsyncAppender appender : appenders) {
+            FunctionCounter.builder("logging.async.events.dropped", appender, CountingAsyncAppender::getDiscardedEventCount)
+                    .description("Log events dropped by an asynchronous appender")
+                    .tag("appender", appender.getName())
+                    .tag("reason", "discarded")
+                    .register(registry);
+            FunctionCounter.builder("logging.async.events.dropped", appender, CountingAsyncAppender::getDroppedEventCount)
+                    .description("Log events dropped by an asynchronous appender")
+                    .tag("appender", appender.getName())
+                    .tag("reason", "queue_full")
+                    .register(registry);
+            Gauge.builder("logging.async.queue.size", appender, CountingAsyncAppender::getNumberOfElementsInQueue)
+                    .description("Log events waiting to be written")
+                    .tag("appender", appender.getName())
+                    .register(registry);
+        }
+    }
+}
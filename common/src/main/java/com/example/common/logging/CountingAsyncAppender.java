@@ -0,0 +1,51 @@
+package com.example.common.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback {@link AsyncAppender} that counts the events it drops.
+ * With neverBlock enabled the appender is lossy under pressure: once the queue is nearly full,
+ * INFO and lower events are discarded, and any event that does not fit into a full queue is dropped.
+ * Both are counted here and exposed as metrics by {@link AsyncAppenderMetrics}.
+ * The queue-full count is approximate, a concurrent producer may fill the last slot after the check.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private final LongAdder discardedEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (!isStarted()) {
+            return;
+        }
+        if (isQueueBelowDiscardingThreshold() && isDiscardable(event)) {
+            discardedEvents.increment();
+            return;
+        }
+        if (isNeverBlock() && getRemainingCapacity() == 0) {
+            droppedEvents.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    /**
+     * Get the number of low-level events discarded because the queue was nearly full
+     * @return Discarded event count since startup
+     */
+    public long getDiscardedEventCount() {
+        return discardedEvents.sum();
+    }
+
+    /**
+     * Get the number of events dropped because the queue was full
+     * @return Dropped event count since startup
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+}
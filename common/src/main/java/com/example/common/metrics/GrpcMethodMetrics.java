@@ -0,0 +1,96 @@
+package com.example.common.metrics;
+
+import com.google.protobuf.MessageLite;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of one gRPC method on one side of the call (server or client).
+ * All meters are resolved once and kept here, so recording a call does not
+ * look anything up in the registry and does not allocate.
+ */
+public final class GrpcMethodMetrics {
+
+    private static final Status.Code[] STATUS_CODES = Status.Code.values();
+
+    private final MeterRegistry registry;
+    private final String callsName;
+    private final Tags methodTags;
+    private final boolean percentileHistogram;
+
+    // Indexed by status code ordinal; created on first use, racing registrations get the same meter
+    private final Timer[] callTimers = new Timer[STATUS_CODES.length];
+
+    private final DistributionSummary requestSize;
+    private final DistributionSummary responseSize;
+
+    GrpcMethodMetrics(MeterRegistry registry, String side, MethodDescriptor<?, ?> method, boolean percentileHistogram) {
+        this.registry = registry;
+        this.callsName = "grpc." + side + ".calls";
+        this.methodTags = Tags.of(
+                "service", String.valueOf(method.getServiceName()),
+                "method", String.valueOf(method.getBareMethodName()),
+                "type", method.getType().name());
+        this.percentileHistogram = percentileHistogram;
+        this.requestSize = messageSize(registry, "grpc." + side + ".request.size", "Serialized size of request messages");
+        this.responseSize = messageSize(registry, "grpc." + side + ".response.size", "Serialized size of response messages");
+    }
+
+    /**
+     * Record a finished call
+     * @param code Final status code
+     * @param durationNanos Time from call start to close
+     */
+    public void recordCall(Status.Code code, long durationNanos) {
+        callTimer(code).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRequest(Object message) {
+        record(requestSize, message);
+    }
+
+    public void recordResponse(Object message) {
+        record(responseSize, message);
+    }
+
+    private Timer callTimer(Status.Code code) {
+        Timer timer = callTimers[code.ordinal()];
+        if (timer == null) {
+            timer = Timer.builder(callsName)
+                    .description("gRPC call latency by final status")
+                    .tags(methodTags)
+                    .tag("status", code.name())
+                    .publishPercentileHistogram(percentileHistogram)
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(registry);
+            callTimers[code.ordinal()] = timer;
+        }
+        return timer;
+    }
+
+    private DistributionSummary messageSize(MeterRegistry registry, String name, String description) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tags(methodTags)
+                .publishPercentileHistogram(percentileHistogram)
+                .minimumExpectedValue(64.0)
+                .maximumExpectedValue(4.0 * 1024 * 1024)
+                .register(registry);
+    }
+
+    // Protobuf memoizes the serialized size, which the marshaller computes anyway
+    private static void record(DistributionSummary summary, Object message) {
+        if (message instanceof MessageLite protoMessage) {
+            summary.record(protoMessage.getSerializedSize());
+        }
+    }
+}
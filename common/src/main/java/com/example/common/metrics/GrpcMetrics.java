@@ -0,0 +1,47 @@
+package com.example.common.metrics;
+
+import io.grpc.MethodDescriptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-method gRPC meters shared by the server and client metrics interceptors.
+ * Meters are built on the first call of a method and reused for every later call.
+ */
+@Component
+public class GrpcMetrics {
+
+    private final MeterRegistry registry;
+    private final boolean percentileHistogram;
+
+    private final Map<String, GrpcMethodMetrics> serverMethods = new ConcurrentHashMap<>();
+    private final Map<String, GrpcMethodMetrics> clientMethods = new ConcurrentHashMap<>();
+
+    public GrpcMetrics(MeterRegistry registry,
+                       @Value("${grpc.metrics.percentile-histogram:true}") boolean percentileHistogram) {
+        this.registry = registry;
+        this.percentileHistogram = percentileHistogram;
+    }
+
+    public GrpcMethodMetrics server(MethodDescriptor<?, ?> method) {
+        return lookup(serverMethods, "server", method);
+    }
+
+    public GrpcMethodMetrics client(MethodDescriptor<?, ?> method) {
+        return lookup(clientMethods, "client", method);
+    }
+
+    private GrpcMethodMetrics lookup(Map<String, GrpcMethodMetrics> methods, String side, MethodDescriptor<?, ?> method) {
+        // get() first: computeIfAbsent would allocate a capturing lambda on every call
+        GrpcMethodMetrics metrics = methods.get(method.getFullMethodName());
+        if (metrics != null) {
+            return metrics;
+        }
+        return methods.computeIfAbsent(method.getFullMethodName(),
+                name -> new GrpcMethodMetrics(registry, side, method, percentileHistogram));
+    }
+}
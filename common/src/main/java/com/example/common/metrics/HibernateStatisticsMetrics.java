@@ -0,0 +1,30 @@
+package com.example.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes Hibernate statistics, among them second-level cache requests by region and result
+ * ({@code hibernate.second.level.cache.requests}) and puts. Values stay at zero unless
+ * {@code hibernate.generate_statistics} is enabled.
+ */
+@Component
+public class HibernateStatisticsMetrics implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public HibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        new HibernateMetrics(sessionFactory, "default", Tags.empty()).bindTo(registry);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.common.util;
+
+import com.example.common.exception.GrpcErrorLogger;
+import com.example.common.exception.GrpcStatusMapper;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+
+/**
+ * Receives a bidi stream of requests in batches while honoring gRPC flow control.
+ * Requests are pulled from the client one batch at a time: the next batch is only requested once
+ * the previous one has been processed and its results handed to the transport, so a slow database
+ * or a client that stops reading results slows the sender down instead of growing a buffer.
+ * State changes and observer calls are serialized on this receiver.
+ * @param <ReqT> The request type
+ * @param <RespT> The result type, typically one result per request
+ */
+@Slf4j
+public class BatchingStreamReceiver<ReqT, RespT> implements StreamObserver<ReqT> {
+
+    private final ServerCallStreamObserver<RespT> responseObserver;
+    private final int batchSize;
+    private final BiFunction<Long, List<ReqT>, CompletionStage<List<RespT>>> batchProcessor;
+
+    private List<ReqT> pending;
+    private long nextIndex;
+    private boolean processing;
+    private boolean halfClosed;
+    private boolean awaitingReady;
+    private boolean finished;
+
+    /**
+     * Switch the call to manual flow control and request the first batch; must be called from the RPC method itself
+     * @param responseObserver The bidi-streaming response observer
+     * @param batchSize Requests per batch
+     * @param batchProcessor Processes a batch given the stream index of its first request, may complete synchronously
+     */
+    public BatchingStreamReceiver(StreamObserver<RespT> responseObserver, int batchSize,
+                                  BiFunction<Long, List<ReqT>, CompletionStage<List<RespT>>> batchProcessor) {
+        this.responseObserver = (ServerCallStreamObserver<RespT>) responseObserver;
+        this.batchSize = batchSize;
+        this.batchProcessor = batchProcessor;
+        this.pending = new ArrayList<>(batchSize);
+
+        this.responseObserver.disableAutoRequest();
+        this.responseObserver.setOnReadyHandler(this::onReady);
+        this.responseObserver.setOnCancelHandler(this::onCancel);
+        this.responseObserver.request(batchSize);
+    }
+
+    @Override
+    public synchronized void onNext(ReqT request) {
+        if (finished) {
+            return;
+        }
+        pending.add(request);
+        if (pending.size() >= batchSize) {
+            processPending();
+        }
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+        // The client cancelled or the call failed, nothing can be sent any more
+        finished = true;
+        pending = List.of();
+    }
+
+    @Override
+    public synchronized void onCompleted() {
+        halfClosed = true;
+        if (!processing) {
+            processPendingOrComplete();
+        }
+    }
+
+    private synchronized void onCancel() {
+        finished = true;
+    }
+
+    private synchronized void onReady() {
+        if (awaitingReady && !finished) {
+            awaitingReady = false;
+            responseObserver.request(batchSize);
+        }
+    }
+
+    private void processPendingOrComplete() {
+        if (!pending.isEmpty()) {
+            processPending();
+        } else if (!finished) {
+            finished = true;
+            responseObserver.onCompleted();
+        }
+    }
+
+    private void processPending() {
+        List<ReqT> batch = pending;
+        long firstIndex = nextIndex;
+        pending = new ArrayList<>(batchSize);
+        nextIndex += batch.size();
+        processing = true;
+
+        CompletionStage<List<RespT>> results;
+        try {
+            results = batchProcessor.apply(firstIndex, batch);
+        } catch (RuntimeException e) {
+            batchFailed(e);
+            return;
+        }
+        results.whenComplete((batchResults, error) -> {
+            if (error != null) {
+                batchFailed(error);
+            } else {
+                batchDone(batchResults);
+            }
+        });
+    }
+
+    private synchronized void batchDone(List<RespT> batchResults) {
+        processing = false;
+        if (finished) {
+            return;
+        }
+        for (RespT result : batchResults) {
+            responseObserver.onNext(result);
+        }
+
+        if (halfClosed) {
+            processPendingOrComplete();
+        } else if (responseObserver.isReady()) {
+            responseObserver.request(batchSize);
+        } else {
+            // The client is not reading results, resume once the transport drained them
+            awaitingReady = true;
+        }
+    }
+
+    private synchronized void batchFailed(Throwable error) {
+        processing = false;
+        GrpcErrorLogger.logFailure(log, "Exception while processing a streamed batch", error);
+        if (finished) {
+            return;
+        }
+        finished = true;
+        pending = List.of();
+        responseObserver.onError(GrpcStatusMapper.toStatus(error).asRuntimeException());
+    }
+}
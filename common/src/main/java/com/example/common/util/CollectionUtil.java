@@ -5,6 +5,7 @@ import lombok.experimental.UtilityClass;
 import java.util.Collection;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * Utility class for common collection operations and validations.
@@ -48,4 +49,23 @@ public class CollectionUtil {
                 .sum();
     }
 
+    /**
+     * Calculate the exact sum of integer values from collection elements, without boxing
+     * @param collection The collection to process
+     * @param mapper Function to extract the value from each element
+     * @param <T> Type of collection elements
+     * @return Sum of all values, 0 if collection is null or empty
+     * @throws ArithmeticException if the sum overflows a long
+     */
+    public static <T> long sumExact(Collection<T> collection, ToLongFunction<T> mapper) {
+        if (isEmpty(collection)) {
+            return 0;
+        }
+        long total = 0;
+        for (T element : collection) {
+            total = Math.addExact(total, mapper.applyAsLong(element));
+        }
+        return total;
+    }
+
 }
@@ -0,0 +1,47 @@
+package com.example.common.util;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Utility class for bridging gRPC future stubs to CompletableFuture
+ */
+@UtilityClass
+public class FutureUtil {
+
+    /**
+     * Adapt a ListenableFuture returned by a gRPC future stub
+     * Cancelling the returned future cancels the underlying call
+     * @param listenableFuture The future returned by the stub
+     * @param <T> The response type
+     * @return CompletableFuture completed on the gRPC callback thread
+     */
+    public static <T> CompletableFuture<T> toCompletableFuture(ListenableFuture<T> listenableFuture) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                listenableFuture.cancel(mayInterruptIfRunning);
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        Futures.addCallback(listenableFuture, new FutureCallback<>() {
+            @Override
+            public void onSuccess(T result) {
+                completableFuture.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                completableFuture.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+
+        return completableFuture;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.common.util;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Conversions between amounts in minor currency units (cents), as stored and summed,
+ * and the double amounts of the legacy wire fields
+ */
+@UtilityClass
+public class MoneyUtil {
+
+    public static final int MINOR_UNITS_PER_MAJOR = 100;
+
+    /**
+     * Convert a legacy double amount to minor units
+     * @param amount Amount in major units, e.g. 9.99
+     * @return Amount in minor units rounded to the nearest one, e.g. 999
+     */
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_UNITS_PER_MAJOR);
+    }
+
+    /**
+     * Convert an amount in minor units to a legacy double amount
+     * @param minorUnits Amount in minor units, e.g. 999
+     * @return Amount in major units, e.g. 9.99
+     */
+    public static double toMajorUnits(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS_PER_MAJOR;
+    }
+}
@@ -1,13 +1,20 @@
 package com.example.common.util;
 
+import com.example.common.exception.GrpcErrorLogger;
+import com.example.common.exception.GrpcStatusMapper;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletionStage;
 
 /**
  * Handler for gRPC stream response operations
  * Provides common functionality for sending responses and completing streams
  */
 @UtilityClass
+@Slf4j
 public class StreamResponseHandler {
 
     /**
@@ -20,4 +27,24 @@ public class StreamResponseHandler {
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    /**
+     * Send the response once it is available, or close the stream with the mapped gRPC status
+     * Exceptions raised by asynchronous stages never reach the global exception interceptor,
+     * so they are converted here with the same mapping
+     * @param responseObserver The gRPC response observer
+     * @param response Stage producing the response
+     * @param <T> The response type
+     */
+    public static <T> void respond(StreamObserver<T> responseObserver, CompletionStage<T> response) {
+        response.whenComplete((result, error) -> {
+            if (error == null) {
+                respond(responseObserver, result);
+                return;
+            }
+            GrpcErrorLogger.logFailure(log, "Exception in asynchronous gRPC call", error);
+            Status status = GrpcStatusMapper.toStatus(error);
+            responseObserver.onError(status.asRuntimeException());
+        });
+    }
 }
@@ -0,0 +1,117 @@
+package com.example.common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Slot accounting and latency-driven adaptation of the gradient limit
+ */
+class GradientConcurrencyLimitTest {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofMillis(10).toNanos();
+
+    @Test
+    void initialLimitIsClampedToTheBounds() {
+        assertThat(new GradientConcurrencyLimit(1, 4, 200).getLimit()).isEqualTo(4);
+        assertThat(new GradientConcurrencyLimit(500, 4, 200).getLimit()).isEqualTo(200);
+    }
+
+    @Test
+    void slotsBeyondTheLimitAreRefusedUntilOneIsGivenBack() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(3, 1, 3);
+
+        assertThat(acquireAll(limit, 1.0)).isEqualTo(3);
+        assertThat(limit.tryAcquire(1.0)).isFalse();
+
+        limit.release(FAST, false);
+        assertThat(limit.getInFlight()).isEqualTo(2);
+        assertThat(limit.tryAcquire(1.0)).isTrue();
+    }
+
+    @Test
+    void shareRestrictsTheCallerButAlwaysLeavesOneSlot() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 10);
+
+        assertThat(acquireAll(limit, 0.5)).isEqualTo(5);
+        // Callers with the whole limit still get the rest
+        assertThat(acquireAll(limit, 1.0)).isEqualTo(5);
+
+        GradientConcurrencyLimit small = new GradientConcurrencyLimit(1, 1, 1);
+        assertThat(small.tryAcquire(0.1)).isTrue();
+    }
+
+    @Test
+    void growsWhileUsedAtSteadyLatencyUpToTheMaximum() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 4, 60);
+
+        fullRounds(limit, 5, FAST);
+        assertThat(limit.getLimit()).isGreaterThan(20);
+
+        fullRounds(limit, 100, FAST);
+        assertThat(limit.getLimit()).isEqualTo(60);
+    }
+
+    @Test
+    void doesNotGrowWhenMostOfTheLimitIsUnused() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 4, 200);
+
+        for (int i = 0; i < 500; i++) {
+            assertThat(limit.tryAcquire(1.0)).isTrue();
+            limit.release(FAST, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+    }
+
+    @Test
+    void shrinksWhenLatencyRisesButNotBelowTheMinimum() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(40, 4, 40);
+        fullRounds(limit, 10, FAST);
+        int before = limit.getLimit();
+
+        fullRounds(limit, 3, SLOW);
+        assertThat(limit.getLimit()).isLessThan(before);
+
+        fullRounds(limit, 200, SLOW * 100);
+        assertThat(limit.getLimit()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void unsampledReleasesLeaveTheLimitAlone() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 4, 200);
+
+        for (int round = 0; round < 20; round++) {
+            int acquired = acquireAll(limit, 1.0);
+            for (int i = 0; i < acquired; i++) {
+                limit.release(FAST, false);
+            }
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(20);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    /**
+     * Fills the limit, then releases every slot with the given latency, {@code rounds} times
+     */
+    private static void fullRounds(GradientConcurrencyLimit limit, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = acquireAll(limit, 1.0);
+            for (int i = 0; i < acquired; i++) {
+                limit.release(rttNanos, true);
+            }
+        }
+    }
+
+    private static int acquireAll(GradientConcurrencyLimit limit, double share) {
+        int acquired = 0;
+        while (limit.tryAcquire(share)) {
+            acquired++;
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.common.interceptors;
+
+import com.example.user.UserProto.CreateUserRequest;
+import com.example.user.UserProto.CreateUserResponse;
+import com.example.user.UserProto.GetUserRequest;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserProto.UserChangeEvent;
+import com.example.user.UserProto.WatchUserChangesRequest;
+import com.example.user.UserServiceGrpc;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load shedding over the in-process transport. Unary calls are held open by the service until the test answers them,
+ * and the limits are pinned (min = max) so that latency samples cannot move them.
+ */
+class ConcurrencyLimitInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final BlockingQueue<StreamObserver<GetUserResponse>> heldReads = new LinkedBlockingQueue<>();
+    private final BlockingQueue<StreamObserver<CreateUserResponse>> heldWrites = new LinkedBlockingQueue<>();
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceStub stub;
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void callsBeyondTheLimitAreShedUntilASlotIsGivenBack() throws Exception {
+        start(new ConcurrencyLimitInterceptor(true, 2, 2, 2, 1.0, List.of("Get"), Set.of(), registry));
+
+        CompletableFuture<Status> first = getUser();
+        CompletableFuture<Status> second = getUser();
+        awaitHeld(heldReads, 2);
+
+        assertThat(getUser().get(5, TimeUnit.SECONDS).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        assertThat(shedCalls("GetUser")).isEqualTo(1);
+
+        answer(heldReads.take());
+        assertThat(first.get(5, TimeUnit.SECONDS).isOk()).isTrue();
+
+        CompletableFuture<Status> third = getUser();
+        awaitHeld(heldReads, 2);
+        assertThat(third).isNotDone();
+        assertThat(inFlight()).isEqualTo(2);
+
+        answer(heldReads.take());
+        answer(heldReads.take());
+        assertThat(second.get(5, TimeUnit.SECONDS).isOk()).isTrue();
+        assertThat(third.get(5, TimeUnit.SECONDS).isOk()).isTrue();
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void writesOnlyGetTheirShareOfTheServiceLimit() throws Exception {
+        start(new ConcurrencyLimitInterceptor(true, 4, 4, 4, 0.5, List.of("Get"), Set.of(), registry));
+
+        createUser();
+        createUser();
+        awaitHeld(heldWrites, 2);
+
+        assertThat(createUser().get(5, TimeUnit.SECONDS).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        assertThat(shedCalls("CreateUser")).isEqualTo(1);
+
+        // Reads may still use the rest of the service limit
+        getUser();
+        getUser();
+        awaitHeld(heldReads, 2);
+        assertThat(inFlight()).isEqualTo(4);
+        assertThat(getUser().get(5, TimeUnit.SECONDS).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+    }
+
+    @Test
+    void cancelledCallGivesItsSlotBack() throws Exception {
+        start(new ConcurrencyLimitInterceptor(true, 1, 1, 1, 1.0, List.of("Get"), Set.of(), registry));
+
+        Context.CancellableContext context = Context.current().withCancellation();
+        CompletableFuture<Status> cancelled = context.call(this::getUser);
+        awaitHeld(heldReads, 1);
+
+        context.cancel(null);
+        assertThat(cancelled.get(5, TimeUnit.SECONDS).getCode()).isEqualTo(Status.Code.CANCELLED);
+        assertThat(inFlight()).isZero();
+
+        heldReads.clear();
+        CompletableFuture<Status> next = getUser();
+        awaitHeld(heldReads, 1);
+        answer(heldReads.take());
+        assertThat(next.get(5, TimeUnit.SECONDS).isOk()).isTrue();
+    }
+
+    @Test
+    void streamingCallsAreNotLimited() throws Exception {
+        start(new ConcurrencyLimitInterceptor(true, 1, 1, 1, 1.0, List.of("Get"), Set.of(), registry));
+        getUser();
+        awaitHeld(heldReads, 1);
+
+        CompletableFuture<Status> watch = new CompletableFuture<>();
+        stub.watchUserChanges(WatchUserChangesRequest.getDefaultInstance(), statusOf(watch));
+
+        assertThat(watch.get(5, TimeUnit.SECONDS).isOk()).isTrue();
+    }
+
+    @Test
+    void excludedServicesAndDisabledInterceptorDoNotLimit() throws Exception {
+        start(new ConcurrencyLimitInterceptor(true, 1, 1, 1, 1.0, List.of("Get"), Set.of(UserServiceGrpc.SERVICE_NAME), registry));
+        getUser();
+        getUser();
+        awaitHeld(heldReads, 2);
+        tearDown();
+
+        heldReads.clear();
+        start(new ConcurrencyLimitInterceptor(false, 1, 1, 1, 1.0, List.of("Get"), Set.of(), new SimpleMeterRegistry()));
+        getUser();
+        getUser();
+        awaitHeld(heldReads, 2);
+    }
+
+    private void start(ConcurrencyLimitInterceptor interceptor) throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new UserServiceGrpc.UserServiceImplBase() {
+                    @Override
+                    public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> responseObserver) {
+                        heldReads.add(responseObserver);
+                    }
+
+                    @Override
+                    public void createUser(CreateUserRequest request, StreamObserver<CreateUserResponse> responseObserver) {
+                        heldWrites.add(responseObserver);
+                    }
+
+                    @Override
+                    public void watchUserChanges(WatchUserChangesRequest request, StreamObserver<UserChangeEvent> responseObserver) {
+                        responseObserver.onCompleted();
+                    }
+                }, interceptor))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = UserServiceGrpc.newStub(channel);
+    }
+
+    private CompletableFuture<Status> getUser() {
+        CompletableFuture<Status> status = new CompletableFuture<>();
+        stub.getUser(GetUserRequest.newBuilder().setUserId(1).build(), statusOf(status));
+        return status;
+    }
+
+    private CompletableFuture<Status> createUser() {
+        CompletableFuture<Status> status = new CompletableFuture<>();
+        stub.createUser(CreateUserRequest.newBuilder().setName("Ada").build(), statusOf(status));
+        return status;
+    }
+
+    private static <T> StreamObserver<T> statusOf(CompletableFuture<Status> status) {
+        return new StreamObserver<>() {
+            @Override
+            public void onNext(T value) {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                status.complete(Status.fromThrowable(t));
+            }
+
+            @Override
+            public void onCompleted() {
+                status.complete(Status.OK);
+            }
+        };
+    }
+
+    private static void answer(StreamObserver<GetUserResponse> heldCall) {
+        heldCall.onNext(GetUserResponse.getDefaultInstance());
+        heldCall.onCompleted();
+    }
+
+    private static void awaitHeld(BlockingQueue<?> held, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (held.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(held).hasSize(count);
+    }
+
+    private double shedCalls(String method) {
+        return registry.get("grpc.server.calls.shed").tag("method", method).counter().count();
+    }
+
+    private double inFlight() {
+        return registry.get("grpc.server.concurrency.in.flight").gauge().value();
+    }
+}
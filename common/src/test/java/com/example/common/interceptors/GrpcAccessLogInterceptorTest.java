@@ -0,0 +1,147 @@
+package com.example.common.interceptors;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.user.UserProto.GetUserRequest;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserProto.ValidateUserRequest;
+import com.example.user.UserProto.ValidateUserResponse;
+import com.example.user.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Access log sampling over the in-process transport: GetUser succeeds, ValidateUser fails with INTERNAL
+ */
+class GrpcAccessLogInterceptorTest {
+
+    private static final String GET_USER = "com.example.user.UserService/GetUser";
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("grpc.access");
+    private final ListAppender<ILoggingEvent> accessLines = new ListAppender<>();
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+
+    @BeforeEach
+    void setUp() {
+        accessLines.start();
+        accessLogger.addAppender(accessLines);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogger.detachAppender(accessLines);
+        if (server != null) {
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+    }
+
+    @Test
+    void logsEveryCallAtSampleRateOne() throws Exception {
+        start(new GrpcAccessLogInterceptor(true, 1, ""));
+
+        callGetUser(3);
+
+        assertThat(lines()).hasSize(3)
+                .allSatisfy(line -> assertThat(line).startsWith("method=" + GET_USER + " status=OK duration_us="));
+    }
+
+    @Test
+    void logsOneCallInNPerMethod() throws Exception {
+        start(new GrpcAccessLogInterceptor(true, 3, ""));
+
+        callGetUser(7);
+
+        assertThat(lines()).hasSize(3).allSatisfy(line -> assertThat(line).endsWith("sample_rate=3"));
+    }
+
+    @Test
+    void alwaysLogsServerFailures() throws Exception {
+        start(new GrpcAccessLogInterceptor(true, 0, ""));
+
+        callGetUser(5);
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> stub.validateUser(ValidateUserRequest.newBuilder().setUserId(1).build()))
+                    .isInstanceOf(StatusRuntimeException.class);
+        }
+
+        assertThat(lines()).hasSize(2)
+                .allSatisfy(line -> assertThat(line).contains("ValidateUser status=INTERNAL"));
+    }
+
+    @Test
+    void methodRateOverridesTheDefault() throws Exception {
+        start(new GrpcAccessLogInterceptor(true, 1, " " + GET_USER + ":2 , com.example.user.UserService/ValidateUser:5"));
+
+        callGetUser(4);
+
+        assertThat(lines()).hasSize(2).allSatisfy(line -> assertThat(line).endsWith("sample_rate=2"));
+    }
+
+    @Test
+    void disabledInterceptorLogsNothing() throws Exception {
+        start(new GrpcAccessLogInterceptor(false, 1, ""));
+
+        callGetUser(2);
+
+        assertThat(lines()).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedMethodRates() {
+        assertThatThrownBy(() -> new GrpcAccessLogInterceptor(true, 1, "GetUser"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("GetUser");
+    }
+
+    private void start(GrpcAccessLogInterceptor interceptor) throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new UserServiceGrpc.UserServiceImplBase() {
+                    @Override
+                    public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> responseObserver) {
+                        responseObserver.onNext(GetUserResponse.getDefaultInstance());
+                        responseObserver.onCompleted();
+                    }
+
+                    @Override
+                    public void validateUser(ValidateUserRequest request, StreamObserver<ValidateUserResponse> responseObserver) {
+                        responseObserver.onError(Status.INTERNAL.asRuntimeException());
+                    }
+                }, interceptor))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    private void callGetUser(int times) {
+        for (int i = 0; i < times; i++) {
+            stub.getUser(GetUserRequest.newBuilder().setUserId(i).build());
+        }
+    }
+
+    private List<String> lines() {
+        return accessLines.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.common.util;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batching and flow control of the receiver, driven by hand through a fake response observer
+ */
+class BatchingStreamReceiverTest {
+
+    private static final int BATCH_SIZE = 3;
+
+    private final FakeResponseObserver responseObserver = new FakeResponseObserver();
+    private final List<Long> firstIndexes = new ArrayList<>();
+    private final List<CompletableFuture<List<String>>> pendingBatches = new ArrayList<>();
+
+    @Test
+    void requestsOneBatchAtATimeAndOnlyAfterItsResultsAreSent() {
+        BatchingStreamReceiver<Integer, String> receiver = heldReceiver();
+        assertThat(responseObserver.requested).isEqualTo(BATCH_SIZE);
+        assertThat(responseObserver.autoRequestDisabled).isTrue();
+
+        send(receiver, 1, 2, 3);
+        assertThat(firstIndexes).containsExactly(0L);
+        assertThat(responseObserver.requested).isEqualTo(BATCH_SIZE);
+
+        complete(0);
+        assertThat(responseObserver.sent).containsExactly("1", "2", "3");
+        assertThat(responseObserver.requested).isEqualTo(2 * BATCH_SIZE);
+
+        send(receiver, 4, 5, 6);
+        assertThat(firstIndexes).containsExactly(0L, 3L);
+    }
+
+    @Test
+    void waitsForTheClientToReadBeforeRequestingMore() {
+        BatchingStreamReceiver<Integer, String> receiver = heldReceiver();
+        send(receiver, 1, 2, 3);
+
+        responseObserver.ready = false;
+        complete(0);
+        assertThat(responseObserver.requested).isEqualTo(BATCH_SIZE);
+
+        responseObserver.ready = true;
+        responseObserver.onReadyHandler.run();
+        assertThat(responseObserver.requested).isEqualTo(2 * BATCH_SIZE);
+
+        // A further onReady does not request twice
+        responseObserver.onReadyHandler.run();
+        assertThat(responseObserver.requested).isEqualTo(2 * BATCH_SIZE);
+    }
+
+    @Test
+    void halfCloseFlushesThePartialBatchThenCompletes() {
+        BatchingStreamReceiver<Integer, String> receiver = immediateReceiver();
+
+        send(receiver, 1, 2, 3, 4);
+        receiver.onCompleted();
+
+        assertThat(firstIndexes).containsExactly(0L, 3L);
+        assertThat(responseObserver.sent).containsExactly("1", "2", "3", "4");
+        assertThat(responseObserver.completed).isTrue();
+    }
+
+    @Test
+    void halfCloseWhileABatchIsProcessedCompletesAfterIt() {
+        BatchingStreamReceiver<Integer, String> receiver = heldReceiver();
+
+        send(receiver, 1, 2, 3);
+        receiver.onCompleted();
+        assertThat(responseObserver.completed).isFalse();
+
+        complete(0);
+        assertThat(responseObserver.sent).containsExactly("1", "2", "3");
+        assertThat(responseObserver.completed).isTrue();
+    }
+
+    @Test
+    void failedBatchFailsTheStream() {
+        BatchingStreamReceiver<Integer, String> receiver = heldReceiver();
+
+        send(receiver, 1, 2, 3);
+        pendingBatches.get(0).completeExceptionally(new IllegalArgumentException("bad batch"));
+        send(receiver, 4);
+        receiver.onCompleted();
+
+        assertThat(Status.fromThrowable(responseObserver.error).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+        assertThat(responseObserver.sent).isEmpty();
+        assertThat(responseObserver.completed).isFalse();
+        assertThat(firstIndexes).containsExactly(0L);
+    }
+
+    @Test
+    void resultsOfABatchFinishingAfterCancellationAreDropped() {
+        BatchingStreamReceiver<Integer, String> receiver = heldReceiver();
+
+        send(receiver, 1, 2, 3);
+        responseObserver.onCancelHandler.run();
+        complete(0);
+
+        assertThat(responseObserver.sent).isEmpty();
+        assertThat(responseObserver.requested).isEqualTo(BATCH_SIZE);
+    }
+
+    private BatchingStreamReceiver<Integer, String> heldReceiver() {
+        return new BatchingStreamReceiver<>(responseObserver, BATCH_SIZE, (firstIndex, batch) -> {
+            firstIndexes.add(firstIndex);
+            CompletableFuture<List<String>> results = new CompletableFuture<>();
+            pendingBatches.add(results);
+            return results.thenApply(ignored -> batch.stream().map(String::valueOf).toList());
+        });
+    }
+
+    private BatchingStreamReceiver<Integer, String> immediateReceiver() {
+        return new BatchingStreamReceiver<>(responseObserver, BATCH_SIZE, (firstIndex, batch) -> {
+            firstIndexes.add(firstIndex);
+            return CompletableFuture.completedFuture(batch.stream().map(String::valueOf).toList());
+        });
+    }
+
+    private void complete(int batch) {
+        pendingBatches.get(batch).complete(List.of());
+    }
+
+    private static void send(BatchingStreamReceiver<Integer, String> receiver, int... requests) {
+        for (int request : requests) {
+            receiver.onNext(request);
+        }
+    }
+
+    private static class FakeResponseObserver extends ServerCallStreamObserver<String> {
+
+        private final List<String> sent = new ArrayList<>();
+        private int requested;
+        private boolean ready = true;
+        private boolean autoRequestDisabled;
+        private boolean completed;
+        private Throwable error;
+        private Runnable onReadyHandler;
+        private Runnable onCancelHandler;
+
+        @Override
+        public void onNext(String result) {
+            sent.add(result);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void request(int count) {
+            requested += count;
+        }
+
+        @Override
+        public void disableAutoRequest() {
+            autoRequestDisabled = true;
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+            autoRequestDisabled = true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReadyHandler = onReadyHandler;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            this.onCancelHandler = onCancelHandler;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.order.client;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.util.ForwardingClientStreamTracer;
+import io.grpc.util.ForwardingLoadBalancer;
+import io.grpc.util.ForwardingLoadBalancerHelper;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load balancer that sends each call to the less busy of two backends drawn at random among the ready ones
+ * ("power of two choices" on outstanding requests). Round robin keeps managing connections and
+ * health checks and its ready picker tells which backends are READY and healthy, so only those are ever compared;
+ * a slow backend accumulates outstanding calls and receives fewer new ones.
+ */
+final class LeastOutstandingRequestsLoadBalancer extends ForwardingLoadBalancer {
+
+    private static final Attributes.Key<AtomicInteger> OUTSTANDING_REQUESTS =
+            Attributes.Key.create("order.user-client.outstanding-requests");
+
+    private final LoadBalancer roundRobin;
+
+    LeastOutstandingRequestsLoadBalancer(Helper helper) {
+        this.roundRobin = LoadBalancerRegistry.getDefaultRegistry()
+                .getProvider("round_robin")
+                .newLoadBalancer(new CountingHelper(helper));
+    }
+
+    @Override
+    protected LoadBalancer delegate() {
+        return roundRobin;
+    }
+
+    @Override
+    public void handleResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        // Round robin has no configuration of its own
+        roundRobin.handleResolvedAddresses(resolvedAddresses.toBuilder()
+                .setLoadBalancingPolicyConfig(null)
+                .build());
+    }
+
+    /**
+     * Attaches an outstanding request counter to every subchannel and wraps round robin's ready pickers
+     */
+    private static final class CountingHelper extends ForwardingLoadBalancerHelper {
+
+        private final Helper helper;
+
+        CountingHelper(Helper helper) {
+            this.helper = helper;
+        }
+
+        @Override
+        protected Helper delegate() {
+            return helper;
+        }
+
+        @Override
+        public Subchannel createSubchannel(CreateSubchannelArgs args) {
+            Attributes attributes = args.getAttributes().toBuilder()
+                    .set(OUTSTANDING_REQUESTS, new AtomicInteger())
+                    .build();
+            return helper.createSubchannel(args.toBuilder().setAttributes(attributes).build());
+        }
+
+        @Override
+        public void updateBalancingState(ConnectivityState newState, SubchannelPicker newPicker) {
+            helper.updateBalancingState(newState,
+                    newState == ConnectivityState.READY ? new LeastOutstandingPicker(newPicker) : newPicker);
+        }
+    }
+
+    /**
+     * Compares two distinct backends drawn at random from the ready ones, so every pair is possible whatever the
+     * replica count, and breaks ties at random so idle replicas share the traffic evenly
+     */
+    private static final class LeastOutstandingPicker extends SubchannelPicker {
+
+        // Round robin and its pick_first children ignore the call details
+        private static final PickSubchannelArgs LISTING_ARGS = new PickSubchannelArgs() {
+            @Override
+            public CallOptions getCallOptions() {
+                return CallOptions.DEFAULT;
+            }
+
+            @Override
+            public Metadata getHeaders() {
+                return new Metadata();
+            }
+
+            @Override
+            public MethodDescriptor<?, ?> getMethodDescriptor() {
+                return null;
+            }
+        };
+
+        private static final int MAX_LISTED_BACKENDS = 1024;
+
+        private final SubchannelPicker roundRobinPicker;
+        private final List<PickResult> readyBackends;
+
+        LeastOutstandingPicker(SubchannelPicker roundRobinPicker) {
+            this.roundRobinPicker = roundRobinPicker;
+            this.readyBackends = listReadyBackends(roundRobinPicker);
+        }
+
+        /**
+         * Round robin's ready picker cycles through every ready and healthy backend, so picking until the first one
+         * comes back lists them all. Nobody else holds the picker yet, no pick is interleaved.
+         */
+        private static List<PickResult> listReadyBackends(SubchannelPicker roundRobinPicker) {
+            List<PickResult> backends = new ArrayList<>();
+            Set<Subchannel> seen = new HashSet<>();
+            while (backends.size() < MAX_LISTED_BACKENDS) {
+                PickResult result = roundRobinPicker.pickSubchannel(LISTING_ARGS);
+                if (outstandingRequests(result) == null || !seen.add(result.getSubchannel())) {
+                    break;
+                }
+                backends.add(result);
+            }
+            return List.copyOf(backends);
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            int size = readyBackends.size();
+            if (size == 0) {
+                return roundRobinPicker.pickSubchannel(args);
+            }
+            if (size == 1) {
+                return counted(readyBackends.get(0));
+            }
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int firstIndex = random.nextInt(size);
+            int secondIndex = random.nextInt(size - 1);
+            if (secondIndex >= firstIndex) {
+                secondIndex++;
+            }
+            PickResult first = readyBackends.get(firstIndex);
+            PickResult second = readyBackends.get(secondIndex);
+
+            int firstCount = outstandingRequests(first).get();
+            int secondCount = outstandingRequests(second).get();
+            if (firstCount == secondCount) {
+                return counted(random.nextBoolean() ? first : second);
+            }
+            return counted(secondCount < firstCount ? second : first);
+        }
+
+        private static AtomicInteger outstandingRequests(PickResult result) {
+            Subchannel subchannel = result.getSubchannel();
+            return subchannel == null ? null : subchannel.getAttributes().get(OUTSTANDING_REQUESTS);
+        }
+
+        private static PickResult counted(PickResult result) {
+            return PickResult.withSubchannel(result.getSubchannel(),
+                    new CountingTracerFactory(outstandingRequests(result), result.getStreamTracerFactory()));
+        }
+    }
+
+    /**
+     * Counts a call as outstanding from stream creation until the stream is closed
+     */
+    private static final class CountingTracerFactory extends ClientStreamTracer.Factory {
+
+        private static final ClientStreamTracer NO_OP_TRACER = new ClientStreamTracer() {
+        };
+
+        private final AtomicInteger outstandingRequests;
+        private final ClientStreamTracer.Factory delegateFactory;
+
+        CountingTracerFactory(AtomicInteger outstandingRequests, ClientStreamTracer.Factory delegateFactory) {
+            this.outstandingRequests = outstandingRequests;
+            this.delegateFactory = delegateFactory;
+        }
+
+        @Override
+        public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+            ClientStreamTracer delegateTracer = delegateFactory == null
+                    ? NO_OP_TRACER
+                    : delegateFactory.newClientStreamTracer(info, headers);
+
+            return new ForwardingClientStreamTracer() {
+                // Created and closed on different threads
+                private volatile boolean counted;
+
+                @Override
+                protected ClientStreamTracer delegate() {
+                    return delegateTracer;
+                }
+
+                @Override
+                public void streamCreated(Attributes transportAttrs, Metadata headers) {
+                    counted = true;
+                    outstandingRequests.incrementAndGet();
+                    super.streamCreated(transportAttrs, headers);
+                }
+
+                @Override
+                public void streamClosed(Status status) {
+                    if (counted) {
+                        counted = false;
+                        outstandingRequests.decrementAndGet();
+                    }
+                    super.streamClosed(status);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.order.client;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+
+/**
+ * Registers {@link LeastOutstandingRequestsLoadBalancer} under the policy name
+ * {@value #POLICY_NAME}, through META-INF/services/io.grpc.LoadBalancerProvider
+ */
+public final class LeastOutstandingRequestsLoadBalancerProvider extends LoadBalancerProvider {
+
+    public static final String POLICY_NAME = "least_outstanding_requests";
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return POLICY_NAME;
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return new LeastOutstandingRequestsLoadBalancer(helper);
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+import com.example.order.config.UserCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded near-cache of users validated by User Service, keyed by user ID.
+ * Entries are evicted by size and age, and kept coherent by {@link UserChangeWatcher}.
+ * The cache is only consulted while the change stream is connected, so a missed
+ * invalidation can never be served for longer than a reconnect.
+ * A separate stale copy of looked up users survives reconnects; it is only read while the
+ * User Service circuit breaker is open, when an old user is better than no answer.
+ */
+@Component
+@Slf4j
+public class UserCache {
+
+    private final Cache<Long, CommonProto.User> users;
+    private final boolean enabled;
+
+    // Last known users, null when the stale fallback is disabled
+    private final Cache<Long, CommonProto.User> staleUsers;
+
+    // Bumped on every invalidation so that a lookup started before it does not re-populate stale data
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private volatile boolean coherent;
+
+    public UserCache(UserCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.users = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        this.staleUsers = properties.isStaleFallback()
+                ? Caffeine.newBuilder()
+                        .maximumSize(properties.getMaximumSize())
+                        .expireAfterWrite(properties.getStaleMaxAge())
+                        .build()
+                : null;
+    }
+
+    /**
+     * Get a cached user
+     * @param userId The user ID
+     * @return The cached user, or null on a miss or while the cache is not coherent
+     */
+    public CommonProto.User get(long userId) {
+        if (!isActive()) {
+            return null;
+        }
+        return users.getIfPresent(userId);
+    }
+
+    /**
+     * Get the last known copy of a user, whether or not the cache is coherent
+     * @param userId The user ID
+     * @return The last user loaded from User Service, or null if unknown, deleted or too old
+     */
+    public CommonProto.User getStale(long userId) {
+        return staleUsers != null ? staleUsers.getIfPresent(userId) : null;
+    }
+
+    /**
+     * Capture the invalidation epoch before a remote lookup
+     * @return Epoch to hand back to {@link #put(long, CommonProto.User, long)}
+     */
+    public long currentEpoch() {
+        return invalidationEpoch.get();
+    }
+
+    /**
+     * Cache a user loaded from User Service, unless it was invalidated while the lookup was in flight
+     * @param userId The user ID
+     * @param user The user loaded from User Service
+     * @param epoch Epoch captured before the lookup started
+     */
+    public void put(long userId, CommonProto.User user, long epoch) {
+        if (staleUsers != null) {
+            staleUsers.put(userId, user);
+        }
+        if (isActive()) {
+            users.put(userId, user);
+        }
+        if (invalidationEpoch.get() != epoch) {
+            invalidateEntry(userId);
+        }
+    }
+
+    public void update(CommonProto.User user) {
+        invalidationEpoch.incrementAndGet();
+        users.asMap().computeIfPresent(user.getId(), (id, cachedUser) -> user);
+        if (staleUsers != null) {
+            staleUsers.asMap().computeIfPresent(user.getId(), (id, cachedUser) -> user);
+        }
+    }
+
+    public void invalidate(long userId) {
+        invalidationEpoch.incrementAndGet();
+        invalidateEntry(userId);
+    }
+
+    /**
+     * Drop every coherent entry; stale copies are kept for the circuit breaker fallback
+     */
+    public void invalidateAll() {
+        invalidationEpoch.incrementAndGet();
+        users.invalidateAll();
+    }
+
+    private void invalidateEntry(long userId) {
+        users.invalidate(userId);
+        if (staleUsers != null) {
+            staleUsers.invalidate(userId);
+        }
+    }
+
+    /**
+     * Mark whether the change stream is connected
+     * @param coherent true once User Service confirmed that invalidations are being sent
+     */
+    public void setCoherent(boolean coherent) {
+        // Either way, a lookup started before this point may have read a user changed while no
+        // invalidation could reach the cache, it must not be cached
+        invalidateAll();
+        this.coherent = coherent;
+    }
+
+    public boolean isActive() {
+        return enabled && coherent;
+    }
+
+    /**
+     * Get hit, miss and eviction counters
+     * @return Snapshot of cache statistics
+     */
+    public CacheStats stats() {
+        return users.stats();
+    }
+
+    public long size() {
+        return users.estimatedSize();
+    }
+
+    @PreDestroy
+    public void logStats() {
+        CacheStats stats = stats();
+        log.info("User cache stats: hits={}, misses={}, hitRate={}, evictions={}",
+                stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.order.client;
+
+import com.example.order.config.UserCacheProperties;
+import com.example.user.UserProto.UserChangeEvent;
+import com.example.user.UserProto.WatchUserChangesRequest;
+import com.example.user.UserServiceGrpc;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Keeps {@link UserCache} coherent by following the WatchUserChanges stream of every User Service replica.
+ * A replica only publishes the changes it makes itself, so the User Service address is resolved here too and one
+ * stream is kept open per resolved replica, following the replicas as they come and go.
+ * The cache is used once every replica has confirmed its subscription with WATCH_STARTED; when a stream breaks or a
+ * new replica appears the cache is flushed and bypassed until all streams are confirmed again.
+ */
+@Slf4j
+public class UserChangeWatcher {
+
+    // Port of addresses that have none, as on a TLS channel
+    private static final int DEFAULT_PORT = 443;
+
+    // Service config found by name resolution is the User Service channel's business, the streams use none
+    private static final NameResolver.ServiceConfigParser SERVICE_CONFIG_PARSER = new NameResolver.ServiceConfigParser() {
+        @Override
+        public NameResolver.ConfigOrError parseServiceConfig(Map<String, ?> rawServiceConfig) {
+            return NameResolver.ConfigOrError.fromConfig(rawServiceConfig);
+        }
+    };
+
+    private final UserCache userCache;
+    private final UserCacheProperties properties;
+    private final String target;
+    private final Function<SocketAddress, ManagedChannel> channelFactory;
+
+    private final ScheduledExecutorService reconnectScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-change-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final SynchronizationContext syncContext = new SynchronizationContext(
+            (thread, e) -> log.error("User Service name resolution failed", e));
+
+    private volatile NameResolver resolver;
+
+    // Guarded by this
+    private final Map<SocketAddress, ReplicaWatch> watches = new HashMap<>();
+    private boolean coherent;
+    private boolean stopped;
+
+    /**
+     * @param target Address of User Service, as configured for its channel (e.g. static://host1:9090,host2:9090)
+     * @param channelFactory Opens a channel to one resolved replica
+     */
+    public UserChangeWatcher(UserCache userCache, UserCacheProperties properties, String target,
+                             Function<SocketAddress, ManagedChannel> channelFactory) {
+        this.userCache = userCache;
+        this.properties = properties;
+        this.target = target;
+        this.channelFactory = channelFactory;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        NameResolver.Args args = NameResolver.Args.newBuilder()
+                .setDefaultPort(DEFAULT_PORT)
+                .setProxyDetector(targetServerAddress -> null)
+                .setSynchronizationContext(syncContext)
+                .setScheduledExecutorService(reconnectScheduler)
+                .setServiceConfigParser(SERVICE_CONFIG_PARSER)
+                .build();
+        resolver = NameResolverRegistry.getDefaultRegistry().asFactory().newNameResolver(URI.create(target), args);
+        if (resolver == null) {
+            throw new IllegalArgumentException("No name resolver for the User Service address " + target);
+        }
+        syncContext.execute(() -> resolver.start(new NameResolver.Listener2() {
+            @Override
+            public void onResult(NameResolver.ResolutionResult resolutionResult) {
+                updateReplicas(resolutionResult.getAddresses());
+            }
+
+            @Override
+            public void onError(Status error) {
+                log.warn("Cannot resolve User Service replicas, keeping the current ones: {}", error);
+            }
+        }));
+        // Replicas added behind a DNS name are only seen by a new resolution
+        long refreshMillis = properties.getWatchRefreshInterval().toMillis();
+        reconnectScheduler.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh() {
+        syncContext.execute(resolver::refresh);
+    }
+
+    /**
+     * Open a stream to every new replica and close the streams of the replicas that are gone
+     */
+    private synchronized void updateReplicas(List<EquivalentAddressGroup> addressGroups) {
+        if (stopped) {
+            return;
+        }
+        Set<SocketAddress> addresses = new LinkedHashSet<>();
+        for (EquivalentAddressGroup addressGroup : addressGroups) {
+            // All the addresses of a group reach the same replica
+            addresses.add(addressGroup.getAddresses().get(0));
+        }
+
+        Iterator<ReplicaWatch> iterator = watches.values().iterator();
+        while (iterator.hasNext()) {
+            ReplicaWatch watch = iterator.next();
+            if (!addresses.contains(watch.address)) {
+                log.info("User Service replica {} is gone, closing its change stream", watch.address);
+                iterator.remove();
+                watch.channel.shutdownNow();
+            }
+        }
+        for (SocketAddress address : addresses) {
+            if (!watches.containsKey(address)) {
+                ReplicaWatch watch = new ReplicaWatch(address, channelFactory.apply(address));
+                watches.put(address, watch);
+                watch.connect();
+            }
+        }
+        updateCoherence();
+    }
+
+    /**
+     * Trust the cache only while the stream of every replica is confirmed
+     */
+    private void updateCoherence() {
+        boolean allConfirmed = !watches.isEmpty() && watches.values().stream().allMatch(watch -> watch.confirmed);
+        if (allConfirmed != coherent) {
+            coherent = allConfirmed;
+            if (coherent) {
+                log.debug("User change subscriptions of {} replicas confirmed, user cache enabled", watches.size());
+            }
+            userCache.setCoherent(coherent);
+        }
+    }
+
+    private synchronized void confirmed(ReplicaWatch watch) {
+        if (watches.get(watch.address) == watch) {
+            watch.confirmed = true;
+            updateCoherence();
+        }
+    }
+
+    private synchronized void lost(ReplicaWatch watch) {
+        if (stopped || watches.get(watch.address) != watch) {
+            return;
+        }
+        watch.confirmed = false;
+        updateCoherence();
+        // The replica may have moved, resolve again before reconnecting
+        refresh();
+        reconnectScheduler.schedule(() -> reconnect(watch), properties.getWatchReconnectDelay().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void reconnect(ReplicaWatch watch) {
+        if (!stopped && watches.get(watch.address) == watch) {
+            watch.connect();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        NameResolver current = resolver;
+        if (current != null) {
+            syncContext.execute(current::shutdown);
+        }
+        watches.values().forEach(watch -> watch.channel.shutdownNow());
+        watches.clear();
+        reconnectScheduler.shutdownNow();
+    }
+
+    /**
+     * Change stream of one replica, on a channel of its own. Guarded by the watcher.
+     */
+    private final class ReplicaWatch {
+
+        private final SocketAddress address;
+        private final ManagedChannel channel;
+        private boolean confirmed;
+
+        ReplicaWatch(SocketAddress address, ManagedChannel channel) {
+            this.address = address;
+            this.channel = channel;
+        }
+
+        void connect() {
+            log.debug("Subscribing to user changes of {}", address);
+            UserServiceGrpc.newStub(channel).watchUserChanges(WatchUserChangesRequest.getDefaultInstance(), new ChangeObserver(this));
+        }
+    }
+
+    private class ChangeObserver implements StreamObserver<UserChangeEvent> {
+
+        private final ReplicaWatch watch;
+
+        ChangeObserver(ReplicaWatch watch) {
+            this.watch = watch;
+        }
+
+        @Override
+        public void onNext(UserChangeEvent event) {
+            switch (event.getType()) {
+                case WATCH_STARTED -> {
+                    log.debug("User change subscription to {} confirmed", watch.address);
+                    confirmed(watch);
+                }
+                case USER_UPDATED -> userCache.update(event.getUser());
+                case USER_DELETED -> userCache.invalidate(event.getUserId());
+                default -> userCache.invalidate(event.getUserId());
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            log.warn("User change stream of {} failed, user cache disabled until reconnect: {}", watch.address, t.getMessage());
+            lost(watch);
+        }
+
+        @Override
+        public void onCompleted() {
+            log.info("User change stream completed by User Service replica {}, reconnecting", watch.address);
+            lost(watch);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.order.client;
+
+import com.example.order.config.UserServiceChannelConfig;
+import io.grpc.MethodDescriptor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes user near-cache, lookup coalescing, retry and circuit breaker statistics as meters.
+ * Values are read from the existing counters when the registry is scraped.
+ */
+@Component
+public class UserClientMetrics implements MeterBinder {
+
+    private final UserCache userCache;
+    private final UserLookupCoalescer userLookupCoalescer;
+    private final UserServiceClient userServiceClient;
+    private final UserServiceRetryCounter retryCounter;
+    private final UserServiceCircuitBreaker circuitBreaker;
+
+    public UserClientMetrics(UserCache userCache,
+                             UserLookupCoalescer userLookupCoalescer,
+                             UserServiceClient userServiceClient,
+                             UserServiceRetryCounter retryCounter,
+                             UserServiceCircuitBreaker circuitBreaker) {
+        this.userCache = userCache;
+        this.userLookupCoalescer = userLookupCoalescer;
+        this.userServiceClient = userServiceClient;
+        this.retryCounter = retryCounter;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("order.user.cache.gets", userCache, cache -> cache.stats().hitCount())
+                .description("User near-cache lookups")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("order.user.cache.gets", userCache, cache -> cache.stats().missCount())
+                .description("User near-cache lookups")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("order.user.cache.evictions", userCache, cache -> cache.stats().evictionCount())
+                .description("Users evicted from the near-cache by size or age")
+                .register(registry);
+        Gauge.builder("order.user.cache.size", userCache, UserCache::size)
+                .description("Estimated number of cached users")
+                .register(registry);
+        Gauge.builder("order.user.cache.active", userCache, cache -> cache.isActive() ? 1 : 0)
+                .description("1 while the near-cache is coherent with User Service and in use")
+                .register(registry);
+
+        FunctionCounter.builder("order.user.lookups", userLookupCoalescer, UserLookupCoalescer::getLookupCount)
+                .description("User lookups that missed the near-cache and went to the coalescer")
+                .register(registry);
+        FunctionCounter.builder("order.user.lookups.coalesced", userLookupCoalescer, UserLookupCoalescer::getCoalescedLookupCount)
+                .description("User lookups that joined an in-flight lookup of the same ID")
+                .register(registry);
+        FunctionCounter.builder("order.user.remote.calls", userServiceClient, UserServiceClient::getRemoteCallCount)
+                .description("Calls sent to User Service for user lookups, batched calls included")
+                .register(registry);
+        FunctionCounter.builder("order.user.lookups.stale", userServiceClient, UserServiceClient::getStaleLookupCount)
+                .description("User lookups answered with the last known user while the circuit breaker was open")
+                .register(registry);
+
+        for (MethodDescriptor<?, ?> method : UserServiceChannelConfig.IDEMPOTENT_READS) {
+            FunctionCounter.builder("order.user.remote.retries", retryCounter, counter -> counter.getRetryCount(method))
+                    .description("Attempts sent again by the User Service channel after a failed attempt")
+                    .tag("method", method.getBareMethodName())
+                    .register(registry);
+        }
+
+        for (UserServiceCircuitBreaker.State state : UserServiceCircuitBreaker.State.values()) {
+            Gauge.builder("order.user.circuit.breaker.state", circuitBreaker, breaker -> breaker.getState() == state ? 1 : 0)
+                    .description("1 for the current state of the User Service circuit breaker")
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("order.user.circuit.breaker.rejected", circuitBreaker, UserServiceCircuitBreaker::getRejectedCallCount)
+                .description("User lookups not sent to User Service because the circuit breaker was open")
+                .register(registry);
+        FunctionCounter.builder("order.user.circuit.breaker.openings", circuitBreaker, UserServiceCircuitBreaker::getOpenCount)
+                .description("Times the User Service circuit breaker opened")
+                .register(registry);
+    }
+}
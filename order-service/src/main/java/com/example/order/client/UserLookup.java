@@ -0,0 +1,13 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+
+import java.util.Optional;
+
+/**
+ * Answer of a remote user lookup, with the {@link UserCache} epoch captured before the request was sent
+ * @param user The user, empty if User Service does not know the ID
+ * @param epoch Epoch to cache the user under; a lookup joining a batch already on the wire gets the batch's epoch
+ */
+public record UserLookup(Optional<CommonProto.User> user, long epoch) {
+}
@@ -0,0 +1,198 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+import com.example.order.config.UserClientProperties;
+import com.example.user.UserProto.GetUsersByIdsRequest;
+import com.example.user.UserProto.GetUsersByIdsResponse;
+import com.example.user.UserServiceGrpc;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces concurrent user lookups into GetUsersByIds calls.
+ * A lookup is sent at once while no batch is on the wire; lookups arriving meanwhile are gathered
+ * until that batch returns, the window closes or the batch is full. Duplicate IDs share one pending
+ * result, and the batched answer is fanned back out to every caller with the cache epoch captured
+ * when the batch was sent, so that a caller joining late cannot cache a user read before its own epoch.
+ */
+@Component
+@Slf4j
+public class UserLookupCoalescer {
+
+    @GrpcClient("user-service")
+    private UserServiceGrpc.UserServiceStub userServiceAsyncStub;
+
+    private final UserCache userCache;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    // Every lookup that is queued or on the wire, so that a repeated ID joins the existing result
+    private final Map<Long, CompletableFuture<UserLookup>> inFlight = new ConcurrentHashMap<>();
+
+    private final Object batchLock = new Object();
+    private List<Long> pendingIds = new ArrayList<>();
+    private int batchesOnTheWire;
+
+    private final ScheduledExecutorService flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-lookup-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder coalescedLookups = new LongAdder();
+    private final LongAdder batchCalls = new LongAdder();
+
+    public UserLookupCoalescer(UserCache userCache, UserClientProperties properties) {
+        this.userCache = userCache;
+        this.windowNanos = properties.getBatch().getWindow().toNanos();
+        this.maxBatchSize = properties.getBatch().getMaxSize();
+    }
+
+    /**
+     * Look up a user through the next GetUsersByIds batch
+     * @param userId The user ID
+     * @return Future completed with the user (empty if User Service does not know the ID) and the batch's epoch
+     */
+    public CompletableFuture<UserLookup> lookup(long userId) {
+        lookups.increment();
+        CompletableFuture<UserLookup> lookup = new CompletableFuture<>();
+        CompletableFuture<UserLookup> existing = inFlight.putIfAbsent(userId, lookup);
+        if (existing != null) {
+            coalescedLookups.increment();
+            return existing;
+        }
+        enqueue(userId);
+        return lookup;
+    }
+
+    private void enqueue(long userId) {
+        List<Long> batch = null;
+        synchronized (batchLock) {
+            pendingIds.add(userId);
+            // With nothing on the wire there is no one to coalesce with, so a lone miss is not held back
+            if (batchesOnTheWire == 0 || pendingIds.size() >= maxBatchSize) {
+                batch = takePending();
+            } else if (pendingIds.size() == 1) {
+                List<Long> windowBatch = pendingIds;
+                flushScheduler.schedule(() -> flushIfPending(windowBatch), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    private void flushIfPending(List<Long> windowBatch) {
+        synchronized (batchLock) {
+            // The batch may already have been sent because it filled up or the previous batch returned
+            if (pendingIds != windowBatch) {
+                return;
+            }
+            takePending();
+        }
+        send(windowBatch);
+    }
+
+    private void batchReturned() {
+        List<Long> batch = null;
+        synchronized (batchLock) {
+            batchesOnTheWire--;
+            if (batchesOnTheWire == 0 && !pendingIds.isEmpty()) {
+                batch = takePending();
+            }
+        }
+        if (batch != null) {
+            send(batch);
+        }
+    }
+
+    // Called holding batchLock
+    private List<Long> takePending() {
+        List<Long> batch = pendingIds;
+        pendingIds = new ArrayList<>();
+        batchesOnTheWire++;
+        return batch;
+    }
+
+    private void send(List<Long> userIds) {
+        batchCalls.increment();
+        // Captured before the request leaves: User Service reads the users afterwards, so any change it misses
+        // is invalidated after this epoch
+        long epoch = userCache.currentEpoch();
+        GetUsersByIdsRequest batchRequest = GetUsersByIdsRequest.newBuilder()
+                .addAllUserIds(userIds)
+                .build();
+        userServiceAsyncStub.getUsersByIds(batchRequest, new StreamObserver<>() {
+            @Override
+            public void onNext(GetUsersByIdsResponse response) {
+                Map<Long, CommonProto.User> usersById = new HashMap<>(response.getUsersCount() * 2);
+                for (CommonProto.User user : response.getUsersList()) {
+                    usersById.put(user.getId(), user);
+                }
+                for (Long userId : userIds) {
+                    complete(userId, new UserLookup(Optional.ofNullable(usersById.get(userId)), epoch));
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.debug("Batched user lookup of {} IDs failed", userIds.size(), t);
+                for (Long userId : userIds) {
+                    CompletableFuture<UserLookup> lookup = inFlight.remove(userId);
+                    if (lookup != null) {
+                        lookup.completeExceptionally(t);
+                    }
+                }
+                batchReturned();
+            }
+
+            @Override
+            public void onCompleted() {
+                // Every lookup is completed in onNext
+                batchReturned();
+            }
+        });
+    }
+
+    private void complete(Long userId, UserLookup user) {
+        CompletableFuture<UserLookup> lookup = inFlight.remove(userId);
+        if (lookup != null) {
+            lookup.complete(user);
+        }
+    }
+
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    public long getCoalescedLookupCount() {
+        return coalescedLookups.sum();
+    }
+
+    public long getBatchCallCount() {
+        return batchCalls.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdownNow();
+        log.info("User lookup coalescer stats: lookups={}, coalesced={}, batchCalls={}",
+                getLookupCount(), getCoalescedLookupCount(), getBatchCallCount());
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.order.client;
+
+import com.example.order.config.UserClientProperties;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker over remote user lookups.
+ * The outcomes of the last lookups are kept in a ring; once the failure rate or the slow lookup rate
+ * crosses its threshold the breaker opens and lookups are rejected without calling User Service.
+ * After a wait a few trial lookups are let through: the breaker closes if they all succeed in time
+ * and opens again on the first failed or slow one.
+ */
+@Component
+@Slf4j
+public class UserServiceCircuitBreaker {
+
+    /**
+     * Breaker state, CLOSED lets every lookup through
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    // Statuses telling that User Service is unhealthy; anything else is an answer about the request itself
+    private static final Set<Status.Code> FAILURE_CODES = EnumSet.of(
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.RESOURCE_EXHAUSTED,
+            Status.Code.INTERNAL, Status.Code.UNKNOWN);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long slowCallNanos;
+    private final int slowCallRateThreshold;
+    private final long openNanos;
+    private final int permittedCallsInHalfOpenState;
+
+    // Guarded by this, the state is also read without the lock on the CLOSED fast path
+    private final byte[] outcomes;
+    private int nextOutcome;
+    private int recordedCalls;
+    private int failedCalls;
+    private int slowCalls;
+    private volatile State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder openings = new LongAdder();
+
+    public UserServiceCircuitBreaker(UserClientProperties properties) {
+        UserClientProperties.CircuitBreaker settings = properties.getCircuitBreaker();
+        this.enabled = settings.isEnabled();
+        this.outcomes = new byte[settings.getSlidingWindowSize()];
+        this.minimumCalls = Math.min(settings.getMinimumCalls(), settings.getSlidingWindowSize());
+        this.failureRateThreshold = settings.getFailureRateThreshold();
+        this.slowCallNanos = settings.getSlowCallDuration().toNanos();
+        this.slowCallRateThreshold = settings.getSlowCallRateThreshold();
+        this.openNanos = settings.getWaitDurationInOpenState().toNanos();
+        this.permittedCallsInHalfOpenState = settings.getPermittedCallsInHalfOpenState();
+    }
+
+    /**
+     * Ask whether a lookup may call User Service
+     * @return true if the lookup may proceed, its outcome must then be passed to {@link #record(long, Throwable)}
+     */
+    public boolean tryAcquirePermission() {
+        if (!enabled || state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+                halfOpenPermits--;
+                return true;
+            }
+        }
+        rejectedCalls.increment();
+        return false;
+    }
+
+    /**
+     * Record the outcome of a permitted lookup
+     * @param durationNanos Time from the start of the lookup to its completion
+     * @param error The failure, or null if User Service answered
+     */
+    public void record(long durationNanos, Throwable error) {
+        if (!enabled) {
+            return;
+        }
+        byte outcome = 0;
+        if (error != null && FAILURE_CODES.contains(Status.fromThrowable(error).getCode())) {
+            outcome |= FAILED;
+        }
+        if (durationNanos >= slowCallNanos) {
+            outcome |= SLOW;
+        }
+
+        synchronized (this) {
+            switch (state) {
+                case CLOSED -> recordClosed(outcome);
+                case HALF_OPEN -> {
+                    if (outcome != 0) {
+                        transitionTo(State.OPEN);
+                    } else if (++halfOpenSuccesses >= permittedCallsInHalfOpenState) {
+                        transitionTo(State.CLOSED);
+                    }
+                }
+                case OPEN -> {
+                    // Late outcome of a lookup let through before the breaker opened
+                }
+            }
+        }
+    }
+
+    private void recordClosed(byte outcome) {
+        if (recordedCalls == outcomes.length) {
+            byte evicted = outcomes[nextOutcome];
+            failedCalls -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextOutcome] = outcome;
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+        failedCalls += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (recordedCalls >= minimumCalls
+                && (failedCalls * 100 >= failureRateThreshold * recordedCalls
+                || slowCalls * 100 >= slowCallRateThreshold * recordedCalls)) {
+            log.warn("User Service circuit breaker opening: {} failed and {} slow of the last {} lookups",
+                    failedCalls, slowCalls, recordedCalls);
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State newState) {
+        log.info("User Service circuit breaker {} -> {}", state, newState);
+        switch (newState) {
+            case OPEN -> {
+                openedAtNanos = System.nanoTime();
+                openings.increment();
+            }
+            case HALF_OPEN -> {
+                halfOpenPermits = permittedCallsInHalfOpenState;
+                halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                nextOutcome = 0;
+                recordedCalls = 0;
+                failedCalls = 0;
+                slowCalls = 0;
+            }
+        }
+        state = newState;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getRejectedCallCount() {
+        return rejectedCalls.sum();
+    }
+
+    public long getOpenCount() {
+        return openings.sum();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+import com.example.common.ResponseBuilder;
+import com.example.common.exception.GrpcStatusMapper;
+import com.example.common.exception.ServiceUnavailableException;
+import com.example.common.util.FutureUtil;
+import com.example.order.config.UserClientProperties;
+import com.example.order.constants.OrderErrorCode;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserProto.ValidateUserRequest;
+import com.example.user.UserProto.ValidateUserResponse;
+import com.example.user.UserServiceGrpc;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Order Service facade over the User Service gRPC API.
+ * Serves validated users from {@link UserCache}; on a miss the lookup is either
+ * coalesced into a GetUsersByIds batch or sent as a single ValidateUser call.
+ * Remote lookups go through {@link UserServiceCircuitBreaker}: while it is open the last known
+ * copy of the user is served, or the lookup fails fast with UNAVAILABLE.
+ * Lookups are non-blocking, the returned futures complete on gRPC callback threads.
+ */
+@Component
+@Slf4j
+public class UserServiceClient {
+
+    private static final String USER_NOT_FOUND_MESSAGE = "User not found";
+    private static final String USER_NOT_FOUND_CODE = "USER_NOT_FOUND";
+
+    // Responses for a missing user carry no per-call data, so they are built once
+    private static final ValidateUserResponse USER_NOT_VALID = ValidateUserResponse.newBuilder()
+            .setIsValid(false)
+            .setErrorMessage(USER_NOT_FOUND_MESSAGE)
+            .build();
+    private static final GetUserResponse USER_NOT_FOUND = GetUserResponse.newBuilder()
+            .setResponse(ResponseBuilder.error(USER_NOT_FOUND_MESSAGE, USER_NOT_FOUND_CODE))
+            .build();
+    private static final CommonProto.ApiResponse USER_FOUND = ResponseBuilder.success("User found");
+
+    @GrpcClient("user-service")
+    private UserServiceGrpc.UserServiceFutureStub userServiceFutureStub;
+
+    private final UserCache userCache;
+    private final UserLookupCoalescer userLookupCoalescer;
+    private final UserServiceCircuitBreaker circuitBreaker;
+    private final boolean batchLookups;
+
+    private final LongAdder remoteCalls = new LongAdder();
+    private final LongAdder staleLookups = new LongAdder();
+
+    public UserServiceClient(UserCache userCache,
+                             UserLookupCoalescer userLookupCoalescer,
+                             UserServiceCircuitBreaker circuitBreaker,
+                             UserClientProperties properties) {
+        this.userCache = userCache;
+        this.userLookupCoalescer = userLookupCoalescer;
+        this.circuitBreaker = circuitBreaker;
+        this.batchLookups = properties.getBatch().isEnabled();
+    }
+
+    public CompletableFuture<ValidateUserResponse> validateUserAsync(long userId) {
+        return findUserAsync(userId).thenApply(user -> {
+            if (user.isEmpty()) {
+                return USER_NOT_VALID;
+            }
+            return ValidateUserResponse.newBuilder()
+                    .setIsValid(true)
+                    .setUser(user.get())
+                    .build();
+        });
+    }
+
+    public CompletableFuture<GetUserResponse> getUserAsync(long userId) {
+        return findUserAsync(userId).thenApply(user -> {
+            if (user.isEmpty()) {
+                return USER_NOT_FOUND;
+            }
+            return GetUserResponse.newBuilder()
+                    .setResponse(USER_FOUND)
+                    .setUser(user.get())
+                    .build();
+        });
+    }
+
+    public ValidateUserResponse validateUser(long userId) {
+        return await(validateUserAsync(userId));
+    }
+
+    public GetUserResponse getUser(long userId) {
+        return await(getUserAsync(userId));
+    }
+
+    /**
+     * Find a user, preferring the near-cache
+     * @param userId The user ID
+     * @return Future of the user, empty if User Service does not know the ID
+     */
+    public CompletableFuture<Optional<CommonProto.User>> findUserAsync(long userId) {
+        CommonProto.User cachedUser = userCache.get(userId);
+        if (cachedUser != null) {
+            return CompletableFuture.completedFuture(Optional.of(cachedUser));
+        }
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            return rejectedLookup(userId);
+        }
+
+        long startNanos = System.nanoTime();
+        CompletableFuture<UserLookup> lookup = batchLookups
+                ? userLookupCoalescer.lookup(userId)
+                : lookupSingle(userId);
+        return lookup
+                .whenComplete((found, error) -> circuitBreaker.record(System.nanoTime() - startNanos, error))
+                .thenApply(found -> {
+                    found.user().ifPresent(value -> userCache.put(userId, value, found.epoch()));
+                    return found.user();
+                });
+    }
+
+    private CompletableFuture<Optional<CommonProto.User>> rejectedLookup(long userId) {
+        CommonProto.User staleUser = userCache.getStale(userId);
+        if (staleUser != null) {
+            staleLookups.increment();
+            return CompletableFuture.completedFuture(Optional.of(staleUser));
+        }
+        return CompletableFuture.failedFuture(new ServiceUnavailableException(
+                OrderErrorCode.USER_SERVICE_UNAVAILABLE,
+                String.format("User Service circuit breaker is open and user '%s' is not cached", userId)));
+    }
+
+    private CompletableFuture<UserLookup> lookupSingle(long userId) {
+        long epoch = userCache.currentEpoch();
+        ValidateUserRequest validationRequest = ValidateUserRequest.newBuilder()
+                .setUserId(userId)
+                .build();
+        remoteCalls.increment();
+        return FutureUtil.toCompletableFuture(userServiceFutureStub.validateUser(validationRequest))
+                .handle((response, error) -> {
+                    if (error == null) {
+                        return new UserLookup(response.getIsValid() ? Optional.of(response.getUser()) : Optional.empty(), epoch);
+                    }
+                    if (Status.fromThrowable(error).getCode() == Status.Code.NOT_FOUND) {
+                        return new UserLookup(Optional.empty(), epoch);
+                    }
+                    throw new CompletionException(error);
+                });
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (GrpcStatusMapper.unwrap(e) instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Get the number of calls actually sent to User Service
+     * @return Remote call count since startup, batched calls included
+     */
+    public long getRemoteCallCount() {
+        return remoteCalls.sum() + userLookupCoalescer.getBatchCallCount();
+    }
+
+    /**
+     * Get the number of lookups answered with a stale user while the circuit breaker was open
+     * @return Stale lookup count since startup
+     */
+    public long getStaleLookupCount() {
+        return staleLookups.sum();
+    }
+}
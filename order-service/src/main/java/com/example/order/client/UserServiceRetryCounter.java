@@ -0,0 +1,73 @@
+package com.example.order.client;
+
+import com.example.order.config.UserServiceChannelConfig;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the retries made by the User Service channel for the idempotent reads.
+ * Retries happen below the interceptors, so each call carries a stream tracer
+ * that gRPC creates again for every attempt; attempts after the first are counted.
+ */
+@Component
+public class UserServiceRetryCounter implements ClientInterceptor {
+
+    private static final ClientStreamTracer NO_OP_TRACER = new ClientStreamTracer() {
+    };
+
+    // Built once, only read afterwards
+    private final Map<String, AttemptTracerFactory> tracerFactories = new HashMap<>();
+
+    public UserServiceRetryCounter() {
+        for (MethodDescriptor<?, ?> method : UserServiceChannelConfig.IDEMPOTENT_READS) {
+            tracerFactories.put(method.getFullMethodName(), new AttemptTracerFactory());
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method,
+            CallOptions callOptions,
+            Channel next) {
+
+        AttemptTracerFactory tracerFactory = tracerFactories.get(method.getFullMethodName());
+        if (tracerFactory == null) {
+            return next.newCall(method, callOptions);
+        }
+        return next.newCall(method, callOptions.withStreamTracerFactory(tracerFactory));
+    }
+
+    /**
+     * Get the number of retries of a method
+     * @param method One of {@link UserServiceChannelConfig#IDEMPOTENT_READS}
+     * @return Attempts sent after a failed attempt since startup, transparent retries excluded
+     */
+    public long getRetryCount(MethodDescriptor<?, ?> method) {
+        AttemptTracerFactory tracerFactory = tracerFactories.get(method.getFullMethodName());
+        return tracerFactory != null ? tracerFactory.retries.sum() : 0;
+    }
+
+    private static class AttemptTracerFactory extends ClientStreamTracer.Factory {
+
+        private final LongAdder retries = new LongAdder();
+
+        @Override
+        public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+            // Transparent retries replay attempts that never reached the server, they do not use the retry budget
+            if (info.getPreviousAttempts() > 0 && !info.isTransparentRetry()) {
+                retries.increment();
+            }
+            return NO_OP_TRACER;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for bulk order operations: creation over a CreateOrders stream and UpdateOrderStatuses
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.bulk")
+public class OrderBulkProperties {
+
+    // Orders persisted per transaction, and requests read from the client per flow-control window
+    private int batchSize = 200;
+
+    // Orders moved per UPDATE statement and transaction by UpdateOrderStatuses
+    private int statusChunkSize = 500;
+
+    // Orders one UpdateOrderStatuses call may select, bounds the response size
+    private int maxStatusUpdates = 10000;
+}
@@ -0,0 +1,20 @@
+package com.example.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the WatchOrders change feed
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.events")
+public class OrderEventProperties {
+
+    // Latest events kept for watchers and resumption, a power of two; a watcher this far behind is disconnected
+    private int ringCapacity = 8192;
+
+    // Open WatchOrders streams, further watchers are refused with RESOURCE_EXHAUSTED
+    private int maxWatchers = 1000;
+}
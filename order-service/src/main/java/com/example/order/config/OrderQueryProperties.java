@@ -0,0 +1,33 @@
+package com.example.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for paged and streamed order reads
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.query")
+public class OrderQueryProperties {
+
+    private int defaultPageSize = 50;
+
+    private int maxPageSize = 500;
+
+    // Orders loaded per database round trip while streaming
+    private int streamPageSize = 200;
+
+    /**
+     * Resolve the page size asked for by a client
+     * @param requestedPageSize Page size from the request, 0 or less for the default
+     * @return Page size capped at the maximum
+     */
+    public int resolvePageSize(int requestedPageSize) {
+        if (requestedPageSize <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requestedPageSize, maxPageSize);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for the persistence backend of orders
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.store")
+public class OrderStoreProperties {
+
+    // jpa = orders table through Hibernate, mapped = append-only memory-mapped segment files
+    private String type = "jpa";
+
+    private Mapped mapped = new Mapped();
+
+    /**
+     * Settings of the memory-mapped store
+     */
+    @Getter
+    @Setter
+    public static class Mapped {
+
+        private String directory = "data/orders";
+
+        // Size of each segment file, a record never spans two segments
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        // Force every record to disk before the call returns, otherwise the OS writes pages back on its own
+        private boolean syncOnWrite = false;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.order.config;
+
+import com.example.common.config.GrpcExecutionConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executor for the blocking JPA stages of asynchronous order handlers.
+ * In platform mode a bounded pool rejects tasks beyond the queue capacity, which surfaces
+ * as RESOURCE_EXHAUSTED; in virtual mode every stage gets a virtual thread and database
+ * concurrency is bounded by the DbConcurrencyLimiter instead.
+ */
+@Configuration
+public class PersistenceExecutorConfig {
+
+    public static final String PERSISTENCE_EXECUTOR = "persistenceExecutor";
+
+    @Bean(name = PERSISTENCE_EXECUTOR)
+    public TaskExecutor persistenceExecutor(PersistenceProperties properties, GrpcExecutionConfig executionConfig) {
+        if (executionConfig.isVirtual()) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("order-persistence-vt-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("order-persistence-");
+        executor.setCorePoolSize(properties.getPoolSize());
+        executor.setMaxPoolSize(properties.getPoolSize());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
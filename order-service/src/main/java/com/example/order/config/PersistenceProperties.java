@@ -0,0 +1,19 @@
+package com.example.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the executor that runs order persistence off the gRPC threads
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.persistence")
+public class PersistenceProperties {
+
+    // Matches the default HikariCP pool size, more threads would only wait for a connection
+    private int poolSize = 10;
+
+    private int queueCapacity = 1000;
+}
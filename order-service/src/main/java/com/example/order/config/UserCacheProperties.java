@@ -0,0 +1,32 @@
+package com.example.order.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the near-cache of validated users kept by Order Service
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.user-cache")
+public class UserCacheProperties {
+
+    private boolean enabled = true;
+
+    private long maximumSize = 10_000;
+
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+
+    private Duration watchReconnectDelay = Duration.ofSeconds(5);
+
+    // How often the User Service address is resolved again to find replicas that joined or left
+    private Duration watchRefreshInterval = Duration.ofSeconds(30);
+
+    // Keep the last known copy of looked up users, served while the User Service circuit breaker is open
+    private boolean staleFallback = true;
+
+    private Duration staleMaxAge = Duration.ofHours(1);
+}
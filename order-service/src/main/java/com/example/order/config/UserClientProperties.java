@@ -0,0 +1,152 @@
+package com.example.order.config;
+
+import com.example.order.client.LeastOutstandingRequestsLoadBalancerProvider;
+import io.grpc.Status;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for calls from Order Service to User Service
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "order.user-client")
+public class UserClientProperties {
+
+    private final Batch batch = new Batch();
+
+    private final LoadBalancing loadBalancing = new LoadBalancing();
+
+    private final Deadlines deadlines = new Deadlines();
+
+    private final Retry retry = new Retry();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Coalescing of concurrent user lookups into GetUsersByIds calls
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+
+        private boolean enabled = true;
+
+        private Duration window = Duration.ofMillis(2);
+
+        private int maxSize = 100;
+    }
+
+    /**
+     * Balancing of calls across the User Service replicas listed in grpc.client.user-service.address
+     */
+    @Getter
+    @Setter
+    public static class LoadBalancing {
+
+        private Policy policy = Policy.LEAST_OUTSTANDING_REQUESTS;
+
+        // Only send calls to replicas whose gRPC health service reports SERVING
+        private boolean healthCheck = true;
+
+        // Outlier detection: replicas failing more than this percentage of their calls are ejected
+        private Duration ejectionInterval = Duration.ofSeconds(10);
+
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+        private int maxEjectionPercent = 50;
+
+        private int failurePercentageThreshold = 50;
+
+        // Calls a replica must receive in an interval before it can be ejected
+        private int ejectionRequestVolume = 20;
+    }
+
+    /**
+     * Time allowed for each User Service call, retries included
+     */
+    @Getter
+    @Setter
+    public static class Deadlines {
+
+        private Duration validateUser = Duration.ofMillis(500);
+
+        private Duration getUser = Duration.ofMillis(500);
+
+        private Duration getUsersByIds = Duration.ofSeconds(1);
+    }
+
+    /**
+     * Retries of the idempotent reads (ValidateUser, GetUser, GetUsersByIds), done by the gRPC channel
+     */
+    @Getter
+    @Setter
+    public static class Retry {
+
+        private boolean enabled = true;
+
+        // Attempts per call, the first one included
+        private int maxAttempts = 3;
+
+        private Duration initialBackoff = Duration.ofMillis(50);
+
+        private Duration maxBackoff = Duration.ofMillis(500);
+
+        private double backoffMultiplier = 2.0;
+
+        private List<Status.Code> retryableStatusCodes = List.of(Status.Code.UNAVAILABLE);
+
+        // Retry budget: each failed call costs one token, each successful call gives back tokenRatio;
+        // retries stop while fewer than half of maxTokens are left
+        private int maxTokens = 10;
+
+        private double tokenRatio = 0.1;
+    }
+
+    /**
+     * Circuit breaker over user lookups: fails fast, or serves the last known user, while User Service is failing or slow
+     */
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+
+        private boolean enabled = true;
+
+        // Lookups whose outcome is kept to compute the failure and slow call rates
+        private int slidingWindowSize = 100;
+
+        // Lookups needed in the window before the breaker can open
+        private int minimumCalls = 20;
+
+        private int failureRateThreshold = 50;
+
+        private Duration slowCallDuration = Duration.ofMillis(250);
+
+        private int slowCallRateThreshold = 80;
+
+        // Time spent open before trial lookups are let through
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        private int permittedCallsInHalfOpenState = 5;
+    }
+
+    /**
+     * Policy choosing the replica of each call
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Policy {
+
+        ROUND_ROBIN("round_robin"),
+
+        // Less busy of two round-robin candidates, slow replicas get fewer calls
+        LEAST_OUTSTANDING_REQUESTS(LeastOutstandingRequestsLoadBalancerProvider.POLICY_NAME);
+
+        private final String grpcPolicyName;
+    }
+}
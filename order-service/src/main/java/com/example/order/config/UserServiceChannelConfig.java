@@ -0,0 +1,164 @@
+package com.example.order.config;
+
+import com.example.common.interceptors.GrpcClientMetricsInterceptor;
+import com.example.order.client.UserCache;
+import com.example.order.client.UserChangeWatcher;
+import com.example.order.client.UserServiceRetryCounter;
+import com.example.user.UserServiceGrpc;
+import io.grpc.ChannelCredentials;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.TlsChannelCredentials;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+import net.devh.boot.grpc.client.config.NegotiationType;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration of the gRPC channel to User Service.
+ * Several replicas can be listed in grpc.client.user-service.address (e.g. static://host1:9090,host2:9090
+ * or a dns:/// name); calls are balanced across them according to order.user-client.load-balancing.
+ * Reads get a deadline and are retried within a retry budget, see order.user-client.deadlines and .retry.
+ */
+@Configuration
+@Slf4j
+public class UserServiceChannelConfig {
+
+    public static final String USER_SERVICE_CHANNEL = "user-service";
+
+    // Reads without side effects, safe to send again after a failed attempt
+    public static final List<MethodDescriptor<?, ?>> IDEMPOTENT_READS = List.of(
+            UserServiceGrpc.getValidateUserMethod(),
+            UserServiceGrpc.getGetUserMethod(),
+            UserServiceGrpc.getGetUsersByIdsMethod());
+
+    /**
+     * Register the client metrics interceptor on the User Service channel,
+     * so every stub created for it (blocking, future and async) is measured,
+     * and apply the load balancing, deadline and retry service config
+     */
+    @Bean
+    public GrpcChannelConfigurer userServiceChannelConfigurer(GrpcClientMetricsInterceptor metricsInterceptor,
+                                                              UserServiceRetryCounter retryCounter,
+                                                              UserClientProperties properties) {
+        Map<String, Object> serviceConfig = buildServiceConfig(properties);
+        return (channelBuilder, name) -> {
+            if (USER_SERVICE_CHANNEL.equals(name)) {
+                channelBuilder.intercept(metricsInterceptor);
+                log.info("GrpcClientMetricsInterceptor registered on channel '{}'", name);
+                // Interceptors run above the channel's retry logic, one call may be sent several times below them
+                channelBuilder.intercept(retryCounter);
+
+                channelBuilder.defaultServiceConfig(serviceConfig);
+                if (properties.getRetry().isEnabled()) {
+                    channelBuilder.enableRetry();
+                }
+                log.info("Channel '{}' balances calls with {}, health checks {}, retries {}", name,
+                        properties.getLoadBalancing().getPolicy(), properties.getLoadBalancing().isHealthCheck() ? "on" : "off",
+                        properties.getRetry().isEnabled() ? "on" : "off");
+            }
+        };
+    }
+
+    /**
+     * Watch the user changes of every replica the User Service address resolves to, each on a channel of its own
+     * with the transport security of the User Service channel
+     */
+    @Bean
+    public UserChangeWatcher userChangeWatcher(UserCache userCache, UserCacheProperties cacheProperties,
+                                               GrpcChannelsProperties channelsProperties) {
+        GrpcChannelProperties channel = channelsProperties.getChannel(USER_SERVICE_CHANNEL);
+        ChannelCredentials credentials = channel.getNegotiationType() == NegotiationType.TLS
+                ? TlsChannelCredentials.create()
+                : InsecureChannelCredentials.create();
+        return new UserChangeWatcher(userCache, cacheProperties, channel.getAddress().toString(), address -> {
+            if (!(address instanceof InetSocketAddress socketAddress)) {
+                throw new IllegalArgumentException("Cannot watch User Service replica at " + address);
+            }
+            return Grpc.newChannelBuilderForAddress(socketAddress.getHostString(), socketAddress.getPort(), credentials).build();
+        });
+    }
+
+    /**
+     * Build the gRPC service config: outlier detection ejecting failing replicas, around the chosen policy,
+     * and per-method deadlines and retry policies for the idempotent reads.
+     * Numbers are doubles and durations strings, as if the config had been parsed from JSON.
+     */
+    static Map<String, Object> buildServiceConfig(UserClientProperties properties) {
+        UserClientProperties.LoadBalancing loadBalancing = properties.getLoadBalancing();
+        Map<String, Object> failurePercentageEjection = Map.of(
+                "threshold", (double) loadBalancing.getFailurePercentageThreshold(),
+                "enforcementPercentage", 100.0,
+                "minimumHosts", 2.0,
+                "requestVolume", (double) loadBalancing.getEjectionRequestVolume());
+
+        Map<String, Object> outlierDetection = Map.of(
+                "interval", toJsonDuration(loadBalancing.getEjectionInterval()),
+                "baseEjectionTime", toJsonDuration(loadBalancing.getBaseEjectionTime()),
+                "maxEjectionPercent", (double) loadBalancing.getMaxEjectionPercent(),
+                "failurePercentageEjection", failurePercentageEjection,
+                "childPolicy", List.of(Map.of(loadBalancing.getPolicy().getGrpcPolicyName(), Map.of())));
+
+        Map<String, Object> serviceConfig = new HashMap<>();
+        serviceConfig.put("loadBalancingConfig", List.of(Map.of("outlier_detection_experimental", outlierDetection)));
+        if (loadBalancing.isHealthCheck()) {
+            serviceConfig.put("healthCheckConfig", Map.of("serviceName", UserServiceGrpc.SERVICE_NAME));
+        }
+
+        UserClientProperties.Deadlines deadlines = properties.getDeadlines();
+        UserClientProperties.Retry retry = properties.getRetry();
+        boolean retries = retry.isEnabled() && retry.getMaxAttempts() > 1;
+        Map<String, Object> retryPolicy = retries ? buildRetryPolicy(retry) : null;
+        serviceConfig.put("methodConfig", List.of(
+                methodConfig(UserServiceGrpc.getValidateUserMethod(), deadlines.getValidateUser(), retryPolicy),
+                methodConfig(UserServiceGrpc.getGetUserMethod(), deadlines.getGetUser(), retryPolicy),
+                methodConfig(UserServiceGrpc.getGetUsersByIdsMethod(), deadlines.getGetUsersByIds(), retryPolicy)));
+        if (retries) {
+            serviceConfig.put("retryThrottling", Map.of(
+                    "maxTokens", (double) retry.getMaxTokens(),
+                    "tokenRatio", retry.getTokenRatio()));
+        }
+        return serviceConfig;
+    }
+
+    private static Map<String, Object> buildRetryPolicy(UserClientProperties.Retry retry) {
+        List<String> retryableStatusCodes = new ArrayList<>();
+        for (Status.Code code : retry.getRetryableStatusCodes()) {
+            retryableStatusCodes.add(code.name());
+        }
+        return Map.of(
+                "maxAttempts", (double) retry.getMaxAttempts(),
+                "initialBackoff", toJsonDuration(retry.getInitialBackoff()),
+                "maxBackoff", toJsonDuration(retry.getMaxBackoff()),
+                "backoffMultiplier", retry.getBackoffMultiplier(),
+                "retryableStatusCodes", retryableStatusCodes);
+    }
+
+    private static Map<String, Object> methodConfig(MethodDescriptor<?, ?> method, Duration timeout, Map<String, Object> retryPolicy) {
+        Map<String, Object> methodConfig = new HashMap<>();
+        methodConfig.put("name", List.of(Map.of(
+                "service", UserServiceGrpc.SERVICE_NAME,
+                "method", method.getBareMethodName())));
+        methodConfig.put("timeout", toJsonDuration(timeout));
+        if (retryPolicy != null) {
+            methodConfig.put("retryPolicy", retryPolicy);
+        }
+        return methodConfig;
+    }
+
+    private static String toJsonDuration(Duration duration) {
+        return duration.toMillis() / 1000.0 + "s";
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.order.constants;
 
+import com.example.common.exception.ErrorCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -8,7 +9,7 @@ import lombok.RequiredArgsConstructor;
  */
 @Getter
 @RequiredArgsConstructor
-public enum OrderErrorCode {
+public enum OrderErrorCode implements ErrorCode {
     
     // Order not found errors
     ORDER_NOT_FOUND("ORDER_NOT_FOUND", "Order not found"),
@@ -18,18 +19,26 @@ public enum OrderErrorCode {
     // Customer validation errors
     INVALID_CUSTOMER("INVALID_CUSTOMER", "Invalid customer"),
     CUSTOMER_NOT_FOUND("CUSTOMER_NOT_FOUND", "Customer not found for order"),
+    USER_SERVICE_UNAVAILABLE("USER_SERVICE_UNAVAILABLE", "User Service is temporarily unavailable"),
     
     // Order creation errors
     ORDER_CREATE_ERROR("ORDER_CREATE_ERROR", "Failed to create order"),
+    ORDER_INVALID("ORDER_INVALID", "Invalid order"),
+    ORDER_TOTAL_OUT_OF_RANGE("ORDER_TOTAL_OUT_OF_RANGE", "Order total is out of range"),
     
     // Order fetch errors
     ORDER_FETCH_ERROR("ORDER_FETCH_ERROR", "Failed to fetch order"),
+    ORDER_LIST_INVALID("ORDER_LIST_INVALID", "Invalid order list filter"),
     
     // Order update errors
     ORDER_UPDATE_ERROR("ORDER_UPDATE_ERROR", "Failed to update order status"),
+    ORDER_INVALID_STATUS_TRANSITION("ORDER_INVALID_STATUS_TRANSITION", "Order status change not allowed"),
+    ORDER_VERSION_CONFLICT("ORDER_VERSION_CONFLICT", "Order was modified by another request"),
+    ORDER_BULK_UPDATE_TOO_LARGE("ORDER_BULK_UPDATE_TOO_LARGE", "Too many orders in one status update"),
+    ORDER_BULK_UPDATE_INVALID("ORDER_BULK_UPDATE_INVALID", "Invalid order selection for status update"),
     
     // Order cancellation errors
-    ORDER_CANNOT_CANCEL("ORDER_CANNOT_CANCEL", "Cannot cancel delivered order"),
+    ORDER_CANNOT_CANCEL("ORDER_CANNOT_CANCEL", "Cannot cancel delivered or cancelled order"),
     ORDER_CANCEL_ERROR("ORDER_CANCEL_ERROR", "Failed to cancel order");
     
     private final String code;
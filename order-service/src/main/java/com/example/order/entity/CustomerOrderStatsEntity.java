@@ -0,0 +1,102 @@
+package com.example.order.entity;
+
+import com.example.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.*;
+
+// Summary of a customer's orders, kept up to date in the same transaction as every order change.
+// Not cached: rows are changed by a delta UPDATE on every order write
+@Entity
+@Table(name = "customer_order_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@ToString(callSuper = true)
+public class CustomerOrderStatsEntity extends BaseEntity {
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(nullable = false, name = "order_count")
+    private long orderCount;
+
+    // Totals of the orders that are not cancelled, in minor currency units
+    @Column(nullable = false, name = "total_spent_minor")
+    private long totalSpentMinor;
+
+    @Column(nullable = false, name = "pending_orders")
+    private long pendingOrders;
+
+    @Column(nullable = false, name = "confirmed_orders")
+    private long confirmedOrders;
+
+    @Column(nullable = false, name = "shipped_orders")
+    private long shippedOrders;
+
+    @Column(nullable = false, name = "delivered_orders")
+    private long deliveredOrders;
+
+    @Column(nullable = false, name = "cancelled_orders")
+    private long cancelledOrders;
+
+    public static CustomerOrderStatsEntity empty(Long customerId) {
+        CustomerOrderStatsEntity stats = new CustomerOrderStatsEntity();
+        stats.setCustomerId(customerId);
+        return stats;
+    }
+
+    /**
+     * Count a new order
+     * @param status Status of the new order
+     * @param totalPriceMinor Total of the order in minor units
+     */
+    public void addOrder(OrderStatus status, long totalPriceMinor) {
+        orderCount++;
+        adjustStatus(status, 1);
+        if (status != OrderStatus.CANCELLED) {
+            totalSpentMinor += totalPriceMinor;
+        }
+    }
+
+    /**
+     * Move an order from one status count to another; a cancelled order no longer counts as spend
+     * @param fromStatus Status before the change
+     * @param toStatus Status after the change
+     * @param totalPriceMinor Total of the order in minor units
+     */
+    public void moveOrder(OrderStatus fromStatus, OrderStatus toStatus, long totalPriceMinor) {
+        adjustStatus(fromStatus, -1);
+        adjustStatus(toStatus, 1);
+        if (fromStatus != OrderStatus.CANCELLED && toStatus == OrderStatus.CANCELLED) {
+            totalSpentMinor -= totalPriceMinor;
+        } else if (fromStatus == OrderStatus.CANCELLED && toStatus != OrderStatus.CANCELLED) {
+            totalSpentMinor += totalPriceMinor;
+        }
+    }
+
+    private void adjustStatus(OrderStatus status, long delta) {
+        switch (status) {
+            case PENDING -> pendingOrders += delta;
+            case CONFIRMED -> confirmedOrders += delta;
+            case SHIPPED -> shippedOrders += delta;
+            case DELIVERED -> deliveredOrders += delta;
+            case CANCELLED -> cancelledOrders += delta;
+        }
+    }
+
+    /**
+     * @return true if every count and the spend equal those of the other summary
+     */
+    public boolean sameCounts(CustomerOrderStatsEntity other) {
+        return orderCount == other.orderCount
+                && totalSpentMinor == other.totalSpentMinor
+                && pendingOrders == other.pendingOrders
+                && confirmedOrders == other.confirmedOrders
+                && shippedOrders == other.shippedOrders
+                && deliveredOrders == other.deliveredOrders
+                && cancelledOrders == other.cancelledOrders;
+    }
+}
@@ -3,10 +3,25 @@ package com.example.order.entity;
 import com.example.common.entity.BaseEntity;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.util.List;
 
+// Read-write second-level cache: entity changes replace or evict the entry when the transaction commits.
+// Bulk JPQL updates (UpdateOrderStatuses) evict the whole region
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_order", columnList = "customer_id, order_id"),
+        @Index(name = "idx_orders_status_order", columnList = "order_status, order_id"),
+        // ListOrders keyset pages: equality filters first, then the (created_at, order_id) sort key
+        @Index(name = "idx_orders_customer_status_created", columnList = "customer_id, order_status, created_at, order_id"),
+        @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_at, order_id"),
+        @Index(name = "idx_orders_status_created", columnList = "order_status, created_at, order_id"),
+        @Index(name = "idx_orders_created", columnList = "created_at, order_id")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "orders")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,18 +30,23 @@ import java.util.List;
 @ToString(callSuper = true, exclude = "orderItems")
 public class OrderEntity extends BaseEntity {
 
+    // Pooled sequence instead of IDENTITY so that inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long orderId;
 
     @Column(nullable = false, name = "customer_id")
     private Long customerId;
 
+    // Caches the item IDs, the items themselves come from the order_items region
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "orders.items")
     @OneToMany(mappedBy = "order", cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
     private List<OrderItemEntity> orderItems;
 
-    @Column(nullable = false, name = "total_price")
-    private Double totalPrice;
+    // Minor currency units (cents), so that totals are exact
+    @Column(nullable = false, name = "total_price_minor")
+    private Long totalPriceMinor;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, name = "order_status")
@@ -3,9 +3,13 @@ package com.example.order.entity;
 import com.example.common.entity.BaseEntity;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "order_items")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "order_items")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,21 +18,26 @@ import lombok.*;
 @ToString(callSuper = true, exclude = "order")
 public class OrderItemEntity extends BaseEntity {
 
+    public static final int PRODUCT_TITLE_MAX_LENGTH = 200;
+
+    // Pooled sequence instead of IDENTITY so that inserts can be JDBC-batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 100)
     private Long orderItemId;
 
     @Column(nullable = false, name = "product_id")
     private Long productId;
 
-    @Column(nullable = false, length = 200, name = "product_name")
+    @Column(nullable = false, length = PRODUCT_TITLE_MAX_LENGTH, name = "product_name")
     private String productTitle;
 
     @Column(nullable = false, name = "item_quantity")
     private Integer itemQuantity;
 
-    @Column(nullable = false, name = "unit_price")
-    private Double unitPrice;
+    // Minor currency units (cents)
+    @Column(nullable = false, name = "unit_price_minor")
+    private Long unitPriceMinor;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "order_id", nullable = false)
@@ -0,0 +1,52 @@
+package com.example.order.entity;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowed order status transitions, keyed by target status.
+ * Orders move forward PENDING → CONFIRMED → SHIPPED → DELIVERED and can be cancelled until delivered.
+ * Used as the {@code order_status IN (...)} condition of compare-and-set status updates.
+ */
+@UtilityClass
+public class OrderStatusTransitions {
+
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED_SOURCES = createTransitionTable();
+
+    /**
+     * Get the statuses an order may move to the target status from
+     * @param target The new status
+     * @return Allowed current statuses, empty if the target cannot be set by an update
+     */
+    public static Set<OrderStatus> allowedSources(OrderStatus target) {
+        return ALLOWED_SOURCES.get(target);
+    }
+
+    /**
+     * Check a single transition
+     * @param source The current status
+     * @param target The new status
+     * @return true if the order may move from source to target
+     */
+    public static boolean isAllowed(OrderStatus source, OrderStatus target) {
+        return ALLOWED_SOURCES.get(target).contains(source);
+    }
+
+    private static Map<OrderStatus, Set<OrderStatus>> createTransitionTable() {
+        Map<OrderStatus, Set<OrderStatus>> table = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            table.put(status, Collections.emptySet());
+        }
+        table.put(OrderStatus.CONFIRMED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.PENDING)));
+        table.put(OrderStatus.SHIPPED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.CONFIRMED)));
+        table.put(OrderStatus.DELIVERED, Collections.unmodifiableSet(EnumSet.of(OrderStatus.SHIPPED)));
+        table.put(OrderStatus.CANCELLED, Collections.unmodifiableSet(
+                EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.SHIPPED)));
+        return Collections.unmodifiableMap(table);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.order.event;
+
+import com.example.order.OrderProto.OrderChangeEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring of the latest order change events, written by many threads without locks.
+ * A writer claims the next sequence numbers, then stores its events in the slots of those numbers, replacing
+ * the events one capacity older. A reader checks the sequence of the event it finds in a slot: an older one
+ * means the writer has not stored it yet, a newer one means the reader fell a whole ring behind.
+ */
+public class OrderChangeRing {
+
+    private final AtomicReferenceArray<OrderChangeEvent> slots;
+    private final int mask;
+    private final AtomicLong lastSequence = new AtomicLong();
+
+    /**
+     * @param capacity Number of events kept, a power of two
+     */
+    public OrderChangeRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param count Number of consecutive sequence numbers to claim, at least 1
+     * @return The first claimed sequence number; an event must then be given to {@link #store(OrderChangeEvent)}
+     * for each claimed number, readers wait at the first one that is missing
+     */
+    public long claim(int count) {
+        return lastSequence.addAndGet(count) - count + 1;
+    }
+
+    /**
+     * Store the event of a claimed sequence number
+     * @param event The event, carrying its sequence number
+     */
+    public void store(OrderChangeEvent event) {
+        int index = (int) (event.getSequence() & mask);
+        while (true) {
+            OrderChangeEvent current = slots.get(index);
+            // A writer stalled for a whole ring must not replace a newer event
+            if (current != null && current.getSequence() > event.getSequence()) {
+                return;
+            }
+            if (slots.compareAndSet(index, current, event)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param sequence A sequence number
+     * @return The event in the slot of that number, which may be older (not stored yet) or newer (overwritten)
+     */
+    public OrderChangeEvent get(long sequence) {
+        return slots.get((int) (sequence & mask));
+    }
+
+    /**
+     * @return Last claimed sequence number, 0 before the first event
+     */
+    public long lastSequence() {
+        return lastSequence.get();
+    }
+
+    /**
+     * @return Oldest sequence number still kept
+     */
+    public long oldestSequence() {
+        return Math.max(1, lastSequence.get() - slots.length() + 1);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.order.event;
+
+import com.example.common.CommonProto;
+import com.example.order.OrderProto.OrderChangeEvent;
+import com.example.order.OrderProto.OrderChangeType;
+import com.example.order.OrderProto.WatchOrdersRequest;
+import com.example.order.config.OrderEventProperties;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.mapper.OrderMapper;
+import com.example.order.repository.OrderStatusView;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Feeds WatchOrders streams with order changes as they are committed.
+ * Writers only append to an {@link OrderChangeRing} and wake the dispatcher thread, whatever the number of
+ * watchers. The dispatcher sends every watcher the events it has not seen yet, as far as its flow control allows;
+ * a watcher that is not ready simply stays behind in the ring and catches up when it is ready again.
+ * A watcher more than a whole ring behind is disconnected with RESOURCE_EXHAUSTED, it then reloads the orders
+ * it cares about and watches again. Events carry a sequence number watchers can resume from; changes of one order
+ * get increasing sequence numbers in the order they were committed.
+ */
+@Component
+@Slf4j
+public class OrderEventPublisher {
+
+    // Type of the placeholder stored at sequences claimed by a transaction that did not commit, never sent
+    private static final OrderChangeType ROLLED_BACK = OrderChangeType.ORDER_CHANGE_UNKNOWN;
+
+    private final OrderChangeRing ring;
+    private final OrderMapper orderMapper;
+    private final int maxWatchers;
+
+    private final Set<Watcher> watchers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Counter publishedEvents;
+    private final Counter droppedWatchers;
+
+    public OrderEventPublisher(OrderEventProperties properties, OrderMapper orderMapper, MeterRegistry registry) {
+        this.ring = new OrderChangeRing(properties.getRingCapacity());
+        this.orderMapper = orderMapper;
+        this.maxWatchers = properties.getMaxWatchers();
+
+        this.publishedEvents = Counter.builder("order.events.published")
+                .description("Order change events appended to the WatchOrders feed")
+                .register(registry);
+        this.droppedWatchers = Counter.builder("order.events.watchers.dropped")
+                .description("WatchOrders streams disconnected for falling a whole ring behind")
+                .register(registry);
+        Gauge.builder("order.events.watchers", watchers, Set::size)
+                .description("Open WatchOrders streams")
+                .register(registry);
+    }
+
+    /**
+     * Publish a new order once the current transaction commits
+     * @param order The saved order
+     */
+    public void publishCreated(OrderEntity order) {
+        publish(List.of(event(OrderChangeType.ORDER_CREATED, order.getOrderId(), order.getCustomerId(),
+                order.getCurrentStatus(), OrderStatus.UNKNOWN, order.getVersion())));
+    }
+
+    /**
+     * Publish a status change of one order once the current transaction commits
+     * @param order The order, already in its new status
+     * @param previousStatus Status before the change
+     */
+    public void publishStatusChanged(OrderEntity order, OrderStatus previousStatus) {
+        publish(List.of(event(changeType(order.getCurrentStatus()), order.getOrderId(), order.getCustomerId(),
+                order.getCurrentStatus(), previousStatus, order.getVersion())));
+    }
+
+    /**
+     * Publish status changes of several orders once the current transaction commits
+     * @param changedOrders The orders as read before the change
+     * @param status Status after the change
+     */
+    public void publishStatusesChanged(Collection<OrderStatusView> changedOrders, OrderStatus status) {
+        if (changedOrders.isEmpty()) {
+            return;
+        }
+        List<OrderChangeEvent.Builder> events = new ArrayList<>(changedOrders.size());
+        for (OrderStatusView order : changedOrders) {
+            // The set-based UPDATE incremented the version read before it
+            events.add(event(changeType(status), order.getOrderId(), order.getCustomerId(),
+                    status, order.getCurrentStatus(), order.getVersion() + 1));
+        }
+        publish(events);
+    }
+
+    private static OrderChangeType changeType(OrderStatus status) {
+        return status == OrderStatus.CANCELLED ? OrderChangeType.ORDER_CANCELLED : OrderChangeType.ORDER_STATUS_CHANGED;
+    }
+
+    private OrderChangeEvent.Builder event(OrderChangeType type, long orderId, long customerId, OrderStatus status,
+                                           OrderStatus previousStatus, Long version) {
+        return OrderChangeEvent.newBuilder()
+                .setType(type)
+                .setOrderId(orderId)
+                .setUserId(customerId)
+                .setStatus(orderMapper.mapToProtoOrderStatus(status))
+                .setPreviousStatus(orderMapper.mapToProtoOrderStatus(previousStatus))
+                .setVersion(version != null ? version : 0);
+    }
+
+    /**
+     * Sequence numbers are claimed just before the transaction commits, while it still holds the row locks of the
+     * orders it changed: a later change of the same order cannot commit, and so cannot claim, before it. Sequence
+     * order is then commit order for every order, whatever the thread scheduling after the commit. The events are
+     * stored once the transaction completes; watchers wait at the claimed sequences until then, and skip them
+     * if the transaction rolled back after claiming.
+     */
+    private void publish(List<OrderChangeEvent.Builder> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // No transaction (mapped store): the caller's own lock orders the changes
+            store(events, ring.claim(events.size()), true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // 0 while not claimed, e.g. when the transaction is rolled back before committing
+            private long firstSequence;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                firstSequence = ring.claim(events.size());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (firstSequence != 0) {
+                    store(events, firstSequence, status == STATUS_COMMITTED);
+                }
+            }
+        });
+    }
+
+    private void store(List<OrderChangeEvent.Builder> events, long firstSequence, boolean committed) {
+        long committedAtMillis = System.currentTimeMillis();
+        for (int i = 0; i < events.size(); i++) {
+            long sequence = firstSequence + i;
+            ring.store(committed
+                    ? events.get(i).setSequence(sequence).setCommittedAtMillis(committedAtMillis).build()
+                    : OrderChangeEvent.newBuilder().setSequence(sequence).setType(ROLLED_BACK).build());
+        }
+        if (committed) {
+            publishedEvents.increment(events.size());
+        }
+
+        if (!watchers.isEmpty() && dispatchScheduled.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                log.debug("Order event dispatcher stopped", e);
+            }
+        }
+    }
+
+    private void dispatch() {
+        // Cleared first: an event stored while watchers are served schedules another round
+        dispatchScheduled.set(false);
+        for (Watcher watcher : watchers) {
+            watcher.drain();
+        }
+    }
+
+    /**
+     * Register a new WatchOrders stream
+     * @param request Filters and resume point of the watcher
+     * @param responseObserver The server-streaming response observer of the watcher
+     */
+    public void subscribe(WatchOrdersRequest request, StreamObserver<OrderChangeEvent> responseObserver) {
+        ServerCallStreamObserver<OrderChangeEvent> observer = (ServerCallStreamObserver<OrderChangeEvent>) responseObserver;
+        if (watchers.size() >= maxWatchers) {
+            observer.onError(Status.RESOURCE_EXHAUSTED.withDescription("Too many order watchers").asRuntimeException());
+            return;
+        }
+
+        long nextSequence = ring.lastSequence() + 1;
+        if (request.hasAfterSequence()) {
+            long afterSequence = request.getAfterSequence();
+            if (afterSequence >= nextSequence) {
+                observer.onError(Status.OUT_OF_RANGE
+                        .withDescription(String.format("Sequence %d was not issued by this server, watch without afterSequence", afterSequence))
+                        .asRuntimeException());
+                return;
+            }
+            if (afterSequence + 1 < ring.oldestSequence()) {
+                observer.onError(Status.OUT_OF_RANGE
+                        .withDescription(String.format("Events after sequence %d are no longer kept, reload orders and watch without afterSequence", afterSequence))
+                        .asRuntimeException());
+                return;
+            }
+            nextSequence = afterSequence + 1;
+        }
+
+        Watcher watcher = new Watcher(observer,
+                request.hasUserId() ? request.getUserId() : null,
+                request.getStatusesList().isEmpty() ? null : EnumSet.copyOf(request.getStatusesList()),
+                nextSequence);
+        observer.setOnCancelHandler(() -> {
+            watchers.remove(watcher);
+            log.debug("Order watcher disconnected, active watchers: {}", watchers.size());
+        });
+        observer.setOnReadyHandler(watcher::drain);
+        watchers.add(watcher);
+        log.debug("Order watcher connected from sequence {}, active watchers: {}", nextSequence, watchers.size());
+
+        // Events after the resume point are sent at once, not with the next order change
+        watcher.drain();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Watcher watcher : watchers) {
+            watcher.disconnect(Status.UNAVAILABLE.withDescription("Order service is shutting down"));
+        }
+    }
+
+    /**
+     * One WatchOrders stream and its position in the ring
+     */
+    private final class Watcher {
+
+        private final ServerCallStreamObserver<OrderChangeEvent> observer;
+        private final Long customerId;
+        private final Set<CommonProto.OrderStatus> statuses;
+
+        // Guarded by this
+        private long nextSequence;
+        private boolean closed;
+
+        Watcher(ServerCallStreamObserver<OrderChangeEvent> observer, Long customerId,
+                Set<CommonProto.OrderStatus> statuses, long nextSequence) {
+            this.observer = observer;
+            this.customerId = customerId;
+            this.statuses = statuses;
+            this.nextSequence = nextSequence;
+        }
+
+        /**
+         * Send the events this watcher has not seen yet while its stream is ready
+         */
+        synchronized void drain() {
+            if (closed) {
+                return;
+            }
+            if (observer.isCancelled()) {
+                closed = true;
+                watchers.remove(this);
+                return;
+            }
+
+            long lastSequence = ring.lastSequence();
+            if (lastSequence - nextSequence >= ring.capacity()) {
+                fellBehind();
+                return;
+            }
+
+            while (nextSequence <= lastSequence && observer.isReady()) {
+                OrderChangeEvent event = ring.get(nextSequence);
+                if (event == null || event.getSequence() < nextSequence) {
+                    // Claimed but not stored yet, its writer schedules another round once its transaction completes
+                    return;
+                }
+                if (event.getSequence() > nextSequence) {
+                    fellBehind();
+                    return;
+                }
+                if (event.getType() != ROLLED_BACK && matches(event)) {
+                    observer.onNext(event);
+                }
+                nextSequence++;
+            }
+        }
+
+        private boolean matches(OrderChangeEvent event) {
+            return (customerId == null || customerId == event.getUserId())
+                    && (statuses == null || statuses.contains(event.getStatus()));
+        }
+
+        private void fellBehind() {
+            droppedWatchers.increment();
+            log.debug("Order watcher fell behind at sequence {}, disconnecting", nextSequence);
+            disconnect(Status.RESOURCE_EXHAUSTED.withDescription(String.format(
+                    "Order watcher fell more than %d events behind, reload orders and watch again", ring.capacity())));
+        }
+
+        synchronized void disconnect(Status status) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            watchers.remove(this);
+            try {
+                observer.onError(status.asRuntimeException());
+            } catch (IllegalStateException e) {
+                log.debug("Order watcher already closed", e);
+            }
+        }
+    }
+}
@@ -2,63 +2,121 @@ package com.example.order.mapper;
 
 import com.example.common.CommonProto.*;
 import com.example.common.util.CollectionUtil;
+import com.example.common.util.MoneyUtil;
+import com.example.order.OrderProto.CustomerOrderStats;
+import com.example.order.entity.CustomerOrderStatsEntity;
 import com.example.order.entity.OrderEntity;
 import com.example.order.entity.OrderItemEntity;
 import com.example.order.entity.OrderStatus;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
 public class OrderMapper {
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    // Entity timestamps are local date-times of the server's zone
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /**
+     * Maps an order with both the legacy and the v2 fields
+     * @param orderEntity The order, with its items loaded
+     * @return Order proto, null for a null order
+     */
     public Order toProto(OrderEntity orderEntity) {
+        return toProto(orderEntity, OrderFormat.LEGACY);
+    }
+
+    /**
+     * Maps an order with the fields of the requested format
+     * @param orderEntity The order, with its items loaded
+     * @param format COMPACT skips the createdAt text and the double amounts
+     * @return Order proto, null for a null order
+     */
+    public Order toProto(OrderEntity orderEntity, OrderFormat format) {
         if (orderEntity == null) return null;
 
+        boolean legacyFields = format != OrderFormat.COMPACT;
         Order.Builder orderBuilder = Order.newBuilder()
                 .setId(orderEntity.getOrderId())
                 .setUserId(orderEntity.getCustomerId())
-                .setTotalAmount(orderEntity.getTotalPrice())
+                .setTotalAmountMinor(orderEntity.getTotalPriceMinor())
                 .setStatus(mapToProtoOrderStatus(orderEntity.getCurrentStatus()))
-                .setCreatedAt(orderEntity.getCreatedAt().format(DATE_TIME_FORMATTER));
+                .setCreatedAtMillis(orderEntity.getCreatedAt().atZone(ZONE).toInstant().toEpochMilli());
+
+        if (legacyFields) {
+            orderBuilder
+                    .setTotalAmount(MoneyUtil.toMajorUnits(orderEntity.getTotalPriceMinor()))
+                    .setCreatedAt(orderEntity.getCreatedAt().format(DATE_TIME_FORMATTER));
+        }
+
+        if (orderEntity.getVersion() != null) {
+            orderBuilder.setVersion(orderEntity.getVersion());
+        }
 
         if (CollectionUtil.isNotEmpty(orderEntity.getOrderItems())) {
-            List<OrderItem> protoItems = orderEntity.getOrderItems().stream()
-                    .map(this::mapToOrderItemProto)
-                    .toList();
-            orderBuilder.addAllItems(protoItems);
+            for (OrderItemEntity orderItemEntity : orderEntity.getOrderItems()) {
+                orderBuilder.addItems(mapToOrderItemProto(orderItemEntity, legacyFields));
+            }
         }
 
         return orderBuilder.build();
     }
 
     public OrderItem mapToOrderItemProto(OrderItemEntity orderItemEntity) {
+        return mapToOrderItemProto(orderItemEntity, true);
+    }
+
+    private OrderItem mapToOrderItemProto(OrderItemEntity orderItemEntity, boolean legacyFields) {
         if (orderItemEntity == null) return null;
 
-        return OrderItem.newBuilder()
+        OrderItem.Builder itemBuilder = OrderItem.newBuilder()
                 .setProductId(orderItemEntity.getProductId())
                 .setProductName(orderItemEntity.getProductTitle())
                 .setQuantity(orderItemEntity.getItemQuantity())
-                .setPrice(orderItemEntity.getUnitPrice())
-                .build();
+                .setPriceMinor(orderItemEntity.getUnitPriceMinor());
+        if (legacyFields) {
+            itemBuilder.setPrice(MoneyUtil.toMajorUnits(orderItemEntity.getUnitPriceMinor()));
+        }
+        return itemBuilder.build();
+    }
+
+    /**
+     * Get the unit price of a requested item
+     * @param item Item of a create request
+     * @return priceMinor if set, otherwise the legacy price rounded to minor units
+     */
+    public long unitPriceMinor(OrderItem item) {
+        return item.hasPriceMinor() ? item.getPriceMinor() : MoneyUtil.toMinorUnits(item.getPrice());
     }
 
+    /**
+     * Maps order item protos to entities attached to the given order
+     * @param orderItemProtos List of OrderItem proto objects
+     * @param orderEntity The owning order, may not have an ID yet
+     * @return Mutable list of OrderItemEntity objects, persisted by cascade with the order
+     */
     public List<OrderItemEntity> mapToOrderItemEntities(List<OrderItem> orderItemProtos, OrderEntity orderEntity) {
+        List<OrderItemEntity> orderItems = new ArrayList<>(orderItemProtos == null ? 0 : orderItemProtos.size());
         if (CollectionUtil.isEmpty(orderItemProtos)) {
-            return List.of();
+            return orderItems;
         }
 
-        return orderItemProtos.stream()
-                .map(item -> OrderItemEntity.builder()
-                        .productId(item.getProductId())
-                        .productTitle(item.getProductName())
-                        .itemQuantity(item.getQuantity())
-                        .unitPrice(item.getPrice())
-                        .order(orderEntity)
-                        .build())
-                .toList();
+        for (OrderItem item : orderItemProtos) {
+            orderItems.add(OrderItemEntity.builder()
+                    .productId(item.getProductId())
+                    .productTitle(item.getProductName())
+                    .itemQuantity(item.getQuantity())
+                    .unitPriceMinor(unitPriceMinor(item))
+                    .order(orderEntity)
+                    .build());
+        }
+        return orderItems;
     }
 
 
@@ -89,18 +147,53 @@ public class OrderMapper {
         };
     }
 
+    /**
+     * Parses a date-time in the format used by {@link Order#getCreatedAt()}
+     * @param dateTime ISO local date-time text
+     * @return The parsed date-time
+     * @throws java.time.format.DateTimeParseException if the text is not an ISO local date-time
+     */
+    public LocalDateTime parseDateTime(String dateTime) {
+        return LocalDateTime.parse(dateTime, DATE_TIME_FORMATTER);
+    }
+
     /**
      * Maps a list of OrderEntity to a list of Order proto objects
      * @param orderEntities List of OrderEntity objects
      * @return List of Order proto objects
      */
     public List<Order> mapToProtoList(List<OrderEntity> orderEntities) {
+        return mapToProtoList(orderEntities, OrderFormat.LEGACY);
+    }
+
+    /**
+     * Maps a list of OrderEntity to a list of Order proto objects in the requested format
+     * @param orderEntities List of OrderEntity objects
+     * @param format COMPACT skips the createdAt text and the double amounts
+     * @return List of Order proto objects
+     */
+    public List<Order> mapToProtoList(List<OrderEntity> orderEntities, OrderFormat format) {
         if (CollectionUtil.isEmpty(orderEntities)) {
             return List.of();
         }
 
-        return orderEntities.stream()
-                .map(this::toProto)
-                .toList();
+        List<Order> orders = new ArrayList<>(orderEntities.size());
+        for (OrderEntity orderEntity : orderEntities) {
+            orders.add(toProto(orderEntity, format));
+        }
+        return orders;
+    }
+
+    public CustomerOrderStats toProto(CustomerOrderStatsEntity stats) {
+        return CustomerOrderStats.newBuilder()
+                .setUserId(stats.getCustomerId())
+                .setOrderCount(stats.getOrderCount())
+                .setTotalSpentMinor(stats.getTotalSpentMinor())
+                .setPendingOrders(stats.getPendingOrders())
+                .setConfirmedOrders(stats.getConfirmedOrders())
+                .setShippedOrders(stats.getShippedOrders())
+                .setDeliveredOrders(stats.getDeliveredOrders())
+                .setCancelledOrders(stats.getCancelledOrders())
+                .build();
     }
 }
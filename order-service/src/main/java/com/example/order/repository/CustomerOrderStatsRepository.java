@@ -0,0 +1,64 @@
+package com.example.order.repository;
+
+import com.example.order.entity.CustomerOrderStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CustomerOrderStatsRepository extends JpaRepository<CustomerOrderStatsEntity, Long> {
+
+    /**
+     * Add a delta to a customer's summary in a single UPDATE. Nothing is read first, so concurrent order changes
+     * of the same customer only queue on the row for the duration of the statement and the rest of their transaction
+     * @param delta Amounts to add to the counts and the spend, negative to subtract, with the customer ID
+     * @return 1 if the customer has a summary, 0 otherwise
+     */
+    @Modifying
+    @Query("update CustomerOrderStatsEntity s set "
+            + "s.orderCount = s.orderCount + :#{#delta.orderCount}, "
+            + "s.totalSpentMinor = s.totalSpentMinor + :#{#delta.totalSpentMinor}, "
+            + "s.pendingOrders = s.pendingOrders + :#{#delta.pendingOrders}, "
+            + "s.confirmedOrders = s.confirmedOrders + :#{#delta.confirmedOrders}, "
+            + "s.shippedOrders = s.shippedOrders + :#{#delta.shippedOrders}, "
+            + "s.deliveredOrders = s.deliveredOrders + :#{#delta.deliveredOrders}, "
+            + "s.cancelledOrders = s.cancelledOrders + :#{#delta.cancelledOrders}, "
+            + "s.version = s.version + 1, "
+            + "s.updatedAt = :#{#delta.updatedAt} "
+            + "where s.customerId = :#{#delta.customerId}")
+    int addDelta(@Param("delta") CustomerOrderStatsEntity delta);
+
+    /**
+     * @param customerIds The customer IDs
+     * @return IDs of the customers that already have a summary
+     */
+    @Query("select s.customerId from CustomerOrderStatsEntity s where s.customerId in :customerIds")
+    List<Long> findExistingCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
+    /**
+     * Compute every customer's summary from the orders table in one aggregate query
+     * @return Unsaved summaries, one per customer with orders, in customer ID order
+     */
+    @Query("select new com.example.order.entity.CustomerOrderStatsEntity(o.customerId, count(o), "
+            + "sum(case when o.currentStatus <> com.example.order.entity.OrderStatus.CANCELLED then o.totalPriceMinor else 0 end), "
+            + "sum(case when o.currentStatus = com.example.order.entity.OrderStatus.PENDING then 1 else 0 end), "
+            + "sum(case when o.currentStatus = com.example.order.entity.OrderStatus.CONFIRMED then 1 else 0 end), "
+            + "sum(case when o.currentStatus = com.example.order.entity.OrderStatus.SHIPPED then 1 else 0 end), "
+            + "sum(case when o.currentStatus = com.example.order.entity.OrderStatus.DELIVERED then 1 else 0 end), "
+            + "sum(case when o.currentStatus = com.example.order.entity.OrderStatus.CANCELLED then 1 else 0 end)) "
+            + "from OrderEntity o group by o.customerId order by o.customerId")
+    List<CustomerOrderStatsEntity> computeAllFromOrders();
+
+    /**
+     * Delete every summary in a single statement
+     * @return Number of deleted summaries
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("delete from CustomerOrderStatsEntity")
+    int deleteAllInBulk();
+}
@@ -2,13 +2,154 @@ package com.example.order.repository;
 
 import com.example.order.entity.OrderEntity;
 import com.example.order.entity.OrderStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
+public interface OrderRepository extends JpaRepository<OrderEntity, Long>, OrderStatusCas {
 
     List<OrderEntity> findByCustomerId(Long customerId);
+
+    /**
+     * Find an order together with its items in a single statement
+     * @param orderId The order ID
+     * @return The order with initialized items, if it exists
+     */
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<OrderEntity> findWithItemsByOrderId(Long orderId);
+
+    /**
+     * Find all orders of a customer together with their items in a single statement
+     * @param customerId The customer ID
+     * @return Orders with initialized items, in ascending ID order
+     */
+    @EntityGraph(attributePaths = "orderItems")
+    List<OrderEntity> findWithItemsByCustomerIdOrderByOrderIdAsc(Long customerId);
+
+    /**
+     * Find orders by ID together with their items in a single statement
+     * @param orderIds The order IDs
+     * @return Orders with initialized items, in ascending ID order
+     */
+    @EntityGraph(attributePaths = "orderItems")
+    List<OrderEntity> findWithItemsByOrderIdInOrderByOrderIdAsc(Collection<Long> orderIds);
+
+    /**
+     * Keyset page of a customer's order IDs, served by the (customer_id, order_id) index.
+     * Only IDs are paged because a row limit cannot be applied to a fetch join over items.
+     * @param customerId The customer ID
+     * @param afterOrderId Cursor, only orders with a greater ID are returned
+     * @param limit Maximum number of IDs
+     * @return Order IDs in ascending order
+     */
+    @Query("select o.orderId from OrderEntity o where o.customerId = :customerId and o.orderId > :afterOrderId order by o.orderId")
+    List<Long> findOrderIdPage(@Param("customerId") Long customerId, @Param("afterOrderId") Long afterOrderId, Limit limit);
+
+    /**
+     * Read only the status, version, customer and total of an order
+     * @param orderId The order ID
+     * @return The status view, if the order exists
+     */
+    @Query("select o.orderId as orderId, o.customerId as customerId, o.currentStatus as currentStatus, o.totalPriceMinor as totalPriceMinor, "
+            + "o.version as version from OrderEntity o where o.orderId = :orderId")
+    Optional<OrderStatusView> findStatusByOrderId(@Param("orderId") Long orderId);
+
+    /**
+     * Read only the status, version, customer and total of several orders
+     * @param orderIds The order IDs
+     * @return Status views of the orders that exist, in no particular order
+     */
+    @Query("select o.orderId as orderId, o.customerId as customerId, o.currentStatus as currentStatus, o.totalPriceMinor as totalPriceMinor, "
+            + "o.version as version from OrderEntity o where o.orderId in :orderIds")
+    List<OrderStatusView> findStatusesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Set-based status transition of several orders in a single UPDATE
+     * @param orderIds The order IDs
+     * @param fromStatuses Statuses the orders may currently be in
+     * @param toStatus The new status
+     * @param updatedAt Modification time (bulk updates bypass entity callbacks)
+     * @return Number of orders moved to the new status
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update OrderEntity o set o.currentStatus = :toStatus, o.version = o.version + 1, o.updatedAt = :updatedAt "
+            + "where o.orderId in :orderIds and o.currentStatus in :fromStatuses")
+    int transitionStatuses(@Param("orderIds") Collection<Long> orderIds, @Param("fromStatuses") Collection<OrderStatus> fromStatuses,
+                           @Param("toStatus") OrderStatus toStatus, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Keyset page of the IDs of orders in a status created before a time, served by the (order_status, order_id) index
+     * @param status The current status
+     * @param createdBefore Only orders created strictly before this time are returned
+     * @param afterOrderId Cursor, only orders with a greater ID are returned
+     * @param limit Maximum number of IDs
+     * @return Order IDs in ascending order
+     */
+    @Query("select o.orderId from OrderEntity o where o.currentStatus = :status and o.createdAt < :createdBefore "
+            + "and o.orderId > :afterOrderId order by o.orderId")
+    List<Long> findOrderIdPageByStatus(@Param("status") OrderStatus status, @Param("createdBefore") LocalDateTime createdBefore,
+                                       @Param("afterOrderId") Long afterOrderId, Limit limit);
+
+    // ListOrders keyset pages, one query per combination of filters so that each is served by an index.
+    // Orders come in (createdAt, orderId) order and a page starts after the (afterCreatedAt, afterOrderId) cursor:
+    // createdAt >= afterCreatedAt bounds the index range, the OR only skips the orders created at the
+    // same instant up to the cursor
+
+    /**
+     * Keyset page of the IDs of a customer's orders in a status, served by the (customer_id, order_status, created_at, order_id) index
+     * @param customerId The customer ID
+     * @param status The current status
+     * @param afterCreatedAt Creation time of the cursor, or the lower time bound for the first page
+     * @param afterOrderId Order ID of the cursor, 0 for the first page
+     * @param createdBefore Only orders created strictly before this time are returned
+     * @param limit Maximum number of IDs
+     * @return Order IDs in creation time order, then ID order
+     */
+    @Query("select o.orderId from OrderEntity o where o.customerId = :customerId and o.currentStatus = :status "
+            + "and o.createdAt >= :afterCreatedAt and o.createdAt < :createdBefore "
+            + "and (o.createdAt > :afterCreatedAt or o.orderId > :afterOrderId) order by o.createdAt, o.orderId")
+    List<Long> findListPageByCustomerAndStatus(@Param("customerId") Long customerId, @Param("status") OrderStatus status,
+                                               @Param("afterCreatedAt") LocalDateTime afterCreatedAt, @Param("afterOrderId") Long afterOrderId,
+                                               @Param("createdBefore") LocalDateTime createdBefore, Limit limit);
+
+    /**
+     * Keyset page of the IDs of a customer's orders, served by the (customer_id, created_at, order_id) index
+     * @see #findListPageByCustomerAndStatus
+     */
+    @Query("select o.orderId from OrderEntity o where o.customerId = :customerId "
+            + "and o.createdAt >= :afterCreatedAt and o.createdAt < :createdBefore "
+            + "and (o.createdAt > :afterCreatedAt or o.orderId > :afterOrderId) order by o.createdAt, o.orderId")
+    List<Long> findListPageByCustomer(@Param("customerId") Long customerId,
+                                      @Param("afterCreatedAt") LocalDateTime afterCreatedAt, @Param("afterOrderId") Long afterOrderId,
+                                      @Param("createdBefore") LocalDateTime createdBefore, Limit limit);
+
+    /**
+     * Keyset page of the IDs of orders in a status, served by the (order_status, created_at, order_id) index
+     * @see #findListPageByCustomerAndStatus
+     */
+    @Query("select o.orderId from OrderEntity o where o.currentStatus = :status "
+            + "and o.createdAt >= :afterCreatedAt and o.createdAt < :createdBefore "
+            + "and (o.createdAt > :afterCreatedAt or o.orderId > :afterOrderId) order by o.createdAt, o.orderId")
+    List<Long> findListPageByStatus(@Param("status") OrderStatus status,
+                                    @Param("afterCreatedAt") LocalDateTime afterCreatedAt, @Param("afterOrderId") Long afterOrderId,
+                                    @Param("createdBefore") LocalDateTime createdBefore, Limit limit);
+
+    /**
+     * Keyset page of the IDs of all orders, served by the (created_at, order_id) index
+     * @see #findListPageByCustomerAndStatus
+     */
+    @Query("select o.orderId from OrderEntity o where o.createdAt >= :afterCreatedAt and o.createdAt < :createdBefore "
+            + "and (o.createdAt > :afterCreatedAt or o.orderId > :afterOrderId) order by o.createdAt, o.orderId")
+    List<Long> findListPage(@Param("afterCreatedAt") LocalDateTime afterCreatedAt, @Param("afterOrderId") Long afterOrderId,
+                            @Param("createdBefore") LocalDateTime createdBefore, Limit limit);
 }
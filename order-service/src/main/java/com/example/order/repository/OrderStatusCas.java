@@ -0,0 +1,26 @@
+package com.example.order.repository;
+
+import com.example.order.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Single-order status change that keeps the rest of the second-level cache warm
+ */
+public interface OrderStatusCas {
+
+    /**
+     * Compare-and-set status transition in a single UPDATE, without loading the order. A bulk JPQL update would
+     * make Hibernate evict the whole orders region; this one only evicts the changed order, now and again once
+     * the transaction ends, so that no reader caches the row as it was before the commit
+     * @param orderId The order ID
+     * @param fromStatuses Statuses the order may currently be in
+     * @param expectedVersion Version the order must still have, null to accept any version
+     * @param toStatus The new status
+     * @param updatedAt Modification time (the UPDATE bypasses entity callbacks)
+     * @return Status the order moved from, null if it does not exist, is in another status or has another version
+     */
+    OrderStatus transitionStatus(long orderId, Collection<OrderStatus> fromStatuses, Long expectedVersion, OrderStatus toStatus,
+                                 LocalDateTime updatedAt);
+}
@@ -0,0 +1,76 @@
+package com.example.order.repository;
+
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The UPDATE runs as plain JDBC on the session's connection, inside its transaction: Hibernate's bulk update
+ * cleanup does not see it, and the cache entry of the order is evicted by hand.
+ * It is wrapped in a {@code SELECT ... FROM OLD TABLE (UPDATE ...)}, H2's data change delta table, so that the status
+ * the order had before the change comes back from the same statement instead of a read before or after it.
+ */
+class OrderStatusCasImpl implements OrderStatusCas {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public OrderStatus transitionStatus(long orderId, Collection<OrderStatus> fromStatuses, Long expectedVersion, OrderStatus toStatus,
+                                        LocalDateTime updatedAt) {
+        if (fromStatuses.isEmpty()) {
+            return null;
+        }
+        String sql = "select order_status from old table (update orders set order_status = ?, version = version + 1, updated_at = ? "
+                + "where order_id = ? and order_status in (" + String.join(", ", Collections.nCopies(fromStatuses.size(), "?")) + ")"
+                + (expectedVersion != null ? " and version = ?" : "") + ")";
+
+        OrderStatus previousStatus = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int parameter = 1;
+                statement.setString(parameter++, toStatus.name());
+                statement.setTimestamp(parameter++, Timestamp.valueOf(updatedAt));
+                statement.setLong(parameter++, orderId);
+                for (OrderStatus fromStatus : fromStatuses) {
+                    statement.setString(parameter++, fromStatus.name());
+                }
+                if (expectedVersion != null) {
+                    statement.setLong(parameter, expectedVersion);
+                }
+                try (ResultSet changed = statement.executeQuery()) {
+                    return changed.next() ? OrderStatus.valueOf(changed.getString(1)) : null;
+                }
+            }
+        });
+        if (previousStatus != null) {
+            evictAfterCompletion(orderId);
+        }
+        return previousStatus;
+    }
+
+    private void evictAfterCompletion(long orderId) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        cache.evict(OrderEntity.class, orderId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A reader may have cached the committed row, or this transaction its own uncommitted read, in between
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(OrderEntity.class, orderId);
+                }
+            });
+        }
+    }
+}
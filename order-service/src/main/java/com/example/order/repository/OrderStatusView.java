@@ -0,0 +1,20 @@
+package com.example.order.repository;
+
+import com.example.order.entity.OrderStatus;
+
+/**
+ * Status and version of an order, read to explain or plan status transitions,
+ * with the customer and total needed to update the customer's order summary
+ */
+public interface OrderStatusView {
+
+    Long getOrderId();
+
+    Long getCustomerId();
+
+    OrderStatus getCurrentStatus();
+
+    Long getTotalPriceMinor();
+
+    Long getVersion();
+}
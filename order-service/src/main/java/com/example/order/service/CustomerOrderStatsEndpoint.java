@@ -0,0 +1,35 @@
+package com.example.order.service;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint over the customer order summaries:
+ * GET /actuator/orderstats compares them with the orders, POST /actuator/orderstats rebuilds them
+ */
+@Component
+@Endpoint(id = "orderstats")
+public class CustomerOrderStatsEndpoint {
+
+    private static final int MAX_REPORTED_CUSTOMERS = 100;
+
+    private final CustomerOrderStatsService statsService;
+
+    public CustomerOrderStatsEndpoint(CustomerOrderStatsService statsService) {
+        this.statsService = statsService;
+    }
+
+    @ReadOperation
+    public CustomerOrderStatsService.ConsistencyReport check() {
+        return statsService.check(MAX_REPORTED_CUSTOMERS);
+    }
+
+    @WriteOperation
+    public Map<String, Integer> rebuild() {
+        return Map.of("rebuiltCustomers", statsService.rebuild());
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.order.service;
+
+import com.example.common.concurrent.DbConcurrencyLimiter;
+import com.example.order.entity.CustomerOrderStatsEntity;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.repository.CustomerOrderStatsRepository;
+import com.example.order.repository.OrderStatusView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maintains the per-customer order summaries (customer_order_stats) so that GetCustomerOrderStats is a
+ * primary key read instead of an aggregate over the customer's orders.
+ * Every order change adds its delta to the customer's summary inside the transaction of the change, with one
+ * UPDATE per customer and no read of the summary; summaries are updated in customer ID order so that multi-customer
+ * writes cannot deadlock on their row locks.
+ * The summaries can be recomputed from the orders with {@link #rebuild()} and compared with them with {@link #check(int)}.
+ */
+@Component
+@Slf4j
+public class CustomerOrderStatsService {
+
+    private final CustomerOrderStatsRepository statsRepository;
+    private final DbConcurrencyLimiter dbConcurrencyLimiter;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public CustomerOrderStatsService(CustomerOrderStatsRepository statsRepository,
+                                     DbConcurrencyLimiter dbConcurrencyLimiter,
+                                     PlatformTransactionManager transactionManager) {
+        this.statsRepository = statsRepository;
+        this.dbConcurrencyLimiter = dbConcurrencyLimiter;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Create empty summaries for customers that have none yet. Must be called before, not inside, the
+     * transaction creating their orders: two first orders of a customer may race to insert the row,
+     * and the loser only has to find it afterwards
+     * @param customerIds The customer IDs
+     */
+    public void ensureCustomers(Collection<Long> customerIds) {
+        Set<Long> missing = new TreeSet<>(customerIds);
+        missing.removeAll(statsRepository.findExistingCustomerIds(missing));
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        try {
+            transaction.executeWithoutResult(status ->
+                    statsRepository.saveAllAndFlush(missing.stream().map(CustomerOrderStatsEntity::empty).toList()));
+        } catch (DataIntegrityViolationException e) {
+            // Another request created some of the rows first, create the others one by one
+            for (Long customerId : missing) {
+                try {
+                    transaction.executeWithoutResult(status ->
+                            statsRepository.saveAndFlush(CustomerOrderStatsEntity.empty(customerId)));
+                } catch (DataIntegrityViolationException alreadyCreated) {
+                    log.debug("Order summary of customer {} created concurrently", customerId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Count new orders, inside the transaction that inserts them
+     * @param orders The saved orders
+     */
+    public void recordCreated(Collection<OrderEntity> orders) {
+        Map<Long, CustomerOrderStatsEntity> deltas = new TreeMap<>();
+        for (OrderEntity order : orders) {
+            delta(deltas, order.getCustomerId()).addOrder(order.getCurrentStatus(), order.getTotalPriceMinor());
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Count a status change of one order, inside the transaction that changes it
+     * @param order The order, still with its total
+     * @param fromStatus Status before the change
+     * @param toStatus Status after the change
+     */
+    public void recordTransition(OrderEntity order, OrderStatus fromStatus, OrderStatus toStatus) {
+        Map<Long, CustomerOrderStatsEntity> deltas = new TreeMap<>();
+        delta(deltas, order.getCustomerId()).moveOrder(fromStatus, toStatus, order.getTotalPriceMinor());
+        apply(deltas);
+    }
+
+    /**
+     * Count status changes of several orders, inside the transaction that changes them
+     * @param changedOrders The orders as read before the change, with their previous status
+     * @param toStatus Status after the change
+     */
+    public void recordTransitions(Collection<OrderStatusView> changedOrders, OrderStatus toStatus) {
+        Map<Long, CustomerOrderStatsEntity> deltas = new TreeMap<>();
+        for (OrderStatusView order : changedOrders) {
+            delta(deltas, order.getCustomerId()).moveOrder(order.getCurrentStatus(), toStatus, order.getTotalPriceMinor());
+        }
+        apply(deltas);
+    }
+
+    private static CustomerOrderStatsEntity delta(Map<Long, CustomerOrderStatsEntity> deltas, Long customerId) {
+        return deltas.computeIfAbsent(customerId, CustomerOrderStatsEntity::empty);
+    }
+
+    /**
+     * Add the deltas in customer ID order (the map is sorted), skipping those that cancel out
+     */
+    private void apply(Map<Long, CustomerOrderStatsEntity> deltas) {
+        LocalDateTime now = LocalDateTime.now();
+        for (CustomerOrderStatsEntity delta : deltas.values()) {
+            if (delta.sameCounts(CustomerOrderStatsEntity.empty(delta.getCustomerId()))) {
+                continue;
+            }
+            delta.setUpdatedAt(now);
+            if (statsRepository.addDelta(delta) == 0) {
+                // Orders inserted around the service (imports, fixtures) are only counted by a rebuild
+                log.debug("No order summary for customer {}, change not counted", delta.getCustomerId());
+            }
+        }
+    }
+
+    /**
+     * Read a customer's summary
+     * @param customerId The customer ID
+     * @return The summary, all zero for a customer without orders
+     */
+    public CustomerOrderStatsEntity find(long customerId) {
+        return dbConcurrencyLimiter.call(() -> statsRepository.findById(customerId)
+                .orElseGet(() -> CustomerOrderStatsEntity.empty(customerId)));
+    }
+
+    /**
+     * Replace every summary by one computed from the orders, in a single transaction.
+     * Order changes committed while the rebuild runs may be missed, run {@link #check(int)} afterwards.
+     * @return Number of customers with orders
+     */
+    public int rebuild() {
+        log.info("Rebuilding customer order summaries");
+        int customers = dbConcurrencyLimiter.call(() -> transaction.execute(status -> {
+            List<CustomerOrderStatsEntity> computed = statsRepository.computeAllFromOrders();
+            statsRepository.deleteAllInBulk();
+            statsRepository.saveAll(computed);
+            return computed.size();
+        }));
+        log.info("Rebuilt order summaries of {} customers", customers);
+        return customers;
+    }
+
+    /**
+     * Compare every summary with one computed from the orders. The two are not read from one snapshot,
+     * so a concurrent order change can show up as a mismatch that disappears when checking again.
+     * @param maxReportedCustomers Maximum number of mismatched customer IDs listed in the report
+     * @return The comparison
+     */
+    public ConsistencyReport check(int maxReportedCustomers) {
+        return dbConcurrencyLimiter.call(() -> readOnlyTransaction.execute(status -> {
+            Map<Long, CustomerOrderStatsEntity> storedStats = new HashMap<>();
+            for (CustomerOrderStatsEntity stats : statsRepository.findAll()) {
+                storedStats.put(stats.getCustomerId(), stats);
+            }
+
+            List<Long> mismatchedIds = new ArrayList<>();
+            int checked = storedStats.size();
+            int mismatched = 0;
+            for (CustomerOrderStatsEntity computed : statsRepository.computeAllFromOrders()) {
+                CustomerOrderStatsEntity stored = storedStats.remove(computed.getCustomerId());
+                if (stored == null) {
+                    checked++;
+                }
+                if (stored == null || !stored.sameCounts(computed)) {
+                    mismatched++;
+                    if (mismatchedIds.size() < maxReportedCustomers) {
+                        mismatchedIds.add(computed.getCustomerId());
+                    }
+                }
+            }
+
+            // Left over: summaries of customers without orders, which must be all zero
+            for (CustomerOrderStatsEntity stored : storedStats.values()) {
+                if (!stored.sameCounts(CustomerOrderStatsEntity.empty(stored.getCustomerId()))) {
+                    mismatched++;
+                    if (mismatchedIds.size() < maxReportedCustomers) {
+                        mismatchedIds.add(stored.getCustomerId());
+                    }
+                }
+            }
+
+            if (mismatched > 0) {
+                log.warn("{} of {} customer order summaries differ from the orders", mismatched, checked);
+            }
+            return new ConsistencyReport(checked, mismatched, mismatchedIds);
+        }));
+    }
+
+    /**
+     * Result of {@link #check(int)}
+     * @param checkedCustomers Customers with a summary or with orders
+     * @param mismatchedCustomers Customers whose summary differs from their orders
+     * @param mismatchedCustomerIds The first mismatched customer IDs
+     */
+    public record ConsistencyReport(int checkedCustomers, int mismatchedCustomers, List<Long> mismatchedCustomerIds) {
+    }
+}
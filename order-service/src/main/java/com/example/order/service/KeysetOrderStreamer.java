@@ -0,0 +1,127 @@
+package com.example.order.service;
+
+import com.example.common.CommonProto.Order;
+import com.example.common.exception.GrpcErrorLogger;
+import com.example.common.exception.GrpcStatusMapper;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongFunction;
+
+/**
+ * Streams orders to a client one keyset page at a time while honoring gRPC flow control.
+ * At most one page is held in memory: the next page is only loaded once the previous one
+ * has been handed to the transport, and sending pauses whenever the client stops reading.
+ * All observer calls happen inside a single drain loop, so the observer is never used concurrently.
+ */
+@Slf4j
+public class KeysetOrderStreamer {
+
+    private final ServerCallStreamObserver<Order> responseObserver;
+    private final LongFunction<List<Order>> pageLoader;
+    private final Executor executor;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Deque<Order> currentPage = new ArrayDeque<>();
+
+    private volatile boolean started;
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+
+    private long afterOrderId;
+    private boolean exhausted;
+
+    /**
+     * Register flow-control callbacks; must be called from the RPC method itself
+     * @param responseObserver The server-streaming response observer
+     * @param afterOrderId Cursor to resume after, 0 to start from the first order
+     * @param pageLoader Loads the orders following a cursor, an empty page ends the stream
+     * @param executor Executor for page loads and sending
+     */
+    public KeysetOrderStreamer(StreamObserver<Order> responseObserver, long afterOrderId,
+                               LongFunction<List<Order>> pageLoader, Executor executor) {
+        this.responseObserver = (ServerCallStreamObserver<Order>) responseObserver;
+        this.afterOrderId = afterOrderId;
+        this.pageLoader = pageLoader;
+        this.executor = executor;
+
+        this.responseObserver.setOnReadyHandler(this::scheduleDrain);
+        this.responseObserver.setOnCancelHandler(() -> cancelled = true);
+    }
+
+    /**
+     * Start sending, typically once the request has been validated
+     */
+    public void start() {
+        started = true;
+        scheduleDrain();
+    }
+
+    /**
+     * Fail the stream before it started, e.g. when request validation failed
+     * @param error The failure to report
+     */
+    public void fail(Throwable error) {
+        finished = true;
+        if (!cancelled) {
+            responseObserver.onError(GrpcStatusMapper.toStatus(error).asRuntimeException());
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!started || finished || cancelled) {
+            return;
+        }
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                fail(e);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!cancelled && !finished && responseObserver.isReady()) {
+                if (currentPage.isEmpty()) {
+                    if (exhausted) {
+                        finished = true;
+                        responseObserver.onCompleted();
+                        break;
+                    }
+                    loadNextPage();
+                    continue;
+                }
+                responseObserver.onNext(currentPage.poll());
+            }
+        } catch (RuntimeException e) {
+            GrpcErrorLogger.logFailure(log, "Exception while streaming orders", e);
+            fail(e);
+        } finally {
+            draining.set(false);
+        }
+
+        // onReady may have fired after the loop saw isReady() == false and before draining was cleared
+        if (responseObserver.isReady()) {
+            scheduleDrain();
+        }
+    }
+
+    private void loadNextPage() {
+        List<Order> page = pageLoader.apply(afterOrderId);
+        if (page.isEmpty()) {
+            exhausted = true;
+            return;
+        }
+        currentPage.addAll(page);
+        afterOrderId = page.get(page.size() - 1).getId();
+    }
+}
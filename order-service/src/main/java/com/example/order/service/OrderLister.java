@@ -0,0 +1,110 @@
+package com.example.order.service;
+
+import com.example.common.CommonProto.Order;
+import com.example.common.CommonProto.OrderFormat;
+import com.example.common.exception.ValidationException;
+import com.example.order.constants.OrderErrorCode;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.mapper.OrderMapper;
+import com.example.order.store.OrderStore;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset pages of orders for ListOrders, filtered by customer, status and creation time.
+ * Orders come in (createdAt, orderId) order and each page is one {@link OrderStore#findListPage} call.
+ * The page token is the (createdAt, orderId) of the last order of the previous page.
+ */
+@Component
+public class OrderLister {
+
+    // Bounds used when the request leaves the creation time open
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private static final char TOKEN_SEPARATOR = '|';
+
+    private final OrderStore orderStore;
+    private final OrderMapper orderMapper;
+
+    public OrderLister(OrderStore orderStore, OrderMapper orderMapper) {
+        this.orderStore = orderStore;
+        this.orderMapper = orderMapper;
+    }
+
+    /**
+     * Load one page of orders
+     * @param customerId Only orders of this customer, null for every customer
+     * @param status Only orders in this status, null for every status
+     * @param createdFrom Only orders created at or after this time, null for no lower bound
+     * @param createdBefore Only orders created strictly before this time, null for no upper bound
+     * @param pageToken Token of the previous page, empty for the first page
+     * @param pageSize Maximum number of orders
+     * @param format Wire format of the orders
+     * @return The orders and the token of the next page
+     */
+    public OrderPage list(Long customerId, OrderStatus status, LocalDateTime createdFrom, LocalDateTime createdBefore,
+                          String pageToken, int pageSize, OrderFormat format) {
+        LocalDateTime lowerBound = createdFrom != null ? createdFrom : EARLIEST;
+        LocalDateTime upperBound = createdBefore != null ? createdBefore : LATEST;
+        if (!lowerBound.isBefore(upperBound)) {
+            throw new ValidationException(
+                OrderErrorCode.ORDER_LIST_INVALID,
+                String.format("Empty creation time range [%s, %s)", lowerBound, upperBound)
+            );
+        }
+
+        Cursor cursor = pageToken.isEmpty() ? new Cursor(lowerBound, 0L) : decode(pageToken);
+        if (cursor.createdAt().isBefore(lowerBound)) {
+            cursor = new Cursor(lowerBound, 0L);
+        }
+
+        // One extra order tells whether another page exists without a COUNT query
+        List<OrderEntity> orders = orderStore.findListPage(customerId, status, cursor.createdAt(), cursor.orderId(), upperBound, pageSize + 1);
+
+        boolean hasMore = orders.size() > pageSize;
+        List<OrderEntity> page = hasMore ? orders.subList(0, pageSize) : orders;
+        String nextPageToken = "";
+        if (hasMore) {
+            OrderEntity last = page.get(page.size() - 1);
+            nextPageToken = encode(new Cursor(last.getCreatedAt(), last.getOrderId()));
+        }
+        return new OrderPage(orderMapper.mapToProtoList(page, format), nextPageToken);
+    }
+
+    private static String encode(Cursor cursor) {
+        String token = cursor.createdAt().toString() + TOKEN_SEPARATOR + cursor.orderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String pageToken) {
+        try {
+            String token = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            int separator = token.lastIndexOf(TOKEN_SEPARATOR);
+            return new Cursor(LocalDateTime.parse(token.substring(0, separator)), Long.parseLong(token.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException(
+                OrderErrorCode.ORDER_LIST_INVALID,
+                String.format("Invalid page token '%s'", pageToken),
+                e
+            );
+        }
+    }
+
+    private record Cursor(LocalDateTime createdAt, long orderId) {
+    }
+
+    /**
+     * One page of ListOrders
+     * @param orders The orders of the page
+     * @param nextPageToken Token of the next page, empty when there is none
+     */
+    public record OrderPage(List<Order> orders, String nextPageToken) {
+    }
+}
@@ -2,46 +2,111 @@ package com.example.order.service;
 
 import com.example.common.CommonProto.*;
 import com.example.common.ResponseBuilder;
+import com.example.common.exception.BaseException;
 import com.example.common.exception.BusinessException;
+import com.example.common.exception.ConflictException;
+import com.example.common.exception.GrpcErrorLogger;
+import com.example.common.exception.GrpcStatusMapper;
 import com.example.common.exception.ResourceNotFoundException;
+import com.example.common.exception.ValidationException;
+import com.example.common.util.BatchingStreamReceiver;
+import com.example.common.util.StreamResponseHandler;
 import com.example.order.OrderProto.*;
+import com.example.order.client.UserServiceClient;
+import com.example.order.config.OrderBulkProperties;
+import com.example.order.config.OrderQueryProperties;
+import com.example.order.config.PersistenceExecutorConfig;
 import com.example.order.constants.OrderErrorCode;
 import com.example.order.entity.OrderEntity;
 import com.example.order.entity.OrderItemEntity;
 import com.example.order.entity.OrderStatus;
+import com.example.order.entity.OrderStatusTransitions;
+import com.example.order.event.OrderEventPublisher;
 import com.example.order.mapper.OrderMapper;
-import com.example.order.repository.OrderRepository;
+import com.example.order.store.OrderStore;
+import com.example.order.store.StatusTransition;
 import com.example.user.UserProto.*;
 import io.grpc.stub.StreamObserver;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.devh.boot.grpc.client.inject.GrpcClient;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
-import static com.example.common.util.CollectionUtil.sum;
+import static com.example.common.util.CollectionUtil.sumExact;
 
+/**
+ * Order gRPC service. Handlers that depend on User Service are asynchronous: the customer
+ * lookup never blocks a gRPC thread, order store work runs on the persistence executor and the
+ * response observer is completed from the last stage.
+ */
 @GrpcService
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class OrderServiceImpl extends com.example.order.OrderServiceGrpc.OrderServiceImplBase {
-    
-    @GrpcClient("user-service")
-    private com.example.user.UserServiceGrpc.UserServiceBlockingStub userServiceStub;
-    
-    private final OrderRepository orderRepository;
+
+    // Shared immutable response headers, built once
+    private static final ApiResponse ORDER_CREATED = ResponseBuilder.success("Order created successfully");
+    private static final ApiResponse ORDER_FOUND = ResponseBuilder.success("Order found");
+    private static final ApiResponse ORDER_STATUS_UPDATED = ResponseBuilder.success("Order status updated successfully");
+    private static final ApiResponse ORDER_STATUSES_UPDATED = ResponseBuilder.success("Order statuses updated");
+    private static final ApiResponse CUSTOMER_ORDERS_FOUND = ResponseBuilder.success("Customer orders found");
+    private static final ApiResponse CUSTOMER_ORDERS_PAGE_FOUND = ResponseBuilder.success("Customer orders page found");
+    private static final ApiResponse ORDER_CANCELLED = ResponseBuilder.success("Order cancelled successfully");
+    private static final ApiResponse CUSTOMER_ORDER_STATS_FOUND = ResponseBuilder.success("Customer order stats found");
+    private static final ApiResponse ORDERS_LISTED = ResponseBuilder.success("Orders found");
+    private static final ApiResponse INVALID_CUSTOMER = ResponseBuilder.error(OrderErrorCode.INVALID_CUSTOMER);
+    private static final ApiResponse USER_SERVICE_UNAVAILABLE = ResponseBuilder.error(OrderErrorCode.USER_SERVICE_UNAVAILABLE);
+
+    private final UserServiceClient userServiceClient;
+    private final OrderStore orderStore;
     private final OrderMapper orderMapper;
+    private final Executor persistenceExecutor;
+    private final OrderQueryProperties queryProperties;
+    private final OrderBulkProperties bulkProperties;
+    private final OrderLister orderLister;
+    private final OrderEventPublisher orderEvents;
+
+    public OrderServiceImpl(UserServiceClient userServiceClient,
+                            OrderStore orderStore,
+                            OrderMapper orderMapper,
+                            @Qualifier(PersistenceExecutorConfig.PERSISTENCE_EXECUTOR) Executor persistenceExecutor,
+                            OrderQueryProperties queryProperties,
+                            OrderBulkProperties bulkProperties,
+                            OrderLister orderLister,
+                            OrderEventPublisher orderEvents) {
+        this.userServiceClient = userServiceClient;
+        this.orderStore = orderStore;
+        this.orderMapper = orderMapper;
+        this.persistenceExecutor = persistenceExecutor;
+        this.queryProperties = queryProperties;
+        this.bulkProperties = bulkProperties;
+        this.orderLister = orderLister;
+        this.orderEvents = orderEvents;
+    }
 
     @Override
     public void createOrder(CreateOrderRequest orderCreationRequest, StreamObserver<CreateOrderResponse> responseObserver) {
-        log.info("Creating order for customer: {}, Items: {}", orderCreationRequest.getUserId(), orderCreationRequest.getItemsCount());
+        log.debug("Creating order for customer: {}, Items: {}", orderCreationRequest.getUserId(), orderCreationRequest.getItemsCount());
+
+        CompletableFuture<CreateOrderResponse> response = validateCustomer(orderCreationRequest.getUserId())
+                .thenApplyAsync(customerValidation -> createValidatedOrder(orderCreationRequest, customerValidation), persistenceExecutor);
 
-        // Validate customer
-        ValidateUserResponse customerValidation = validateCustomer(orderCreationRequest.getUserId());
+        StreamResponseHandler.respond(responseObserver, response);
+    }
+
+    private CreateOrderResponse createValidatedOrder(CreateOrderRequest orderCreationRequest, ValidateUserResponse customerValidation) {
         if (!customerValidation.getIsValid()) {
             throw new BusinessException(
                 OrderErrorCode.INVALID_CUSTOMER,
@@ -49,105 +114,278 @@ public class OrderServiceImpl extends com.example.order.OrderServiceGrpc.OrderSe
             );
         }
 
-        // Create and save order
+        // Persist the order with its items; the JPA store counts it in the customer's summary in the same transaction
+        OrderEntity savedOrder = saveOrder(buildNewOrder(orderCreationRequest));
+
+        Order orderProto = orderMapper.toProto(savedOrder);
+
+        return CreateOrderResponse.newBuilder()
+                .setResponse(ORDER_CREATED)
+                .setOrder(orderProto)
+                .setUser(customerValidation.getUser())
+                .build();
+    }
+
+    private OrderEntity buildNewOrder(CreateOrderRequest orderCreationRequest) {
         OrderEntity newOrder = OrderEntity.builder()
                 .customerId(orderCreationRequest.getUserId())
-                .totalPrice(calculateTotalPrice(orderCreationRequest))
                 .currentStatus(OrderStatus.PENDING)
                 .build();
 
-        OrderEntity savedOrder = saveOrder(newOrder);
-
+        checkItems(orderCreationRequest);
         List<OrderItemEntity> orderItems = orderMapper.mapToOrderItemEntities(
-                orderCreationRequest.getItemsList(), savedOrder);
+                orderCreationRequest.getItemsList(), newOrder);
+        newOrder.setOrderItems(orderItems);
+        newOrder.setTotalPriceMinor(calculateTotalPriceMinor(orderItems));
+        return newOrder;
+    }
 
-        savedOrder.setOrderItems(orderItems);
-        savedOrder = saveOrder(savedOrder);
+    // Values the order_items columns cannot hold would otherwise only fail at the INSERT
+    private static void checkItems(CreateOrderRequest orderCreationRequest) {
+        for (OrderItem item : orderCreationRequest.getItemsList()) {
+            if (item.getProductName().length() > OrderItemEntity.PRODUCT_TITLE_MAX_LENGTH) {
+                throw new ValidationException(OrderErrorCode.ORDER_INVALID, String.format(
+                        "Product name of product '%s' is longer than %s characters", item.getProductId(), OrderItemEntity.PRODUCT_TITLE_MAX_LENGTH));
+            }
+        }
+    }
 
-        Order orderProto = orderMapper.toProto(savedOrder);
+    // Exact integer arithmetic in minor units, a total that does not fit in a long is rejected
+    private long calculateTotalPriceMinor(List<OrderItemEntity> orderItems) {
+        try {
+            return sumExact(orderItems, item -> Math.multiplyExact(item.getUnitPriceMinor(), (long) item.getItemQuantity()));
+        } catch (ArithmeticException e) {
+            throw new ValidationException(OrderErrorCode.ORDER_TOTAL_OUT_OF_RANGE, "Order total overflows a long in minor units");
+        }
+    }
 
-        CreateOrderResponse response = CreateOrderResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("Order created successfully"))
-                .setOrder(orderProto)
-                .setUser(customerValidation.getUser())
-                .build();
+    @Override
+    public StreamObserver<CreateOrderRequest> createOrders(StreamObserver<CreateOrdersResult> responseObserver) {
+        log.debug("Create orders stream opened, batch size: {}", bulkProperties.getBatchSize());
 
-        responseObserver.onNext(response);
-        responseObserver.onCompleted();
+        // Each customer is validated once per stream, whatever the number of their orders. Batches are
+        // processed one after the other, so the map is never accessed concurrently
+        Map<Long, CompletableFuture<ValidateUserResponse>> customerValidations = new HashMap<>();
+
+        return new BatchingStreamReceiver<>(responseObserver, bulkProperties.getBatchSize(),
+                (firstIndex, batch) -> createOrderBatch(firstIndex, batch, customerValidations));
+    }
+
+    private CompletableFuture<List<CreateOrdersResult>> createOrderBatch(long firstIndex, List<CreateOrderRequest> batch,
+                                                                         Map<Long, CompletableFuture<ValidateUserResponse>> customerValidations) {
+        // A lookup that failed (User Service unavailable, breaker open) is retried by the next batch of that customer
+        customerValidations.values().removeIf(CompletableFuture::isCompletedExceptionally);
+
+        Map<Long, CompletableFuture<ValidateUserResponse>> batchValidations = new HashMap<>();
+        for (CreateOrderRequest request : batch) {
+            long customerId = request.getUserId();
+            if (!batchValidations.containsKey(customerId)) {
+                batchValidations.put(customerId, customerValidations.computeIfAbsent(customerId, this::validateCustomer));
+            }
+        }
+
+        // A failed lookup only fails the orders of its customer, see persistOrderBatch
+        return CompletableFuture.allOf(batchValidations.values().toArray(CompletableFuture[]::new))
+                .handleAsync((ignored, error) -> persistOrderBatch(firstIndex, batch, batchValidations), persistenceExecutor);
+    }
+
+    private List<CreateOrdersResult> persistOrderBatch(long firstIndex, List<CreateOrderRequest> batch,
+                                                       Map<Long, CompletableFuture<ValidateUserResponse>> customerValidations) {
+        CreateOrdersResult[] results = new CreateOrdersResult[batch.size()];
+        List<OrderEntity> newOrders = new ArrayList<>(batch.size());
+        int[] batchPositions = new int[batch.size()];
+
+        // Every order is checked before the write, so that one invalid order is reported alone instead of failing the batch
+        for (int i = 0; i < batch.size(); i++) {
+            CreateOrderRequest request = batch.get(i);
+            ApiResponse rejection;
+            try {
+                if (customerValidations.get(request.getUserId()).join().getIsValid()) {
+                    batchPositions[newOrders.size()] = i;
+                    newOrders.add(buildNewOrder(request));
+                    continue;
+                }
+                rejection = INVALID_CUSTOMER;
+            } catch (CompletionException | BaseException e) {
+                rejection = orderRejection(e);
+            }
+            results[i] = CreateOrdersResult.newBuilder()
+                    .setIndex(firstIndex + i)
+                    .setResponse(rejection)
+                    .build();
+        }
+
+        if (!newOrders.isEmpty()) {
+            // One write for the batch: a single transaction with JDBC batches, or consecutive appends to a segment
+            List<OrderEntity> savedOrders = saveOrders(newOrders);
+            for (int j = 0; j < savedOrders.size(); j++) {
+                int position = batchPositions[j];
+                results[position] = CreateOrdersResult.newBuilder()
+                        .setIndex(firstIndex + position)
+                        .setResponse(ORDER_CREATED)
+                        .setOrder(orderMapper.toProto(savedOrders.get(j)))
+                        .build();
+            }
+        }
+
+        return Arrays.asList(results);
     }
 
-    private double calculateTotalPrice(CreateOrderRequest orderCreationRequest) {
-        return sum(orderCreationRequest.getItemsList(), item -> item.getPrice() * item.getQuantity());
+    private static ApiResponse orderRejection(RuntimeException e) {
+        if (GrpcStatusMapper.unwrap(e) instanceof BaseException rejection) {
+            return ResponseBuilder.error(rejection.getUserMessage(), rejection.getErrorCode());
+        }
+        GrpcErrorLogger.logFailure(log, "Customer validation failed in a CreateOrders batch", e);
+        return USER_SERVICE_UNAVAILABLE;
     }
 
     @Override
     public void getOrder(GetOrderRequest request, StreamObserver<GetOrderResponse> responseObserver) {
-        log.info("Get order: {}", request.getOrderId());
+        log.debug("Get order: {}", request.getOrderId());
+
+        CompletableFuture<GetOrderResponse> response = CompletableFuture
+                .supplyAsync(() -> loadOrder(request.getOrderId(), request.getOrderFormat()), persistenceExecutor)
+                .thenCompose(orderProto -> fetchCustomerDetails(orderProto.getUserId())
+                        .thenApply(customerResponse -> buildGetOrderResponse(orderProto, customerResponse)));
+
+        StreamResponseHandler.respond(responseObserver, response);
+    }
 
-        Optional<OrderEntity> orderEntityOpt = findOrderById(request.getOrderId());
+    private Order loadOrder(long orderId, OrderFormat format) {
+        Optional<OrderEntity> orderEntityOpt = findOrderById(orderId);
 
         if (orderEntityOpt.isEmpty()) {
             throw new ResourceNotFoundException(
                 OrderErrorCode.ORDER_NOT_FOUND,
-                String.format("Order with ID '%s' not found", request.getOrderId())
+                String.format("Order with ID '%s' not found", orderId)
             );
         }
 
-        OrderEntity foundOrder = orderEntityOpt.get();
-        GetUserResponse customerResponse = fetchCustomerDetails(foundOrder.getCustomerId());
+        return orderMapper.toProto(orderEntityOpt.get(), format);
+    }
 
+    private GetOrderResponse buildGetOrderResponse(Order orderProto, GetUserResponse customerResponse) {
         if (!customerResponse.getResponse().getSuccess()) {
             throw new BusinessException(
                 OrderErrorCode.CUSTOMER_NOT_FOUND,
-                String.format("Customer with ID '%s' not found for order '%s'", foundOrder.getCustomerId(), request.getOrderId())
+                String.format("Customer with ID '%s' not found for order '%s'", orderProto.getUserId(), orderProto.getId())
             );
         }
 
-        Order orderProto = orderMapper.toProto(foundOrder);
-
-        GetOrderResponse response = GetOrderResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("Order found"))
+        return GetOrderResponse.newBuilder()
+                .setResponse(ORDER_FOUND)
                 .setOrder(orderProto)
                 .setUser(customerResponse.getUser())
                 .build();
+    }
+
+    @Override
+    public void updateOrderStatus(UpdateOrderStatusRequest request, StreamObserver<UpdateOrderStatusResponse> responseObserver) {
+        log.debug("Update order status: ID={}, Status={}", request.getOrderId(), request.getStatus());
+
+        OrderEntity updatedOrder = transitionOrderStatus(
+                request.getOrderId(),
+                orderMapper.mapToEntityOrderStatus(request.getStatus()),
+                request.hasExpectedVersion() ? request.getExpectedVersion() : null,
+                OrderErrorCode.ORDER_TO_UPDATE_NOT_FOUND,
+                OrderErrorCode.ORDER_INVALID_STATUS_TRANSITION);
+        Order orderProto = orderMapper.toProto(updatedOrder);
+
+        UpdateOrderStatusResponse response = UpdateOrderStatusResponse.newBuilder()
+                .setResponse(ORDER_STATUS_UPDATED)
+                .setOrder(orderProto)
+                .build();
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
     @Override
-    public void updateOrderStatus(UpdateOrderStatusRequest request, StreamObserver<UpdateOrderStatusResponse> responseObserver) {
-        log.info("Update order status: ID={}, Status={}", request.getOrderId(), request.getStatus());
-
-        Optional<OrderEntity> existingOrderOpt = findOrderById(request.getOrderId());
+    public void updateOrderStatuses(UpdateOrderStatusesRequest request, StreamObserver<UpdateOrderStatusesResponse> responseObserver) {
+        log.debug("Update order statuses: {} IDs, filter: {}, Status={}", request.getOrderIdsCount(), request.hasFilter(), request.getStatus());
 
-        if (existingOrderOpt.isEmpty()) {
-            throw new ResourceNotFoundException(
-                OrderErrorCode.ORDER_TO_UPDATE_NOT_FOUND,
-                String.format("Order with ID '%s' not found", request.getOrderId())
+        OrderStatus targetStatus = orderMapper.mapToEntityOrderStatus(request.getStatus());
+        if (OrderStatusTransitions.allowedSources(targetStatus).isEmpty()) {
+            throw new BusinessException(
+                OrderErrorCode.ORDER_INVALID_STATUS_TRANSITION,
+                String.format("No order can be moved to %s", targetStatus)
             );
         }
 
-        OrderEntity existingOrder = existingOrderOpt.get();
-        existingOrder.setCurrentStatus(orderMapper.mapToEntityOrderStatus(request.getStatus()));
+        List<OrderStatusUpdateResult> results = request.hasFilter()
+                ? updateFilteredOrderStatuses(request.getFilter(), targetStatus)
+                : updateListedOrderStatuses(request.getOrderIdsList(), targetStatus);
 
-        OrderEntity updatedOrder = saveOrder(existingOrder);
-        Order orderProto = orderMapper.toProto(updatedOrder);
+        int updatedCount = 0;
+        for (OrderStatusUpdateResult result : results) {
+            if (result.getResponse().getSuccess()) {
+                updatedCount++;
+            }
+        }
 
-        UpdateOrderStatusResponse response = UpdateOrderStatusResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("Order status updated successfully"))
-                .setOrder(orderProto)
+        UpdateOrderStatusesResponse response = UpdateOrderStatusesResponse.newBuilder()
+                .setResponse(ORDER_STATUSES_UPDATED)
+                .addAllResults(results)
+                .setUpdatedCount(updatedCount)
                 .build();
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
 
+    private List<OrderStatusUpdateResult> updateListedOrderStatuses(List<Long> orderIds, OrderStatus targetStatus) {
+        if (orderIds.isEmpty()) {
+            throw new ValidationException(
+                OrderErrorCode.ORDER_BULK_UPDATE_INVALID,
+                "Neither order IDs nor a filter were given"
+            );
+        }
+        if (orderIds.size() > bulkProperties.getMaxStatusUpdates()) {
+            throw new ValidationException(
+                OrderErrorCode.ORDER_BULK_UPDATE_TOO_LARGE,
+                String.format("Requested %d order IDs, maximum is %d", orderIds.size(), bulkProperties.getMaxStatusUpdates())
+            );
+        }
+
+        return orderStore.transitionStatuses(orderIds, targetStatus);
+    }
+
+    private List<OrderStatusUpdateResult> updateFilteredOrderStatuses(OrderStatusFilter filter, OrderStatus targetStatus) {
+        OrderStatus currentStatus = orderMapper.mapToEntityOrderStatus(filter.getCurrentStatus());
+        if (!OrderStatusTransitions.isAllowed(currentStatus, targetStatus)) {
+            throw new BusinessException(
+                OrderErrorCode.ORDER_INVALID_STATUS_TRANSITION,
+                String.format("Cannot change orders from %s to %s", currentStatus, targetStatus)
+            );
+        }
+
+        LocalDateTime createdBefore;
+        try {
+            createdBefore = filter.getCreatedBefore().isEmpty()
+                    ? LocalDateTime.now()
+                    : orderMapper.parseDateTime(filter.getCreatedBefore());
+        } catch (DateTimeParseException e) {
+            throw new ValidationException(
+                OrderErrorCode.ORDER_BULK_UPDATE_INVALID,
+                String.format("Invalid createdBefore '%s'", filter.getCreatedBefore()),
+                e
+            );
+        }
+
+        return orderStore.transitionStatuses(currentStatus, createdBefore, targetStatus);
+    }
+
     @Override
     public void getUserOrders(GetUserOrdersRequest request, StreamObserver<GetUserOrdersResponse> responseObserver) {
-        log.info("Get user orders: {}", request.getUserId());
+        log.debug("Get user orders: {}", request.getUserId());
+
+        CompletableFuture<GetUserOrdersResponse> response = validateCustomer(request.getUserId())
+                .thenApplyAsync(customerValidation -> loadCustomerOrders(request, customerValidation), persistenceExecutor);
+
+        StreamResponseHandler.respond(responseObserver, response);
+    }
 
-        ValidateUserResponse customerValidation = validateCustomer(request.getUserId());
+    private GetUserOrdersResponse loadCustomerOrders(GetUserOrdersRequest request, ValidateUserResponse customerValidation) {
         if (!customerValidation.getIsValid()) {
             throw new BusinessException(
                 OrderErrorCode.INVALID_CUSTOMER,
@@ -156,46 +394,89 @@ public class OrderServiceImpl extends com.example.order.OrderServiceGrpc.OrderSe
         }
 
         List<OrderEntity> customerOrders = findOrdersByCustomerId(request.getUserId());
-        List<Order> orderProtos = orderMapper.mapToProtoList(customerOrders);
+        List<Order> orderProtos = orderMapper.mapToProtoList(customerOrders, request.getOrderFormat());
 
-        GetUserOrdersResponse response = GetUserOrdersResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("Customer orders found"))
+        return GetUserOrdersResponse.newBuilder()
+                .setResponse(CUSTOMER_ORDERS_FOUND)
                 .addAllOrders(orderProtos)
                 .setUser(customerValidation.getUser())
                 .build();
+    }
 
-        responseObserver.onNext(response);
-        responseObserver.onCompleted();
+    @Override
+    public void streamUserOrders(StreamUserOrdersRequest request, StreamObserver<Order> responseObserver) {
+        log.debug("Stream user orders: {}, after order: {}", request.getUserId(), request.getAfterOrderId());
+
+        // Flow-control callbacks can only be registered here, before the handler returns
+        KeysetOrderStreamer streamer = new KeysetOrderStreamer(
+                responseObserver,
+                request.getAfterOrderId(),
+                afterOrderId -> loadCustomerOrderPage(request.getUserId(), afterOrderId, queryProperties.getStreamPageSize(), request.getOrderFormat()),
+                persistenceExecutor);
+
+        validateCustomer(request.getUserId()).whenComplete((customerValidation, error) -> {
+            if (error != null) {
+                GrpcErrorLogger.logFailure(log, "Exception in asynchronous gRPC call", error);
+                streamer.fail(error);
+            } else if (!customerValidation.getIsValid()) {
+                streamer.fail(new BusinessException(
+                    OrderErrorCode.INVALID_CUSTOMER,
+                    String.format("Customer validation failed for user ID '%s': %s", request.getUserId(), customerValidation.getErrorMessage())
+                ));
+            } else {
+                streamer.start();
+            }
+        });
     }
 
     @Override
-    public void cancelOrder(CancelOrderRequest request, StreamObserver<CancelOrderResponse> responseObserver) {
-        log.info("Cancel order: {}", request.getOrderId());
+    public void getUserOrdersPage(GetUserOrdersPageRequest request, StreamObserver<GetUserOrdersPageResponse> responseObserver) {
+        log.debug("Get user orders page: {}, after order: {}", request.getUserId(), request.getAfterOrderId());
 
-        Optional<OrderEntity> existingOrderOpt = findOrderById(request.getOrderId());
+        CompletableFuture<GetUserOrdersPageResponse> response = validateCustomer(request.getUserId())
+                .thenApplyAsync(customerValidation -> loadCustomerOrdersPage(request, customerValidation), persistenceExecutor);
 
-        if (existingOrderOpt.isEmpty()) {
-            throw new ResourceNotFoundException(
-                OrderErrorCode.ORDER_TO_CANCEL_NOT_FOUND,
-                String.format("Order with ID '%s' not found", request.getOrderId())
-            );
-        }
-
-        OrderEntity existingOrder = existingOrderOpt.get();
+        StreamResponseHandler.respond(responseObserver, response);
+    }
 
-        if (existingOrder.getCurrentStatus() == OrderStatus.DELIVERED) {
+    private GetUserOrdersPageResponse loadCustomerOrdersPage(GetUserOrdersPageRequest request, ValidateUserResponse customerValidation) {
+        if (!customerValidation.getIsValid()) {
             throw new BusinessException(
-                OrderErrorCode.ORDER_CANNOT_CANCEL,
-                String.format("Cannot cancel order '%s' with status DELIVERED", request.getOrderId())
+                OrderErrorCode.INVALID_CUSTOMER,
+                String.format("Customer validation failed for user ID '%s': %s", request.getUserId(), customerValidation.getErrorMessage())
             );
         }
 
-        existingOrder.setCurrentStatus(OrderStatus.CANCELLED);
-        OrderEntity cancelledOrder = saveOrder(existingOrder);
+        int pageSize = queryProperties.resolvePageSize(request.getPageSize());
+
+        // One extra row tells whether another page exists without a COUNT query
+        List<Order> orders = loadCustomerOrderPage(request.getUserId(), request.getAfterOrderId(), pageSize + 1, request.getOrderFormat());
+        boolean hasMore = orders.size() > pageSize;
+        List<Order> page = hasMore ? orders.subList(0, pageSize) : orders;
+        long nextAfterOrderId = page.isEmpty() ? request.getAfterOrderId() : page.get(page.size() - 1).getId();
+
+        return GetUserOrdersPageResponse.newBuilder()
+                .setResponse(CUSTOMER_ORDERS_PAGE_FOUND)
+                .addAllOrders(page)
+                .setNextAfterOrderId(nextAfterOrderId)
+                .setHasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    public void cancelOrder(CancelOrderRequest request, StreamObserver<CancelOrderResponse> responseObserver) {
+        log.debug("Cancel order: {}", request.getOrderId());
+
+        OrderEntity cancelledOrder = transitionOrderStatus(
+                request.getOrderId(),
+                OrderStatus.CANCELLED,
+                request.hasExpectedVersion() ? request.getExpectedVersion() : null,
+                OrderErrorCode.ORDER_TO_CANCEL_NOT_FOUND,
+                OrderErrorCode.ORDER_CANNOT_CANCEL);
         Order orderProto = orderMapper.toProto(cancelledOrder);
 
         CancelOrderResponse response = CancelOrderResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("Order cancelled successfully"))
+                .setResponse(ORDER_CANCELLED)
                 .setOrder(orderProto)
                 .build();
 
@@ -203,33 +484,136 @@ public class OrderServiceImpl extends com.example.order.OrderServiceGrpc.OrderSe
         responseObserver.onCompleted();
     }
     
-    private ValidateUserResponse validateCustomer(long customerId) {
-        ValidateUserRequest customerValidationRequest = ValidateUserRequest.newBuilder()
-                .setUserId(customerId)
+    @Override
+    public void getCustomerOrderStats(GetCustomerOrderStatsRequest request, StreamObserver<GetCustomerOrderStatsResponse> responseObserver) {
+        log.debug("Get customer order stats: {}", request.getUserId());
+
+        // The store keeps the summary up to date, no aggregate over the orders and no User Service call
+        CustomerOrderStats stats = orderMapper.toProto(orderStore.findCustomerStats(request.getUserId()));
+
+        GetCustomerOrderStatsResponse response = GetCustomerOrderStatsResponse.newBuilder()
+                .setResponse(CUSTOMER_ORDER_STATS_FOUND)
+                .setStats(stats)
                 .build();
-        return userServiceStub.validateUser(customerValidationRequest);
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
     }
-    
-    private GetUserResponse fetchCustomerDetails(long customerId) {
-        GetUserRequest customerDetailsRequest = GetUserRequest.newBuilder()
-                .setUserId(customerId)
+
+    @Override
+    public void listOrders(ListOrdersRequest request, StreamObserver<ListOrdersResponse> responseObserver) {
+        log.debug("List orders: user={}, status={}, created=[{}, {}), page token: {}", request.hasUserId() ? request.getUserId() : null,
+                request.hasStatus() ? request.getStatus() : null, request.getCreatedFrom(), request.getCreatedBefore(), request.getPageToken());
+
+        OrderLister.OrderPage page = orderLister.list(
+                request.hasUserId() ? request.getUserId() : null,
+                request.hasStatus() ? orderMapper.mapToEntityOrderStatus(request.getStatus()) : null,
+                parseListBound(request.getCreatedFrom(), "createdFrom"),
+                parseListBound(request.getCreatedBefore(), "createdBefore"),
+                request.getPageToken(),
+                queryProperties.resolvePageSize(request.getPageSize()),
+                request.getOrderFormat());
+
+        ListOrdersResponse response = ListOrdersResponse.newBuilder()
+                .setResponse(ORDERS_LISTED)
+                .addAllOrders(page.orders())
+                .setNextPageToken(page.nextPageToken())
+                .setHasMore(!page.nextPageToken().isEmpty())
                 .build();
-        return userServiceStub.getUser(customerDetailsRequest);
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    private LocalDateTime parseListBound(String dateTime, String field) {
+        if (dateTime.isEmpty()) {
+            return null;
+        }
+        try {
+            return orderMapper.parseDateTime(dateTime);
+        } catch (DateTimeParseException e) {
+            throw new ValidationException(
+                OrderErrorCode.ORDER_LIST_INVALID,
+                String.format("Invalid %s '%s'", field, dateTime),
+                e
+            );
+        }
+    }
+
+    @Override
+    public void watchOrders(WatchOrdersRequest request, StreamObserver<OrderChangeEvent> responseObserver) {
+        log.debug("Registering order watcher: user={}, statuses={}, after sequence: {}", request.hasUserId() ? request.getUserId() : null,
+                request.getStatusesList(), request.hasAfterSequence() ? request.getAfterSequence() : null);
+        orderEvents.subscribe(request, responseObserver);
+    }
+
+    /**
+     * Move an order to a new status with a compare-and-set on its version, then return it with its items.
+     * When another request changes the order first and no version was expected, the transition is checked again.
+     * @param orderId The order ID
+     * @param targetStatus The new status
+     * @param expectedVersion Version the order must still have, null to accept any version
+     * @param notFoundError Error reported when the order does not exist
+     * @param notAllowedError Error reported when the current status does not allow the change
+     * @return The updated order
+     */
+    private OrderEntity transitionOrderStatus(long orderId, OrderStatus targetStatus, Long expectedVersion,
+                                              OrderErrorCode notFoundError, OrderErrorCode notAllowedError) {
+        log.debug("Transition order ID: {} to {}, expected version: {}", orderId, targetStatus, expectedVersion);
+        StatusTransition transition = orderStore.transitionStatus(orderId, targetStatus, expectedVersion);
+        if (transition.isApplied()) {
+            return transition.order();
+        }
+
+        if (transition.isNotFound()) {
+            throw new ResourceNotFoundException(
+                notFoundError,
+                String.format("Order with ID '%s' not found", orderId)
+            );
+        }
+
+        OrderStatus currentStatus = transition.currentStatus();
+        if (!OrderStatusTransitions.isAllowed(currentStatus, targetStatus)) {
+            throw new BusinessException(
+                notAllowedError,
+                String.format("Cannot change order '%s' from %s to %s", orderId, currentStatus, targetStatus)
+            );
+        }
+
+        // The expected version did not match, or another request changed the order in between
+        throw new ConflictException(
+            OrderErrorCode.ORDER_VERSION_CONFLICT,
+            String.format("Order '%s' has version %s, expected %s", orderId, transition.currentVersion(), expectedVersion)
+        );
+    }
+
+    private CompletableFuture<ValidateUserResponse> validateCustomer(long customerId) {
+        return userServiceClient.validateUserAsync(customerId);
+    }
+    
+    private CompletableFuture<GetUserResponse> fetchCustomerDetails(long customerId) {
+        return userServiceClient.getUserAsync(customerId);
     }
     
     private OrderEntity saveOrder(OrderEntity order) {
-        log.debug("Saving order with ID: {}", order.getOrderId());
-        return orderRepository.save(order);
+        log.debug("Saving order for customer ID: {}", order.getCustomerId());
+        return saveOrders(List.of(order)).get(0);
+    }
+
+    private List<OrderEntity> saveOrders(List<OrderEntity> orders) {
+        return orderStore.saveAll(orders);
     }
     
     private Optional<OrderEntity> findOrderById(Long orderId) {
-        log.debug("Finding order by ID: {}", orderId);
-        return orderRepository.findById(orderId);
+        return orderStore.findById(orderId);
     }
     
     private List<OrderEntity> findOrdersByCustomerId(Long customerId) {
-        log.debug("Finding orders for customer ID: {}", customerId);
-        return orderRepository.findByCustomerId(customerId);
+        return orderStore.findByCustomerId(customerId);
+    }
+
+    private List<Order> loadCustomerOrderPage(long customerId, long afterOrderId, int limit, OrderFormat format) {
+        return orderMapper.mapToProtoList(orderStore.findCustomerPage(customerId, afterOrderId, limit), format);
     }
     
 }
\ No newline at end of file
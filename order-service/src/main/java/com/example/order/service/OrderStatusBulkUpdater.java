@@ -0,0 +1,189 @@
+package com.example.order.service;
+
+import com.example.common.concurrent.DbConcurrencyLimiter;
+import com.example.order.OrderProto.OrderStatusUpdateResult;
+import com.example.order.config.OrderBulkProperties;
+import com.example.order.entity.OrderStatus;
+import com.example.order.entity.OrderStatusTransitions;
+import com.example.order.event.OrderEventPublisher;
+import com.example.order.repository.OrderRepository;
+import com.example.order.repository.OrderStatusView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.order.store.OrderStatusUpdateResults.ORDER_CHANGED_CONCURRENTLY;
+import static com.example.order.store.OrderStatusUpdateResults.ORDER_NOT_FOUND;
+import static com.example.order.store.OrderStatusUpdateResults.ORDER_STATUS_UPDATED;
+import static com.example.order.store.OrderStatusUpdateResults.TRANSITION_NOT_ALLOWED;
+import static com.example.order.store.OrderStatusUpdateResults.result;
+
+/**
+ * Moves many orders to one status for UpdateOrderStatuses. Orders are processed in chunks of
+ * {@code order.bulk.status-chunk-size}, each chunk in its own transaction with one status read
+ * and one set-based UPDATE per current status, whatever the number of orders in the chunk.
+ * The customer order summaries are updated in the same transaction, and a change event is published per order once it commits.
+ */
+@Component
+@Slf4j
+public class OrderStatusBulkUpdater {
+
+    private final OrderRepository orderRepository;
+    private final DbConcurrencyLimiter dbConcurrencyLimiter;
+    private final OrderBulkProperties bulkProperties;
+    private final CustomerOrderStatsService customerOrderStats;
+    private final OrderEventPublisher orderEvents;
+    private final TransactionTemplate transaction;
+
+    public OrderStatusBulkUpdater(OrderRepository orderRepository,
+                                  DbConcurrencyLimiter dbConcurrencyLimiter,
+                                  OrderBulkProperties bulkProperties,
+                                  CustomerOrderStatsService customerOrderStats,
+                                  OrderEventPublisher orderEvents,
+                                  PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.customerOrderStats = customerOrderStats;
+        this.orderEvents = orderEvents;
+        this.dbConcurrencyLimiter = dbConcurrencyLimiter;
+        this.bulkProperties = bulkProperties;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Move the listed orders to the target status
+     * @param orderIds The order IDs, duplicates are updated once
+     * @param targetStatus The new status, must have allowed source statuses
+     * @return One result per distinct order ID, in request order
+     */
+    public List<OrderStatusUpdateResult> updateByIds(Collection<Long> orderIds, OrderStatus targetStatus) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        List<OrderStatusUpdateResult> results = new ArrayList<>(distinctIds.size());
+        int chunkSize = bulkProperties.getStatusChunkSize();
+
+        for (int start = 0; start < distinctIds.size(); start += chunkSize) {
+            List<Long> chunk = distinctIds.subList(start, Math.min(start + chunkSize, distinctIds.size()));
+            results.addAll(updateChunk(chunk, targetStatus));
+        }
+        return results;
+    }
+
+    /**
+     * Move the orders in a status created before a time to the target status, walking them in ID order.
+     * At most {@code order.bulk.max-status-updates} orders are selected, the caller repeats the call for the rest.
+     * @param currentStatus Status of the orders to update
+     * @param createdBefore Only orders created strictly before this time are updated
+     * @param targetStatus The new status, must be reachable from the current status
+     * @return One result per selected order, in ID order
+     */
+    public List<OrderStatusUpdateResult> updateByFilter(OrderStatus currentStatus, LocalDateTime createdBefore, OrderStatus targetStatus) {
+        List<OrderStatusUpdateResult> results = new ArrayList<>();
+        int maxUpdates = bulkProperties.getMaxStatusUpdates();
+        long afterOrderId = 0;
+
+        while (results.size() < maxUpdates) {
+            int pageSize = Math.min(bulkProperties.getStatusChunkSize(), maxUpdates - results.size());
+            long cursor = afterOrderId;
+            List<Long> orderIds = dbConcurrencyLimiter.call(() ->
+                    orderRepository.findOrderIdPageByStatus(currentStatus, createdBefore, cursor, Limit.of(pageSize)));
+            if (orderIds.isEmpty()) {
+                break;
+            }
+
+            results.addAll(updateChunk(orderIds, targetStatus));
+            afterOrderId = orderIds.get(orderIds.size() - 1);
+            if (orderIds.size() < pageSize) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    private List<OrderStatusUpdateResult> updateChunk(List<Long> orderIds, OrderStatus targetStatus) {
+        log.debug("Moving {} orders to {}", orderIds.size(), targetStatus);
+        Set<OrderStatus> fromStatuses = OrderStatusTransitions.allowedSources(targetStatus);
+
+        List<OrderStatusUpdateResult> results = dbConcurrencyLimiter.call(() -> transaction.execute(status -> {
+            Map<Long, OrderStatusView> currentOrders = new HashMap<>();
+            for (OrderStatusView view : orderRepository.findStatusesByOrderIdIn(orderIds)) {
+                currentOrders.put(view.getOrderId(), view);
+            }
+
+            // Grouped by the status that was read, so that each UPDATE only matches orders still in that
+            // status and the customer summaries are moved from the right counts
+            Map<OrderStatus, List<Long>> eligibleIdsByStatus = new EnumMap<>(OrderStatus.class);
+            List<OrderStatusView> eligibleOrders = new ArrayList<>(currentOrders.size());
+            for (Long orderId : orderIds) {
+                OrderStatusView order = currentOrders.get(orderId);
+                if (order != null && fromStatuses.contains(order.getCurrentStatus())) {
+                    eligibleIdsByStatus.computeIfAbsent(order.getCurrentStatus(), s -> new ArrayList<>()).add(orderId);
+                    eligibleOrders.add(order);
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            for (Map.Entry<OrderStatus, List<Long>> eligible : eligibleIdsByStatus.entrySet()) {
+                int updated = orderRepository.transitionStatuses(eligible.getValue(), Set.of(eligible.getKey()), targetStatus, now);
+                if (updated != eligible.getValue().size()) {
+                    // Another request changed some of these orders between the read and the UPDATE
+                    status.setRollbackOnly();
+                    return null;
+                }
+            }
+            customerOrderStats.recordTransitions(eligibleOrders, targetStatus);
+            orderEvents.publishStatusesChanged(eligibleOrders, targetStatus);
+
+            List<OrderStatusUpdateResult> chunkResults = new ArrayList<>(orderIds.size());
+            for (Long orderId : orderIds) {
+                OrderStatusView order = currentOrders.get(orderId);
+                if (order == null) {
+                    chunkResults.add(result(orderId, ORDER_NOT_FOUND));
+                } else {
+                    chunkResults.add(result(orderId, fromStatuses.contains(order.getCurrentStatus()) ? ORDER_STATUS_UPDATED : TRANSITION_NOT_ALLOWED));
+                }
+            }
+            return chunkResults;
+        }));
+
+        return results != null ? results : updateChunkOneByOne(orderIds, targetStatus, fromStatuses);
+    }
+
+    /**
+     * Contended chunk: one compare-and-set UPDATE per order from the status just read, so every result is exact
+     */
+    private List<OrderStatusUpdateResult> updateChunkOneByOne(List<Long> orderIds, OrderStatus targetStatus, Set<OrderStatus> fromStatuses) {
+        log.debug("Concurrent changes while moving {} orders to {}, updating them one by one", orderIds.size(), targetStatus);
+
+        return dbConcurrencyLimiter.call(() -> transaction.execute(status -> {
+            List<OrderStatusUpdateResult> chunkResults = new ArrayList<>(orderIds.size());
+            List<OrderStatusView> changedOrders = new ArrayList<>(orderIds.size());
+            for (Long orderId : orderIds) {
+                OrderStatusView order = orderRepository.findStatusByOrderId(orderId).orElse(null);
+                if (order == null) {
+                    chunkResults.add(result(orderId, ORDER_NOT_FOUND));
+                } else if (!fromStatuses.contains(order.getCurrentStatus())) {
+                    chunkResults.add(result(orderId, TRANSITION_NOT_ALLOWED));
+                } else if (orderRepository.transitionStatus(orderId, Set.of(order.getCurrentStatus()), null, targetStatus, LocalDateTime.now()) != null) {
+                    changedOrders.add(order);
+                    chunkResults.add(result(orderId, ORDER_STATUS_UPDATED));
+                } else {
+                    chunkResults.add(result(orderId, ORDER_CHANGED_CONCURRENTLY));
+                }
+            }
+            customerOrderStats.recordTransitions(changedOrders, targetStatus);
+            orderEvents.publishStatusesChanged(changedOrders, targetStatus);
+            return chunkResults;
+        }));
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.order.store;
+
+import com.example.common.concurrent.DbConcurrencyLimiter;
+import com.example.order.OrderProto.OrderStatusUpdateResult;
+import com.example.order.entity.CustomerOrderStatsEntity;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.entity.OrderStatusTransitions;
+import com.example.order.event.OrderEventPublisher;
+import com.example.order.repository.OrderRepository;
+import com.example.order.service.CustomerOrderStatsService;
+import com.example.order.service.OrderStatusBulkUpdater;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Orders in the relational database through Hibernate. Order changes update the customer order
+ * summaries in the same transaction and are published once it commits. Bulk status changes are set-based
+ * UPDATEs run by {@link OrderStatusBulkUpdater}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "order.store", name = "type", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class JpaOrderStore implements OrderStore {
+
+    private final OrderRepository orderRepository;
+    private final CustomerOrderStatsService customerOrderStats;
+    private final OrderStatusBulkUpdater bulkStatusUpdater;
+    private final OrderEventPublisher orderEvents;
+    private final DbConcurrencyLimiter dbConcurrencyLimiter;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public JpaOrderStore(OrderRepository orderRepository,
+                         CustomerOrderStatsService customerOrderStats,
+                         OrderStatusBulkUpdater bulkStatusUpdater,
+                         OrderEventPublisher orderEvents,
+                         DbConcurrencyLimiter dbConcurrencyLimiter,
+                         PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.customerOrderStats = customerOrderStats;
+        this.bulkStatusUpdater = bulkStatusUpdater;
+        this.orderEvents = orderEvents;
+        this.dbConcurrencyLimiter = dbConcurrencyLimiter;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public List<OrderEntity> saveAll(List<OrderEntity> orders) {
+        log.debug("Saving {} orders", orders.size());
+        Set<Long> customerIds = new HashSet<>();
+        for (OrderEntity order : orders) {
+            customerIds.add(order.getCustomerId());
+        }
+
+        // One transaction for all orders; IDs come from pooled sequences, so orders
+        // and items are inserted in JDBC batches
+        return dbConcurrencyLimiter.call(() -> {
+            // Summary rows of new customers are created in their own transaction first
+            customerOrderStats.ensureCustomers(customerIds);
+            return transaction.execute(status -> {
+                List<OrderEntity> savedOrders = orderRepository.saveAll(orders);
+                customerOrderStats.recordCreated(savedOrders);
+                savedOrders.forEach(orderEvents::publishCreated);
+                return savedOrders;
+            });
+        });
+    }
+
+    @Override
+    public Optional<OrderEntity> findById(long orderId) {
+        log.debug("Finding order by ID: {}", orderId);
+        // Lookup by ID, not a fetch-join query, so that hot orders and their items come from the second-level cache
+        return dbConcurrencyLimiter.call(() -> readOnlyTransaction.execute(status -> {
+            Optional<OrderEntity> order = orderRepository.findById(orderId);
+            order.ifPresent(found -> Hibernate.initialize(found.getOrderItems()));
+            return order;
+        }));
+    }
+
+    @Override
+    public List<OrderEntity> findByCustomerId(long customerId) {
+        log.debug("Finding orders for customer ID: {}", customerId);
+        return dbConcurrencyLimiter.call(() -> orderRepository.findWithItemsByCustomerIdOrderByOrderIdAsc(customerId));
+    }
+
+    @Override
+    public List<OrderEntity> findCustomerPage(long customerId, long afterOrderId, int limit) {
+        log.debug("Finding up to {} orders for customer ID: {} after order ID: {}", limit, customerId, afterOrderId);
+        // Two statements per page: the keyset query for IDs, then the orders of the page with their items
+        return dbConcurrencyLimiter.call(() -> readOnlyTransaction.execute(status -> {
+            List<Long> orderIds = orderRepository.findOrderIdPage(customerId, afterOrderId, Limit.of(limit));
+            if (orderIds.isEmpty()) {
+                return List.of();
+            }
+            return orderRepository.findWithItemsByOrderIdInOrderByOrderIdAsc(orderIds);
+        }));
+    }
+
+    /**
+     * One conditional {@code UPDATE ... WHERE order_id = ? AND order_status IN (...) [AND version = ?]} that also returns
+     * the status the order moved from, then the fetch-join read for the response; a rejected change reads the status
+     * that made it fail. No row lock is held between read and write, and only the changed order leaves the second-level cache.
+     */
+    @Override
+    public StatusTransition transitionStatus(long orderId, OrderStatus targetStatus, Long expectedVersion) {
+        return dbConcurrencyLimiter.call(() -> transaction.execute(status -> {
+            OrderStatus fromStatus = orderRepository.transitionStatus(orderId, OrderStatusTransitions.allowedSources(targetStatus),
+                    expectedVersion, targetStatus, LocalDateTime.now());
+            if (fromStatus != null) {
+                OrderEntity order = orderRepository.findWithItemsByOrderId(orderId).orElseThrow();
+                customerOrderStats.recordTransition(order, fromStatus, targetStatus);
+                orderEvents.publishStatusChanged(order, fromStatus);
+                return StatusTransition.applied(order);
+            }
+            return orderRepository.findStatusByOrderId(orderId)
+                    .map(current -> StatusTransition.rejected(current.getCurrentStatus(), current.getVersion()))
+                    .orElseGet(StatusTransition::notFound);
+        }));
+    }
+
+    /**
+     * Two statements per page whatever the size of the table: a keyset query over the index matching the filters
+     * for the IDs, then the orders of the page with their items
+     */
+    @Override
+    public List<OrderEntity> findListPage(Long customerId, OrderStatus status, LocalDateTime afterCreatedAt, long afterOrderId,
+                                          LocalDateTime createdBefore, int limit) {
+        return dbConcurrencyLimiter.call(() -> readOnlyTransaction.execute(tx -> {
+            List<Long> orderIds = findListPageIds(customerId, status, afterCreatedAt, afterOrderId, createdBefore, Limit.of(limit));
+            if (orderIds.isEmpty()) {
+                return List.of();
+            }
+            return inIdListOrder(orderIds, orderRepository.findWithItemsByOrderIdInOrderByOrderIdAsc(orderIds));
+        }));
+    }
+
+    private List<Long> findListPageIds(Long customerId, OrderStatus status, LocalDateTime afterCreatedAt, long afterOrderId,
+                                       LocalDateTime createdBefore, Limit limit) {
+        if (customerId != null && status != null) {
+            return orderRepository.findListPageByCustomerAndStatus(customerId, status, afterCreatedAt, afterOrderId, createdBefore, limit);
+        }
+        if (customerId != null) {
+            return orderRepository.findListPageByCustomer(customerId, afterCreatedAt, afterOrderId, createdBefore, limit);
+        }
+        if (status != null) {
+            return orderRepository.findListPageByStatus(status, afterCreatedAt, afterOrderId, createdBefore, limit);
+        }
+        return orderRepository.findListPage(afterCreatedAt, afterOrderId, createdBefore, limit);
+    }
+
+    private static List<OrderEntity> inIdListOrder(List<Long> orderIds, List<OrderEntity> orders) {
+        Map<Long, OrderEntity> ordersById = new HashMap<>();
+        for (OrderEntity order : orders) {
+            ordersById.put(order.getOrderId(), order);
+        }
+        List<OrderEntity> ordered = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            OrderEntity order = ordersById.get(orderId);
+            // An order deleted between the two statements is skipped
+            if (order != null) {
+                ordered.add(order);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public List<OrderStatusUpdateResult> transitionStatuses(Collection<Long> orderIds, OrderStatus targetStatus) {
+        return bulkStatusUpdater.updateByIds(orderIds, targetStatus);
+    }
+
+    @Override
+    public List<OrderStatusUpdateResult> transitionStatuses(OrderStatus currentStatus, LocalDateTime createdBefore, OrderStatus targetStatus) {
+        return bulkStatusUpdater.updateByFilter(currentStatus, createdBefore, targetStatus);
+    }
+
+    /**
+     * One primary key read of the maintained summary, no aggregate over the orders
+     */
+    @Override
+    public CustomerOrderStatsEntity findCustomerStats(long customerId) {
+        return customerOrderStats.find(customerId);
+    }
+}
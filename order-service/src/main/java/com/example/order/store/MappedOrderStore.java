@@ -0,0 +1,692 @@
+package com.example.order.store;
+
+import com.example.order.OrderProto.OrderStatusUpdateResult;
+import com.example.order.config.OrderBulkProperties;
+import com.example.order.config.OrderStoreProperties;
+import com.example.order.entity.CustomerOrderStatsEntity;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderItemEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.entity.OrderStatusTransitions;
+import com.example.order.event.OrderEventPublisher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import static com.example.order.store.OrderStatusUpdateResults.result;
+
+/**
+ * Orders in append-only segment files mapped into memory. A new order is one record with its items, a status change
+ * is a small record appended after it; nothing is ever rewritten in place. Off-heap indexes map each order ID to its
+ * order record and latest status record, each customer ID to its order IDs and each status to a bitmap of the order
+ * IDs in it, so a point read is two hash probes and a copy out of the page cache. On startup the segments are replayed
+ * to rebuild the indexes, stopping at the first record that was not completely written.
+ * Creation times never go back from one order to the next, so ID order is also (createdAt, orderId) order: ListOrders
+ * pages are a binary search for the cursor and a walk forward over the customer's IDs or the IDs in the status,
+ * and bulk status updates by filter start from the oldest order still in the status. Customer order summaries are
+ * kept in memory, rebuilt by the replay and updated with every change.
+ * Records are visible to other processes as soon as they are written and survive a crash of this process;
+ * with {@code sync-on-write} they are also forced to disk before the call returns.
+ */
+@Component
+@ConditionalOnProperty(prefix = "order.store", name = "type", havingValue = "mapped")
+@Slf4j
+public class MappedOrderStore implements OrderStore {
+
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    // Record: [int payload length][int CRC32 of the payload][payload], the length is written last
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final byte ORDER_RECORD = 1;
+    private static final byte STATUS_RECORD = 2;
+
+    private static final int ORDER_BYTES = 1 + 2 * Long.BYTES + 1 + 2 * Long.BYTES + 2 * Integer.BYTES;
+    private static final int ITEM_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES;
+    private static final int STATUS_BYTES = 1 + Long.BYTES + 1 + 2 * Long.BYTES + Integer.BYTES;
+    private static final int MAX_TITLE_BYTES = 0xFFFF;
+
+    // Offsets of the fields read without decoding the whole record, from the start of the payload
+    private static final int ORDER_CUSTOMER_ID = 1 + Long.BYTES;
+    private static final int ORDER_STATUS = ORDER_CUSTOMER_ID + Long.BYTES;
+    private static final int ORDER_TOTAL = ORDER_STATUS + 1;
+    private static final int ORDER_CREATED_SECONDS = ORDER_TOTAL + Long.BYTES;
+    private static final int ORDER_CREATED_NANOS = ORDER_CREATED_SECONDS + Long.BYTES;
+    private static final int STATUS_STATUS = 1 + Long.BYTES;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final long NO_RECORD = -1;
+
+    private final OrderEventPublisher orderEvents;
+    private final int maxStatusUpdates;
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int writeOffset;
+    private long lastOrderId;
+    private LocalDateTime lastCreatedAt = LocalDateTime.MIN;
+    private final Map<Long, CustomerOrderStatsEntity> customerStats = new HashMap<>();
+
+    // Order ID to the position, segment << 32 | offset, of its order record and of its latest status record
+    private final OffHeapLongMap orderRecords = new OffHeapLongMap(1 << 16);
+    private final OffHeapLongMap statusRecords = new OffHeapLongMap(1 << 16);
+    private final OffHeapLongMultimap customerOrders = new OffHeapLongMultimap(1 << 12, 1 << 16);
+    // Order IDs in each status, by status ordinal
+    private final OffHeapBitSet[] statusOrders = Arrays.stream(STATUSES)
+            .map(status -> new OffHeapBitSet(1 << 16))
+            .toArray(OffHeapBitSet[]::new);
+
+    public MappedOrderStore(OrderStoreProperties properties, OrderBulkProperties bulkProperties, OrderEventPublisher orderEvents) {
+        OrderStoreProperties.Mapped mapped = properties.getMapped();
+        long segmentBytes = mapped.getSegmentSize().toBytes();
+        if (segmentBytes < 4096 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("order.store.mapped.segment-size must be between 4KB and 2GB: " + mapped.getSegmentSize());
+        }
+        this.orderEvents = orderEvents;
+        this.maxStatusUpdates = bulkProperties.getMaxStatusUpdates();
+        this.directory = Path.of(mapped.getDirectory());
+        this.segmentSize = (int) segmentBytes;
+        this.syncOnWrite = mapped.isSyncOnWrite();
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open order segments in " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public List<OrderEntity> saveAll(List<OrderEntity> orders) {
+        log.debug("Appending {} orders", orders.size());
+        lock.writeLock().lock();
+        try {
+            // Every record is encoded before the first is appended, so an order that cannot be stored leaves none behind
+            List<ByteBuffer> records = new ArrayList<>(orders.size());
+            long orderId = lastOrderId;
+            LocalDateTime createdAt = lastCreatedAt;
+            for (OrderEntity order : orders) {
+                // Never before the previous order, even if the clock is set back
+                LocalDateTime now = LocalDateTime.now();
+                if (now.isBefore(createdAt)) {
+                    now = createdAt;
+                }
+                createdAt = now;
+                order.setOrderId(++orderId);
+                order.setCreatedAt(now);
+                order.setUpdatedAt(now);
+                order.setVersion(0L);
+                ByteBuffer record = encodeOrder(order);
+                if (RECORD_HEADER_BYTES + record.limit() > segmentSize) {
+                    throw new IllegalArgumentException(String.format(
+                        "Order takes %d bytes, more than a segment of %d bytes", record.limit(), segmentSize));
+                }
+                records.add(record);
+            }
+
+            int firstSegment = segments.size() - 1;
+            int firstOffset = writeOffset;
+            for (int i = 0; i < orders.size(); i++) {
+                OrderEntity order = orders.get(i);
+                orderRecords.put(order.getOrderId(), append(records.get(i)));
+                customerOrders.add(order.getCustomerId(), order.getOrderId());
+                statusOrders[order.getCurrentStatus().ordinal()].add(order.getOrderId());
+                stats(order.getCustomerId()).addOrder(order.getCurrentStatus(), order.getTotalPriceMinor());
+                lastOrderId = order.getOrderId();
+                lastCreatedAt = order.getCreatedAt();
+            }
+            force(firstSegment, firstOffset);
+            // Published under the lock, so that events come in the order of the records
+            orders.forEach(orderEvents::publishCreated);
+            return orders;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<OrderEntity> findById(long orderId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(readOrder(orderId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<OrderEntity> findByCustomerId(long customerId) {
+        lock.readLock().lock();
+        try {
+            long[] orderIds = customerOrders.get(customerId);
+            List<OrderEntity> orders = new ArrayList<>(orderIds.length);
+            for (long orderId : orderIds) {
+                orders.add(readOrder(orderId));
+            }
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<OrderEntity> findCustomerPage(long customerId, long afterOrderId, int limit) {
+        lock.readLock().lock();
+        try {
+            // IDs are assigned in ascending order, so a customer's IDs are already sorted
+            long[] orderIds = customerOrders.get(customerId);
+            int from = Arrays.binarySearch(orderIds, afterOrderId);
+            from = from >= 0 ? from + 1 : -from - 1;
+            int to = (int) Math.min(orderIds.length, (long) from + limit);
+
+            List<OrderEntity> orders = new ArrayList<>(Math.max(to - from, 0));
+            for (int i = from; i < to; i++) {
+                orders.add(readOrder(orderIds[i]));
+            }
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Changes are serialized by the write lock, so the order passed to the change is always the latest
+     * and no change is ever lost to a concurrent one.
+     */
+    @Override
+    public StatusTransition transitionStatus(long orderId, OrderStatus targetStatus, Long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            int segment = segments.size() - 1;
+            int offset = writeOffset;
+            StatusTransition transition = transition(orderId, targetStatus, expectedVersion);
+            force(segment, offset);
+            return transition;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the customer's order IDs, or every order ID, from the first order after the cursor. With a status, walks
+     * the IDs in that status instead unless the customer has fewer orders left than the status has.
+     */
+    @Override
+    public List<OrderEntity> findListPage(Long customerId, OrderStatus status, LocalDateTime afterCreatedAt, long afterOrderId,
+                                          LocalDateTime createdBefore, int limit) {
+        lock.readLock().lock();
+        try {
+            // Without a customer every ID up to the last is an order: IDs are assigned in sequence and only the
+            // newest records can be lost to a crash
+            long[] orderIds = customerId != null ? customerOrders.get(customerId) : null;
+            long count = orderIds != null ? orderIds.length : lastOrderId;
+
+            // First position whose (createdAt, orderId) comes after the cursor
+            long low = 0;
+            long high = count;
+            while (low < high) {
+                long middle = (low + high) >>> 1;
+                long orderId = orderIds != null ? orderIds[(int) middle] : middle + 1;
+                int compared = createdAt(orderId).compareTo(afterCreatedAt);
+                if (compared < 0 || (compared == 0 && orderId <= afterOrderId)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            List<OrderEntity> orders = new ArrayList<>();
+            if (low == count) {
+                return orders;
+            }
+            OffHeapBitSet inStatus = status != null ? statusOrders[status.ordinal()] : null;
+            if (inStatus == null || (orderIds != null && count - low <= inStatus.size())) {
+                for (long i = low; i < count && orders.size() < limit; i++) {
+                    long orderId = orderIds != null ? orderIds[(int) i] : i + 1;
+                    if (!createdAt(orderId).isBefore(createdBefore)) {
+                        break;
+                    }
+                    if (inStatus == null || inStatus.contains(orderId)) {
+                        orders.add(readOrder(orderId));
+                    }
+                }
+                return orders;
+            }
+
+            long first = orderIds != null ? orderIds[(int) low] : low + 1;
+            for (long orderId = inStatus.next(first); orderId != -1 && orders.size() < limit; orderId = inStatus.next(orderId + 1)) {
+                if (!createdAt(orderId).isBefore(createdBefore)) {
+                    break;
+                }
+                if (customerId == null || customerId(orderId) == customerId) {
+                    orders.add(readOrder(orderId));
+                }
+            }
+            return orders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The orders are changed one by one under a single hold of the write lock and forced to disk once
+     */
+    @Override
+    public List<OrderStatusUpdateResult> transitionStatuses(Collection<Long> orderIds, OrderStatus targetStatus) {
+        log.debug("Moving {} orders to {}", orderIds.size(), targetStatus);
+        lock.writeLock().lock();
+        try {
+            int segment = segments.size() - 1;
+            int offset = writeOffset;
+            List<OrderStatusUpdateResult> results = new ArrayList<>(orderIds.size());
+            for (Long orderId : new LinkedHashSet<>(orderIds)) {
+                results.add(result(orderId, transition(orderId, targetStatus, null)));
+            }
+            force(segment, offset);
+            return results;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Walks the order IDs in the current status from the oldest, stopping at the first order created at or after
+     * {@code createdBefore}. Changed orders leave the status, so the next call starts where this one stopped.
+     */
+    @Override
+    public List<OrderStatusUpdateResult> transitionStatuses(OrderStatus currentStatus, LocalDateTime createdBefore, OrderStatus targetStatus) {
+        lock.writeLock().lock();
+        try {
+            int segment = segments.size() - 1;
+            int offset = writeOffset;
+            List<OrderStatusUpdateResult> results = new ArrayList<>();
+            OffHeapBitSet inStatus = statusOrders[currentStatus.ordinal()];
+            for (long orderId = inStatus.next(1); orderId != -1 && results.size() < maxStatusUpdates; orderId = inStatus.next(orderId + 1)) {
+                if (!createdAt(orderId).isBefore(createdBefore)) {
+                    break;
+                }
+                results.add(result(orderId, transition(orderId, targetStatus, null)));
+            }
+            log.debug("Moved {} orders from {} to {}", results.size(), currentStatus, targetStatus);
+            force(segment, offset);
+            return results;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CustomerOrderStatsEntity findCustomerStats(long customerId) {
+        lock.readLock().lock();
+        try {
+            CustomerOrderStatsEntity stats = customerStats.get(customerId);
+            if (stats == null) {
+                return CustomerOrderStatsEntity.empty(customerId);
+            }
+            // A copy, the summary itself keeps changing
+            return CustomerOrderStatsEntity.builder()
+                    .customerId(customerId)
+                    .orderCount(stats.getOrderCount())
+                    .totalSpentMinor(stats.getTotalSpentMinor())
+                    .pendingOrders(stats.getPendingOrders())
+                    .confirmedOrders(stats.getConfirmedOrders())
+                    .shippedOrders(stats.getShippedOrders())
+                    .deliveredOrders(stats.getDeliveredOrders())
+                    .cancelledOrders(stats.getCancelledOrders())
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            segments.forEach(MappedByteBuffer::force);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // Zero-padded numbers, so names sort in segment order
+        files.sort(null);
+
+        for (int i = 0; i < files.size(); i++) {
+            if (!files.get(i).getFileName().toString().equals(segmentName(i))) {
+                throw new IllegalStateException("Order segment " + segmentName(i) + " is missing in " + directory.toAbsolutePath());
+            }
+            segments.add(map(files.get(i), 0));
+            int end = replay(i);
+            if (end < 0) {
+                if (i < files.size() - 1) {
+                    throw new IllegalStateException("Order segment " + files.get(i) + " is corrupt before its end");
+                }
+                end = -end - 1;
+                // A record cut short by a crash: clear it, so that its remains cannot be read as a record later
+                MappedByteBuffer torn = segments.get(i);
+                for (int offset = end; offset < torn.capacity(); offset++) {
+                    torn.put(offset, (byte) 0);
+                }
+                log.warn("Order segment {} ends with an incomplete record at offset {}, discarded", files.get(i), end);
+            }
+            writeOffset = end;
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(map(directory.resolve(segmentName(0)), segmentSize));
+            writeOffset = 0;
+        }
+        log.info("Order store opened in {}: {} segments, {} orders, last order ID {}",
+                directory.toAbsolutePath(), segments.size(), orderRecords.size(), lastOrderId);
+    }
+
+    /**
+     * Rebuild the indexes from the records of one segment
+     * @return The offset after the last record, or -(offset + 1) of an incomplete record
+     */
+    private int replay(int segment) {
+        MappedByteBuffer buffer = segments.get(segment);
+        int offset = 0;
+        while (offset + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                return offset;
+            }
+            if (length < 0 || length > buffer.capacity() - offset - RECORD_HEADER_BYTES
+                    || buffer.getInt(offset + Integer.BYTES) != crc(buffer, offset + RECORD_HEADER_BYTES, length)) {
+                return -offset - 1;
+            }
+
+            int payload = offset + RECORD_HEADER_BYTES;
+            long orderId = buffer.getLong(payload + 1);
+            long position = (long) segment << 32 | offset;
+            if (buffer.get(payload) == ORDER_RECORD) {
+                long customerId = buffer.getLong(payload + ORDER_CUSTOMER_ID);
+                orderRecords.put(orderId, position);
+                customerOrders.add(customerId, orderId);
+                OrderStatus status = STATUSES[buffer.get(payload + ORDER_STATUS)];
+                statusOrders[status.ordinal()].add(orderId);
+                stats(customerId).addOrder(status, buffer.getLong(payload + ORDER_TOTAL));
+                lastOrderId = Math.max(lastOrderId, orderId);
+                LocalDateTime createdAt = createdAt(orderId);
+                lastCreatedAt = createdAt.isAfter(lastCreatedAt) ? createdAt : lastCreatedAt;
+            } else {
+                long orderPosition = orderRecords.get(orderId, NO_RECORD);
+                ByteBuffer order = segments.get((int) (orderPosition >>> 32));
+                int orderPayload = (int) orderPosition + RECORD_HEADER_BYTES;
+                OrderStatus previousStatus = currentStatus(orderId);
+                OrderStatus status = STATUSES[buffer.get(payload + STATUS_STATUS)];
+                statusOrders[previousStatus.ordinal()].remove(orderId);
+                statusOrders[status.ordinal()].add(orderId);
+                stats(order.getLong(orderPayload + ORDER_CUSTOMER_ID)).moveOrder(previousStatus, status, order.getLong(orderPayload + ORDER_TOTAL));
+                statusRecords.put(orderId, position);
+            }
+            offset = payload + length;
+        }
+        return offset;
+    }
+
+    /**
+     * Append one record, rolling over to a new segment when it does not fit in the current one
+     * @param payload The record payload, position 0 to limit, no larger than a segment
+     * @return Position of the record, segment << 32 | offset
+     */
+    private long append(ByteBuffer payload) {
+        int length = payload.limit();
+        MappedByteBuffer buffer = segments.get(segments.size() - 1);
+        if (writeOffset + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+            if (syncOnWrite) {
+                buffer.force();
+            }
+            try {
+                buffer = map(directory.resolve(segmentName(segments.size())), segmentSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create order segment " + segmentName(segments.size()), e);
+            }
+            segments.add(buffer);
+            writeOffset = 0;
+        }
+
+        int offset = writeOffset;
+        buffer.put(offset + RECORD_HEADER_BYTES, payload, 0, length);
+        buffer.putInt(offset + Integer.BYTES, crc(payload, 0, length));
+        // Written last: a record is only replayed once its length is there and its checksum matches
+        buffer.putInt(offset, length);
+        writeOffset = offset + RECORD_HEADER_BYTES + length;
+        return (long) (segments.size() - 1) << 32 | offset;
+    }
+
+    /**
+     * Append a status record if the change is allowed, count it in the customer's summary and publish it.
+     * Called with the write lock held; the caller forces the record to disk.
+     */
+    private StatusTransition transition(long orderId, OrderStatus targetStatus, Long expectedVersion) {
+        OrderEntity order = readOrder(orderId);
+        if (order == null) {
+            return StatusTransition.notFound();
+        }
+
+        OrderStatus previousStatus = order.getCurrentStatus();
+        if (!OrderStatusTransitions.isAllowed(previousStatus, targetStatus)
+                || (expectedVersion != null && !expectedVersion.equals(order.getVersion()))) {
+            return StatusTransition.rejected(previousStatus, order.getVersion());
+        }
+        order.setCurrentStatus(targetStatus);
+        order.setVersion(order.getVersion() + 1);
+        order.setUpdatedAt(LocalDateTime.now());
+
+        statusRecords.put(orderId, append(encodeStatus(order)));
+        statusOrders[previousStatus.ordinal()].remove(orderId);
+        statusOrders[targetStatus.ordinal()].add(orderId);
+        stats(order.getCustomerId()).moveOrder(previousStatus, targetStatus, order.getTotalPriceMinor());
+        orderEvents.publishStatusChanged(order, previousStatus);
+        return StatusTransition.applied(order);
+    }
+
+    private CustomerOrderStatsEntity stats(long customerId) {
+        return customerStats.computeIfAbsent(customerId, CustomerOrderStatsEntity::empty);
+    }
+
+    private void force(int fromSegment, int fromOffset) {
+        if (!syncOnWrite) {
+            return;
+        }
+        for (int segment = fromSegment; segment < segments.size() - 1; segment++) {
+            segments.get(segment).force();
+        }
+        int from = fromSegment == segments.size() - 1 ? fromOffset : 0;
+        segments.get(segments.size() - 1).force(from, writeOffset - from);
+    }
+
+    /**
+     * @return Creation time of an order that exists
+     */
+    private LocalDateTime createdAt(long orderId) {
+        long position = orderRecords.get(orderId, NO_RECORD);
+        ByteBuffer buffer = segments.get((int) (position >>> 32));
+        int payload = (int) position + RECORD_HEADER_BYTES;
+        return LocalDateTime.ofEpochSecond(buffer.getLong(payload + ORDER_CREATED_SECONDS),
+                buffer.getInt(payload + ORDER_CREATED_NANOS), ZoneOffset.UTC);
+    }
+
+    /**
+     * @return Customer ID of an order that exists
+     */
+    private long customerId(long orderId) {
+        long position = orderRecords.get(orderId, NO_RECORD);
+        return segments.get((int) (position >>> 32)).getLong((int) position + RECORD_HEADER_BYTES + ORDER_CUSTOMER_ID);
+    }
+
+    /**
+     * @return Latest status of an order that exists, read without decoding its items
+     */
+    private OrderStatus currentStatus(long orderId) {
+        long statusPosition = statusRecords.get(orderId, NO_RECORD);
+        if (statusPosition != NO_RECORD) {
+            return STATUSES[segments.get((int) (statusPosition >>> 32)).get((int) statusPosition + RECORD_HEADER_BYTES + STATUS_STATUS)];
+        }
+        long position = orderRecords.get(orderId, NO_RECORD);
+        return STATUSES[segments.get((int) (position >>> 32)).get((int) position + RECORD_HEADER_BYTES + ORDER_STATUS)];
+    }
+
+    /**
+     * @return The order with its latest status, or null if the order ID is unknown
+     */
+    private OrderEntity readOrder(long orderId) {
+        long position = orderRecords.get(orderId, NO_RECORD);
+        if (position == NO_RECORD) {
+            return null;
+        }
+        OrderEntity order = decodeOrder(segments.get((int) (position >>> 32)), (int) position + RECORD_HEADER_BYTES);
+
+        long statusPosition = statusRecords.get(orderId, NO_RECORD);
+        if (statusPosition != NO_RECORD) {
+            ByteBuffer buffer = segments.get((int) (statusPosition >>> 32));
+            int payload = (int) statusPosition + RECORD_HEADER_BYTES + 1 + Long.BYTES;
+            order.setCurrentStatus(STATUSES[buffer.get(payload)]);
+            order.setVersion(buffer.getLong(payload + 1));
+            order.setUpdatedAt(LocalDateTime.ofEpochSecond(buffer.getLong(payload + 1 + Long.BYTES),
+                    buffer.getInt(payload + 1 + 2 * Long.BYTES), ZoneOffset.UTC));
+        }
+        return order;
+    }
+
+    private static ByteBuffer encodeOrder(OrderEntity order) {
+        List<OrderItemEntity> items = order.getOrderItems() != null ? order.getOrderItems() : List.of();
+        List<byte[]> titles = new ArrayList<>(items.size());
+        int length = ORDER_BYTES;
+        for (OrderItemEntity item : items) {
+            byte[] title = item.getProductTitle().getBytes(StandardCharsets.UTF_8);
+            if (title.length > MAX_TITLE_BYTES) {
+                throw new IllegalArgumentException("Product title longer than " + MAX_TITLE_BYTES + " bytes");
+            }
+            titles.add(title);
+            length += ITEM_BYTES + title.length;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length)
+                .put(ORDER_RECORD)
+                .putLong(order.getOrderId())
+                .putLong(order.getCustomerId())
+                .put((byte) order.getCurrentStatus().ordinal())
+                .putLong(order.getTotalPriceMinor())
+                .putLong(order.getCreatedAt().toEpochSecond(ZoneOffset.UTC))
+                .putInt(order.getCreatedAt().getNano())
+                .putInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            OrderItemEntity item = items.get(i);
+            byte[] title = titles.get(i);
+            payload.putLong(item.getProductId())
+                    .putInt(item.getItemQuantity())
+                    .putLong(item.getUnitPriceMinor())
+                    .putShort((short) title.length)
+                    .put(title);
+        }
+        return payload.flip();
+    }
+
+    private static OrderEntity decodeOrder(ByteBuffer buffer, int payload) {
+        int offset = payload + 1;
+        long orderId = buffer.getLong(offset);
+        long customerId = buffer.getLong(offset + 8);
+        OrderStatus status = STATUSES[buffer.get(offset + 16)];
+        long totalPriceMinor = buffer.getLong(offset + 17);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(offset + 25), buffer.getInt(offset + 33), ZoneOffset.UTC);
+        int itemCount = buffer.getInt(offset + 37);
+        offset = payload + ORDER_BYTES;
+
+        OrderEntity order = OrderEntity.builder()
+                .orderId(orderId)
+                .customerId(customerId)
+                .totalPriceMinor(totalPriceMinor)
+                .currentStatus(status)
+                .build();
+        order.setCreatedAt(createdAt);
+        order.setUpdatedAt(createdAt);
+        order.setVersion(0L);
+
+        List<OrderItemEntity> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            byte[] title = new byte[Short.toUnsignedInt(buffer.getShort(offset + 20))];
+            buffer.get(offset + ITEM_BYTES, title);
+            items.add(OrderItemEntity.builder()
+                    .productId(buffer.getLong(offset))
+                    .itemQuantity(buffer.getInt(offset + 8))
+                    .unitPriceMinor(buffer.getLong(offset + 12))
+                    .productTitle(new String(title, StandardCharsets.UTF_8))
+                    .order(order)
+                    .build());
+            offset += ITEM_BYTES + title.length;
+        }
+        order.setOrderItems(items);
+        return order;
+    }
+
+    private static ByteBuffer encodeStatus(OrderEntity order) {
+        return ByteBuffer.allocate(STATUS_BYTES)
+                .put(STATUS_RECORD)
+                .putLong(order.getOrderId())
+                .put((byte) order.getCurrentStatus().ordinal())
+                .putLong(order.getVersion())
+                .putLong(order.getUpdatedAt().toEpochSecond(ZoneOffset.UTC))
+                .putInt(order.getUpdatedAt().getNano())
+                .flip();
+    }
+
+    private static int crc(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static String segmentName(int segment) {
+        return String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Map a segment file, creating it with the given size if it does not exist
+     * @param size Size of a new file, 0 to map an existing file with its own size
+     */
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size > 0 ? size : channel.size());
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.order.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Set of non-negative long indexes as a bitmap in a direct buffer, with a summary bitmap marking the words that have a
+ * bit set, so that finding the next member skips 4096 absent indexes per summary word read. Dense order IDs cost one
+ * bit each outside the heap. Not thread-safe, callers guard it with their own lock.
+ */
+public class OffHeapBitSet {
+
+    // Largest buffer of words that fits in one buffer: 1 GiB, 2^33 indexes
+    private static final long MAX_WORDS = 1L << 27;
+
+    private ByteBuffer words;
+    private ByteBuffer summary;
+    private long size;
+
+    /**
+     * @param expectedIndexes Indexes below this need no growth
+     */
+    public OffHeapBitSet(long expectedIndexes) {
+        allocate(Math.max(wordsFor(expectedIndexes), 64));
+    }
+
+    /**
+     * @param index The index, at least 0
+     * @return true if the index is in the set
+     */
+    public boolean contains(long index) {
+        long word = index >>> 6;
+        return word < wordCount() && (words.getLong((int) (word * Long.BYTES)) & (1L << index)) != 0;
+    }
+
+    /**
+     * @param index The index to add, at least 0
+     */
+    public void add(long index) {
+        long word = index >>> 6;
+        while (word >= wordCount()) {
+            grow();
+        }
+        int offset = (int) (word * Long.BYTES);
+        long bits = words.getLong(offset);
+        if ((bits & (1L << index)) == 0) {
+            words.putLong(offset, bits | (1L << index));
+            size++;
+            if (bits == 0) {
+                setSummaryBit(word, true);
+            }
+        }
+    }
+
+    /**
+     * @param index The index to remove, at least 0
+     */
+    public void remove(long index) {
+        long word = index >>> 6;
+        if (word >= wordCount()) {
+            return;
+        }
+        int offset = (int) (word * Long.BYTES);
+        long bits = words.getLong(offset);
+        if ((bits & (1L << index)) != 0) {
+            bits &= ~(1L << index);
+            words.putLong(offset, bits);
+            size--;
+            if (bits == 0) {
+                setSummaryBit(word, false);
+            }
+        }
+    }
+
+    /**
+     * @param from The first index to look at, at least 0
+     * @return The smallest index in the set at or after {@code from}, or -1 if there is none
+     */
+    public long next(long from) {
+        long word = from >>> 6;
+        if (word >= wordCount()) {
+            return -1;
+        }
+        long bits = words.getLong((int) (word * Long.BYTES)) & (-1L << from);
+        if (bits != 0) {
+            return (word << 6) + Long.numberOfTrailingZeros(bits);
+        }
+
+        // The next non-empty word, from the summary
+        long summaryWord = (word + 1) >>> 6;
+        long summaryWords = summary.capacity() / Long.BYTES;
+        if (summaryWord >= summaryWords) {
+            return -1;
+        }
+        long marks = summary.getLong((int) (summaryWord * Long.BYTES)) & (-1L << (word + 1));
+        while (marks == 0) {
+            if (++summaryWord >= summaryWords) {
+                return -1;
+            }
+            marks = summary.getLong((int) (summaryWord * Long.BYTES));
+        }
+        long next = (summaryWord << 6) + Long.numberOfTrailingZeros(marks);
+        return (next << 6) + Long.numberOfTrailingZeros(words.getLong((int) (next * Long.BYTES)));
+    }
+
+    /**
+     * @return Number of indexes in the set
+     */
+    public long size() {
+        return size;
+    }
+
+    private void setSummaryBit(long word, boolean set) {
+        int offset = (int) ((word >>> 6) * Long.BYTES);
+        long marks = summary.getLong(offset);
+        summary.putLong(offset, set ? marks | (1L << word) : marks & ~(1L << word));
+    }
+
+    private long wordCount() {
+        return words.capacity() / Long.BYTES;
+    }
+
+    private void grow() {
+        long capacity = wordCount();
+        if (capacity >= MAX_WORDS) {
+            throw new IllegalStateException("Off-heap bit set is full at " + (capacity << 6) + " indexes");
+        }
+        ByteBuffer previousWords = words;
+        ByteBuffer previousSummary = summary;
+        allocate((int) (capacity << 1));
+        words.put(previousWords.clear());
+        summary.put(previousSummary.clear());
+        words.clear();
+        summary.clear();
+    }
+
+    private void allocate(int wordCount) {
+        // Direct buffers start zeroed, that is an empty set
+        words = ByteBuffer.allocateDirect(wordCount * Long.BYTES);
+        summary = ByteBuffer.allocateDirect(Math.max(wordCount >>> 6, 1) * Long.BYTES);
+    }
+
+    private static int wordsFor(long indexes) {
+        long words = Math.min((indexes + 63) >>> 6, MAX_WORDS);
+        return (int) Long.highestOneBit(Math.max(words * 2 - 1, 1));
+    }
+}
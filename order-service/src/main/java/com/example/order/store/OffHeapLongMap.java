@@ -0,0 +1,121 @@
+package com.example.order.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open-addressing hash map from long to long in a direct buffer, so that millions of entries cost
+ * 16 bytes each outside the heap instead of boxed keys, values and nodes the garbage collector has to trace.
+ * Key 0 marks a free slot and is kept in a field. Not thread-safe, callers guard it with their own lock.
+ */
+public class OffHeapLongMap {
+
+    private static final int SLOT_BYTES = 16;
+    // Largest power of two whose table still fits in one buffer: 1 GiB, 32M entries
+    private static final int MAX_SLOTS = 1 << 26;
+
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    private boolean hasZeroKey;
+    private long zeroKeyValue;
+
+    /**
+     * @param expectedSize Number of entries the map holds before it first grows
+     */
+    public OffHeapLongMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * @param key The key
+     * @param missingValue Returned when the key is absent
+     * @return The value of the key, or missingValue
+     */
+    public long get(long key, long missingValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroKeyValue : missingValue;
+        }
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            long slotKey = slots.getLong(slot * SLOT_BYTES);
+            if (slotKey == key) {
+                return slots.getLong(slot * SLOT_BYTES + Long.BYTES);
+            }
+            if (slotKey == 0) {
+                return missingValue;
+            }
+        }
+    }
+
+    /**
+     * Add the key or replace its value
+     * @param key The key
+     * @param value The value
+     */
+    public void put(long key, long value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroKeyValue = value;
+            return;
+        }
+        if (insert(key, value)) {
+            size++;
+            // Load factor 0.5 keeps probe sequences short
+            if (size > (mask + 1) >>> 1) {
+                grow();
+            }
+        }
+    }
+
+    /**
+     * @return Number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean insert(long key, long value) {
+        for (int slot = slotOf(key); ; slot = (slot + 1) & mask) {
+            long slotKey = slots.getLong(slot * SLOT_BYTES);
+            if (slotKey == key || slotKey == 0) {
+                slots.putLong(slot * SLOT_BYTES, key);
+                slots.putLong(slot * SLOT_BYTES + Long.BYTES, value);
+                return slotKey == 0;
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = mask + 1;
+        if (capacity >= MAX_SLOTS) {
+            throw new IllegalStateException("Off-heap map is full at " + size + " entries");
+        }
+        ByteBuffer previous = slots;
+        allocate(capacity << 1);
+        for (int slot = 0; slot < capacity; slot++) {
+            long key = previous.getLong(slot * SLOT_BYTES);
+            if (key != 0) {
+                insert(key, previous.getLong(slot * SLOT_BYTES + Long.BYTES));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        // Direct buffers start zeroed, that is all slots free
+        slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        mask = capacity - 1;
+    }
+
+    private int slotOf(long key) {
+        // Fibonacci hashing spreads sequential IDs over the whole table
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int entries = Math.min(Math.max(expectedSize, 8), MAX_SLOTS >>> 1);
+        return Integer.highestOneBit(entries * 2 - 1) << 1;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.order.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Multimap from long to long values in direct buffers. Each key points at the node of its latest value and
+ * every node, 12 bytes, links to the previous value of the same key, so that adding a value never moves the others.
+ * Not thread-safe, callers guard it with their own lock.
+ */
+public class OffHeapLongMultimap {
+
+    private static final int NODE_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int MAX_NODES = Integer.MAX_VALUE / NODE_BYTES;
+    private static final int NO_NODE = -1;
+
+    // Key to the index of its latest node
+    private final OffHeapLongMap heads;
+    private final OffHeapLongMap counts;
+    private ByteBuffer nodes;
+    private int nodeCount;
+
+    /**
+     * @param expectedKeys Number of keys before the key index first grows
+     * @param expectedValues Number of values before the node buffer first grows
+     */
+    public OffHeapLongMultimap(int expectedKeys, int expectedValues) {
+        this.heads = new OffHeapLongMap(expectedKeys);
+        this.counts = new OffHeapLongMap(expectedKeys);
+        this.nodes = ByteBuffer.allocateDirect(Math.max(expectedValues, 16) * NODE_BYTES);
+    }
+
+    /**
+     * @param key The key
+     * @param value A value added to the values of the key
+     */
+    public void add(long key, long value) {
+        if (nodeCount == nodes.capacity() / NODE_BYTES) {
+            grow();
+        }
+        int node = nodeCount++;
+        nodes.putLong(node * NODE_BYTES, value);
+        nodes.putInt(node * NODE_BYTES + Long.BYTES, (int) heads.get(key, NO_NODE));
+        heads.put(key, node);
+        counts.put(key, counts.get(key, 0) + 1);
+    }
+
+    /**
+     * @param key The key
+     * @return The values of the key in the order they were added
+     */
+    public long[] get(long key) {
+        long[] values = new long[(int) counts.get(key, 0)];
+        int node = (int) heads.get(key, NO_NODE);
+        // The chain runs from the latest value back to the first
+        for (int i = values.length - 1; node != NO_NODE; i--) {
+            values[i] = nodes.getLong(node * NODE_BYTES);
+            node = nodes.getInt(node * NODE_BYTES + Long.BYTES);
+        }
+        return values;
+    }
+
+    private void grow() {
+        int capacity = nodes.capacity() / NODE_BYTES;
+        if (capacity == MAX_NODES) {
+            throw new IllegalStateException("Off-heap multimap is full at " + nodeCount + " values");
+        }
+        ByteBuffer previous = nodes;
+        nodes = ByteBuffer.allocateDirect((int) Math.min((long) capacity * 2, MAX_NODES) * NODE_BYTES);
+        nodes.put(previous.clear());
+    }
+}
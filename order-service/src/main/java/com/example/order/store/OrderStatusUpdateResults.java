@@ -0,0 +1,43 @@
+package com.example.order.store;
+
+import com.example.common.CommonProto.ApiResponse;
+import com.example.common.ResponseBuilder;
+import com.example.order.OrderProto.OrderStatusUpdateResult;
+import com.example.order.constants.OrderErrorCode;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Per-order results of UpdateOrderStatuses, shared by the stores
+ */
+@UtilityClass
+public class OrderStatusUpdateResults {
+
+    public static final ApiResponse ORDER_STATUS_UPDATED = ResponseBuilder.success("Order status updated successfully");
+    public static final ApiResponse ORDER_NOT_FOUND = ResponseBuilder.error(OrderErrorCode.ORDER_TO_UPDATE_NOT_FOUND);
+    public static final ApiResponse TRANSITION_NOT_ALLOWED = ResponseBuilder.error(OrderErrorCode.ORDER_INVALID_STATUS_TRANSITION);
+    public static final ApiResponse ORDER_CHANGED_CONCURRENTLY = ResponseBuilder.error(OrderErrorCode.ORDER_VERSION_CONFLICT);
+
+    /**
+     * @param orderId The order ID
+     * @param response Outcome of the order's change
+     * @return The result of one order
+     */
+    public static OrderStatusUpdateResult result(long orderId, ApiResponse response) {
+        return OrderStatusUpdateResult.newBuilder()
+                .setOrderId(orderId)
+                .setResponse(response)
+                .build();
+    }
+
+    /**
+     * @param orderId The order ID
+     * @param transition Outcome of the order's compare-and-set change, made without an expected version
+     * @return The result of one order
+     */
+    public static OrderStatusUpdateResult result(long orderId, StatusTransition transition) {
+        if (transition.isApplied()) {
+            return result(orderId, ORDER_STATUS_UPDATED);
+        }
+        return result(orderId, transition.isNotFound() ? ORDER_NOT_FOUND : TRANSITION_NOT_ALLOWED);
+    }
+}
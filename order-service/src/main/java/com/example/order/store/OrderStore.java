@@ -0,0 +1,94 @@
+package com.example.order.store;
+
+import com.example.order.OrderProto.OrderStatusUpdateResult;
+import com.example.order.entity.CustomerOrderStatsEntity;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persistence of orders used by the order RPCs, selected with {@code order.store.type}.
+ * Returned orders always have their items loaded. Every store publishes order change events once a change is durable.
+ */
+public interface OrderStore {
+
+    /**
+     * Save new orders with their items, atomically where the backend allows
+     * @param orders Orders without ID
+     * @return The same orders with their ID, creation time and version assigned
+     */
+    List<OrderEntity> saveAll(List<OrderEntity> orders);
+
+    /**
+     * @param orderId The order ID
+     * @return The order with its items, if it exists
+     */
+    Optional<OrderEntity> findById(long orderId);
+
+    /**
+     * @param customerId The customer ID
+     * @return All orders of the customer with their items, in ascending ID order
+     */
+    List<OrderEntity> findByCustomerId(long customerId);
+
+    /**
+     * Keyset page of a customer's orders
+     * @param customerId The customer ID
+     * @param afterOrderId Cursor, only orders with a greater ID are returned
+     * @param limit Maximum number of orders
+     * @return Orders with their items, in ascending ID order
+     */
+    List<OrderEntity> findCustomerPage(long customerId, long afterOrderId, int limit);
+
+    /**
+     * Move an order to a new status as a compare-and-set: only from a status allowed by
+     * {@link com.example.order.entity.OrderStatusTransitions}, and only at the expected version if one is given
+     * @param orderId The order ID
+     * @param targetStatus The new status
+     * @param expectedVersion Version the order must still have, null to accept any version
+     * @return The updated order, or why it was not changed
+     */
+    StatusTransition transitionStatus(long orderId, OrderStatus targetStatus, Long expectedVersion);
+
+    /**
+     * Keyset page of orders for ListOrders, in (createdAt, orderId) order
+     * @param customerId Only orders of this customer, null for every customer
+     * @param status Only orders in this status, null for every status
+     * @param afterCreatedAt Cursor, only orders created at or after this time are returned
+     * @param afterOrderId Cursor, orders created exactly at {@code afterCreatedAt} must have a greater ID
+     * @param createdBefore Only orders created strictly before this time
+     * @param limit Maximum number of orders
+     * @return Orders with their items, in (createdAt, orderId) order
+     */
+    List<OrderEntity> findListPage(Long customerId, OrderStatus status, LocalDateTime afterCreatedAt, long afterOrderId,
+                                   LocalDateTime createdBefore, int limit);
+
+    /**
+     * Move the listed orders to the target status, each only from a status allowed by
+     * {@link com.example.order.entity.OrderStatusTransitions}
+     * @param orderIds The order IDs, duplicates are updated once
+     * @param targetStatus The new status
+     * @return One result per distinct order ID, in request order
+     */
+    List<OrderStatusUpdateResult> transitionStatuses(Collection<Long> orderIds, OrderStatus targetStatus);
+
+    /**
+     * Move the orders in a status created before a time to the target status, in ID order.
+     * At most {@code order.bulk.max-status-updates} orders are selected, the caller repeats the call for the rest.
+     * @param currentStatus Status of the orders to update
+     * @param createdBefore Only orders created strictly before this time are updated
+     * @param targetStatus The new status, must be reachable from the current status
+     * @return One result per selected order, in ID order
+     */
+    List<OrderStatusUpdateResult> transitionStatuses(OrderStatus currentStatus, LocalDateTime createdBefore, OrderStatus targetStatus);
+
+    /**
+     * @param customerId The customer ID
+     * @return Summary of the customer's orders, all zero for a customer without orders
+     */
+    CustomerOrderStatsEntity findCustomerStats(long customerId);
+}
@@ -0,0 +1,35 @@
+package com.example.order.store;
+
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+
+/**
+ * Outcome of a compare-and-set status change
+ * @param order The updated order with its items, null if the change was rejected
+ * @param currentStatus Status that made the change fail, null if it was applied or the order does not exist
+ * @param currentVersion Version of the order when the change failed
+ */
+public record StatusTransition(OrderEntity order, OrderStatus currentStatus, Long currentVersion) {
+
+    private static final StatusTransition NOT_FOUND = new StatusTransition(null, null, null);
+
+    public static StatusTransition applied(OrderEntity order) {
+        return new StatusTransition(order, null, null);
+    }
+
+    public static StatusTransition rejected(OrderStatus currentStatus, Long currentVersion) {
+        return new StatusTransition(null, currentStatus, currentVersion);
+    }
+
+    public static StatusTransition notFound() {
+        return NOT_FOUND;
+    }
+
+    public boolean isApplied() {
+        return order != null;
+    }
+
+    public boolean isNotFound() {
+        return order == null && currentStatus == null;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+import com.example.user.UserProto.GetUserRequest;
+import com.example.user.UserProto.GetUserResponse;
+import com.example.user.UserServiceGrpc;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Server;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.inprocess.InProcessSocketAddress;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Least outstanding requests balancing over several in-process User Service replicas behind one channel,
+ * with the client-side health checking the Order Service channel uses
+ */
+class LeastOutstandingRequestsLoadBalancerTest {
+
+    private static final String SCHEME = "user-replicas";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final CountDownLatch releaseHeldCalls = new CountDownLatch(1);
+
+    private ReplicasResolverProvider resolverProvider;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void tearDown() {
+        releaseHeldCalls.countDown();
+        if (channel != null) {
+            channel.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.server.shutdownNow());
+        if (resolverProvider != null) {
+            NameResolverRegistry.getDefaultRegistry().deregister(resolverProvider);
+        }
+    }
+
+    @Test
+    void idleReplicasShareTheCallsEvenly() throws Exception {
+        startReplicas(4, -1);
+        UserServiceGrpc.UserServiceBlockingStub stub = UserServiceGrpc.newBlockingStub(channel);
+
+        for (int i = 0; i < 400; i++) {
+            stub.withDeadlineAfter(5, TimeUnit.SECONDS).getUser(GetUserRequest.newBuilder().setUserId(i).build());
+        }
+
+        // 100 each on average; a fixed pairing with ties going to the first backend would leave two replicas idle
+        assertThat(replicas).allSatisfy(replica -> assertThat(replica.calls.get()).isGreaterThan(50));
+    }
+
+    @Test
+    void replicaHoldingItsCallsStopsReceivingNewOnes() throws Exception {
+        startReplicas(4, 0);
+        Replica slow = replicas.get(0);
+        UserServiceGrpc.UserServiceFutureStub stub = UserServiceGrpc.newFutureStub(channel);
+
+        for (int i = 0; i < 100; i++) {
+            int slowCallsBefore = slow.calls.get();
+            var response = stub.withDeadlineAfter(30, TimeUnit.SECONDS)
+                    .getUser(GetUserRequest.newBuilder().setUserId(i).build());
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!response.isDone() && slow.calls.get() == slowCallsBefore && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+
+        // Once it holds a call it loses every comparison against a replica with none outstanding
+        assertThat(slow.calls.get()).isBetween(0, 3);
+    }
+
+    @Test
+    void replicaReportingNotServingIsEjected() throws Exception {
+        startReplicas(3, -1);
+        Replica unhealthy = replicas.get(2);
+        UserServiceGrpc.UserServiceBlockingStub stub = UserServiceGrpc.newBlockingStub(channel);
+        stub.withDeadlineAfter(5, TimeUnit.SECONDS).getUser(GetUserRequest.newBuilder().setUserId(1).build());
+
+        unhealthy.health.setStatus(UserServiceGrpc.SERVICE_NAME, ServingStatus.NOT_SERVING);
+        awaitNoCallsOn(unhealthy, stub);
+        replicas.forEach(replica -> replica.calls.set(0));
+
+        for (int i = 0; i < 300; i++) {
+            stub.withDeadlineAfter(5, TimeUnit.SECONDS).getUser(GetUserRequest.newBuilder().setUserId(i).build());
+        }
+
+        assertThat(unhealthy.calls.get()).isZero();
+        assertThat(replicas.get(0).calls.get()).isGreaterThan(50);
+        assertThat(replicas.get(1).calls.get()).isGreaterThan(50);
+    }
+
+    /**
+     * The health stream update reaches the balancer asynchronously; waits until a run of calls avoids the replica
+     */
+    private static void awaitNoCallsOn(Replica replica, UserServiceGrpc.UserServiceBlockingStub stub) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            int callsBefore = replica.calls.get();
+            for (int i = 0; i < 30; i++) {
+                stub.withDeadlineAfter(5, TimeUnit.SECONDS).getUser(GetUserRequest.newBuilder().setUserId(i).build());
+            }
+            if (replica.calls.get() == callsBefore) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Replica still receives calls after reporting NOT_SERVING");
+    }
+
+    /**
+     * Starts {@code count} replicas, the one at {@code slowIndex} (if any) never answering until the test ends,
+     * and a channel balancing over all of them
+     */
+    private void startReplicas(int count, int slowIndex) throws Exception {
+        List<EquivalentAddressGroup> addresses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Replica replica = new Replica(i == slowIndex);
+            replicas.add(replica);
+            addresses.add(new EquivalentAddressGroup(new InProcessSocketAddress(replica.name)));
+        }
+
+        resolverProvider = new ReplicasResolverProvider(addresses);
+        NameResolverRegistry.getDefaultRegistry().register(resolverProvider);
+        channel = InProcessChannelBuilder.forTarget(SCHEME + ":///user-service")
+                .defaultServiceConfig(Map.of(
+                        "loadBalancingConfig", List.of(Map.of(LeastOutstandingRequestsLoadBalancerProvider.POLICY_NAME, Map.of())),
+                        "healthCheckConfig", Map.of("serviceName", UserServiceGrpc.SERVICE_NAME)))
+                .build();
+    }
+
+    private final class Replica {
+
+        private final String name = InProcessServerBuilder.generateName();
+        private final HealthStatusManager health = new HealthStatusManager();
+        private final AtomicInteger calls = new AtomicInteger();
+        private final Server server;
+
+        Replica(boolean holdsCalls) throws Exception {
+            health.setStatus(UserServiceGrpc.SERVICE_NAME, ServingStatus.SERVING);
+            server = InProcessServerBuilder.forName(name)
+                    .addService(health.getHealthService())
+                    .addService(new UserServiceGrpc.UserServiceImplBase() {
+                        @Override
+                        public void getUser(GetUserRequest request, StreamObserver<GetUserResponse> responseObserver) {
+                            calls.incrementAndGet();
+                            if (holdsCalls) {
+                                awaitQuietly(releaseHeldCalls);
+                            }
+                            responseObserver.onNext(GetUserResponse.newBuilder()
+                                    .setUser(CommonProto.User.newBuilder().setId(request.getUserId()))
+                                    .build());
+                            responseObserver.onCompleted();
+                        }
+                    })
+                    .build()
+                    .start();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Resolves any {@value #SCHEME} target to the fixed list of replica addresses
+     */
+    private static final class ReplicasResolverProvider extends NameResolverProvider {
+
+        private final List<EquivalentAddressGroup> addresses;
+
+        ReplicasResolverProvider(List<EquivalentAddressGroup> addresses) {
+            this.addresses = addresses;
+        }
+
+        @Override
+        protected boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        protected int priority() {
+            return 5;
+        }
+
+        @Override
+        public String getDefaultScheme() {
+            return SCHEME;
+        }
+
+        @Override
+        public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+            return Set.of(InProcessSocketAddress.class);
+        }
+
+        @Override
+        public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+            if (!SCHEME.equals(targetUri.getScheme())) {
+                return null;
+            }
+            return new NameResolver() {
+                @Override
+                public String getServiceAuthority() {
+                    return "user-service";
+                }
+
+                @Override
+                public void start(Listener2 listener) {
+                    listener.onResult(ResolutionResult.newBuilder().setAddresses(addresses).build());
+                }
+
+                @Override
+                public void shutdown() {
+                }
+            };
+        }
+    }
+}
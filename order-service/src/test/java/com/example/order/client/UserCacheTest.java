@@ -0,0 +1,99 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+import com.example.order.config.UserCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Coherence rules of the user near-cache: it is bypassed until the change stream is confirmed,
+ * and a lookup that raced with an invalidation never leaves its user behind
+ */
+class UserCacheTest {
+
+    private static final long USER_ID = 7L;
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(new UserCacheProperties());
+    }
+
+    @Test
+    void isBypassedUntilTheChangeStreamIsConfirmed() {
+        userCache.put(USER_ID, user("before"), userCache.currentEpoch());
+
+        assertThat(userCache.isActive()).isFalse();
+        assertThat(userCache.get(USER_ID)).isNull();
+        assertThat(userCache.getStale(USER_ID)).isEqualTo(user("before"));
+
+        userCache.setCoherent(true);
+        userCache.put(USER_ID, user("after"), userCache.currentEpoch());
+
+        assertThat(userCache.get(USER_ID)).isEqualTo(user("after"));
+    }
+
+    @Test
+    void lookupStartedBeforeConfirmationIsNotCached() {
+        long epoch = userCache.currentEpoch();
+        userCache.setCoherent(true);
+
+        userCache.put(USER_ID, user("read before the subscription"), epoch);
+
+        assertThat(userCache.get(USER_ID)).isNull();
+        assertThat(userCache.getStale(USER_ID)).isNull();
+    }
+
+    @Test
+    void lookupRacingWithAnInvalidationIsNotCached() {
+        userCache.setCoherent(true);
+        long epoch = userCache.currentEpoch();
+
+        userCache.invalidate(USER_ID);
+        userCache.put(USER_ID, user("old"), epoch);
+
+        assertThat(userCache.get(USER_ID)).isNull();
+        assertThat(userCache.getStale(USER_ID)).isNull();
+    }
+
+    @Test
+    void invalidationOfAnotherUserAlsoRejectsTheLookup() {
+        userCache.setCoherent(true);
+        long epoch = userCache.currentEpoch();
+
+        userCache.invalidate(USER_ID + 1);
+        userCache.put(USER_ID, user("maybe old"), epoch);
+
+        assertThat(userCache.get(USER_ID)).isNull();
+    }
+
+    @Test
+    void updateReplacesCachedCopies() {
+        userCache.setCoherent(true);
+        userCache.put(USER_ID, user("old"), userCache.currentEpoch());
+
+        userCache.update(user("new"));
+
+        assertThat(userCache.get(USER_ID)).isEqualTo(user("new"));
+        assertThat(userCache.getStale(USER_ID)).isEqualTo(user("new"));
+    }
+
+    @Test
+    void losingTheStreamDropsCoherentEntriesButKeepsStaleCopies() {
+        userCache.setCoherent(true);
+        userCache.put(USER_ID, user("cached"), userCache.currentEpoch());
+
+        userCache.setCoherent(false);
+        userCache.setCoherent(true);
+
+        assertThat(userCache.get(USER_ID)).isNull();
+        assertThat(userCache.getStale(USER_ID)).isEqualTo(user("cached"));
+    }
+
+    private static CommonProto.User user(String name) {
+        return CommonProto.User.newBuilder().setId(USER_ID).setName(name).build();
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+import com.example.order.config.UserCacheProperties;
+import com.example.user.UserProto.UserChangeEvent;
+import com.example.user.UserProto.UserChangeType;
+import com.example.user.UserProto.WatchUserChangesRequest;
+import com.example.user.UserServiceGrpc;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.inprocess.InProcessSocketAddress;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * One change stream per in-process User Service replica: a change made on any replica reaches the cache, and the cache
+ * is only trusted while every replica's stream is confirmed
+ */
+class UserChangeWatcherTest {
+
+    private static final String SCHEME = "watched-replicas";
+    private static final long USER_ID = 7L;
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReplicasResolverProvider resolverProvider = new ReplicasResolverProvider();
+
+    private UserCache userCache;
+    private UserChangeWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        NameResolverRegistry.getDefaultRegistry().register(resolverProvider);
+        UserCacheProperties properties = new UserCacheProperties();
+        properties.setWatchReconnectDelay(Duration.ofMillis(50));
+        userCache = new UserCache(properties);
+        watcher = new UserChangeWatcher(userCache, properties, SCHEME + ":///user-service",
+                address -> InProcessChannelBuilder.forAddress(address).build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        watcher.stop();
+        replicas.forEach(replica -> replica.server.shutdownNow());
+        NameResolverRegistry.getDefaultRegistry().deregister(resolverProvider);
+    }
+
+    @Test
+    void changeOnTheSecondReplicaReachesTheCacheFilledFromTheFirst() throws Exception {
+        Replica first = startReplica(true);
+        Replica second = startReplica(true);
+        resolverProvider.resolve(first, second);
+        watcher.start();
+        awaitTrue(userCache::isActive);
+
+        // Looked up on the first replica
+        userCache.put(USER_ID, user("read from the first replica"), userCache.currentEpoch());
+        second.publish(UserChangeEvent.newBuilder()
+                .setType(UserChangeType.USER_UPDATED)
+                .setUserId(USER_ID)
+                .setUser(user("changed on the second replica"))
+                .build());
+        awaitTrue(() -> user("changed on the second replica").equals(userCache.get(USER_ID)));
+
+        second.publish(UserChangeEvent.newBuilder()
+                .setType(UserChangeType.USER_DELETED)
+                .setUserId(USER_ID)
+                .build());
+        awaitTrue(() -> userCache.get(USER_ID) == null && userCache.getStale(USER_ID) == null);
+    }
+
+    @Test
+    void cacheIsBypassedUntilEveryReplicaConfirms() throws Exception {
+        Replica first = startReplica(true);
+        Replica second = startReplica(false);
+        resolverProvider.resolve(first, second);
+        watcher.start();
+        awaitTrue(() -> first.watchers() == 1 && second.watchers() == 1);
+
+        assertThat(userCache.isActive()).isFalse();
+
+        second.confirm();
+        awaitTrue(userCache::isActive);
+    }
+
+    @Test
+    void joiningReplicaOrBrokenStreamDisablesTheCacheUntilConfirmed() throws Exception {
+        Replica first = startReplica(true);
+        resolverProvider.resolve(first);
+        watcher.start();
+        awaitTrue(userCache::isActive);
+
+        Replica second = startReplica(false);
+        resolverProvider.resolve(first, second);
+        awaitTrue(() -> second.watchers() == 1);
+        assertThat(userCache.isActive()).isFalse();
+        second.confirm();
+        awaitTrue(userCache::isActive);
+
+        // The first replica drops its watchers, the watcher reconnects after the reconnect delay
+        first.holdConfirmations();
+        first.disconnect();
+        awaitTrue(() -> first.watchers() == 1);
+        assertThat(userCache.isActive()).isFalse();
+        first.confirm();
+        awaitTrue(userCache::isActive);
+
+        // A replica leaving does not stop the others from being trusted
+        resolverProvider.resolve(first);
+        awaitTrue(() -> second.watchers() == 0);
+        assertThat(userCache.isActive()).isTrue();
+    }
+
+    private Replica startReplica(boolean confirms) throws Exception {
+        Replica replica = new Replica(confirms);
+        replicas.add(replica);
+        return replica;
+    }
+
+    private static CommonProto.User user(String name) {
+        return CommonProto.User.newBuilder().setId(USER_ID).setName(name).build();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    /**
+     * Replica whose WatchUserChanges confirms the subscription at once, or only when told to
+     */
+    private static final class Replica {
+
+        private static final UserChangeEvent WATCH_STARTED = UserChangeEvent.newBuilder()
+                .setType(UserChangeType.WATCH_STARTED)
+                .build();
+
+        private final String name = InProcessServerBuilder.generateName();
+        private final List<ServerCallStreamObserver<UserChangeEvent>> watchers = new ArrayList<>();
+        private final List<ServerCallStreamObserver<UserChangeEvent>> unconfirmed = new ArrayList<>();
+        private final Server server;
+        private boolean confirms;
+
+        Replica(boolean confirms) throws Exception {
+            this.confirms = confirms;
+            server = InProcessServerBuilder.forName(name)
+                    .addService(new UserServiceGrpc.UserServiceImplBase() {
+                        @Override
+                        public void watchUserChanges(WatchUserChangesRequest request, StreamObserver<UserChangeEvent> responseObserver) {
+                            subscribe((ServerCallStreamObserver<UserChangeEvent>) responseObserver);
+                        }
+                    })
+                    .build()
+                    .start();
+        }
+
+        synchronized void subscribe(ServerCallStreamObserver<UserChangeEvent> watcher) {
+            watcher.setOnCancelHandler(() -> cancelled(watcher));
+            watchers.add(watcher);
+            if (confirms) {
+                watcher.onNext(WATCH_STARTED);
+            } else {
+                unconfirmed.add(watcher);
+            }
+        }
+
+        synchronized void cancelled(ServerCallStreamObserver<UserChangeEvent> watcher) {
+            watchers.remove(watcher);
+            unconfirmed.remove(watcher);
+        }
+
+        synchronized void holdConfirmations() {
+            confirms = false;
+        }
+
+        synchronized int watchers() {
+            return watchers.size();
+        }
+
+        synchronized void confirm() {
+            unconfirmed.forEach(watcher -> watcher.onNext(WATCH_STARTED));
+            unconfirmed.clear();
+        }
+
+        synchronized void publish(UserChangeEvent event) {
+            watchers.forEach(watcher -> watcher.onNext(event));
+        }
+
+        synchronized void disconnect() {
+            watchers.forEach(StreamObserver::onCompleted);
+            watchers.clear();
+            unconfirmed.clear();
+        }
+
+        EquivalentAddressGroup address() {
+            return new EquivalentAddressGroup(new InProcessSocketAddress(name));
+        }
+    }
+
+    /**
+     * Resolves any {@value #SCHEME} target to the replicas last passed to {@link #resolve}
+     */
+    private static final class ReplicasResolverProvider extends NameResolverProvider {
+
+        private List<EquivalentAddressGroup> addresses = List.of();
+        private NameResolver.Listener2 listener;
+
+        synchronized void resolve(Replica... replicas) {
+            List<EquivalentAddressGroup> resolved = new ArrayList<>();
+            for (Replica replica : replicas) {
+                resolved.add(replica.address());
+            }
+            addresses = resolved;
+            if (listener != null) {
+                listener.onResult(NameResolver.ResolutionResult.newBuilder().setAddresses(addresses).build());
+            }
+        }
+
+        synchronized void start(NameResolver.Listener2 listener) {
+            this.listener = listener;
+            listener.onResult(NameResolver.ResolutionResult.newBuilder().setAddresses(addresses).build());
+        }
+
+        @Override
+        protected boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        protected int priority() {
+            return 5;
+        }
+
+        @Override
+        public String getDefaultScheme() {
+            return SCHEME;
+        }
+
+        @Override
+        public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+            return Set.of(InProcessSocketAddress.class);
+        }
+
+        @Override
+        public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+            if (!SCHEME.equals(targetUri.getScheme())) {
+                return null;
+            }
+            return new NameResolver() {
+                @Override
+                public String getServiceAuthority() {
+                    return "user-service";
+                }
+
+                @Override
+                public void start(Listener2 listener) {
+                    ReplicasResolverProvider.this.start(listener);
+                }
+
+                @Override
+                public void shutdown() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.order.client;
+
+import com.example.common.CommonProto;
+import com.example.order.config.UserCacheProperties;
+import com.example.order.config.UserClientProperties;
+import com.example.user.UserProto.GetUsersByIdsRequest;
+import com.example.user.UserProto.GetUsersByIdsResponse;
+import com.example.user.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GetUsersByIds coalescing against an in-process User Service whose first call can be held on the wire
+ */
+class UserLookupCoalescerTest {
+
+    private final BlockingQueue<List<Long>> batches = new LinkedBlockingQueue<>();
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+    private final CountDownLatch firstBatchArrived = new CountDownLatch(1);
+
+    private final UserCache userCache = new UserCache(new UserCacheProperties());
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserLookupCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new UserServiceGrpc.UserServiceImplBase() {
+                    @Override
+                    public void getUsersByIds(GetUsersByIdsRequest request, StreamObserver<GetUsersByIdsResponse> responseObserver) {
+                        batches.add(request.getUserIdsList());
+                        if (firstBatchArrived.getCount() > 0) {
+                            firstBatchArrived.countDown();
+                            awaitQuietly(releaseFirstBatch);
+                        }
+                        GetUsersByIdsResponse.Builder response = GetUsersByIdsResponse.newBuilder();
+                        request.getUserIdsList().stream()
+                                .filter(userId -> userId > 0)
+                                .forEach(userId -> response.addUsers(user(userId)));
+                        responseObserver.onNext(response.build());
+                        responseObserver.onCompleted();
+                    }
+                })
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+
+        UserClientProperties properties = new UserClientProperties();
+        // Long enough that any call the test sees was not flushed by the window
+        properties.getBatch().setWindow(Duration.ofSeconds(30));
+        coalescer = new UserLookupCoalescer(userCache, properties);
+        ReflectionTestUtils.setField(coalescer, "userServiceAsyncStub", UserServiceGrpc.newStub(channel));
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseFirstBatch.countDown();
+        coalescer.shutdown();
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void loneLookupIsSentWithoutWaitingForTheWindow() throws Exception {
+        releaseFirstBatch.countDown();
+
+        UserLookup lookup = coalescer.lookup(1).get(5, TimeUnit.SECONDS);
+
+        assertThat(lookup.user()).contains(user(1));
+        assertThat(coalescer.lookup(-1).get(5, TimeUnit.SECONDS).user()).isEmpty();
+        assertThat(coalescer.getBatchCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    void lookupsArrivingWhileABatchIsOnTheWireShareTheNextCall() throws Exception {
+        CompletableFuture<UserLookup> first = coalescer.lookup(1);
+        assertThat(firstBatchArrived.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<UserLookup> second = coalescer.lookup(2);
+        CompletableFuture<UserLookup> third = coalescer.lookup(3);
+        CompletableFuture<UserLookup> repeated = coalescer.lookup(3);
+        assertThat(second).isNotDone();
+        releaseFirstBatch.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).user()).contains(user(1));
+        assertThat(second.get(5, TimeUnit.SECONDS).user()).contains(user(2));
+        assertThat(third.get(5, TimeUnit.SECONDS).user()).contains(user(3));
+        assertThat(repeated).isSameAs(third);
+        assertThat(batches).containsExactly(List.of(1L), List.of(2L, 3L));
+        assertThat(coalescer.getCoalescedLookupCount()).isEqualTo(1);
+    }
+
+    @Test
+    void lookupJoiningABatchOnTheWireCarriesTheEpochOfTheBatch() throws Exception {
+        userCache.setCoherent(true);
+        CompletableFuture<UserLookup> first = coalescer.lookup(1);
+        assertThat(firstBatchArrived.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // User 1 changes after User Service may already have read it; a new lookup joins the stale read
+        userCache.invalidate(1);
+        CompletableFuture<UserLookup> joined = coalescer.lookup(1);
+        releaseFirstBatch.countDown();
+
+        UserLookup lookup = joined.get(5, TimeUnit.SECONDS);
+        assertThat(joined).isSameAs(first);
+        assertThat(lookup.epoch()).isLessThan(userCache.currentEpoch());
+        userCache.put(1, lookup.user().orElseThrow(), lookup.epoch());
+        assertThat(userCache.get(1)).isNull();
+    }
+
+    private static CommonProto.User user(long userId) {
+        return CommonProto.User.newBuilder().setId(userId).setName("User " + userId).build();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.order.client;
+
+import com.example.order.config.UserClientProperties;
+import io.grpc.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Transitions of the User Service circuit breaker, driven by recorded lookup outcomes
+ */
+class UserServiceCircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private UserClientProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new UserClientProperties();
+        UserClientProperties.CircuitBreaker settings = properties.getCircuitBreaker();
+        settings.setSlidingWindowSize(4);
+        settings.setMinimumCalls(4);
+        settings.setFailureRateThreshold(50);
+        settings.setSlowCallDuration(Duration.ofMillis(250));
+        settings.setSlowCallRateThreshold(75);
+        settings.setPermittedCallsInHalfOpenState(2);
+    }
+
+    @Test
+    void staysClosedUntilTheMinimumNumberOfLookups() {
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+
+        recordFailures(breaker, 3);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.CLOSED);
+
+        breaker.record(FAST, null);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.OPEN);
+        assertThat(breaker.getOpenCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsLookupsWhileOpen() {
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+        recordFailures(breaker, 4);
+
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+        assertThat(breaker.getRejectedCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    void answersAboutTheRequestAreNotFailures() {
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.record(FAST, Status.NOT_FOUND.asRuntimeException());
+            breaker.record(FAST, Status.INVALID_ARGUMENT.asRuntimeException());
+        }
+
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowLookupsOpenTheBreaker() {
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+
+        breaker.record(FAST, null);
+        breaker.record(SLOW, null);
+        breaker.record(SLOW, null);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.CLOSED);
+
+        breaker.record(SLOW, null);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void outcomesLeavingTheWindowNoLongerCount() {
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+
+        recordFailures(breaker, 1);
+        for (int i = 0; i < 6; i++) {
+            breaker.record(FAST, null);
+        }
+        // Two failures recorded, only the last one is still in the window of 4
+        recordFailures(breaker, 1);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.CLOSED);
+
+        recordFailures(breaker, 1);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void closesAfterThePermittedTrialLookupsSucceed() {
+        properties.getCircuitBreaker().setWaitDurationInOpenState(Duration.ZERO);
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+        recordFailures(breaker, 4);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+
+        breaker.record(FAST, null);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.HALF_OPEN);
+        breaker.record(FAST, null);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.CLOSED);
+
+        // The window starts empty again
+        recordFailures(breaker, 3);
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensOnTheFirstFailedOrSlowTrialLookup() {
+        properties.getCircuitBreaker().setWaitDurationInOpenState(Duration.ZERO);
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+        recordFailures(breaker, 4);
+
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+        breaker.record(SLOW, null);
+
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.OPEN);
+        assertThat(breaker.getOpenCount()).isEqualTo(2);
+    }
+
+    @Test
+    void lateOutcomeWhileOpenIsIgnored() {
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+        recordFailures(breaker, 4);
+
+        breaker.record(FAST, null);
+        breaker.record(FAST, null);
+
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void disabledBreakerLetsEveryLookupThrough() {
+        properties.getCircuitBreaker().setEnabled(false);
+        UserServiceCircuitBreaker breaker = new UserServiceCircuitBreaker(properties);
+
+        recordFailures(breaker, 10);
+
+        assertThat(breaker.getState()).isEqualTo(UserServiceCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquirePermission()).isTrue();
+    }
+
+    private static void recordFailures(UserServiceCircuitBreaker breaker, int count) {
+        for (int i = 0; i < count; i++) {
+            breaker.record(FAST, Status.UNAVAILABLE.asRuntimeException());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.order.event;
+
+import com.example.order.OrderProto.OrderChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Claim and store rules of the lock-free order change ring
+ */
+class OrderChangeRingTest {
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new OrderChangeRing(6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new OrderChangeRing(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new OrderChangeRing(8).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    void claimsConsecutiveRanges() {
+        OrderChangeRing ring = new OrderChangeRing(8);
+
+        assertThat(ring.lastSequence()).isZero();
+        assertThat(ring.claim(1)).isEqualTo(1);
+        assertThat(ring.claim(3)).isEqualTo(2);
+        assertThat(ring.claim(1)).isEqualTo(5);
+        assertThat(ring.lastSequence()).isEqualTo(5);
+    }
+
+    @Test
+    void concurrentWritersGetDistinctSequencesAndEveryEventIsStored() throws Exception {
+        int writers = 8;
+        int eventsPerWriter = 1024;
+        OrderChangeRing ring = new OrderChangeRing(writers * eventsPerWriter);
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                done.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < eventsPerWriter; i++) {
+                        ring.store(event(ring.claim(1)));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> writer : done) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ring.lastSequence()).isEqualTo(writers * eventsPerWriter);
+        for (long sequence = 1; sequence <= ring.lastSequence(); sequence++) {
+            assertThat(ring.get(sequence).getSequence()).isEqualTo(sequence);
+        }
+    }
+
+    @Test
+    void claimedButNotStoredSlotStillHoldsTheOlderEvent() {
+        OrderChangeRing ring = new OrderChangeRing(4);
+        for (int i = 0; i < 4; i++) {
+            ring.store(event(ring.claim(1)));
+        }
+
+        long claimed = ring.claim(1);
+
+        assertThat(ring.get(claimed).getSequence()).isEqualTo(claimed - 4);
+        ring.store(event(claimed));
+        assertThat(ring.get(claimed).getSequence()).isEqualTo(claimed);
+    }
+
+    @Test
+    void writerStalledForAWholeRingDoesNotReplaceANewerEvent() {
+        OrderChangeRing ring = new OrderChangeRing(4);
+        long stalled = ring.claim(1);
+        for (int i = 0; i < 4; i++) {
+            ring.store(event(ring.claim(1)));
+        }
+
+        ring.store(event(stalled));
+
+        assertThat(ring.get(stalled).getSequence()).isEqualTo(stalled + 4);
+    }
+
+    @Test
+    void oldestSequenceIsOneCapacityBehindTheLast() {
+        OrderChangeRing ring = new OrderChangeRing(4);
+        assertThat(ring.oldestSequence()).isEqualTo(1);
+
+        ring.claim(10);
+
+        assertThat(ring.oldestSequence()).isEqualTo(7);
+    }
+
+    private static OrderChangeEvent event(long sequence) {
+        return OrderChangeEvent.newBuilder().setSequence(sequence).build();
+    }
+}
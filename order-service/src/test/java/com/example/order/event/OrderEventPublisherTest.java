@@ -0,0 +1,266 @@
+package com.example.order.event;
+
+import com.example.order.OrderProto.OrderChangeEvent;
+import com.example.order.OrderProto.OrderChangeType;
+import com.example.order.OrderProto.WatchOrdersRequest;
+import com.example.order.config.OrderEventProperties;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.mapper.OrderMapper;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * WatchOrders feed: flow control, falling behind, resuming, and sequence numbers claimed at commit time.
+ * Transactions are simulated by running the synchronizations the publisher registers.
+ */
+class OrderEventPublisherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private OrderEventPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    void watcherThatIsNotReadyStaysBehindAndCatchesUp() throws Exception {
+        start(16);
+        FakeResponseObserver watcher = watch(WatchOrdersRequest.getDefaultInstance());
+        watcher.readyFor(0);
+
+        for (long orderId = 1; orderId <= 3; orderId++) {
+            publisher.publishCreated(order(orderId));
+        }
+        Thread.sleep(50);
+        assertThat(watcher.sent).isEmpty();
+
+        watcher.readyFor(Integer.MAX_VALUE);
+        watcher.onReadyHandler.run();
+
+        assertThat(watcher.orderIds()).containsExactly(1L, 2L, 3L);
+        assertThat(watcher.sent).extracting(OrderChangeEvent::getSequence).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void watcherMoreThanAWholeRingBehindIsDisconnected() {
+        start(4);
+        FakeResponseObserver watcher = watch(WatchOrdersRequest.getDefaultInstance());
+        watcher.readyFor(0);
+
+        for (long orderId = 1; orderId <= 6; orderId++) {
+            publisher.publishCreated(order(orderId));
+        }
+        watcher.readyFor(Integer.MAX_VALUE);
+        watcher.onReadyHandler.run();
+
+        assertThat(watcher.sent).isEmpty();
+        assertThat(Status.fromThrowable(watcher.error).getCode()).isEqualTo(Status.Code.RESOURCE_EXHAUSTED);
+        assertThat(registry.get("order.events.watchers.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void resumesAfterAKeptSequenceAndRejectsOthers() {
+        start(4);
+        for (long orderId = 1; orderId <= 3; orderId++) {
+            publisher.publishCreated(order(orderId));
+        }
+
+        FakeResponseObserver resumed = watch(WatchOrdersRequest.newBuilder().setAfterSequence(1).build());
+        assertThat(resumed.orderIds()).containsExactly(2L, 3L);
+
+        FakeResponseObserver ahead = watch(WatchOrdersRequest.newBuilder().setAfterSequence(10).build());
+        assertThat(Status.fromThrowable(ahead.error).getCode()).isEqualTo(Status.Code.OUT_OF_RANGE);
+
+        for (long orderId = 4; orderId <= 10; orderId++) {
+            publisher.publishCreated(order(orderId));
+        }
+        FakeResponseObserver tooOld = watch(WatchOrdersRequest.newBuilder().setAfterSequence(2).build());
+        assertThat(Status.fromThrowable(tooOld.error).getCode()).isEqualTo(Status.Code.OUT_OF_RANGE);
+    }
+
+    @Test
+    void sequencesFollowCommitOrderWhateverTheOrderOfCompletion() throws Exception {
+        start(16);
+        FakeResponseObserver watcher = watch(WatchOrdersRequest.getDefaultInstance());
+
+        List<TransactionSynchronization> first = inTransaction(() -> publisher.publishStatusChanged(
+                order(1L, OrderStatus.CONFIRMED, 1L), OrderStatus.PENDING));
+        List<TransactionSynchronization> second = inTransaction(() -> publisher.publishStatusChanged(
+                order(1L, OrderStatus.SHIPPED, 2L), OrderStatus.CONFIRMED));
+
+        // The first transaction commits first, while holding the row lock, but its thread completes last
+        first.forEach(sync -> sync.beforeCommit(false));
+        second.forEach(sync -> sync.beforeCommit(false));
+        second.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        Thread.sleep(50);
+        assertThat(watcher.sent).isEmpty();
+
+        first.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        watcher.awaitSent(2);
+        assertThat(watcher.sent).extracting(OrderChangeEvent::getVersion).containsExactly(1L, 2L);
+        assertThat(watcher.sent).extracting(OrderChangeEvent::getSequence).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void rolledBackTransactionPublishesNothing() throws Exception {
+        start(16);
+        FakeResponseObserver watcher = watch(WatchOrdersRequest.getDefaultInstance());
+
+        // Rolled back before committing: no sequence is claimed
+        List<TransactionSynchronization> notCommitted = inTransaction(() -> publisher.publishCreated(order(1L)));
+        notCommitted.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Commit failed after claiming: the sequence is skipped
+        List<TransactionSynchronization> failedCommit = inTransaction(() -> publisher.publishCreated(order(2L)));
+        failedCommit.forEach(sync -> sync.beforeCommit(false));
+        failedCommit.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        publisher.publishCreated(order(3L));
+
+        watcher.awaitSent(1);
+        assertThat(watcher.sent).singleElement()
+                .satisfies(event -> assertThat(event.getOrderId()).isEqualTo(3L))
+                .satisfies(event -> assertThat(event.getSequence()).isEqualTo(2L))
+                .satisfies(event -> assertThat(event.getType()).isEqualTo(OrderChangeType.ORDER_CREATED));
+        assertThat(registry.get("order.events.published").counter().count()).isEqualTo(1);
+    }
+
+    private void start(int ringCapacity) {
+        OrderEventProperties properties = new OrderEventProperties();
+        properties.setRingCapacity(ringCapacity);
+        publisher = new OrderEventPublisher(properties, new OrderMapper(), registry);
+    }
+
+    private FakeResponseObserver watch(WatchOrdersRequest request) {
+        FakeResponseObserver observer = new FakeResponseObserver();
+        publisher.subscribe(request, observer);
+        return observer;
+    }
+
+    /**
+     * Runs the publication as inside a transaction and returns the synchronizations it registered
+     */
+    private static List<TransactionSynchronization> inTransaction(Runnable publication) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            publication.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static OrderEntity order(long orderId) {
+        return order(orderId, OrderStatus.PENDING, 0L);
+    }
+
+    private static OrderEntity order(long orderId, OrderStatus status, Long version) {
+        OrderEntity order = OrderEntity.builder()
+                .orderId(orderId)
+                .customerId(7L)
+                .totalPriceMinor(100L)
+                .currentStatus(status)
+                .build();
+        order.setVersion(version);
+        return order;
+    }
+
+    /**
+     * Response observer whose readiness the test controls; events are sent from the dispatcher thread
+     */
+    private static class FakeResponseObserver extends ServerCallStreamObserver<OrderChangeEvent> {
+
+        private final List<OrderChangeEvent> sent = new CopyOnWriteArrayList<>();
+        private volatile int readyMessages = Integer.MAX_VALUE;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private volatile Runnable onReadyHandler;
+
+        void readyFor(int messages) {
+            readyMessages = messages;
+        }
+
+        List<Long> orderIds() {
+            return sent.stream().map(OrderChangeEvent::getOrderId).toList();
+        }
+
+        void awaitSent(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertThat(sent).hasSize(count);
+        }
+
+        @Override
+        public boolean isReady() {
+            return readyMessages > 0;
+        }
+
+        @Override
+        public void onNext(OrderChangeEvent event) {
+            sent.add(event);
+            if (readyMessages != Integer.MAX_VALUE) {
+                readyMessages--;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReadyHandler = onReadyHandler;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}
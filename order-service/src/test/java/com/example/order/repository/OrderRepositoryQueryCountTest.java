@@ -0,0 +1,150 @@
+package com.example.order.repository;
+
+import com.example.order.entity.CustomerOrderStatsEntity;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderItemEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.mapper.OrderMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the order read paths against N+1 loading of order items
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderRepositoryQueryCountTest {
+
+    private static final long CUSTOMER_ID = 42L;
+    private static final int ORDER_COUNT = 5;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = OrderEntity.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    static class TestConfig {
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerOrderStatsRepository statsRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    private Statistics statistics;
+    private List<Long> orderIds;
+
+    @BeforeEach
+    void setUp() {
+        orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            orderIds.add(entityManager.persist(newOrder()).getOrderId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void findWithItemsByOrderIdLoadsItemsInOneStatement() {
+        OrderEntity order = orderRepository.findWithItemsByOrderId(orderIds.get(0)).orElseThrow();
+
+        assertThat(orderMapper.toProto(order).getItemsCount()).isEqualTo(ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void findWithItemsByCustomerIdLoadsAllItemsInOneStatement() {
+        List<OrderEntity> orders = orderRepository.findWithItemsByCustomerIdOrderByOrderIdAsc(CUSTOMER_ID);
+
+        assertThat(orderMapper.mapToProtoList(orders))
+                .hasSize(ORDER_COUNT)
+                .allSatisfy(order -> assertThat(order.getItemsCount()).isEqualTo(ITEMS_PER_ORDER));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetPageLoadsItemsInTwoStatements() {
+        List<Long> pageIds = orderRepository.findOrderIdPage(CUSTOMER_ID, orderIds.get(0), Limit.of(3));
+        List<OrderEntity> orders = orderRepository.findWithItemsByOrderIdInOrderByOrderIdAsc(pageIds);
+
+        assertThat(orderMapper.mapToProtoList(orders))
+                .extracting(order -> order.getId())
+                .containsExactlyElementsOf(orderIds.subList(1, 4));
+        assertThat(orders).allSatisfy(order -> assertThat(order.getOrderItems()).hasSize(ITEMS_PER_ORDER));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkStatusTransitionIsOneStatementPerChunk() {
+        int confirmed = orderRepository.transitionStatuses(orderIds, Set.of(OrderStatus.PENDING),
+                OrderStatus.CONFIRMED, LocalDateTime.now());
+        int alreadyConfirmed = orderRepository.transitionStatuses(orderIds, Set.of(OrderStatus.PENDING),
+                OrderStatus.CONFIRMED, LocalDateTime.now());
+
+        assertThat(List.of(confirmed, alreadyConfirmed)).containsExactly(ORDER_COUNT, 0);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void customerStatsAreComputedInOneAggregateStatement() {
+        orderRepository.transitionStatus(orderIds.get(0), Set.of(OrderStatus.PENDING), null, OrderStatus.CANCELLED, LocalDateTime.now());
+        statistics.clear();
+
+        List<CustomerOrderStatsEntity> stats = statsRepository.computeAllFromOrders();
+
+        assertThat(stats).singleElement().satisfies(customer -> {
+            assertThat(customer.getCustomerId()).isEqualTo(CUSTOMER_ID);
+            assertThat(customer.getOrderCount()).isEqualTo(ORDER_COUNT);
+            assertThat(customer.getTotalSpentMinor()).isEqualTo((ORDER_COUNT - 1) * 300L);
+            assertThat(customer.getPendingOrders()).isEqualTo(ORDER_COUNT - 1);
+            assertThat(customer.getCancelledOrders()).isEqualTo(1);
+        });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private OrderEntity newOrder() {
+        OrderEntity order = OrderEntity.builder()
+                .customerId(CUSTOMER_ID)
+                .totalPriceMinor(300L)
+                .currentStatus(OrderStatus.PENDING)
+                .build();
+        List<OrderItemEntity> items = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            items.add(OrderItemEntity.builder()
+                    .productId((long) i)
+                    .productTitle("Product " + i)
+                    .itemQuantity(1)
+                    .unitPriceMinor(100L)
+                    .order(order)
+                    .build());
+        }
+        order.setOrderItems(items);
+        return order;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.order.repository;
+
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Single-order compare-and-set against committed transactions, so that the second-level cache behaves as in production
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderStatusCasTest {
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = OrderEntity.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    static class TestConfig {
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        cache = entityManagerFactory.getCache();
+    }
+
+    @Test
+    void transitionIsAConditionalUpdateThatEvictsOnlyThatOrder() {
+        Long orderId = save(newOrder()).getOrderId();
+        Long otherOrderId = save(newOrder()).getOrderId();
+        orderRepository.findById(orderId);
+        orderRepository.findById(otherOrderId);
+        assertThat(cache.contains(OrderEntity.class, orderId)).isTrue();
+        assertThat(cache.contains(OrderEntity.class, otherOrderId)).isTrue();
+        Long version = orderRepository.findById(orderId).orElseThrow().getVersion();
+
+        List<Optional<OrderStatus>> movedFrom = transaction.execute(status -> Stream.of(
+                orderRepository.transitionStatus(orderId, Set.of(OrderStatus.PENDING), null, OrderStatus.CONFIRMED, LocalDateTime.now()),
+                orderRepository.transitionStatus(orderId, Set.of(OrderStatus.PENDING), null, OrderStatus.CONFIRMED, LocalDateTime.now()),
+                orderRepository.transitionStatus(orderId, Set.of(OrderStatus.CONFIRMED), version, OrderStatus.SHIPPED, LocalDateTime.now()))
+                .map(Optional::ofNullable).toList());
+
+        assertThat(movedFrom).containsExactly(Optional.of(OrderStatus.PENDING), Optional.empty(), Optional.empty());
+        assertThat(cache.contains(OrderEntity.class, orderId)).isFalse();
+        assertThat(cache.contains(OrderEntity.class, otherOrderId)).isTrue();
+        assertThat(orderRepository.findById(orderId).orElseThrow())
+                .satisfies(order -> assertThat(order.getCurrentStatus()).isEqualTo(OrderStatus.CONFIRMED))
+                .satisfies(order -> assertThat(order.getVersion()).isEqualTo(version + 1));
+    }
+
+    @Test
+    void oneUpdateOverSeveralSourceStatusesReturnsTheStatusTheOrderLeft() {
+        Long orderId = save(newOrder()).getOrderId();
+        Set<OrderStatus> cancellable = Set.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.SHIPPED);
+
+        OrderStatus confirmedFrom = transaction.execute(status ->
+                orderRepository.transitionStatus(orderId, Set.of(OrderStatus.PENDING), null, OrderStatus.CONFIRMED, LocalDateTime.now()));
+        OrderStatus cancelledFrom = transaction.execute(status ->
+                orderRepository.transitionStatus(orderId, cancellable, 1L, OrderStatus.CANCELLED, LocalDateTime.now()));
+        OrderStatus cancelledAgainFrom = transaction.execute(status ->
+                orderRepository.transitionStatus(orderId, cancellable, null, OrderStatus.CANCELLED, LocalDateTime.now()));
+
+        assertThat(confirmedFrom).isEqualTo(OrderStatus.PENDING);
+        assertThat(cancelledFrom).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(cancelledAgainFrom).isNull();
+        assertThat(orderRepository.findById(orderId).orElseThrow())
+                .satisfies(order -> assertThat(order.getCurrentStatus()).isEqualTo(OrderStatus.CANCELLED))
+                .satisfies(order -> assertThat(order.getVersion()).isEqualTo(2L));
+    }
+
+    @Test
+    void rowReadInsideTheTransactionDoesNotStayCachedAfterARollback() {
+        Long orderId = save(newOrder()).getOrderId();
+
+        transaction.executeWithoutResult(status -> {
+            orderRepository.transitionStatus(orderId, Set.of(OrderStatus.PENDING), null, OrderStatus.CANCELLED, LocalDateTime.now());
+            // Loads, and may cache, the uncommitted row
+            orderRepository.findWithItemsByOrderId(orderId);
+            status.setRollbackOnly();
+        });
+
+        assertThat(cache.contains(OrderEntity.class, orderId)).isFalse();
+        assertThat(orderRepository.findById(orderId).orElseThrow().getCurrentStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+
+    private OrderEntity save(OrderEntity order) {
+        return transaction.execute(status -> orderRepository.save(order));
+    }
+
+    private static OrderEntity newOrder() {
+        return OrderEntity.builder()
+                .customerId(7L)
+                .totalPriceMinor(100L)
+                .currentStatus(OrderStatus.PENDING)
+                .orderItems(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.order.service;
+
+import com.example.common.concurrent.DbConcurrencyLimiter;
+import com.example.order.config.OrderBulkProperties;
+import com.example.order.config.OrderEventProperties;
+import com.example.order.entity.CustomerOrderStatsEntity;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.event.OrderEventPublisher;
+import com.example.order.mapper.OrderMapper;
+import com.example.order.repository.CustomerOrderStatsRepository;
+import com.example.order.repository.OrderRepository;
+import com.example.order.store.JpaOrderStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Customer order summaries kept by delta UPDATEs through order creation, single status changes and bulk updates,
+ * checked against the orders with {@link CustomerOrderStatsService#check(int)}. Every step commits, as in production.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerOrderStatsServiceTest {
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = OrderEntity.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    static class TestConfig {
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerOrderStatsRepository statsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private OrderEventPublisher orderEvents;
+    private CustomerOrderStatsService statsService;
+    private JpaOrderStore orderStore;
+    private OrderStatusBulkUpdater bulkUpdater;
+
+    @BeforeEach
+    void setUp() {
+        DbConcurrencyLimiter dbConcurrencyLimiter = new DbConcurrencyLimiter(10, Duration.ofSeconds(5));
+        OrderBulkProperties bulkProperties = new OrderBulkProperties();
+        // Several chunks per bulk update
+        bulkProperties.setStatusChunkSize(3);
+
+        orderEvents = new OrderEventPublisher(new OrderEventProperties(), new OrderMapper(), new SimpleMeterRegistry());
+        statsService = new CustomerOrderStatsService(statsRepository, dbConcurrencyLimiter, transactionManager);
+        bulkUpdater = new OrderStatusBulkUpdater(orderRepository, dbConcurrencyLimiter, bulkProperties, statsService,
+                orderEvents, transactionManager);
+        orderStore = new JpaOrderStore(orderRepository, statsService, bulkUpdater, orderEvents, dbConcurrencyLimiter, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderEvents.shutdown();
+    }
+
+    @Test
+    void mixedCreatesTransitionsAndBulkUpdatesLeaveNoMismatch() {
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            orders.add(newOrder(100L + i % 3, 1000L + i));
+        }
+        List<Long> orderIds = orderStore.saveAll(orders).stream().map(OrderEntity::getOrderId).toList();
+
+        orderStore.transitionStatus(orderIds.get(0), OrderStatus.CONFIRMED, null);
+        orderStore.transitionStatus(orderIds.get(1), OrderStatus.CONFIRMED, null);
+        orderStore.transitionStatus(orderIds.get(2), OrderStatus.CANCELLED, null);
+        // Not allowed from CANCELLED, must not be counted
+        orderStore.transitionStatus(orderIds.get(2), OrderStatus.CONFIRMED, null);
+
+        bulkUpdater.updateByIds(orderIds.subList(0, 6), OrderStatus.CONFIRMED);
+        bulkUpdater.updateByIds(orderIds.subList(0, 4), OrderStatus.SHIPPED);
+        bulkUpdater.updateByFilter(OrderStatus.PENDING, LocalDateTime.now().plusMinutes(1), OrderStatus.CANCELLED);
+        orderStore.transitionStatus(orderIds.get(0), OrderStatus.DELIVERED, null);
+        orderStore.saveAll(List.of(newOrder(100L, 50L), newOrder(103L, 70L)));
+
+        CustomerOrderStatsService.ConsistencyReport report = statsService.check(10);
+        assertThat(report.mismatchedCustomerIds()).isEmpty();
+        assertThat(report.mismatchedCustomers()).isZero();
+        assertThat(report.checkedCustomers()).isGreaterThanOrEqualTo(4);
+
+        // Customer 100 has orders 0, 3, 6, 9 and the new one: delivered, shipped, cancelled, cancelled, pending
+        CustomerOrderStatsEntity stats = statsService.find(100L);
+        assertThat(stats.getOrderCount()).isEqualTo(5);
+        assertThat(stats.getDeliveredOrders()).isEqualTo(1);
+        assertThat(stats.getShippedOrders()).isEqualTo(1);
+        assertThat(stats.getCancelledOrders()).isEqualTo(2);
+        assertThat(stats.getPendingOrders()).isEqualTo(1);
+        assertThat(stats.getTotalSpentMinor()).isEqualTo(1000L + 1003L + 50L);
+    }
+
+    @Test
+    void concurrentChangesOfOneCustomerAreAllCounted() throws Exception {
+        long customerId = 200L;
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<OrderEntity> batch = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                batch.add(newOrder(customerId, 10L));
+            }
+            orderStore.saveAll(batch).forEach(order -> orderIds.add(order.getOrderId()));
+        }
+
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                List<Long> own = orderIds.subList(writer * 10, writer * 10 + 10);
+                done.add(writers.submit(() -> {
+                    for (Long orderId : own.subList(0, 5)) {
+                        orderStore.transitionStatus(orderId, OrderStatus.CONFIRMED, null);
+                    }
+                    bulkUpdater.updateByIds(own.subList(5, 10), OrderStatus.CANCELLED);
+                    orderStore.saveAll(List.of(newOrder(customerId, 10L)));
+                }));
+            }
+            for (Future<?> writer : done) {
+                writer.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+
+        assertThat(statsService.check(10).mismatchedCustomers()).isZero();
+        CustomerOrderStatsEntity stats = statsService.find(customerId);
+        assertThat(stats.getOrderCount()).isEqualTo(44);
+        assertThat(stats.getConfirmedOrders()).isEqualTo(20);
+        assertThat(stats.getCancelledOrders()).isEqualTo(20);
+        assertThat(stats.getPendingOrders()).isEqualTo(4);
+        assertThat(stats.getTotalSpentMinor()).isEqualTo(240L);
+    }
+
+    @Test
+    void changesOfCustomersWithoutSummaryAreLeftToARebuild() {
+        OrderEntity imported = orderRepository.save(newOrder(300L, 500L));
+
+        orderStore.transitionStatus(imported.getOrderId(), OrderStatus.CONFIRMED, null);
+        assertThat(statsService.check(10).mismatchedCustomerIds()).containsExactly(300L);
+
+        statsService.rebuild();
+        assertThat(statsService.check(10).mismatchedCustomers()).isZero();
+        assertThat(statsService.find(300L).getConfirmedOrders()).isEqualTo(1);
+    }
+
+    private static OrderEntity newOrder(long customerId, long totalPriceMinor) {
+        return OrderEntity.builder()
+                .customerId(customerId)
+                .totalPriceMinor(totalPriceMinor)
+                .currentStatus(OrderStatus.PENDING)
+                .orderItems(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.order.service;
+
+import com.example.common.CommonProto.Order;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Flow control of the keyset streamer, driven by hand through a fake response observer and a direct executor
+ */
+class KeysetOrderStreamerTest {
+
+    private static final int PAGE_SIZE = 3;
+    private static final long LAST_ORDER_ID = 10;
+
+    private final FakeResponseObserver responseObserver = new FakeResponseObserver();
+    private final List<Long> loadedAfter = new ArrayList<>();
+
+    @Test
+    void sendsEveryPageThenCompletes() {
+        new KeysetOrderStreamer(responseObserver, 0, pagesUpTo(LAST_ORDER_ID), Runnable::run).start();
+
+        assertThat(responseObserver.sentIds()).containsExactlyElementsOf(LongStream.rangeClosed(1, LAST_ORDER_ID).boxed().toList());
+        assertThat(loadedAfter).containsExactly(0L, 3L, 6L, 9L, 10L);
+        assertThat(responseObserver.completed).isTrue();
+    }
+
+    @Test
+    void resumesAfterTheGivenCursor() {
+        new KeysetOrderStreamer(responseObserver, 7, pagesUpTo(LAST_ORDER_ID), Runnable::run).start();
+
+        assertThat(responseObserver.sentIds()).containsExactly(8L, 9L, 10L);
+    }
+
+    @Test
+    void pausesWhileTheClientIsNotReadingAndHoldsAtMostOnePage() {
+        responseObserver.readyFor(4);
+        KeysetOrderStreamer streamer = new KeysetOrderStreamer(responseObserver, 0, pagesUpTo(LAST_ORDER_ID), Runnable::run);
+
+        streamer.start();
+
+        assertThat(responseObserver.sentIds()).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(loadedAfter).containsExactly(0L, 3L);
+        assertThat(responseObserver.completed).isFalse();
+
+        responseObserver.readyFor(1);
+        responseObserver.onReadyHandler.run();
+
+        assertThat(responseObserver.sentIds()).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(loadedAfter).containsExactly(0L, 3L);
+
+        responseObserver.readyFor(Integer.MAX_VALUE);
+        responseObserver.onReadyHandler.run();
+
+        assertThat(responseObserver.sentIds()).hasSize((int) LAST_ORDER_ID);
+        assertThat(responseObserver.completed).isTrue();
+    }
+
+    @Test
+    void onReadyBeforeStartSendsNothing() {
+        new KeysetOrderStreamer(responseObserver, 0, pagesUpTo(LAST_ORDER_ID), Runnable::run);
+
+        responseObserver.onReadyHandler.run();
+
+        assertThat(responseObserver.sentIds()).isEmpty();
+        assertThat(loadedAfter).isEmpty();
+    }
+
+    @Test
+    void stopsOnceTheClientCancels() {
+        responseObserver.readyFor(2);
+        new KeysetOrderStreamer(responseObserver, 0, pagesUpTo(LAST_ORDER_ID), Runnable::run).start();
+
+        responseObserver.onCancelHandler.run();
+        responseObserver.readyFor(Integer.MAX_VALUE);
+        responseObserver.onReadyHandler.run();
+
+        assertThat(responseObserver.sentIds()).containsExactly(1L, 2L);
+        assertThat(responseObserver.completed).isFalse();
+        assertThat(responseObserver.error).isNull();
+    }
+
+    @Test
+    void failedPageLoadEndsTheStreamWithAnError() {
+        LongFunction<List<Order>> pages = pagesUpTo(LAST_ORDER_ID);
+        new KeysetOrderStreamer(responseObserver, 0, afterOrderId -> {
+            if (afterOrderId >= 3) {
+                throw new RuntimeException("database unavailable");
+            }
+            return pages.apply(afterOrderId);
+        }, Runnable::run).start();
+
+        assertThat(responseObserver.sentIds()).containsExactly(1L, 2L, 3L);
+        assertThat(responseObserver.completed).isFalse();
+        assertThat(Status.fromThrowable(responseObserver.error).getCode()).isEqualTo(Status.Code.INTERNAL);
+    }
+
+    @Test
+    void failBeforeStartReportsTheValidationError() {
+        KeysetOrderStreamer streamer = new KeysetOrderStreamer(responseObserver, 0, pagesUpTo(LAST_ORDER_ID), Runnable::run);
+
+        streamer.fail(new IllegalArgumentException("bad cursor"));
+        streamer.start();
+
+        assertThat(Status.fromThrowable(responseObserver.error).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+        assertThat(responseObserver.sentIds()).isEmpty();
+    }
+
+    private LongFunction<List<Order>> pagesUpTo(long lastOrderId) {
+        return afterOrderId -> {
+            loadedAfter.add(afterOrderId);
+            return LongStream.rangeClosed(afterOrderId + 1, Math.min(afterOrderId + PAGE_SIZE, lastOrderId))
+                    .mapToObj(orderId -> Order.newBuilder().setId(orderId).build())
+                    .toList();
+        };
+    }
+
+    /**
+     * Ready for a set number of messages, then not ready until told otherwise
+     */
+    private static class FakeResponseObserver extends ServerCallStreamObserver<Order> {
+
+        private final List<Order> sent = new ArrayList<>();
+        private int readyMessages = Integer.MAX_VALUE;
+        private boolean cancelled;
+        private boolean completed;
+        private Throwable error;
+        private Runnable onReadyHandler;
+        private Runnable onCancelHandler;
+
+        void readyFor(int messages) {
+            readyMessages = messages;
+        }
+
+        List<Long> sentIds() {
+            return sent.stream().map(Order::getId).toList();
+        }
+
+        @Override
+        public boolean isReady() {
+            return readyMessages > 0;
+        }
+
+        @Override
+        public void onNext(Order order) {
+            sent.add(order);
+            if (readyMessages != Integer.MAX_VALUE) {
+                readyMessages--;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onCompleted() {
+            completed = true;
+        }
+
+        @Override
+        public void setOnReadyHandler(Runnable onReadyHandler) {
+            this.onReadyHandler = onReadyHandler;
+        }
+
+        @Override
+        public void setOnCancelHandler(Runnable onCancelHandler) {
+            this.onCancelHandler = () -> {
+                cancelled = true;
+                onCancelHandler.run();
+            };
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void setCompression(String compression) {
+        }
+
+        @Override
+        public void disableAutoInboundFlowControl() {
+        }
+
+        @Override
+        public void request(int count) {
+        }
+
+        @Override
+        public void setMessageCompression(boolean enable) {
+        }
+    }
+}
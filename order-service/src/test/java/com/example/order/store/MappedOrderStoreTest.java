@@ -0,0 +1,334 @@
+package com.example.order.store;
+
+import com.example.order.OrderProto.OrderStatusUpdateResult;
+import com.example.order.config.OrderBulkProperties;
+import com.example.order.config.OrderEventProperties;
+import com.example.order.config.OrderStoreProperties;
+import com.example.order.entity.CustomerOrderStatsEntity;
+import com.example.order.entity.OrderEntity;
+import com.example.order.entity.OrderItemEntity;
+import com.example.order.entity.OrderStatus;
+import com.example.order.event.OrderEventPublisher;
+import com.example.order.mapper.OrderMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Segment files of the memory-mapped store: recovery after a crash, rollover, and the ListOrders pages,
+ * bulk status changes and customer summaries served from the indexes. Every store is reopened on the same directory
+ * to check what a restart replays.
+ */
+class MappedOrderStoreTest {
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @TempDir
+    private Path directory;
+
+    private final OrderEventPublisher orderEvents =
+            new OrderEventPublisher(new OrderEventProperties(), new OrderMapper(), new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        orderEvents.shutdown();
+    }
+
+    @Test
+    void tornTailIsDiscardedAndClearedSoThatTheSegmentStillReplaysAfterRollover() throws IOException {
+        MappedOrderStore store = open(4096, 10000);
+        store.saveAll(List.of(newOrder(1L, 100L, 1), newOrder(1L, 200L, 1), newOrder(2L, 300L, 1)));
+        store.flush();
+
+        // A crash while appending: the length is there but the payload up to the end of the segment does not match the CRC
+        Path segment = directory.resolve("orders-000000.seg");
+        int end = recordsEnd(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(4096 - end);
+            torn.putInt(4096 - end - 8).putInt(12345);
+            while (torn.hasRemaining()) {
+                torn.put((byte) 0x55);
+            }
+            channel.write(torn.flip(), end);
+        }
+
+        MappedOrderStore recovered = open(4096, 10000);
+        assertThat(recovered.findById(3L)).isPresent();
+        assertThat(recovered.findById(4L)).isEmpty();
+
+        // Fill the rest of the segment and the next one; the remains of the torn record must not be read as a record
+        List<OrderEntity> more = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            more.add(newOrder(3L, 10L, 2));
+        }
+        recovered.saveAll(more);
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+
+        MappedOrderStore reopened = open(4096, 10000);
+        for (long orderId = 1; orderId <= 23; orderId++) {
+            assertThat(reopened.findById(orderId)).as("order %d", orderId).isPresent();
+        }
+        assertThat(reopened.saveAll(List.of(newOrder(1L, 1L, 0))).get(0).getOrderId()).isEqualTo(24L);
+    }
+
+    @Test
+    void rollsOverToNewSegmentsAndReplaysThemAll() throws IOException {
+        MappedOrderStore store = open(4096, 10000);
+        List<Long> orderIds = new ArrayList<>();
+        for (int batch = 0; batch < 6; batch++) {
+            List<OrderEntity> orders = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                orders.add(newOrder(10L + i % 2, 100L + i, 1 + i % 3));
+            }
+            store.saveAll(orders).forEach(order -> orderIds.add(order.getOrderId()));
+        }
+        for (int i = 0; i < orderIds.size(); i += 3) {
+            store.transitionStatus(orderIds.get(i), OrderStatus.CONFIRMED, null);
+        }
+        store.transitionStatus(orderIds.get(0), OrderStatus.SHIPPED, 1L);
+        assertThat(segmentFiles()).hasSizeGreaterThan(3);
+
+        MappedOrderStore reopened = open(4096, 10000);
+        for (Long orderId : orderIds) {
+            OrderEntity before = store.findById(orderId).orElseThrow();
+            OrderEntity after = reopened.findById(orderId).orElseThrow();
+            assertThat(after.getCurrentStatus()).isEqualTo(before.getCurrentStatus());
+            assertThat(after.getVersion()).isEqualTo(before.getVersion());
+            assertThat(after.getCreatedAt()).isEqualTo(before.getCreatedAt());
+            assertThat(after.getOrderItems()).extracting(OrderItemEntity::getProductTitle)
+                    .containsExactlyElementsOf(before.getOrderItems().stream().map(OrderItemEntity::getProductTitle).toList());
+        }
+        assertThat(reopened.findById(orderIds.get(0)).orElseThrow().getCurrentStatus()).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(reopened.findByCustomerId(10L)).extracting(OrderEntity::getOrderId)
+                .containsExactlyElementsOf(store.findByCustomerId(10L).stream().map(OrderEntity::getOrderId).toList());
+        assertThat(reopened.findCustomerStats(11L).sameCounts(store.findCustomerStats(11L))).isTrue();
+    }
+
+    @Test
+    void orderLargerThanASegmentIsRejectedAndNothingOfItsBatchIsStored() throws IOException {
+        MappedOrderStore store = open(4096, 10000);
+
+        assertThatThrownBy(() -> store.saveAll(List.of(newOrder(1L, 1L, 1), newOrder(1L, 1L, 40))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(store.findByCustomerId(1L)).isEmpty();
+        assertThat(open(4096, 10000).findById(1L)).isEmpty();
+    }
+
+    @Test
+    void listPagesFollowCreationOrderWithEveryFilter() throws IOException {
+        MappedOrderStore store = open(1 << 20, 10000);
+        List<OrderEntity> saved = new ArrayList<>();
+        for (int batch = 0; batch < 4; batch++) {
+            List<OrderEntity> orders = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                orders.add(newOrder(1L + i % 2, 10L, 0));
+            }
+            saved.addAll(store.saveAll(orders));
+        }
+        for (int i = 0; i < saved.size(); i += 4) {
+            store.transitionStatus(saved.get(i).getOrderId(), OrderStatus.CONFIRMED, null);
+        }
+        OrderEntity middle = saved.get(saved.size() / 2);
+
+        assertThat(listAll(store, null, null, LATEST, 3))
+                .containsExactlyElementsOf(saved.stream().map(OrderEntity::getOrderId).toList());
+        assertThat(listAll(store, 2L, null, LATEST, 2))
+                .containsExactlyElementsOf(saved.stream().filter(order -> order.getCustomerId() == 2L).map(OrderEntity::getOrderId).toList());
+        assertThat(listAll(store, null, OrderStatus.CONFIRMED, LATEST, 2))
+                .containsExactly(saved.get(0).getOrderId(), saved.get(4).getOrderId(), saved.get(8).getOrderId(),
+                        saved.get(12).getOrderId(), saved.get(16).getOrderId());
+        assertThat(listAll(store, 1L, OrderStatus.CONFIRMED, LATEST, 1))
+                .containsExactly(saved.get(0).getOrderId(), saved.get(4).getOrderId(), saved.get(12).getOrderId());
+        assertThat(listAll(store, null, null, middle.getCreatedAt(), 4))
+                .containsExactlyElementsOf(saved.stream().filter(order -> order.getCreatedAt().isBefore(middle.getCreatedAt()))
+                        .map(OrderEntity::getOrderId).toList());
+
+        // Cursor in the middle: strictly after it, whatever the number of orders sharing its creation time
+        assertThat(store.findListPage(null, null, middle.getCreatedAt(), middle.getOrderId(), LATEST, 100))
+                .extracting(OrderEntity::getOrderId)
+                .containsExactlyElementsOf(saved.subList(saved.indexOf(middle) + 1, saved.size()).stream().map(OrderEntity::getOrderId).toList());
+        assertThat(store.findListPage(99L, null, EARLIEST, 0, LATEST, 10)).isEmpty();
+    }
+
+    @Test
+    void bulkTransitionsAreCountedInSummariesThatReplayRebuilds() throws IOException {
+        MappedOrderStore store = open(4096, 10000);
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 1; i <= 6; i++) {
+            orders.add(newOrder(7L, 100L * i, 1));
+        }
+        orders.add(newOrder(8L, 50L, 1));
+        store.saveAll(orders);
+
+        List<OrderStatusUpdateResult> listed = store.transitionStatuses(List.of(1L, 2L, 2L, 99L), OrderStatus.CONFIRMED);
+        assertThat(listed).extracting(OrderStatusUpdateResult::getOrderId).containsExactly(1L, 2L, 99L);
+        assertThat(listed).extracting(result -> result.getResponse().getSuccess()).containsExactly(true, true, false);
+        assertThat(listed.get(2).getResponse().getErrorCode()).isEqualTo("ORDER_NOT_FOUND");
+        assertThat(store.transitionStatuses(List.of(1L), OrderStatus.CONFIRMED).get(0).getResponse().getErrorCode())
+                .isEqualTo("ORDER_INVALID_STATUS_TRANSITION");
+
+        List<OrderStatusUpdateResult> filtered = store.transitionStatuses(OrderStatus.PENDING, LocalDateTime.now().plusMinutes(1),
+                OrderStatus.CANCELLED);
+        assertThat(filtered).extracting(OrderStatusUpdateResult::getOrderId).containsExactly(3L, 4L, 5L, 6L, 7L);
+        assertThat(filtered).allSatisfy(result -> assertThat(result.getResponse().getSuccess()).isTrue());
+
+        MappedOrderStore reopened = open(4096, 10000);
+        for (MappedOrderStore opened : List.of(store, reopened)) {
+            CustomerOrderStatsEntity stats = opened.findCustomerStats(7L);
+            assertThat(stats.getOrderCount()).isEqualTo(6);
+            assertThat(stats.getConfirmedOrders()).isEqualTo(2);
+            assertThat(stats.getCancelledOrders()).isEqualTo(4);
+            assertThat(stats.getPendingOrders()).isZero();
+            assertThat(stats.getTotalSpentMinor()).isEqualTo(300L);
+            assertThat(opened.findCustomerStats(8L).getCancelledOrders()).isEqualTo(1);
+            assertThat(opened.findCustomerStats(8L).getTotalSpentMinor()).isZero();
+            assertThat(opened.findCustomerStats(99L).sameCounts(CustomerOrderStatsEntity.empty(99L))).isTrue();
+        }
+        assertThat(reopened.findById(1L).orElseThrow().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void filteredBulkTransitionStopsAtTheLimitAndTheCreationBound() throws IOException {
+        MappedOrderStore store = open(4096, 2);
+        List<OrderEntity> first = store.saveAll(List.of(newOrder(1L, 1L, 0), newOrder(1L, 1L, 0), newOrder(1L, 1L, 0)));
+        LocalDateTime bound = first.get(2).getCreatedAt().plusNanos(1000);
+        store.saveAll(List.of(newOrder(1L, 1L, 0)));
+
+        assertThat(store.transitionStatuses(OrderStatus.PENDING, bound, OrderStatus.CONFIRMED))
+                .extracting(OrderStatusUpdateResult::getOrderId).containsExactly(1L, 2L);
+        assertThat(store.transitionStatuses(OrderStatus.PENDING, bound, OrderStatus.CONFIRMED))
+                .extracting(OrderStatusUpdateResult::getOrderId).containsExactly(3L);
+        assertThat(store.findById(4L).orElseThrow().getCurrentStatus()).isEqualTo(OrderStatus.PENDING);
+    }
+
+    @Test
+    void filteredBulkTransitionsDrainTheStatusOnceAndTheStatusIndexReplays() throws IOException {
+        MappedOrderStore store = open(1 << 20, 3);
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            orders.add(newOrder(i % 50 == 0 ? 3L : 1L + i % 2, 10L, 0));
+        }
+        List<OrderEntity> saved = store.saveAll(orders);
+        List<Long> confirmed = new ArrayList<>();
+        List<Long> pending = new ArrayList<>();
+        for (int i = 0; i < saved.size(); i++) {
+            long orderId = saved.get(i).getOrderId();
+            if (i % 3 == 0) {
+                store.transitionStatus(orderId, OrderStatus.CONFIRMED, null);
+                confirmed.add(orderId);
+            } else {
+                pending.add(orderId);
+            }
+        }
+
+        // Every call picks up after the orders the previous calls moved out of PENDING
+        List<Long> cancelled = new ArrayList<>();
+        List<OrderStatusUpdateResult> results;
+        do {
+            results = store.transitionStatuses(OrderStatus.PENDING, LATEST, OrderStatus.CANCELLED);
+            assertThat(results).hasSizeLessThanOrEqualTo(3)
+                    .allSatisfy(result -> assertThat(result.getResponse().getSuccess()).isTrue());
+            results.forEach(result -> cancelled.add(result.getOrderId()));
+        } while (!results.isEmpty());
+        assertThat(cancelled).containsExactlyElementsOf(pending);
+
+        MappedOrderStore reopened = open(1 << 20, 3);
+        for (MappedOrderStore opened : List.of(store, reopened)) {
+            assertThat(listAll(opened, null, OrderStatus.PENDING, LATEST, 10)).isEmpty();
+            assertThat(listAll(opened, null, OrderStatus.CONFIRMED, LATEST, 7)).containsExactlyElementsOf(confirmed);
+            assertThat(listAll(opened, null, OrderStatus.CANCELLED, LATEST, 7)).containsExactlyElementsOf(pending);
+            // Customer 3 has fewer orders than either status, customer 2 more than the confirmed ones
+            assertThat(listAll(opened, 3L, OrderStatus.CANCELLED, LATEST, 1))
+                    .containsExactlyElementsOf(saved.stream().filter(order -> order.getCustomerId() == 3L)
+                            .map(OrderEntity::getOrderId).filter(pending::contains).toList());
+            assertThat(listAll(opened, 2L, OrderStatus.CONFIRMED, LATEST, 4))
+                    .containsExactlyElementsOf(saved.stream().filter(order -> order.getCustomerId() == 2L)
+                            .map(OrderEntity::getOrderId).filter(confirmed::contains).toList());
+        }
+    }
+
+    private MappedOrderStore open(int segmentBytes, int maxStatusUpdates) {
+        OrderStoreProperties properties = new OrderStoreProperties();
+        properties.getMapped().setDirectory(directory.toString());
+        properties.getMapped().setSegmentSize(DataSize.ofBytes(segmentBytes));
+        OrderBulkProperties bulkProperties = new OrderBulkProperties();
+        bulkProperties.setMaxStatusUpdates(maxStatusUpdates);
+        return new MappedOrderStore(properties, bulkProperties, orderEvents);
+    }
+
+    /**
+     * Pages through the orders with the (createdAt, orderId) of the last order as cursor
+     */
+    private static List<Long> listAll(MappedOrderStore store, Long customerId, OrderStatus status, LocalDateTime createdBefore, int pageSize) {
+        List<Long> orderIds = new ArrayList<>();
+        LocalDateTime afterCreatedAt = EARLIEST;
+        long afterOrderId = 0;
+        while (true) {
+            List<OrderEntity> page = store.findListPage(customerId, status, afterCreatedAt, afterOrderId, createdBefore, pageSize);
+            page.forEach(order -> orderIds.add(order.getOrderId()));
+            if (page.size() < pageSize) {
+                return orderIds;
+            }
+            afterCreatedAt = page.get(page.size() - 1).getCreatedAt();
+            afterOrderId = page.get(page.size() - 1).getOrderId();
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).toList();
+        }
+    }
+
+    /**
+     * @return Offset after the last complete record of a segment: records are [length][CRC32][payload] up to a zero length
+     */
+    private static int recordsEnd(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int offset = 0;
+        while (buffer.getInt(offset) != 0) {
+            offset += 2 * Integer.BYTES + buffer.getInt(offset);
+        }
+        return offset;
+    }
+
+    private static OrderEntity newOrder(long customerId, long totalPriceMinor, int items) {
+        OrderEntity order = OrderEntity.builder()
+                .customerId(customerId)
+                .totalPriceMinor(totalPriceMinor)
+                .currentStatus(OrderStatus.PENDING)
+                .build();
+        List<OrderItemEntity> orderItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            char[] title = new char[100];
+            Arrays.fill(title, (char) ('a' + i % 26));
+            orderItems.add(OrderItemEntity.builder()
+                    .productId(1000L + i)
+                    .itemQuantity(1)
+                    .unitPriceMinor(totalPriceMinor)
+                    .productTitle(new String(title))
+                    .order(order)
+                    .build());
+        }
+        order.setOrderItems(orderItems);
+        return order;
+    }
+}
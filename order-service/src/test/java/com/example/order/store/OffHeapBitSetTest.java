@@ -0,0 +1,76 @@
+package com.example.order.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Membership, next-member lookups across empty words and growth of the off-heap bit set
+ */
+class OffHeapBitSetTest {
+
+    @Test
+    void addAndRemoveAreCountedOnce() {
+        OffHeapBitSet set = new OffHeapBitSet(64);
+        set.add(0);
+        set.add(63);
+        set.add(63);
+        set.remove(5);
+        set.remove(1 << 20);
+
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.contains(0)).isTrue();
+        assertThat(set.contains(63)).isTrue();
+        assertThat(set.contains(64)).isFalse();
+        assertThat(set.contains(1L << 30)).isFalse();
+
+        set.remove(0);
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.next(0)).isEqualTo(63);
+        assertThat(set.next(64)).isEqualTo(-1);
+    }
+
+    @Test
+    void nextSkipsWordsEmptiedByRemoval() {
+        OffHeapBitSet set = new OffHeapBitSet(1);
+        set.add(3);
+        set.add(4095);
+        set.add(4096);
+        set.add(300_000);
+        set.remove(4095);
+        set.remove(4096);
+
+        assertThat(set.next(0)).isEqualTo(3);
+        assertThat(set.next(4)).isEqualTo(300_000);
+        assertThat(set.next(300_001)).isEqualTo(-1);
+    }
+
+    @Test
+    void matchesABitSetWhileGrowing() {
+        OffHeapBitSet set = new OffHeapBitSet(1);
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 100_000; i++) {
+            int index = (int) ((i * 7919L) % 1_000_000);
+            if (i % 5 == 0) {
+                set.remove(index / 2);
+                expected.clear(index / 2);
+            } else {
+                set.add(index);
+                expected.set(index);
+            }
+        }
+
+        assertThat(set.size()).isEqualTo(expected.cardinality());
+        for (int from = 0; from < 1_000_100; from += 997) {
+            assertThat(set.next(from)).isEqualTo(expected.nextSetBit(from));
+        }
+        long index = set.next(0);
+        for (int bit = expected.nextSetBit(0); bit >= 0; bit = expected.nextSetBit(bit + 1)) {
+            assertThat(index).isEqualTo(bit);
+            index = set.next(index + 1);
+        }
+        assertThat(index).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.order.store;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups, replacement, key 0 and growth of the off-heap long map
+ */
+class OffHeapLongMapTest {
+
+    private static final long MISSING = -1;
+
+    @Test
+    void missingKeysGetTheMissingValue() {
+        OffHeapLongMap map = new OffHeapLongMap(8);
+        map.put(5, 50);
+
+        assertThat(map.get(5, MISSING)).isEqualTo(50);
+        assertThat(map.get(6, MISSING)).isEqualTo(MISSING);
+        assertThat(map.get(0, MISSING)).isEqualTo(MISSING);
+    }
+
+    @Test
+    void putReplacesTheValueOfAKnownKey() {
+        OffHeapLongMap map = new OffHeapLongMap(8);
+        map.put(5, 50);
+        map.put(5, 51);
+        map.put(0, 1);
+        map.put(0, 2);
+
+        assertThat(map.size()).isEqualTo(2);
+        assertThat(map.get(5, MISSING)).isEqualTo(51);
+        assertThat(map.get(0, MISSING)).isEqualTo(2);
+    }
+
+    @Test
+    void growsFarPastItsExpectedSizeWithoutLosingEntries() {
+        OffHeapLongMap map = new OffHeapLongMap(8);
+        int entries = 100_000;
+        for (long key = 0; key < entries; key++) {
+            map.put(key, key * 3);
+            // Keys that collide in the low bits and negative keys
+            map.put(-(key << 20) - 1, key);
+        }
+
+        assertThat(map.size()).isEqualTo(2 * entries);
+        for (long key = 0; key < entries; key++) {
+            assertThat(map.get(key, MISSING)).isEqualTo(key * 3);
+            assertThat(map.get(-(key << 20) - 1, MISSING)).isEqualTo(key);
+        }
+        assertThat(map.get(entries, MISSING)).isEqualTo(MISSING);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.order.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insertion order of the values and growth of the off-heap multimap
+ */
+class OffHeapLongMultimapTest {
+
+    @Test
+    void unknownKeyHasNoValues() {
+        OffHeapLongMultimap multimap = new OffHeapLongMultimap(4, 4);
+        multimap.add(1, 10);
+
+        assertThat(multimap.get(2)).isEmpty();
+    }
+
+    @Test
+    void valuesOfInterleavedKeysComeBackInInsertionOrder() {
+        OffHeapLongMultimap multimap = new OffHeapLongMultimap(4, 4);
+        multimap.add(1, 30);
+        multimap.add(2, 5);
+        multimap.add(1, 10);
+        multimap.add(0, 7);
+        multimap.add(1, 20);
+        multimap.add(2, 5);
+
+        assertThat(multimap.get(1)).containsExactly(30, 10, 20);
+        assertThat(multimap.get(2)).containsExactly(5, 5);
+        assertThat(multimap.get(0)).containsExactly(7);
+    }
+
+    @Test
+    void keepsTheOrderWhileTheKeysAndNodesGrow() {
+        OffHeapLongMultimap multimap = new OffHeapLongMultimap(1, 1);
+        Map<Long, List<Long>> expected = new HashMap<>();
+        for (long value = 0; value < 50_000; value++) {
+            long key = (value * 7919) % 1000;
+            multimap.add(key, value);
+            expected.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+
+        for (Map.Entry<Long, List<Long>> entry : expected.entrySet()) {
+            assertThat(multimap.get(entry.getKey())).containsExactly(entry.getValue().stream().mapToLong(Long::longValue).toArray());
+        }
+    }
+}
@@ -1,17 +1,23 @@
 package com.example.user;
 
 import com.example.common.config.GrpcExceptionHandlingConfig;
+import com.example.common.config.GrpcExecutionConfig;
+import com.example.common.interceptors.ConcurrencyLimitInterceptor;
 import com.example.common.interceptors.GlobalExceptionInterceptor;
+import com.example.common.interceptors.GrpcAccessLogInterceptor;
+import com.example.common.interceptors.GrpcServerMetricsInterceptor;
 import io.grpc.ServerInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"com.example.user", "com.example.common"})
+@ConfigurationPropertiesScan
 @Slf4j
 public class UserServiceApplication {
 
@@ -20,12 +26,21 @@ public class UserServiceApplication {
     }
 
     /**
-     * Configure gRPC server with global exception interceptor
+     * Configure gRPC server with global exception interceptor, concurrency limit, access log and metrics interceptors and execution mode
      * This ensures all exceptions are properly handled and converted to gRPC status
      */
     @Bean
-    public GrpcServerConfigurer grpcServerConfigurer(GrpcExceptionHandlingConfig exceptionConfig) {
+    public GrpcServerConfigurer grpcServerConfigurer(GrpcExceptionHandlingConfig exceptionConfig,
+                                                     GrpcExecutionConfig executionConfig,
+                                                     ConcurrencyLimitInterceptor concurrencyLimitInterceptor,
+                                                     GrpcAccessLogInterceptor accessLogInterceptor,
+                                                     GrpcServerMetricsInterceptor metricsInterceptor) {
         return serverBuilder -> {
+            executionConfig.getServerExecutor().ifPresent(executor -> {
+                serverBuilder.executor(executor);
+                log.info("gRPC server executor configured for {} execution mode", executionConfig.getExecutionMode());
+            });
+
             GlobalExceptionInterceptor interceptor = exceptionConfig.getGlobalExceptionInterceptor();
             if (interceptor != null) {
                 serverBuilder.intercept(interceptor);
@@ -33,6 +48,19 @@ public class UserServiceApplication {
             } else {
                 log.warn("GlobalExceptionInterceptor is not available - exceptions may not be handled properly");
             }
+
+            // Wraps the exception interceptor so that calls closed by it give their slot back,
+            // and is wrapped by the access log and metrics so that shed calls are recorded
+            serverBuilder.intercept(concurrencyLimitInterceptor);
+            log.info("ConcurrencyLimitInterceptor registered successfully");
+
+            // Wraps the exception interceptor so that the access log sees the final status
+            serverBuilder.intercept(accessLogInterceptor);
+            log.info("GrpcAccessLogInterceptor registered successfully");
+
+            // Registered last so that it runs first and records the status set by the exception interceptor
+            serverBuilder.intercept(metricsInterceptor);
+            log.info("GrpcServerMetricsInterceptor registered successfully");
         };
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.user.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for bulk user creation over an ImportUsers stream
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "user.import")
+public class UserImportProperties {
+
+    // Users checked and inserted per transaction, and requests read from the client per flow-control window
+    private int batchSize = 500;
+}
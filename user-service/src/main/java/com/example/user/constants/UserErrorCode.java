@@ -1,5 +1,6 @@
 package com.example.user.constants;
 
+import com.example.common.exception.ErrorCode;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
@@ -8,7 +9,7 @@ import lombok.RequiredArgsConstructor;
  */
 @Getter
 @RequiredArgsConstructor
-public enum UserErrorCode {
+public enum UserErrorCode implements ErrorCode {
     
     // User not found errors
     USER_NOT_FOUND("USER_NOT_FOUND", "User not found"),
@@ -21,6 +22,7 @@ public enum UserErrorCode {
     
     // User fetch errors
     USER_FETCH_ERROR("USER_FETCH_ERROR", "Failed to fetch user"),
+    USER_BATCH_TOO_LARGE("USER_BATCH_TOO_LARGE", "Too many user IDs requested"),
     
     // User update errors
     USER_UPDATE_ERROR("USER_UPDATE_ERROR", "Failed to update user"),
@@ -3,9 +3,14 @@ package com.example.user.entity;
 import com.example.common.entity.BaseEntity;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+// Read-write second-level cache: save and delete replace or evict the entry when the transaction commits
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,8 +19,10 @@ import lombok.*;
 @ToString(callSuper = true)
 public class User extends BaseEntity {
 
+    // Pooled sequence instead of IDENTITY so that imported users can be inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long userId;
 
     @Column(nullable = false, length = 100)
@@ -0,0 +1,100 @@
+package com.example.user.event;
+
+import com.example.common.CommonProto;
+import com.example.user.UserProto.UserChangeEvent;
+import com.example.user.UserProto.UserChangeType;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fans out user change events to every open WatchUserChanges stream.
+ * Each stream starts with a WATCH_STARTED event, sent once the subscriber is registered: from then on
+ * no change is missed, so the watching side may trust its cache.
+ * Subscribers that cannot keep up are disconnected instead of buffered,
+ * the watching side then drops its cache and resubscribes.
+ */
+@Component
+@Slf4j
+public class UserChangePublisher {
+
+    private static final UserChangeEvent WATCH_STARTED = UserChangeEvent.newBuilder()
+            .setType(UserChangeType.WATCH_STARTED)
+            .build();
+
+    private final Set<ServerCallStreamObserver<UserChangeEvent>> subscribers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Register a new watcher stream
+     * @param responseObserver The server-streaming response observer of the watcher
+     */
+    public void subscribe(StreamObserver<UserChangeEvent> responseObserver) {
+        ServerCallStreamObserver<UserChangeEvent> subscriber = (ServerCallStreamObserver<UserChangeEvent>) responseObserver;
+        subscriber.setOnCancelHandler(() -> {
+            subscribers.remove(subscriber);
+            log.debug("User change watcher disconnected, active watchers: {}", subscribers.size());
+        });
+        subscribers.add(subscriber);
+        log.debug("User change watcher connected, active watchers: {}", subscribers.size());
+
+        // Sent after registering, changes published from here on reach this subscriber
+        synchronized (subscriber) {
+            if (!subscriber.isCancelled()) {
+                subscriber.onNext(WATCH_STARTED);
+            }
+        }
+    }
+
+    public void publishUpdated(CommonProto.User user) {
+        publish(UserChangeEvent.newBuilder()
+                .setType(UserChangeType.USER_UPDATED)
+                .setUserId(user.getId())
+                .setUser(user)
+                .build());
+    }
+
+    public void publishDeleted(long userId) {
+        publish(UserChangeEvent.newBuilder()
+                .setType(UserChangeType.USER_DELETED)
+                .setUserId(userId)
+                .build());
+    }
+
+    private void publish(UserChangeEvent event) {
+        for (ServerCallStreamObserver<UserChangeEvent> subscriber : subscribers) {
+            synchronized (subscriber) {
+                if (subscriber.isCancelled()) {
+                    subscribers.remove(subscriber);
+                } else if (!subscriber.isReady()) {
+                    disconnect(subscriber, Status.RESOURCE_EXHAUSTED.withDescription("User change watcher is too slow"));
+                } else {
+                    subscriber.onNext(event);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ServerCallStreamObserver<UserChangeEvent> subscriber : subscribers) {
+            synchronized (subscriber) {
+                disconnect(subscriber, Status.UNAVAILABLE.withDescription("User service is shutting down"));
+            }
+        }
+    }
+
+    private void disconnect(ServerCallStreamObserver<UserChangeEvent> subscriber, Status status) {
+        subscribers.remove(subscriber);
+        try {
+            subscriber.onError(status.asRuntimeException());
+        } catch (IllegalStateException e) {
+            log.debug("User change watcher already closed", e);
+        }
+    }
+}
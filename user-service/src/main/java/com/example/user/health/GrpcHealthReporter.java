@@ -0,0 +1,38 @@
+package com.example.user.health;
+
+import com.example.user.UserServiceGrpc;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.protobuf.services.HealthStatusManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drives the standard grpc.health.v1.Health service registered by the gRPC starter.
+ * User Service is reported SERVING once the application is ready, and NOT_SERVING as soon as
+ * shutdown starts, so health-checking clients stop sending calls before the server drains.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GrpcHealthReporter {
+
+    private final HealthStatusManager healthStatusManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reportServing() {
+        healthStatusManager.setStatus(HealthStatusManager.SERVICE_NAME_ALL_SERVICES, ServingStatus.SERVING);
+        healthStatusManager.setStatus(UserServiceGrpc.SERVICE_NAME, ServingStatus.SERVING);
+        log.info("gRPC health status of {} set to SERVING", UserServiceGrpc.SERVICE_NAME);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void reportNotServing() {
+        // Terminal: later status changes are ignored
+        healthStatusManager.enterTerminalState();
+        log.info("gRPC health status of {} set to NOT_SERVING", UserServiceGrpc.SERVICE_NAME);
+    }
+}
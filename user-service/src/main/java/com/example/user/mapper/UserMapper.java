@@ -2,12 +2,15 @@ package com.example.user.mapper;
 
 import com.example.common.CommonProto;
 import com.example.common.CommonProto.Address;
+import com.example.common.util.CollectionUtil;
 import com.example.user.UserProto.CreateUserRequest;
 import com.example.user.UserProto.UpdateUserRequest;
 import com.example.user.entity.ContactAddress;
 import com.example.user.entity.User;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class UserMapper {
 
@@ -64,6 +67,21 @@ public class UserMapper {
         }
     }
     
+    /**
+     * Maps a list of User entities to a list of User proto objects
+     * @param users List of User entities
+     * @return List of User proto objects
+     */
+    public List<CommonProto.User> mapToProtoList(List<User> users) {
+        if (CollectionUtil.isEmpty(users)) {
+            return List.of();
+        }
+
+        return users.stream()
+                .map(this::toProto)
+                .toList();
+    }
+    
     private Address mapToAddressProto(ContactAddress contactAddress) {
         return Address.newBuilder()
                 .setStreet(contactAddress.getStreetAddress())
@@ -0,0 +1,19 @@
+package com.example.user.repository;
+
+import com.example.user.entity.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Batch user lookup that is served from the second-level cache where possible
+ */
+public interface CachedUserLookup {
+
+    /**
+     * Find users by ID, only the IDs missing from the second-level cache are read with one IN query
+     * @param userIds The user IDs
+     * @return The users that exist, in the order of the given IDs
+     */
+    List<User> findAllCachedById(Collection<Long> userIds);
+}
@@ -0,0 +1,34 @@
+package com.example.user.repository;
+
+import com.example.user.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hibernate multi-load, unlike {@code findAllById} which always runs a query, checks the
+ * persistence context and the second-level cache before going to the database
+ */
+class CachedUserLookupImpl implements CachedUserLookup {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<User> findAllCachedById(Collection<Long> userIds) {
+        List<User> users = entityManager.unwrap(Session.class)
+                .byMultipleIds(User.class)
+                .with(CacheMode.NORMAL)
+                .multiLoad(new ArrayList<>(userIds));
+        users.removeIf(Objects::isNull);
+        return users;
+    }
+}
@@ -2,13 +2,25 @@ package com.example.user.repository;
 
 import com.example.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, CachedUserLookup {
 
     Optional<User> findByEmailAddress(String emailAddress);
     boolean existsByEmailAddress(String emailAddress);
+
+    /**
+     * Find which of the given email addresses are already registered, in one IN query
+     * @param emailAddresses Email addresses to check
+     * @return The registered ones
+     */
+    @Query("select u.emailAddress from User u where u.emailAddress in :emailAddresses")
+    List<String> findExistingEmailAddresses(@Param("emailAddresses") Collection<String> emailAddresses);
 }
@@ -2,33 +2,63 @@ package com.example.user.service;
 
 import com.example.common.CommonProto;
 import com.example.common.ResponseBuilder;
+import com.example.common.concurrent.DbConcurrencyLimiter;
 import com.example.common.exception.DuplicateResourceException;
 import com.example.common.exception.ResourceNotFoundException;
+import com.example.common.exception.ValidationException;
+import com.example.common.util.BatchingStreamReceiver;
 import com.example.user.UserProto.*;
+import com.example.user.config.UserImportProperties;
 import com.example.user.constants.UserErrorCode;
 import com.example.user.entity.User;
+import com.example.user.event.UserChangePublisher;
 import com.example.user.mapper.UserMapper;
 import com.example.user.repository.UserRepository;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @GrpcService
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServiceImplBase {
+
+    private static final int MAX_BATCH_LOOKUP_SIZE = 1000;
+
+    // Column limits of the users table, see User
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_EMAIL_LENGTH = 150;
+    private static final int MAX_PHONE_LENGTH = 50;
+    private static final int MAX_ADDRESS_FIELD_LENGTH = 100;
+
+    // Shared immutable response headers, built once
+    private static final CommonProto.ApiResponse USER_CREATED = ResponseBuilder.success("User created successfully");
+    private static final CommonProto.ApiResponse USER_FOUND = ResponseBuilder.success("User found");
+    private static final CommonProto.ApiResponse USER_UPDATED = ResponseBuilder.success("User updated successfully");
+    private static final CommonProto.ApiResponse USER_DELETED = ResponseBuilder.success("User deleted successfully");
+    private static final CommonProto.ApiResponse USERS_FOUND = ResponseBuilder.success("Users found");
     
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final UserChangePublisher userChangePublisher;
+    private final DbConcurrencyLimiter dbConcurrencyLimiter;
+    private final UserImportProperties importProperties;
 
     @Override
     public void createUser(CreateUserRequest createRequest, StreamObserver<CreateUserResponse> responseObserver) {
-        log.info("Creating user: {}", createRequest.getEmail());
+        log.debug("Creating user: {}", createRequest.getEmail());
 
         // Check for duplicate email
         if (existsUserByEmail(createRequest.getEmail())) {
@@ -45,7 +75,7 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
 
         // Return success response
         CreateUserResponse response = CreateUserResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("User created successfully"))
+                .setResponse(USER_CREATED)
                 .setUser(userProto)
                 .build();
 
@@ -55,7 +85,7 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
 
     @Override
     public void getUser(GetUserRequest getUserRequest, StreamObserver<GetUserResponse> responseObserver) {
-        log.info("Fetching user: {}", getUserRequest.getUserId());
+        log.debug("Fetching user: {}", getUserRequest.getUserId());
 
         Optional<User> foundUser = findUserById(getUserRequest.getUserId());
 
@@ -68,7 +98,7 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
 
         CommonProto.User userProto = userMapper.toProto(foundUser.get());
         GetUserResponse response = GetUserResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("User found"))
+                .setResponse(USER_FOUND)
                 .setUser(userProto)
                 .build();
 
@@ -78,7 +108,7 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
 
     @Override
     public void updateUser(UpdateUserRequest updateRequest, StreamObserver<UpdateUserResponse> responseObserver) {
-        log.info("Updating user: {}", updateRequest.getUserId());
+        log.debug("Updating user: {}", updateRequest.getUserId());
 
         Optional<User> existingUserOpt = findUserById(updateRequest.getUserId());
 
@@ -94,9 +124,10 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
 
         User updatedUser = saveUser(existingUser);
         CommonProto.User userProto = userMapper.toProto(updatedUser);
+        userChangePublisher.publishUpdated(userProto);
 
         UpdateUserResponse response = UpdateUserResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("User updated successfully"))
+                .setResponse(USER_UPDATED)
                 .setUser(userProto)
                 .build();
 
@@ -106,7 +137,7 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
 
     @Override
     public void deleteUser(DeleteUserRequest deleteRequest, StreamObserver<DeleteUserResponse> responseObserver) {
-        log.info("Deleting user: {}", deleteRequest.getUserId());
+        log.debug("Deleting user: {}", deleteRequest.getUserId());
 
         if (!existsUserById(deleteRequest.getUserId())) {
             throw new ResourceNotFoundException(
@@ -115,9 +146,11 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
             );
         }
 
-        userRepository.deleteById(deleteRequest.getUserId());
+        deleteUserById(deleteRequest.getUserId());
+        userChangePublisher.publishDeleted(deleteRequest.getUserId());
+
         DeleteUserResponse response = DeleteUserResponse.newBuilder()
-                .setResponse(ResponseBuilder.success("User deleted successfully"))
+                .setResponse(USER_DELETED)
                 .build();
 
         responseObserver.onNext(response);
@@ -126,7 +159,7 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
 
     @Override
     public void validateUser(ValidateUserRequest validationRequest, StreamObserver<ValidateUserResponse> responseObserver) {
-        log.info("Validating user: {}", validationRequest.getUserId());
+        log.debug("Validating user: {}", validationRequest.getUserId());
 
         Optional<User> foundUser = findUserById(validationRequest.getUserId());
 
@@ -146,25 +179,201 @@ public class UserServiceImpl extends com.example.user.UserServiceGrpc.UserServic
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    @Override
+    public void getUsersByIds(GetUsersByIdsRequest batchRequest, StreamObserver<GetUsersByIdsResponse> responseObserver) {
+        log.debug("Fetching users by IDs: {} IDs", batchRequest.getUserIdsCount());
+
+        if (batchRequest.getUserIdsCount() > MAX_BATCH_LOOKUP_SIZE) {
+            throw new ValidationException(
+                UserErrorCode.USER_BATCH_TOO_LARGE,
+                String.format("Requested %d user IDs, maximum is %d", batchRequest.getUserIdsCount(), MAX_BATCH_LOOKUP_SIZE)
+            );
+        }
+
+        List<User> foundUsers = findUsersByIds(batchRequest.getUserIdsList());
+        GetUsersByIdsResponse response = GetUsersByIdsResponse.newBuilder()
+                .setResponse(USERS_FOUND)
+                .addAllUsers(userMapper.mapToProtoList(foundUsers))
+                .build();
+
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public StreamObserver<CreateUserRequest> importUsers(StreamObserver<ImportUsersResult> responseObserver) {
+        log.debug("Import users stream opened, batch size: {}", importProperties.getBatchSize());
+
+        // Batches run on the gRPC thread that delivered their last request, like the other handlers
+        return new BatchingStreamReceiver<>(responseObserver, importProperties.getBatchSize(),
+                (firstIndex, batch) -> CompletableFuture.completedFuture(importUserBatch(firstIndex, batch)));
+    }
+
+    private List<ImportUsersResult> importUserBatch(long firstIndex, List<CreateUserRequest> batch) {
+        ImportUsersResult[] results = new ImportUsersResult[batch.size()];
+
+        List<String> candidateEmails = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String invalidReason = findInvalidReason(batch.get(i));
+            if (invalidReason != null) {
+                results[i] = ImportUsersResult.newBuilder()
+                        .setIndex(firstIndex + i)
+                        .setOutcome(ImportUserOutcome.INVALID)
+                        .setReason(invalidReason)
+                        .build();
+            } else {
+                candidateEmails.add(batch.get(i).getEmail());
+            }
+        }
+
+        // One IN query for the whole batch. The set also catches emails repeated within this batch; those of
+        // earlier batches of the stream are committed by now, so the query finds them
+        Set<String> takenEmails = new HashSet<>(findExistingEmails(candidateEmails));
+        List<Integer> newUserPositions = new ArrayList<>(candidateEmails.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            if (takenEmails.add(batch.get(i).getEmail())) {
+                newUserPositions.add(i);
+            } else {
+                results[i] = duplicateUser(firstIndex + i);
+            }
+        }
+
+        while (!newUserPositions.isEmpty()) {
+            List<User> newUsers = new ArrayList<>(newUserPositions.size());
+            for (int position : newUserPositions) {
+                newUsers.add(userMapper.mapToUserEntity(batch.get(position)));
+            }
+            List<User> savedUsers;
+            try {
+                savedUsers = saveUsers(newUsers);
+            } catch (DataIntegrityViolationException e) {
+                // Another import or CreateUser took some of the emails since the check and the whole chunk was rolled back:
+                // those are reported as duplicates and the others are written again
+                newUserPositions = withoutTakenEmails(firstIndex, batch, newUserPositions, results, e);
+                continue;
+            }
+            for (int j = 0; j < savedUsers.size(); j++) {
+                int position = newUserPositions.get(j);
+                results[position] = ImportUsersResult.newBuilder()
+                        .setIndex(firstIndex + position)
+                        .setOutcome(ImportUserOutcome.CREATED)
+                        .setUserId(savedUsers.get(j).getUserId())
+                        .build();
+            }
+            break;
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private List<Integer> withoutTakenEmails(long firstIndex, List<CreateUserRequest> batch, List<Integer> positions,
+                                             ImportUsersResult[] results, DataIntegrityViolationException violation) {
+        List<String> emails = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            emails.add(batch.get(position).getEmail());
+        }
+        Set<String> takenEmails = new HashSet<>(findExistingEmails(emails));
+        if (takenEmails.isEmpty()) {
+            // Not an email race, retrying would fail the same way
+            throw violation;
+        }
+
+        List<Integer> remaining = new ArrayList<>(positions.size() - takenEmails.size());
+        for (int position : positions) {
+            if (takenEmails.contains(batch.get(position).getEmail())) {
+                results[position] = duplicateUser(firstIndex + position);
+            } else {
+                remaining.add(position);
+            }
+        }
+        return remaining;
+    }
+
+    private static ImportUsersResult duplicateUser(long index) {
+        return ImportUsersResult.newBuilder()
+                .setIndex(index)
+                .setOutcome(ImportUserOutcome.DUPLICATE)
+                .setReason(UserErrorCode.USER_ALREADY_EXISTS.getMessage())
+                .build();
+    }
+
+    /**
+     * Check an imported user against the constraints of the users table
+     * @param request The imported user
+     * @return Why the user cannot be stored, null if it can
+     */
+    private static String findInvalidReason(CreateUserRequest request) {
+        if (request.getName().isBlank() || request.getName().length() > MAX_NAME_LENGTH) {
+            return "Name is required, up to " + MAX_NAME_LENGTH + " characters";
+        }
+        if (request.getEmail().indexOf('@') <= 0 || request.getEmail().length() > MAX_EMAIL_LENGTH) {
+            return "Valid email is required, up to " + MAX_EMAIL_LENGTH + " characters";
+        }
+        if (request.getPhone().isBlank() || request.getPhone().length() > MAX_PHONE_LENGTH) {
+            return "Phone is required, up to " + MAX_PHONE_LENGTH + " characters";
+        }
+        if (request.hasAddress() && (request.getAddress().getCity().isBlank() || request.getAddress().getCountry().isBlank()
+                || request.getAddress().getCity().length() > MAX_ADDRESS_FIELD_LENGTH
+                || request.getAddress().getCountry().length() > MAX_ADDRESS_FIELD_LENGTH)) {
+            return "Address requires city and country, up to " + MAX_ADDRESS_FIELD_LENGTH + " characters";
+        }
+        return null;
+    }
+
+    @Override
+    public void watchUserChanges(WatchUserChangesRequest watchRequest, StreamObserver<UserChangeEvent> responseObserver) {
+        log.debug("Registering user change watcher");
+        userChangePublisher.subscribe(responseObserver);
+    }
     
     private User saveUser(User user) {
         log.debug("Saving user with ID: {}", user.getUserId());
-        return userRepository.save(user);
+        return dbConcurrencyLimiter.call(() -> userRepository.save(user));
+    }
+
+    private List<User> saveUsers(List<User> users) {
+        log.debug("Saving {} users", users.size());
+        // saveAll runs in a single transaction, the INSERTs are sent as JDBC batches
+        return dbConcurrencyLimiter.call(() -> userRepository.saveAll(users));
+    }
+
+    private List<String> findExistingEmails(List<String> emails) {
+        if (emails.isEmpty()) {
+            return List.of();
+        }
+        log.debug("Checking {} emails for existing users", emails.size());
+        return dbConcurrencyLimiter.call(() -> userRepository.findExistingEmailAddresses(emails));
+    }
+
+    private void deleteUserById(Long userId) {
+        log.debug("Deleting user with ID: {}", userId);
+        dbConcurrencyLimiter.run(() -> userRepository.deleteById(userId));
     }
 
     private Optional<User> findUserById(Long userId) {
         log.debug("Finding user by ID: {}", userId);
-        return userRepository.findById(userId);
+        return dbConcurrencyLimiter.call(() -> userRepository.findById(userId));
+    }
+
+    private List<User> findUsersByIds(List<Long> userIds) {
+        log.debug("Finding users by IDs: {}", userIds);
+        // Hot users come from the second-level cache, only the others are queried
+        return dbConcurrencyLimiter.call(() -> userRepository.findAllCachedById(userIds));
     }
 
     private boolean existsUserByEmail(String email) {
         log.debug("Checking if user exists by email: {}", email);
-        return userRepository.existsByEmailAddress(email);
+        return dbConcurrencyLimiter.call(() -> userRepository.existsByEmailAddress(email));
     }
     
     private boolean existsUserById(Long userId) {
         log.debug("Checking if user exists by ID: {}", userId);
-        return userRepository.existsById(userId);
+        return dbConcurrencyLimiter.call(() -> userRepository.existsById(userId));
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.user.event;
+
+import com.example.common.CommonProto;
+import com.example.user.UserProto.UserChangeEvent;
+import com.example.user.UserProto.UserChangeType;
+import com.example.user.UserProto.WatchUserChangesRequest;
+import com.example.user.UserServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * WatchUserChanges streams over the in-process transport: the watcher learns when its subscription is in place
+ */
+class UserChangePublisherTest {
+
+    private final UserChangePublisher publisher = new UserChangePublisher();
+    private final CountDownLatch subscribed = new CountDownLatch(1);
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(new UserServiceGrpc.UserServiceImplBase() {
+                    @Override
+                    public void watchUserChanges(WatchUserChangesRequest request, StreamObserver<UserChangeEvent> responseObserver) {
+                        publisher.subscribe(responseObserver);
+                        subscribed.countDown();
+                    }
+                })
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void streamStartsWithWatchStartedThenCarriesEveryLaterChange() throws Exception {
+        BlockingQueue<UserChangeEvent> events = new LinkedBlockingQueue<>();
+        UserServiceGrpc.newStub(channel).watchUserChanges(WatchUserChangesRequest.getDefaultInstance(), new StreamObserver<>() {
+            @Override
+            public void onNext(UserChangeEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onCompleted() {
+            }
+        });
+        assertThat(subscribed.await(5, TimeUnit.SECONDS)).isTrue();
+
+        publisher.publishUpdated(CommonProto.User.newBuilder().setId(1).setName("Ada").build());
+        publisher.publishDeleted(2);
+
+        assertThat(events.poll(5, TimeUnit.SECONDS).getType()).isEqualTo(UserChangeType.WATCH_STARTED);
+        assertThat(events.poll(5, TimeUnit.SECONDS))
+                .satisfies(event -> assertThat(event.getType()).isEqualTo(UserChangeType.USER_UPDATED))
+                .satisfies(event -> assertThat(event.getUser().getName()).isEqualTo("Ada"));
+        assertThat(events.poll(5, TimeUnit.SECONDS))
+                .satisfies(event -> assertThat(event.getType()).isEqualTo(UserChangeType.USER_DELETED))
+                .satisfies(event -> assertThat(event.getUserId()).isEqualTo(2));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.user.service;
+
+import com.example.common.concurrent.DbConcurrencyLimiter;
+import com.example.user.UserProto.CreateUserRequest;
+import com.example.user.UserProto.ImportUserOutcome;
+import com.example.user.UserProto.ImportUsersResult;
+import com.example.user.UserServiceGrpc;
+import com.example.user.config.UserImportProperties;
+import com.example.user.entity.User;
+import com.example.user.event.UserChangePublisher;
+import com.example.user.mapper.UserMapper;
+import com.example.user.repository.UserRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * ImportUsers against a mocked repository, losing the email race to a concurrent writer between the check and the INSERT
+ */
+class UserImportTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final AtomicLong userIds = new AtomicLong();
+
+    private final List<ImportUsersResult> results = new ArrayList<>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private Throwable error;
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        UserImportProperties importProperties = new UserImportProperties();
+        importProperties.setBatchSize(10);
+        UserServiceImpl userService = new UserServiceImpl(userRepository, new UserMapper(), new UserChangePublisher(),
+                new DbConcurrencyLimiter(1, Duration.ofSeconds(1)), importProperties);
+
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name).directExecutor().addService(userService).build().start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void emailsTakenAfterTheCheckAreReportedAsDuplicatesAndTheOthersWrittenAgain() throws Exception {
+        when(userRepository.findExistingEmailAddresses(anyList()))
+                .thenReturn(List.of())
+                .thenReturn(List.of("b@example.com"));
+        when(userRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("Unique index violated: users(email_address)"))
+                .thenAnswer(invocation -> withIds(invocation.getArgument(0)));
+
+        importUsers("a@example.com", "b@example.com", "c@example.com", "a@example.com");
+
+        assertThat(error).isNull();
+        assertThat(results).extracting(ImportUsersResult::getOutcome).containsExactly(
+                ImportUserOutcome.CREATED, ImportUserOutcome.DUPLICATE, ImportUserOutcome.CREATED, ImportUserOutcome.DUPLICATE);
+        assertThat(results.get(0).getUserId()).isEqualTo(1);
+        assertThat(results.get(2).getUserId()).isEqualTo(2);
+        verify(userRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void violationThatIsNotAnEmailRaceFailsTheStream() throws Exception {
+        when(userRepository.findExistingEmailAddresses(anyList())).thenReturn(List.of());
+        when(userRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("Value too long"));
+
+        importUsers("a@example.com");
+
+        assertThat(results).isEmpty();
+        assertThat(Status.fromThrowable(error).getCode()).isEqualTo(Status.Code.INTERNAL);
+        verify(userRepository, times(1)).saveAll(anyList());
+    }
+
+    private void importUsers(String... emails) throws InterruptedException {
+        StreamObserver<CreateUserRequest> requests = UserServiceGrpc.newStub(channel).importUsers(new StreamObserver<>() {
+            @Override
+            public void onNext(ImportUsersResult result) {
+                results.add(result);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                error = t;
+                finished.countDown();
+            }
+
+            @Override
+            public void onCompleted() {
+                finished.countDown();
+            }
+        });
+        for (String email : emails) {
+            requests.onNext(CreateUserRequest.newBuilder().setName("User").setEmail(email).setPhone("555-0100").build());
+        }
+        requests.onCompleted();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private List<User> withIds(List<User> users) {
+        users.forEach(user -> user.setUserId(userIds.incrementAndGet()));
+        return users;
+    }
+}